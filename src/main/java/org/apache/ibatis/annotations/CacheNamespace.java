@@ -2,6 +2,7 @@ package org.apache.ibatis.annotations;
 
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheInvalidation;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -26,4 +27,8 @@ public @interface CacheNamespace {
     boolean readWrite() default true;
 
     boolean blocking() default false;
+
+    boolean singleFlight() default false;
+
+    CacheInvalidation invalidation() default CacheInvalidation.NAMESPACE;
 }
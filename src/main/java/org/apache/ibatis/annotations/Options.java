@@ -19,6 +19,11 @@ public @interface Options {
 
     boolean flushCache() default false;
 
+    /**
+     * 查询结果是否留在本地（一级）缓存中，与 xml 中的 useLocalCache 一致
+     */
+    boolean useLocalCache() default true;
+
     ResultSetType resultSetType() default ResultSetType.FORWARD_ONLY;
 
     StatementType statementType() default StatementType.PREPARED;
@@ -27,9 +32,30 @@ public @interface Options {
 
     int timeout() default -1;
 
+    /**
+     * 慢语句的阈值（毫秒），与 xml 中的 slowThreshold 一致，-1 表示用全局配置
+     */
+    int slowThreshold() default -1;
+
+    /**
+     * 语句日志的抽样间隔，与 xml 中的 logSampling 一致，-1 表示用全局配置
+     */
+    int logSampling() default -1;
+
     boolean useGeneratedKeys() default false;
 
     String keyProperty() default "id";
 
     String keyColumn() default "";
+
+    /**
+     * 结果集是否按结果映射的 id 列排好序，与 xml 中的 resultOrdered 一致。
+     * 为 true 时嵌套结果映射每完成一个顶层对象就交给结果处理器，不再保留整个结果集的对象
+     */
+    boolean resultOrdered() default false;
+
+    /**
+     * 该sql读写的表，逗号分隔，按表失效的二级缓存使用，不指定则从 sql 中解析
+     */
+    String tables() default "";
 }
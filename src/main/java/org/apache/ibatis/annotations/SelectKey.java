@@ -1,5 +1,6 @@
 package org.apache.ibatis.annotations;
 
+import org.apache.ibatis.mapping.KeyAllocationStrategy;
 import org.apache.ibatis.mapping.StatementType;
 
 import java.lang.annotation.ElementType;
@@ -25,4 +26,11 @@ public @interface SelectKey {
     Class<?> resultType();
 
     StatementType statementType() default StatementType.PREPARED;
+
+    /**
+     * 预分配主键的数量，大于1时每 allocationSize 次插入才执行一次主键语句（需要 before = true）
+     */
+    int allocationSize() default 1;
+
+    KeyAllocationStrategy allocationStrategy() default KeyAllocationStrategy.POOLED;
 }
@@ -0,0 +1,44 @@
+package org.apache.ibatis.binding;
+
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * 生成的映射器实现类的父类，<setting name="generateMapperClasses" value="true"/> 时使用
+ *
+ * 生成的类为映射器接口的每个方法写一个 return ($r) execute(下标, $args)，
+ * 调用映射器方法不再经过 InvocationHandler、Object 方法判断和 methodCache 查找，按下标直接拿到 MapperMethod；
+ * 之后与动态代理一样由 MapperMethod.execute 按语句类型分派
+ */
+public abstract class GeneratedMapper {
+
+    /**
+     * 构造器初始化
+     */
+    private final SqlSession sqlSession;
+
+    /**
+     * 所属的代理工厂，MapperMethod 按下标缓存在工厂里，所有会话共享
+     */
+    private final MapperProxyFactory<?> mapperProxyFactory;
+
+    protected GeneratedMapper(SqlSession sqlSession, MapperProxyFactory<?> mapperProxyFactory) {
+        this.sqlSession = sqlSession;
+        this.mapperProxyFactory = mapperProxyFactory;
+    }
+
+    /**
+     * 执行映射器方法
+     *
+     * @param index 方法在生成类中的下标
+     * @param args 方法入参数
+     * @return 函数执行结果
+     */
+    protected final Object execute(int index, Object[] args) {
+        return mapperProxyFactory.getMapperMethod(index, sqlSession).execute(sqlSession, args);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "@" + Integer.toHexString(hashCode());
+    }
+}
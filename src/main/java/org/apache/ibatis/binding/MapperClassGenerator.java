@@ -0,0 +1,172 @@
+package org.apache.ibatis.binding;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtConstructor;
+import javassist.CtMethod;
+import javassist.LoaderClassPath;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.SqlSession;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用 javassist 为映射器接口生成实现类
+ *
+ * 生成的类由 MapperProxyFactory 持有，这里不缓存，不会让映射器接口的类加载器无法回收。
+ * 生成的类只依赖接口本身（MapperProxyFactory 从构造方法传入），每个接口在它的类加载器里只定义一个类名固定的实现类，
+ * 重新创建 SqlSessionFactory 时复用已经定义过的类，不会无限制地往类加载器里加类；
+ * 生成失败（接口不可见、方法签名冲突等）时返回 null，由调用者退回到 JDK 动态代理
+ */
+final class MapperClassGenerator {
+
+    private static final Log log = LogFactory.getLog(MapperClassGenerator.class);
+
+    private static final String CLASS_SUFFIX = "$$GeneratedMapper";
+
+    private MapperClassGenerator() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * 生成映射器接口的实现类
+     *
+     * @param mapperInterface 映射器接口
+     * @return 生成失败时返回 null
+     */
+    static MapperClass generate(Class<?> mapperInterface) {
+        try {
+            return doGenerate(mapperInterface);
+        } catch (Throwable t) {
+            //javassist 不在 classpath 上也会走到这里
+            log.debug("Could not generate an implementation class for mapper " + mapperInterface.getName()
+                    + ", falling back to a JDK dynamic proxy.  Cause: " + t);
+            return null;
+        }
+    }
+
+    private static MapperClass doGenerate(Class<?> mapperInterface) throws Exception {
+        List<Method> methods = getAbstractMethods(mapperInterface);
+        if (methods == null) {
+            return null;
+        }
+        ClassLoader classLoader = mapperInterface.getClassLoader();
+        String className = mapperInterface.getName() + CLASS_SUFFIX;
+        //查找和定义放在一起，避免两个 Configuration 同时定义同一个类
+        synchronized (MapperClassGenerator.class) {
+            Class<?> type;
+            try {
+                type = Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                type = defineClass(mapperInterface, className, methods);
+            }
+            return new MapperClass(type.getConstructor(SqlSession.class, MapperProxyFactory.class), methods.toArray(new Method[methods.size()]));
+        }
+    }
+
+    private static Class<?> defineClass(Class<?> mapperInterface, String className, List<Method> methods) throws Exception {
+        ClassLoader classLoader = mapperInterface.getClassLoader();
+        ClassPool pool = new ClassPool(true);
+        pool.appendClassPath(new LoaderClassPath(classLoader));
+        pool.appendClassPath(new LoaderClassPath(GeneratedMapper.class.getClassLoader()));
+        CtClass ctClass = pool.makeClass(className, pool.get(GeneratedMapper.class.getName()));
+        ctClass.addInterface(pool.get(mapperInterface.getName()));
+        ctClass.setModifiers(javassist.Modifier.PUBLIC | javassist.Modifier.FINAL);
+
+        CtConstructor constructor = new CtConstructor(new CtClass[] { pool.get(SqlSession.class.getName()), pool.get(MapperProxyFactory.class.getName()) }, ctClass);
+        constructor.setBody("{ super($1, $2); }");
+        ctClass.addConstructor(constructor);
+
+        for (int i = 0; i < methods.size(); i++) {
+            Method method = methods.get(i);
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            CtClass[] ctParameterTypes = new CtClass[parameterTypes.length];
+            for (int j = 0; j < parameterTypes.length; j++) {
+                ctParameterTypes[j] = pool.get(parameterTypes[j].getName());
+            }
+            CtMethod ctMethod = new CtMethod(pool.get(method.getReturnType().getName()), method.getName(), ctParameterTypes, ctClass);
+            //void 方法 ($r) 什么都不做，基本类型 ($r) 会拆箱
+            ctMethod.setBody("{ return ($r) execute(" + i + ", $args); }");
+            ctClass.addMethod(ctMethod);
+        }
+
+        Class<?> type = ctClass.toClass(classLoader, mapperInterface.getProtectionDomain());
+        ctClass.detach();
+        return type;
+    }
+
+    /**
+     * 需要实现的方法，按名字和参数类型去重，并按签名排序：复用已经定义过的类时，方法下标必须与生成时一致
+     *
+     * @return 同名同参数的方法返回类型不同（协变返回）时返回 null，这种情况需要桥接方法，交给 JDK 动态代理
+     */
+    private static List<Method> getAbstractMethods(Class<?> mapperInterface) {
+        Map<String, Method> signatures = new HashMap<String, Method>();
+        List<Method> methods = new ArrayList<Method>();
+        for (Method method : mapperInterface.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers())) {
+                //java 8 的 default 方法不用实现
+                continue;
+            }
+            String signature = signature(method);
+            Method existing = signatures.get(signature);
+            if (existing == null) {
+                signatures.put(signature, method);
+                methods.add(method);
+            } else if (!existing.getReturnType().equals(method.getReturnType())) {
+                return null;
+            }
+        }
+        Collections.sort(methods, new Comparator<Method>() {
+            @Override
+            public int compare(Method o1, Method o2) {
+                return signature(o1).compareTo(signature(o2));
+            }
+        });
+        return methods;
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
+    }
+
+    /**
+     * 生成的实现类
+     */
+    static final class MapperClass {
+
+        private final Constructor<?> constructor;
+
+        /**
+         * 下标与生成的方法一一对应
+         */
+        private final Method[] methods;
+
+        MapperClass(Constructor<?> constructor, Method[] methods) {
+            this.constructor = constructor;
+            this.methods = methods;
+        }
+
+        Method[] getMethods() {
+            return methods;
+        }
+
+        Object newInstance(SqlSession sqlSession, MapperProxyFactory<?> mapperProxyFactory) {
+            try {
+                return constructor.newInstance(sqlSession, mapperProxyFactory);
+            } catch (Exception e) {
+                throw new BindingException("Error creating mapper " + constructor.getDeclaringClass().getName() + ".  Cause: " + e, e);
+            }
+        }
+    }
+}
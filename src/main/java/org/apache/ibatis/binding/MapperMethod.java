@@ -3,12 +3,17 @@ package org.apache.ibatis.binding;
 import lombok.Getter;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.executor.pagination.KeysetPagination;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetList;
+import org.apache.ibatis.session.KeysetPage;
+import org.apache.ibatis.session.PageList;
+import org.apache.ibatis.session.PageableSqlSession;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -16,6 +21,7 @@ import org.apache.ibatis.session.SqlSession;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -196,7 +202,21 @@ public class MapperMethod {
         Object param = method.convertArgsToSqlCommandParam(args);
         //如：org.apache.ibatis.submitted.sptests.SPMapper.adderAsSelect
         String commandName = command.getName();
-        if (method.hasRowBounds()) {
+        if (method.hasKeysetPage()) {
+            //键集分页，顺便算出下一页的页标记
+            KeysetPage page = method.extractKeysetPage(args);
+            List<E> rows = sqlSession.selectList(commandName, param, page);
+            MappedStatement mappedStatement = sqlSession.getConfiguration().getMappedStatement(commandName);
+            result = new KeysetList<E>(rows, KeysetPagination.nextPage(sqlSession.getConfiguration(), mappedStatement, rows, page));
+        } else if (PageList.class.isAssignableFrom(method.getReturnType())) {
+            //返回 PageList 时顺便执行派生的 COUNT 查询
+            if (!(sqlSession instanceof PageableSqlSession)) {
+                throw new BindingException("Mapper method '" + commandName + "' returns PageList, which requires a "
+                        + PageableSqlSession.class.getSimpleName() + " but got " + sqlSession.getClass().getName());
+            }
+            RowBounds rowBounds = method.hasRowBounds() ? method.extractRowBounds(args) : RowBounds.DEFAULT;
+            result = ((PageableSqlSession) sqlSession).selectPage(commandName, param, rowBounds);
+        } else if (method.hasRowBounds()) {
             RowBounds rowBounds = method.extractRowBounds(args);
             result = sqlSession.selectList(commandName, param, rowBounds);
         } else {
@@ -243,11 +263,23 @@ public class MapperMethod {
         return result;
     }
 
-    //参数map，静态内部类,更严格的get方法，如果没有相应的key，报错
+    /**
+     * 参数map，静态内部类,更严格的get方法，如果没有相应的key，报错
+     *
+     * 参数名和取值下标由 {@link ParamLayout} 事先算好，每次调用只按布局把参数放进来，容量一次给够不会扩容
+     */
     public static class ParamMap<V> extends HashMap<String, V> {
 
         private static final long serialVersionUID = -2212268410512043556L;
 
+        public ParamMap() {
+            super();
+        }
+
+        ParamMap(int initialCapacity) {
+            super(initialCapacity);
+        }
+
         @Override
         public V get(Object key) {
             if (!super.containsKey(key)) {
@@ -257,6 +289,49 @@ public class MapperMethod {
         }
     }
 
+    /**
+     * 一个映射器方法的参数名布局，由 MethodSignature 事先算好
+     */
+    static final class ParamLayout {
+
+        static final ParamLayout EMPTY = new ParamLayout(new String[0], new int[0]);
+
+        /**
+         * 参数名，#{0}/#{id} 和 #{finalParamMap1} 各占一个
+         */
+        private final String[] names;
+
+        /**
+         * 每个参数名对应的值在方法入参数组中的下标
+         */
+        private final int[] slots;
+
+        /**
+         * 放下全部参数名不需要扩容的 HashMap 初始容量
+         */
+        private final int capacity;
+
+        ParamLayout(String[] names, int[] slots) {
+            this.names = names;
+            this.slots = slots;
+            this.capacity = names.length * 4 / 3 + 1;
+        }
+
+        /**
+         * 只放绑定了名字的参数，RowBounds、ResultHandler 不会进来
+         *
+         * @param args 方法入参数组
+         * @return 参数map
+         */
+        ParamMap<Object> toParamMap(Object[] args) {
+            ParamMap<Object> param = new ParamMap<Object>(capacity);
+            for (int i = 0; i < names.length; i++) {
+                param.put(names[i], args[slots[i]]);
+            }
+            return param;
+        }
+    }
+
     //SQL命令，静态内部类
     public static class SqlCommand {
 
@@ -328,6 +403,11 @@ public class MapperMethod {
 
         private final Integer rowBoundsIndex;
 
+        /**
+         * KeysetPage 也是 RowBounds，rowBoundsIndex 同样指向它
+         */
+        private final Integer keysetPageIndex;
+
         /**
          * 是否有 @Param 注解
          */
@@ -338,6 +418,16 @@ public class MapperMethod {
          */
         private final SortedMap<Integer, String> paramsIndexMap;
 
+        /**
+         * 多个参数时 ParamMap 的参数名布局，没有参数时为 null
+         */
+        private final ParamLayout paramLayout;
+
+        /**
+         * 没有 @Param 注解并且只有一个参数时，该参数的下标，否则为 -1
+         */
+        private final int singleParamIndex;
+
         public MethodSignature(Configuration configuration, Method method) {
             this.returnType = method.getReturnType();
             this.returnsVoid = void.class.equals(this.returnType);
@@ -350,6 +440,8 @@ public class MapperMethod {
             //以下重复循环2遍调用getUniqueParamIndex，是不是降低效率了
             //记下RowBounds是第几个参数
             this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
+            //键集分页的页标记是第几个参数
+            this.keysetPageIndex = getUniqueParamIndex(method, KeysetPage.class);
             //记下ResultHandler是第几个参数
             this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
 
@@ -358,6 +450,16 @@ public class MapperMethod {
             //key:下标。value:名称或者下标
             SortedMap<Integer, String> params = getParamsIndexMap(method, this.hasNamedParameters);
             this.paramsIndexMap = Collections.unmodifiableSortedMap(params);
+            if (params.isEmpty()) {
+                this.paramLayout = null;
+                this.singleParamIndex = -1;
+            } else if (!hasNamedParameters && params.size() == 1) {
+                this.paramLayout = ParamLayout.EMPTY;
+                this.singleParamIndex = params.firstKey();
+            } else {
+                this.paramLayout = getParamLayout(params);
+                this.singleParamIndex = -1;
+            }
         }
 
         /**
@@ -372,49 +474,16 @@ public class MapperMethod {
          * @return 多个参数返回
          */
         public Object convertArgsToSqlCommandParam(Object[] args) {
-            //该方法参数数量，不包括分页参数跟结果处理器参数
-            final int paramCount = paramsIndexMap.size();
-            if (args == null || paramCount == 0) {
+            if (args == null || paramLayout == null) {
                 //如果没参数
                 return null;
-            } else if (!hasNamedParameters && paramCount == 1) {//没有 @Param 注解，并且只有唯一的参数
+            } else if (singleParamIndex >= 0) {//没有 @Param 注解，并且只有唯一的参数
                 //如果只有一个参数
-                Set<Integer> indexSet = paramsIndexMap.keySet();
-                Integer firstParamIndex = indexSet.iterator().next();
-                return args[firstParamIndex];
+                return args[singleParamIndex];
             } else {
-                //否则，返回一个ParamMap，修改参数名，参数名就是其位置
-
+                //否则，返回一个ParamMap，{"subjectQuery":"%a%","bodyQuery":"%a%","finalParamMap1":"%a%","finalParamMap2":"%a%"}
                 //根据 key get 不到值就会抛出异常
-                final Map<String, Object> finalParamMap = new ParamMap<Object>();
-                int i = 0;
-                Set<Map.Entry<Integer, String>> entries = paramsIndexMap.entrySet();
-                for (Map.Entry<Integer, String> entry : entries) {
-                    //参数在方法中的位置，从0开始
-                    Integer paramIndex = entry.getKey();
-                    //如果不是 @Param 参数，则与 paramIndex 相同
-                    String paramIndexOrParamName = entry.getValue();
-
-                    //真正的参数值
-                    Object argValue = args[paramIndex];
-                    //1.先加一个#{0},#{1},#{2}...参数
-                    finalParamMap.put(paramIndexOrParamName, argValue);
-                    // issue #71, add finalParamMap names as param1, param2...but ensure backward compatibility
-
-                    //下面的逻辑已经不用了
-                    final String genericParamName = "finalParamMap" + (i + 1);
-                    if (!finalParamMap.containsKey(genericParamName)) {
-                        //2.再加一个#{param1},#{param2}...参数
-                        //你可以传递多个参数给一个映射器方法。如果你这样做了,
-                        //默认情况下它们将会以它们在参数列表中的位置来命名,比如:#{param1},#{param2}等。
-                        //如果你想改变参数的名称(只在多参数情况下) ,那么你可以在参数上使用@Param(“paramName”)注解。
-                        //此处为了向老版本兼容，故在map中保存着两份参数，一份是老版的与#{0}为键的参数另一种为以#{param1}为键的参数。
-                        finalParamMap.put(genericParamName, argValue);
-                    }
-                    i++;
-                }
-                //{"subjectQuery":"%a%","bodyQuery":"%a%","param1":"%a%","param2":"%a%"}
-                return finalParamMap;
+                return paramLayout.toParamMap(args);
             }
         }
 
@@ -429,6 +498,14 @@ public class MapperMethod {
             return hasRowBounds() ? rowBounds : null;
         }
 
+        public boolean hasKeysetPage() {
+            return keysetPageIndex != null;
+        }
+
+        public KeysetPage extractKeysetPage(Object[] args) {
+            return hasKeysetPage() ? (KeysetPage) args[keysetPageIndex] : null;
+        }
+
         public boolean hasResultHandler() {
             return resultHandlerIndex != null;
         }
@@ -488,6 +565,47 @@ public class MapperMethod {
             return mapKey;
         }
 
+        /**
+         * 算出 ParamMap 的参数名布局
+         *
+         * @param params 参数下标跟名称或者序号的映射
+         * @return 参数名布局
+         */
+        private ParamLayout getParamLayout(SortedMap<Integer, String> params) {
+            List<String> names = new ArrayList<String>();
+            List<Integer> slots = new ArrayList<Integer>();
+            int i = 0;
+            for (Map.Entry<Integer, String> entry : params.entrySet()) {
+                //1.先加一个#{0},#{1},#{2}...参数，如果有 @Param 则是 @Param 的名字
+                addParamName(names, slots, entry.getValue(), entry.getKey());
+                // issue #71, add finalParamMap names as param1, param2...but ensure backward compatibility
+                //2.再加一个#{finalParamMap1},#{finalParamMap2}...参数，与 @Param 的名字重复时不加
+                String genericParamName = "finalParamMap" + (i + 1);
+                if (!names.contains(genericParamName)) {
+                    addParamName(names, slots, genericParamName, entry.getKey());
+                }
+                i++;
+            }
+            int[] slotArray = new int[slots.size()];
+            for (int j = 0; j < slotArray.length; j++) {
+                slotArray[j] = slots.get(j);
+            }
+            return new ParamLayout(names.toArray(new String[names.size()]), slotArray);
+        }
+
+        /**
+         * 同名的参数后面的覆盖前面的，与原来依次放进 HashMap 的效果一致
+         */
+        private void addParamName(List<String> names, List<Integer> slots, String name, int slot) {
+            int index = names.indexOf(name);
+            if (index >= 0) {
+                slots.set(index, slot);
+            } else {
+                names.add(name);
+                slots.add(slot);
+            }
+        }
+
         /**
          * 得到所有参数，并且把他们放到有序映射
          *
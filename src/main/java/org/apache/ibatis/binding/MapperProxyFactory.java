@@ -37,6 +37,21 @@ public class MapperProxyFactory<T> {
     @Getter
     private Map<Method, MapperMethod> methodCache = new ConcurrentHashMap<Method, MapperMethod>();
 
+    /**
+     * 生成的实现类，第一次用到时生成，随工厂（也就是 Configuration）一起回收
+     */
+    private volatile MapperClassGenerator.MapperClass generatedClass;
+
+    /**
+     * 生成失败过，之后一直用 JDK 动态代理
+     */
+    private volatile boolean generationFailed;
+
+    /**
+     * 按下标缓存生成类中每个方法对应的 MapperMethod
+     */
+    private volatile MapperMethod[] mapperMethods;
+
     /**
      * 一般通过该方法获取代理的mapper对象
      *
@@ -44,6 +59,12 @@ public class MapperProxyFactory<T> {
      * @return mapper代理实例对象
      */
     public T newInstance(SqlSession sqlSession) {
+        if (sqlSession.getConfiguration().isGenerateMapperClasses()) {
+            T mapper = newGeneratedInstance(sqlSession);
+            if (mapper != null) {
+                return mapper;
+            }
+        }
         final MapperProxy<T> mapperProxy = new MapperProxy<T>(sqlSession, mapperInterfaceClass, methodCache);
         return newInstance(mapperProxy);
     }
@@ -56,6 +77,57 @@ public class MapperProxyFactory<T> {
         return (T) Proxy.newProxyInstance(classLoader, classes, mapperProxy);
     }
 
+    /**
+     * 用生成的实现类创建映射器，只创建一个对象
+     *
+     * @return 无法生成实现类时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private T newGeneratedInstance(SqlSession sqlSession) {
+        MapperClassGenerator.MapperClass mapperClass = generatedClass;
+        if (mapperClass == null) {
+            if (generationFailed) {
+                return null;
+            }
+            synchronized (this) {
+                mapperClass = generatedClass;
+                if (mapperClass == null) {
+                    mapperClass = MapperClassGenerator.generate(mapperInterfaceClass);
+                    if (mapperClass == null) {
+                        generationFailed = true;
+                        return null;
+                    }
+                    //先放好 mapperMethods 再发布 generatedClass
+                    mapperMethods = new MapperMethod[mapperClass.getMethods().length];
+                    generatedClass = mapperClass;
+                }
+            }
+        }
+        return (T) mapperClass.newInstance(sqlSession, this);
+    }
+
+    /**
+     * 获取生成的实现类中第 index 个方法对应的 MapperMethod
+     *
+     * @param index 方法下标
+     * @param sqlSession 只在第一次创建 MapperMethod 时用到
+     * @return 映射方法
+     */
+    MapperMethod getMapperMethod(int index, SqlSession sqlSession) {
+        MapperMethod mapperMethod = mapperMethods[index];
+        if (mapperMethod == null) {
+            //与 MapperProxy 共用 methodCache；MapperMethod 不可变，并发时重复创建也没关系
+            Method method = generatedClass.getMethods()[index];
+            mapperMethod = methodCache.get(method);
+            if (mapperMethod == null) {
+                mapperMethod = new MapperMethod(mapperInterfaceClass, method, sqlSession.getConfiguration());
+                methodCache.put(method, mapperMethod);
+            }
+            mapperMethods[index] = mapperMethod;
+        }
+        return mapperMethod;
+    }
+
     public MapperProxyFactory(Class<T> mapperInterface) {
         this.mapperInterfaceClass = mapperInterface;
     }
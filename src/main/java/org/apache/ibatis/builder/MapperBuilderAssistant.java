@@ -7,6 +7,7 @@ import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.mapping.CacheInvalidation;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
@@ -132,6 +133,11 @@ public class MapperBuilderAssistant extends BaseBuilder {
         }
     }
 
+    public Cache useNewCache(Class<? extends Cache> typeClass, Class<? extends Cache> evictionClass,
+            Long flushInterval, Integer size, boolean readWrite, boolean blocking, Properties props) {
+        return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, false, CacheInvalidation.NAMESPACE, props);
+    }
+
     /**
      * 生成 namespace 的二级 cache 实例
      *
@@ -141,11 +147,13 @@ public class MapperBuilderAssistant extends BaseBuilder {
      * @param size 大写
      * @param readWrite 读写
      * @param blocking 足赛
+     * @param singleFlight 合并并发的相同查询
+     * @param invalidation 失效方式
      * @param props 属性配置
      * @return 生成cache
      */
     public Cache useNewCache(Class<? extends Cache> typeClass, Class<? extends Cache> evictionClass,
-            Long flushInterval, Integer size, boolean readWrite, boolean blocking, Properties props) {
+            Long flushInterval, Integer size, boolean readWrite, boolean blocking, boolean singleFlight, CacheInvalidation invalidation, Properties props) {
         //这里面又判断了一下是否为null就用默认值，有点和XMLMapperBuilder.cacheElement逻辑重复了
         typeClass = valueOrDefault(typeClass, PerpetualCache.class);
         evictionClass = valueOrDefault(evictionClass, LruCache.class);
@@ -158,6 +166,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
                 .size(size)
                 .readWrite(readWrite)
                 .blocking(blocking)
+                .singleFlight(singleFlight)
+                .tableInvalidation(invalidation == CacheInvalidation.TABLE)
                 .properties(props)
                 .build();
         //加入缓存
@@ -310,6 +320,24 @@ public class MapperBuilderAssistant extends BaseBuilder {
             Class<?> parameterType, String resultMap, Class<?> resultType, ResultSetType resultSetType,
             boolean flushCache, boolean useCache, boolean resultOrdered, KeyGenerator keyGenerator,
             String keyProperty, String keyColumn, String databaseId, LanguageDriver lang, String resultSets) {
+        return addMappedStatement(id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+                parameterMap, parameterType, resultMap, resultType, resultSetType,
+                flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+                keyColumn, databaseId, lang, resultSets, new StatementOptions());
+    }
+
+    /**
+     * 增加映射语句，同上
+     *
+     * @param options 附加选项：读写的表、是否用本地缓存、慢语句阈值、日志抽样间隔
+     * @return MappedStatement
+     */
+    public MappedStatement addMappedStatement(String id, SqlSource sqlSource, StatementType statementType,
+            SqlCommandType sqlCommandType, Integer fetchSize, Integer timeout, String parameterMap,
+            Class<?> parameterType, String resultMap, Class<?> resultType, ResultSetType resultSetType,
+            boolean flushCache, boolean useCache, boolean resultOrdered, KeyGenerator keyGenerator,
+            String keyProperty, String keyColumn, String databaseId, LanguageDriver lang, String resultSets,
+            StatementOptions options) {
 
         if (unresolvedCacheRef) {
             throw new IncompleteElementException("Cache-ref not yet resolved");
@@ -334,6 +362,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
         statementBuilder.lang(lang);
         statementBuilder.resultOrdered(resultOrdered);
         statementBuilder.resultSets(resultSets);
+        options.applyTo(statementBuilder);
 
         //设置超时时间，如果该sql没有单独指定超时时间，在是默认的配置
         setStatementTimeout(timeout, statementBuilder);
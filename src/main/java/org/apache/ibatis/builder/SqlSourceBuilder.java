@@ -11,6 +11,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -68,6 +69,22 @@ public class SqlSourceBuilder extends BaseBuilder {
         return new StaticSqlSource(configuration, sql, parameterMappingList);
     }
 
+    /**
+     * 用编译期已经替换好 ? 的 sql 构建 SqlSource，见 {@link org.apache.ibatis.builder.annotation.PrecompiledSqlProcessor}
+     *
+     * @param sqlWithQuestionMarks #{} 已经替换成 ? 的 sql
+     * @param parameterContents 每个 ? 原来 #{} 中的内容，按顺序
+     * @param parameterType 参数类型
+     * @return 与 parse 结果相同的静态 SqlSource
+     */
+    public SqlSource build(String sqlWithQuestionMarks, String[] parameterContents, Class<?> parameterType) {
+        ParameterMappingTokenHandler tokenHandler = new ParameterMappingTokenHandler(configuration, parameterType, new HashMap<String, Object>());
+        for (String parameterContent : parameterContents) {
+            tokenHandler.handleToken(parameterContent);
+        }
+        return new StaticSqlSource(configuration, sqlWithQuestionMarks, tokenHandler.getParameterMappings());
+    }
+
     //参数映射记号处理器，静态内部类
     private static class ParameterMappingTokenHandler extends BaseBuilder implements TokenHandler {
 
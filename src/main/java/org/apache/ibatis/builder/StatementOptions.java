@@ -0,0 +1,54 @@
+package org.apache.ibatis.builder;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * 映射语句的附加选项：读写的表、是否用本地缓存、慢语句阈值以及日志抽样间隔。
+ * 由 {@link MapperBuilderAssistant#addMappedStatement} 统一接收，避免为每个新选项再加一个重载
+ */
+public class StatementOptions {
+
+    private String tables;
+    private boolean useLocalCache = true;
+    private Integer slowThreshold;
+    private Integer logSampling;
+
+    /**
+     * @param tables 该sql读写的表，逗号分隔，按表失效的二级缓存使用，为 null 则从 sql 中解析
+     */
+    public StatementOptions tables(String tables) {
+        this.tables = tables;
+        return this;
+    }
+
+    /**
+     * @param useLocalCache 查询结果是否留在本地缓存中，默认 true
+     */
+    public StatementOptions useLocalCache(boolean useLocalCache) {
+        this.useLocalCache = useLocalCache;
+        return this;
+    }
+
+    /**
+     * @param slowThreshold 慢语句的阈值（毫秒），null 表示用全局配置
+     */
+    public StatementOptions slowThreshold(Integer slowThreshold) {
+        this.slowThreshold = slowThreshold;
+        return this;
+    }
+
+    /**
+     * @param logSampling 语句日志的抽样间隔，null 表示用全局的 statementLogSampling
+     */
+    public StatementOptions logSampling(Integer logSampling) {
+        this.logSampling = logSampling;
+        return this;
+    }
+
+    void applyTo(MappedStatement.Builder statementBuilder) {
+        statementBuilder.tables(tables);
+        statementBuilder.useLocalCache(useLocalCache);
+        statementBuilder.slowThreshold(slowThreshold);
+        statementBuilder.statementLogSampling(logSampling);
+    }
+}
@@ -27,10 +27,13 @@ import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StatementOptions;
+import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.keygen.PooledSelectKeyGenerator;
 import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.Discriminator;
@@ -43,6 +46,7 @@ import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -85,6 +89,11 @@ public class MapperAnnotationBuilder {
 
     private Class<?> mapperCLass;
 
+    /**
+     * 注解处理器生成的 sql，key:声明映射器方法的接口，只在解析这个映射器期间保存
+     */
+    private final Map<Class<?>, PrecompiledSql> precompiledSqls = new HashMap<Class<?>, PrecompiledSql>();
+
     public MapperAnnotationBuilder(Configuration configuration, Class<?> mapperClass) {
         String resource = mapperClass.getName().replace('.', '/') + ".java (best guess)";
         this.assistant = new MapperBuilderAssistant(configuration, resource);
@@ -166,7 +175,7 @@ public class MapperAnnotationBuilder {
         if (cacheDomain != null) {
             Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
             Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
-            assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), null);
+            assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), cacheDomain.singleFlight(), cacheDomain.invalidation(), null);
         }
     }
 
@@ -251,6 +260,8 @@ public class MapperAnnotationBuilder {
             final String mappedStatementId = mapperCLass.getName() + "." + method.getName();
             Integer fetchSize = null;
             Integer timeout = null;
+            Integer slowThreshold = null;
+            Integer logSampling = null;
             StatementType statementType = StatementType.PREPARED;
             ResultSetType resultSetType = ResultSetType.FORWARD_ONLY;
             //crud类型
@@ -260,10 +271,13 @@ public class MapperAnnotationBuilder {
             boolean flushCache = !isSelect;
             //如果是查询，使用缓存
             boolean useCache = isSelect;
+            boolean resultOrdered = false;
+            boolean useLocalCache = true;
 
             KeyGenerator keyGenerator;
             String keyProperty = "id";
             String keyColumn = null;
+            String tables = null;
             if (SqlCommandType.INSERT.equals(sqlCommandType) || SqlCommandType.UPDATE.equals(sqlCommandType)) {
                 // first check for SelectKey annotation - that overrides everything else
                 SelectKey selectKey = method.getAnnotation(SelectKey.class);
@@ -284,10 +298,15 @@ public class MapperAnnotationBuilder {
             if (options != null) {
                 flushCache = options.flushCache();
                 useCache = options.useCache();
+                resultOrdered = options.resultOrdered();
+                useLocalCache = options.useLocalCache();
                 fetchSize = options.fetchSize() > -1 || options.fetchSize() == Integer.MIN_VALUE ? options.fetchSize() : null; //issue #348
                 timeout = options.timeout() > -1 ? options.timeout() : null;
+                slowThreshold = options.slowThreshold() > -1 ? options.slowThreshold() : null;
+                logSampling = options.logSampling() > -1 ? options.logSampling() : null;
                 statementType = options.statementType();
                 resultSetType = options.resultSetType();
+                tables = options.tables();
             }
 
             String resultMapId = null;
@@ -321,8 +340,7 @@ public class MapperAnnotationBuilder {
                     resultSetType,
                     flushCache,
                     useCache,
-                    // TODO issue #577
-                    false,
+                    resultOrdered,
                     keyGenerator,
                     keyProperty,
                     keyColumn,
@@ -330,7 +348,12 @@ public class MapperAnnotationBuilder {
                     null,
                     languageDriver,
                     // ResultSets
-                    null);
+                    null,
+                    new StatementOptions()
+                            .tables(tables)
+                            .useLocalCache(useLocalCache)
+                            .slowThreshold(slowThreshold)
+                            .logSampling(logSampling));
         }
     }
 
@@ -415,6 +438,11 @@ public class MapperAnnotationBuilder {
                 }
                 Annotation sqlAnnotation = method.getAnnotation(sqlAnnotationType);
                 final String[] strings = (String[]) sqlAnnotation.getClass().getMethod("value").invoke(sqlAnnotation);
+                //编译期已经处理好的 sql 直接用
+                SqlSource precompiledSqlSource = getPrecompiledSqlSource(method, strings, parameterType, languageDriver);
+                if (precompiledSqlSource != null) {
+                    return precompiledSqlSource;
+                }
                 return buildSqlSourceFromStrings(strings, parameterType, languageDriver);
             } else if (sqlProviderAnnotationType != null) {
                 Annotation sqlProviderAnnotation = method.getAnnotation(sqlProviderAnnotationType);
@@ -427,12 +455,43 @@ public class MapperAnnotationBuilder {
     }
 
     private SqlSource buildSqlSourceFromStrings(String[] strings, Class<?> parameterTypeClass, LanguageDriver languageDriver) {
+        return languageDriver.createSqlSource(configuration, joinSqlFragments(strings), parameterTypeClass);
+    }
+
+    /**
+     * 各段 sql 之间用空格连接，PrecompiledSqlProcessor 在编译期也按同样的方式连接
+     */
+    public static String joinSqlFragments(String[] strings) {
         final StringBuilder sql = new StringBuilder();
         for (String fragment : strings) {
             sql.append(fragment);
             sql.append(" ");
         }
-        return languageDriver.createSqlSource(configuration, sql.toString(), parameterTypeClass);
+        return sql.toString();
+    }
+
+    /**
+     * 使用注解处理器生成的 sql，只有默认的 XMLLanguageDriver 下的静态 sql 才会被预编译
+     *
+     * @return 没有预编译的 sql 时返回 null
+     */
+    private SqlSource getPrecompiledSqlSource(Method method, String[] strings, Class<?> parameterTypeClass, LanguageDriver languageDriver) {
+        if (languageDriver.getClass() != XMLLanguageDriver.class) {
+            return null;
+        }
+        Class<?> declaringClass = method.getDeclaringClass();
+        PrecompiledSql precompiledSql = precompiledSqls.get(declaringClass);
+        if (precompiledSql == null) {
+            precompiledSql = PrecompiledSql.forClass(declaringClass);
+            precompiledSqls.put(declaringClass, precompiledSql);
+        }
+        PrecompiledSql.Statement statement = precompiledSql.lookup(method, joinSqlFragments(strings));
+        if (statement == null) {
+            return null;
+        }
+        //与 RawSqlSource 一致
+        Class<?> clazz = parameterTypeClass == null ? Object.class : parameterTypeClass;
+        return new SqlSourceBuilder(configuration).build(statement.getSql(), statement.getParameterContents(), clazz);
     }
 
     private SqlCommandType getSqlCommandType(Method method) {
@@ -593,7 +652,15 @@ public class MapperAnnotationBuilder {
         id = assistant.applyCurrentNamespace(id, false);
 
         MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-        SelectKeyGenerator answer = new SelectKeyGenerator(keyStatement, executeBefore);
+        KeyGenerator answer;
+        if (selectKeyAnnotation.allocationSize() > 1) {
+            if (!executeBefore || keyStatement.getKeyProperties() == null || keyStatement.getKeyProperties().length != 1) {
+                throw new BuilderException("SelectKey " + id + " with allocationSize requires before=true and exactly one keyProperty.");
+            }
+            answer = new PooledSelectKeyGenerator(keyStatement, selectKeyAnnotation.allocationSize(), selectKeyAnnotation.allocationStrategy());
+        } else {
+            answer = new SelectKeyGenerator(keyStatement, executeBefore);
+        }
         configuration.addKeyGenerator(id, answer);
         return answer;
     }
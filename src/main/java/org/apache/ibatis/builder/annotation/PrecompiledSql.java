@@ -0,0 +1,105 @@
+package org.apache.ibatis.builder.annotation;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 编译期处理好的映射器 sql，由 {@link PrecompiledSqlProcessor} 为每个映射器接口生成一个子类 接口名$$PrecompiledSql
+ *
+ * 启动时 MapperAnnotationBuilder 直接使用其中已经把 #{} 替换成 ? 的 sql，不再解析注解中的 sql 文本；
+ * 注解中的原始 sql 也一并保存，与运行时的注解不一致（接口重新编译过而生成类没有更新）时不使用
+ */
+public abstract class PrecompiledSql {
+
+    /**
+     * 生成类名的后缀
+     */
+    public static final String CLASS_SUFFIX = "$$PrecompiledSql";
+
+    private static final PrecompiledSql NONE = new PrecompiledSql() {
+    };
+
+    /**
+     * key:方法名(参数类型,...)
+     */
+    private final Map<String, Statement> statements = new HashMap<String, Statement>();
+
+    /**
+     * 生成类在构造器中注册每个方法的 sql
+     *
+     * @param methodKey 方法名(参数类型,...)，参数类型是擦除后的规范名
+     * @param originalSql 注解中的 sql，各段之间用空格连接
+     * @param sql #{} 替换成 ? 之后的 sql
+     * @param parameterContents 每个 ? 原来 #{} 中的内容
+     */
+    protected final void statement(String methodKey, String originalSql, String sql, String... parameterContents) {
+        statements.put(methodKey, new Statement(originalSql, sql, parameterContents));
+    }
+
+    /**
+     * 加载映射器接口的生成类，不缓存，由 MapperAnnotationBuilder 在解析一个映射器期间保存查找结果
+     *
+     * @param mapperType 声明映射器方法的接口
+     * @return 没有生成类时返回一个空的实例
+     */
+    static PrecompiledSql forClass(Class<?> mapperType) {
+        try {
+            Class<?> type = Class.forName(mapperType.getName() + CLASS_SUFFIX, true, mapperType.getClassLoader());
+            return (PrecompiledSql) type.newInstance();
+        } catch (Exception e) {
+            //没有用注解处理器编译，正常情况
+            return NONE;
+        }
+    }
+
+    /**
+     * 查找方法的预编译 sql
+     *
+     * @param method 映射器方法，必须是生成这个类的接口中声明的
+     * @param originalSql 运行时注解中的 sql，各段之间用空格连接
+     * @return 没有生成类或者已经过期时返回 null
+     */
+    Statement lookup(Method method, String originalSql) {
+        Statement statement = statements.get(methodKey(method));
+        return statement != null && statement.originalSql.equals(originalSql) ? statement : null;
+    }
+
+    private static String methodKey(Method method) {
+        StringBuilder key = new StringBuilder(method.getName()).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(parameterTypes[i].getCanonicalName());
+        }
+        return key.append(')').toString();
+    }
+
+    /**
+     * 一个方法的预编译 sql
+     */
+    static final class Statement {
+
+        private final String originalSql;
+
+        private final String sql;
+
+        private final String[] parameterContents;
+
+        Statement(String originalSql, String sql, String[] parameterContents) {
+            this.originalSql = originalSql;
+            this.sql = sql;
+            this.parameterContents = parameterContents;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        String[] getParameterContents() {
+            return parameterContents;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package org.apache.ibatis.builder.annotation;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.parsing.GenericTokenParser;
+import org.apache.ibatis.parsing.TokenHandler;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 映射器 sql 的预编译处理器，编译时加上 -processor org.apache.ibatis.builder.annotation.PrecompiledSqlProcessor 启用
+ *
+ * 只做一件事：为每个带 @Select/@Insert/@Update/@Delete 的映射器接口生成一个 {@link PrecompiledSql} 子类，
+ * 其中是已经把 #{} 替换成 ? 的 sql 和每个 ? 的参数内容，启动时不再解析 sql 文本。
+ * 只处理静态 sql：以 <script> 开头或者含有 ${} 的 sql 仍然在运行时解析。
+ * 映射语句、结果映射仍然由 MapperAnnotationBuilder 在启动时构建，映射器实现也不在编译期生成。
+ *
+ * 同时检查全部参数都有 @Param 的方法中 #{} 引用的参数名，写错时编译报错，而不是等到执行时报 BindingException。
+ *
+ * 认领 org.apache.ibatis.annotations 下的全部注解，这些注解只有 MyBatis 自己使用，
+ * 不认领的话 -Xlint:processing 会对每个映射器报 No processor claimed any of these annotations
+ */
+@SupportedAnnotationTypes("org.apache.ibatis.annotations.*")
+public class PrecompiledSqlProcessor extends AbstractProcessor {
+
+    /**
+     * 与 MapperMethod.ParamMap 中的通用参数名一致
+     */
+    private static final String GENERIC_NAME_PREFIX = "finalParamMap";
+
+    private static final Set<String> SQL_ANNOTATIONS = new HashSet<String>(Arrays.asList(Select.class.getName(),
+            Insert.class.getName(), Update.class.getName(), Delete.class.getName()));
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        //key:映射器接口，value:接口中需要预编译的方法
+        Map<TypeElement, List<ExecutableElement>> mappers = new LinkedHashMap<TypeElement, List<ExecutableElement>>();
+        for (TypeElement annotation : annotations) {
+            if (!SQL_ANNOTATIONS.contains(annotation.getQualifiedName().toString())) {
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD || element.getEnclosingElement().getKind() != ElementKind.INTERFACE) {
+                    continue;
+                }
+                TypeElement mapper = (TypeElement) element.getEnclosingElement();
+                List<ExecutableElement> methods = mappers.get(mapper);
+                if (methods == null) {
+                    methods = new ArrayList<ExecutableElement>();
+                    mappers.put(mapper, methods);
+                }
+                if (!methods.contains(element)) {
+                    methods.add((ExecutableElement) element);
+                }
+            }
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : mappers.entrySet()) {
+            generate(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    private void generate(TypeElement mapper, List<ExecutableElement> methods) {
+        StringBuilder body = new StringBuilder();
+        for (ExecutableElement method : methods) {
+            String[] fragments = getSqlFragments(method);
+            if (fragments == null) {
+                continue;
+            }
+            String originalSql = MapperAnnotationBuilder.joinSqlFragments(fragments);
+            if (originalSql.startsWith("<script>") || originalSql.contains("${")) {
+                continue;
+            }
+            final List<String> parameterContents = new ArrayList<String>();
+            //与 SqlSourceBuilder 用同一个解析器，结果完全一致
+            String sql = new GenericTokenParser("#{", "}", new TokenHandler() {
+                @Override
+                public String handleToken(String content) {
+                    parameterContents.add(content);
+                    return "?";
+                }
+            }).parse(originalSql);
+            if (!checkParameterNames(method, parameterContents)) {
+                continue;
+            }
+            body.append("        statement(").append(literal(methodKey(method)))
+                    .append(",\n                ").append(literal(originalSql))
+                    .append(",\n                ").append(literal(sql));
+            for (String parameterContent : parameterContents) {
+                body.append(",\n                ").append(literal(parameterContent));
+            }
+            body.append(");\n");
+        }
+        if (body.length() == 0) {
+            return;
+        }
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(mapper);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(mapper).toString();
+        String simpleName = (packageName.length() == 0 ? binaryName : binaryName.substring(packageName.length() + 1)) + PrecompiledSql.CLASS_SUFFIX;
+        StringBuilder source = new StringBuilder();
+        if (packageName.length() > 0) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Generated by ").append(PrecompiledSqlProcessor.class.getName()).append(" from ")
+                .append(mapper.getQualifiedName()).append(", do not edit.\n */\n");
+        source.append("public final class ").append(simpleName).append(" extends ").append(PrecompiledSql.class.getName()).append(" {\n\n");
+        source.append("    public ").append(simpleName).append("() {\n").append(body).append("    }\n}\n");
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName.length() == 0 ? simpleName : packageName + "." + simpleName, mapper);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not generate precompiled SQL for mapper " + mapper + ".  Cause: " + e, mapper);
+        }
+    }
+
+    private static String[] getSqlFragments(ExecutableElement method) {
+        Select select = method.getAnnotation(Select.class);
+        if (select != null) {
+            return select.value();
+        }
+        Insert insert = method.getAnnotation(Insert.class);
+        if (insert != null) {
+            return insert.value();
+        }
+        Update update = method.getAnnotation(Update.class);
+        if (update != null) {
+            return update.value();
+        }
+        Delete delete = method.getAnnotation(Delete.class);
+        return delete != null ? delete.value() : null;
+    }
+
+    /**
+     * 全部参数都有 @Param 时，#{} 引用的参数名必须是其中之一
+     *
+     * @return 参数名有错时返回 false，并报告编译错误
+     */
+    private boolean checkParameterNames(ExecutableElement method, List<String> parameterContents) {
+        Set<String> names = new LinkedHashSet<String>();
+        int sqlParameterCount = 0;
+        for (VariableElement parameter : method.getParameters()) {
+            String type = processingEnv.getTypeUtils().erasure(parameter.asType()).toString();
+            if (type.equals("org.apache.ibatis.session.RowBounds") || type.equals("org.apache.ibatis.session.ResultHandler")
+                    || type.equals("org.apache.ibatis.session.KeysetPage")) {
+                continue;
+            }
+            Param param = parameter.getAnnotation(Param.class);
+            if (param == null) {
+                return true;
+            }
+            names.add(param.value());
+            sqlParameterCount++;
+        }
+        if (names.isEmpty()) {
+            return true;
+        }
+        boolean valid = true;
+        for (String parameterContent : parameterContents) {
+            String name = rootName(parameterContent);
+            if (name == null || names.contains(name) || name.startsWith("_")) {
+                continue;
+            }
+            if (name.startsWith(GENERIC_NAME_PREFIX)) {
+                String index = name.substring(GENERIC_NAME_PREFIX.length());
+                if (index.matches("[1-9][0-9]*") && Integer.parseInt(index) <= sqlParameterCount) {
+                    continue;
+                }
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Parameter '" + name + "' not found. Available parameters are " + names, method);
+            valid = false;
+        }
+        return valid;
+    }
+
+    /**
+     * #{author.name,jdbcType=VARCHAR} 中的 author
+     *
+     * @return 表达式形式 #{(expr)} 返回 null，不检查
+     */
+    private static String rootName(String parameterContent) {
+        String content = parameterContent.trim();
+        if (content.startsWith("(")) {
+            return null;
+        }
+        int end = 0;
+        while (end < content.length() && ".[,: \t\r\n".indexOf(content.charAt(end)) < 0) {
+            end++;
+        }
+        return content.substring(0, end);
+    }
+
+    private String methodKey(ExecutableElement method) {
+        StringBuilder key = new StringBuilder(method.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            //与运行时 Class.getCanonicalName() 一致
+            key.append(processingEnv.getTypeUtils().erasure(parameters.get(i).asType()).toString());
+        }
+        return key.append(')').toString();
+    }
+
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value).toString();
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
@@ -17,6 +18,7 @@ import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.InListStyle;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.transaction.TransactionFactory;
 import org.apache.ibatis.type.JdbcType;
@@ -378,12 +380,32 @@ public class XMLConfigBuilder extends BaseBuilder {
             configuration.setDefaultExecutorType(ExecutorType.valueOf(settingsNameToValueMap.getProperty("defaultExecutorType", "SIMPLE")));
             //超时时间
             configuration.setDefaultStatementTimeout(integerValueOf(settingsNameToValueMap.getProperty("defaultStatementTimeout"), null));
+            //慢语句的阈值（毫秒），默认不记录
+            configuration.setSlowStatementThreshold(integerValueOf(settingsNameToValueMap.getProperty("slowStatementThreshold"), null));
             //是否将DB字段自动映射到驼峰式Java属性（A_COLUMN-->aColumn）
             configuration.setMapUnderscoreToCamelCase(booleanValueOf(settingsNameToValueMap.getProperty("mapUnderscoreToCamelCase"), false));
             //嵌套语句上使用RowBounds
             configuration.setSafeRowBoundsEnabled(booleanValueOf(settingsNameToValueMap.getProperty("safeRowBoundsEnabled"), false));
+            //RowBounds 改写成数据库原生分页
+            configuration.setPhysicalPagination(booleanValueOf(settingsNameToValueMap.getProperty("physicalPagination"), false));
+            //<in> 标签生成的 sql 形式 (ANY | UNNEST | CHUNKED)，不配置则自动推断
+            String inListStyle = settingsNameToValueMap.getProperty("inListStyle");
+            configuration.setInListStyle(inListStyle == null ? null : InListStyle.valueOf(inListStyle));
+            configuration.setInListChunkSize(integerValueOf(settingsNameToValueMap.getProperty("inListChunkSize"), 1000));
+            //分页查询的 COUNT 并发执行
+            configuration.setConcurrentCountQuery(booleanValueOf(settingsNameToValueMap.getProperty("concurrentCountQuery"), false));
+            //合并的二级缓存查询最多等待的毫秒数
+            configuration.setSingleFlightTimeout(integerValueOf(settingsNameToValueMap.getProperty("singleFlightTimeout"), 10000));
+            //并发 COUNT 查询最多同时用的线程（连接）数
+            configuration.setCountQueryThreads(integerValueOf(settingsNameToValueMap.getProperty("countQueryThreads"), 4));
+            //映射器用生成的实现类代替 JDK 动态代理
+            configuration.setGenerateMapperClasses(booleanValueOf(settingsNameToValueMap.getProperty("generateMapperClasses"), false));
+            //分页方言 (LIMIT_OFFSET | MYSQL | OFFSET_FETCH | ORACLE)，不配置则自动推断
+            configuration.setPaginationDialect((PaginationDialect) createInstance(settingsNameToValueMap.getProperty("paginationDialect")));
             //默认用session级别的缓存
             configuration.setLocalCacheScope(LocalCacheScope.valueOf(settingsNameToValueMap.getProperty("localCacheScope", "SESSION")));
+            //本地缓存的容量，默认不限制
+            configuration.setLocalCacheSize(integerValueOf(settingsNameToValueMap.getProperty("localCacheSize"), 0));
             //为null值设置jdbctype
             configuration.setJdbcTypeForNull(JdbcType.valueOf(settingsNameToValueMap.getProperty("jdbcTypeForNull", "OTHER")));
             //Object的哪些方法将触发延迟加载
@@ -396,6 +418,8 @@ public class XMLConfigBuilder extends BaseBuilder {
             configuration.setCallSettersOnNulls(booleanValueOf(settingsNameToValueMap.getProperty("callSettersOnNulls"), false));
             //logger名字的前缀
             configuration.setLogPrefix(settingsNameToValueMap.getProperty("logPrefix"));
+            //语句日志的抽样间隔，默认每次执行都打印
+            configuration.setStatementLogSampling(integerValueOf(settingsNameToValueMap.getProperty("statementLogSampling"), 1));
             //显式定义用什么log框架，不定义则用默认的自动发现jar包机制
             configuration.setLogImpl(resolveClass(settingsNameToValueMap.getProperty("logImpl")));
             //配置工厂
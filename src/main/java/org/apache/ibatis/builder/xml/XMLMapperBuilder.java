@@ -10,6 +10,7 @@ import org.apache.ibatis.builder.annotation.MapperAnnotationBuilder;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.CacheInvalidation;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
@@ -145,6 +146,11 @@ public class XMLMapperBuilder extends BaseBuilder {
                 throw new BuilderException("Mapper's namespace cannot be empty");
             }
             builderAssistant.setCurrentNamespace(namespace);
+            //<mapper slowThreshold="500">，命名空间的慢语句阈值
+            Integer slowThreshold = mapperNode.getIntAttribute("slowThreshold");
+            if (slowThreshold != null) {
+                configuration.setSlowStatementThreshold(namespace, slowThreshold);
+            }
             //2.配置cache-ref，二级缓存
             //<cache-ref namespace="com.someone.application.data.SomeMapper"/>
             XNode cacheRefNode = mapperNode.evalNode("cache-ref");
@@ -287,13 +293,17 @@ public class XMLMapperBuilder extends BaseBuilder {
         Integer size = cacheNode.getIntAttribute("size");
         boolean readWrite = !cacheNode.getBooleanAttribute("readOnly", false);
         boolean blocking = cacheNode.getBooleanAttribute("blocking", false);
+        //并发的相同查询只查一次数据库
+        boolean singleFlight = cacheNode.getBooleanAttribute("singleFlight", false);
+        //失效方式，默认清空整个 namespace
+        CacheInvalidation invalidation = CacheInvalidation.valueOf(cacheNode.getStringAttribute("invalidation", "NAMESPACE"));
         //读入额外的配置信息，易于第三方的缓存扩展,例:
         //    <cache type="com.domain.something.MyCustomCache">
         //      <property name="cacheFile" value="/tmp/my-custom-cache.tmp"/>
         //    </cache>
         Properties props = cacheNode.getChildrenAsProperties();
         //调用builderAssistant.useNewCache
-        builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+        builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, singleFlight, invalidation, props);
     }
 
     //4.配置parameterMap
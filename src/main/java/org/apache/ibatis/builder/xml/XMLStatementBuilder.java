@@ -1,11 +1,15 @@
 package org.apache.ibatis.builder.xml;
 
 import org.apache.ibatis.builder.BaseBuilder;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StatementOptions;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.keygen.PooledSelectKeyGenerator;
 import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
+import org.apache.ibatis.mapping.KeyAllocationStrategy;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.SqlCommandType;
@@ -98,6 +102,10 @@ public class XMLStatementBuilder extends BaseBuilder {
         Integer fetchSize = methodSqlNode.getIntAttribute("fetchSize");
         //超时时间
         Integer timeout = methodSqlNode.getIntAttribute("timeout");
+        //慢语句的阈值（毫秒），不指定则用全局的 slowStatementThreshold
+        Integer slowThreshold = methodSqlNode.getIntAttribute("slowThreshold");
+        //语句日志的抽样间隔，不指定则用全局的 statementLogSampling
+        Integer logSampling = methodSqlNode.getIntAttribute("logSampling");
         //引用外部 parameterMap,已废弃
         String parameterMap = methodSqlNode.getStringAttribute("parameterMap");
         //参数类型
@@ -133,6 +141,8 @@ public class XMLStatementBuilder extends BaseBuilder {
         boolean flushCache = methodSqlNode.getBooleanAttribute("flushCache", !isSelect);
         //是否要缓存select结果,如果是查询，默认使用缓存，当然可以指定不用缓存
         boolean useCache = methodSqlNode.getBooleanAttribute("useCache", isSelect);
+        //查询结果是否留在本地（一级）缓存中，为 false 时只在本次查询中使用
+        boolean useLocalCache = methodSqlNode.getBooleanAttribute("useLocalCache", true);
         //仅针对嵌套结果 select 语句适用：如果为 true，就是假设包含了嵌套结果集或是分组了，这样的话当返回一个主结果行的时候，就不会发生有对前面结果集的引用的情况。
         //这就使得在获取嵌套的结果集的时候不至于导致内存不够用。默认值：false。
         boolean resultOrdered = methodSqlNode.getBooleanAttribute("resultOrdered", false);
@@ -154,6 +164,8 @@ public class XMLStatementBuilder extends BaseBuilder {
         String keyProperty = methodSqlNode.getStringAttribute("keyProperty");
         //(仅对 insert 有用) 标记一个属性, MyBatis 会通过 getGeneratedKeys 或者通过 insert 语句的 selectKey 子元素设置它的值
         String keyColumn = methodSqlNode.getStringAttribute("keyColumn");
+        //该sql读写的表，<cache invalidation="TABLE"/> 时按表失效，不指定则从 sql 中解析
+        String tables = methodSqlNode.getStringAttribute("tables");
         KeyGenerator keyGenerator;
         String keyStatementId = id + SelectKeyGenerator.SELECT_KEY_SUFFIX;
         //org.apache.ibatis.submitted.selectkey.Table1.insert!selectKey
@@ -178,7 +190,9 @@ public class XMLStatementBuilder extends BaseBuilder {
         builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
                 fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
                 resultSetTypeEnum, flushCache, useCache, resultOrdered,
-                keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+                keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets,
+                new StatementOptions().tables(tables).useLocalCache(useLocalCache)
+                        .slowThreshold(slowThreshold).logSampling(logSampling));
     }
 
     /**
@@ -241,6 +255,9 @@ public class XMLStatementBuilder extends BaseBuilder {
         String keyColumn = keyNode.getStringAttribute("keyColumn");
         //order="AFTER"，默认为after,是指在执行sql之前还是之后获取主键
         boolean executeBefore = "BEFORE".equals(keyNode.getStringAttribute("order", "AFTER"));
+        //预分配主键的数量，大于1时每 allocationSize 次插入才执行一次主键语句
+        int allocationSize = keyNode.getIntAttribute("allocationSize", 1);
+        KeyAllocationStrategy allocationStrategy = KeyAllocationStrategy.valueOf(keyNode.getStringAttribute("allocationStrategy", KeyAllocationStrategy.POOLED.toString()));
         //defaults
         boolean useCache = false;
         boolean resultOrdered = false;
@@ -264,7 +281,15 @@ public class XMLStatementBuilder extends BaseBuilder {
         id = builderAssistant.applyCurrentNamespace(id, false);
 
         MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-        SelectKeyGenerator selectKeyGenerator = new SelectKeyGenerator(keyStatement, executeBefore);
+        KeyGenerator selectKeyGenerator;
+        if (allocationSize > 1) {
+            if (!executeBefore || keyStatement.getKeyProperties() == null || keyStatement.getKeyProperties().length != 1) {
+                throw new BuilderException("SelectKey " + id + " with allocationSize requires order=\"BEFORE\" and exactly one keyProperty.");
+            }
+            selectKeyGenerator = new PooledSelectKeyGenerator(keyStatement, allocationSize, allocationStrategy);
+        } else {
+            selectKeyGenerator = new SelectKeyGenerator(keyStatement, executeBefore);
+        }
         //丢进map
         configuration.addKeyGenerator(id, selectKeyGenerator);
     }
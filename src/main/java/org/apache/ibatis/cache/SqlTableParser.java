@@ -0,0 +1,143 @@
+package org.apache.ibatis.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 从 sql 中粗略地解析出读写的表名，供按表失效的二级缓存使用
+ *
+ * 只识别 FROM/JOIN/INTO/UPDATE/USING 后面的表名（包括 FROM a, b 这种逗号分隔的写法），
+ * 不做完整的语法分析；多解析出来的名字只会导致多失效一些缓存，不影响正确性。
+ * 表名统一转成大写并去掉 schema 前缀和引号
+ */
+public final class SqlTableParser {
+
+    /**
+     * 后面紧跟表名的关键字
+     */
+    private static final Set<String> TABLE_PREFIXES = new HashSet<String>(Arrays.asList(
+            "FROM", "JOIN", "INTO", "UPDATE", "USING", "STRAIGHT_JOIN"));
+
+    /**
+     * 出现在表名后面时不能当成别名的关键字
+     */
+    private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList(
+            "WHERE", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "UNION", "EXCEPT", "INTERSECT", "MINUS",
+            "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "OUTER", "NATURAL", "STRAIGHT_JOIN", "ON",
+            "USING", "SET", "VALUES", "VALUE", "SELECT", "FOR", "WITH", "WINDOW", "FETCH", "RETURNING",
+            "WHEN", "THEN", "DEFAULT", "CONNECT", "START"));
+
+    private SqlTableParser() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * 解析 sql 中涉及的表
+     *
+     * @param sql 带 ? 的 sql
+     * @return 大写的表名集合，解析不出来时为空集合
+     */
+    public static Set<String> parse(String sql) {
+        if (sql == null) {
+            return Collections.emptySet();
+        }
+        String[] tokens = tokenize(sql);
+        Set<String> tables = new LinkedHashSet<String>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (!TABLE_PREFIXES.contains(tokens[i])) {
+                continue;
+            }
+            //FROM a x, b y 的情况要继续往后找
+            int next = i + 1;
+            while (next < tokens.length && isIdentifier(tokens[next])) {
+                tables.add(normalize(tokens[next]));
+                next++;
+                //跳过别名
+                if (next < tokens.length && "AS".equals(tokens[next])) {
+                    next++;
+                }
+                if (next < tokens.length && isIdentifier(tokens[next])) {
+                    next++;
+                }
+                if (next < tokens.length && ",".equals(tokens[next])) {
+                    next++;
+                } else {
+                    break;
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 把 sql 切成标识符、逗号和其他符号，标识符转成大写，字符串常量直接丢弃
+     */
+    private static String[] tokenize(String sql) {
+        List<String> tokens = new ArrayList<String>();
+        final int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                //字符串常量
+                i = sql.indexOf('\'', i + 1);
+                i = i < 0 ? length : i + 1;
+            } else if (isIdentifierPart(c) || c == '"' || c == '`' || c == '[') {
+                int start = i;
+                while (i < length) {
+                    char ch = sql.charAt(i);
+                    if (ch == '"' || ch == '`' || ch == '[') {
+                        char close = ch == '[' ? ']' : ch;
+                        int end = sql.indexOf(close, i + 1);
+                        i = end < 0 ? length : end + 1;
+                    } else if (isIdentifierPart(ch) || ch == '.') {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                tokens.add(sql.substring(start, i).toUpperCase(Locale.ENGLISH));
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    tokens.add(String.valueOf(c));
+                }
+                i++;
+            }
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    private static boolean isIdentifier(String token) {
+        char first = token.charAt(0);
+        return (Character.isLetter(first) || first == '_' || first == '"' || first == '`' || first == '[')
+                && !KEYWORDS.contains(token);
+    }
+
+    /**
+     * 去掉 schema 前缀和引号
+     */
+    private static String normalize(String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot > -1) {
+            name = name.substring(dot + 1);
+        }
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '"' && c != '`' && c != '[' && c != ']') {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
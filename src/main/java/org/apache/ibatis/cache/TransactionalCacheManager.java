@@ -2,6 +2,7 @@ package org.apache.ibatis.cache;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -45,6 +46,24 @@ public class TransactionalCacheManager {
         transactionalCache.putObject(key, value);
     }
 
+    //按表失效的缓存要记录结果依赖的表
+    public void putObject(Cache cache, CacheKey key, Object value, Collection<String> tables) {
+        TransactionalCache transactionalCache = getTransactionalCache(cache);
+        transactionalCache.putObject(key, value, tables);
+    }
+
+    //只失效依赖这些表的条目，cache 必须是 TableInvalidatingCache
+    public void invalidateTables(Cache cache, Collection<String> tables) {
+        TransactionalCache transactionalCache = getTransactionalCache(cache);
+        transactionalCache.invalidateTables(tables);
+    }
+
+    //本事务是否写过该缓存依赖的数据还没提交
+    public boolean hasPendingInvalidation(Cache cache) {
+        TransactionalCache transactionalCache = transactionalCacheMap.get(cache);
+        return transactionalCache != null && transactionalCache.hasPendingInvalidation();
+    }
+
     //提交时全部提交
     public void commit() {
         for (TransactionalCache transactionalCache : transactionalCacheMap.values()) {
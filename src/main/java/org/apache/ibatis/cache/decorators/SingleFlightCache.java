@@ -0,0 +1,223 @@
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 合并并发加载的缓存装饰器，<cache singleFlight="true"/>
+ *
+ * 同一个 key 同时未命中时，只有第一个线程真正去查数据库，其他线程等它查完直接拿它的结果，
+ * 避免缓存冷启动时大量相同的查询一起打到数据库上。
+ *
+ * 与 BlockingCache 不同，这里不持有任何跨越事务的锁：等待只持续到第一个线程的查询结束（而不是它的事务提交），
+ * 查询结束后正在加载的记录立即移除，回滚、异常或者会话不关闭都不会让其他线程一直等下去。
+ * 等待总有上限，超时或者第一个线程查询失败时，等待的线程退回到自己查询。
+ *
+ * 结果在第一个线程的事务提交之前就共享出去了，所以调用者（CachingExecutor）只在本事务没有写过任何数据时才使用，
+ * 写过数据的会话既不带头加载，也不拿别人的结果
+ */
+public class SingleFlightCache implements Cache {
+
+    /**
+     * 没有拿到可共享结果时的返回值
+     */
+    private static final Object NOT_SHARED = new Object();
+
+    private final Cache delegate;
+
+    /**
+     * 正在加载的 key，只在加载期间存在
+     */
+    private final ConcurrentMap<Object, Flight> flights = new ConcurrentHashMap<Object, Flight>();
+
+    /**
+     * 共享结果前是否先复制一份，可读写的缓存每个读者拿到的都应该是自己的副本
+     */
+    private boolean copyOnShare;
+
+    public SingleFlightCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        delegate.putObject(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        return delegate.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return null;
+    }
+
+    public boolean isCopyOnShare() {
+        return copyOnShare;
+    }
+
+    public void setCopyOnShare(boolean copyOnShare) {
+        this.copyOnShare = copyOnShare;
+    }
+
+    /**
+     * 加载 key 对应的值，同一个 key 并发调用时只有一个 loader 会被执行
+     *
+     * @param key 缓存 key
+     * @param loader 真正的加载逻辑，只在当前线程执行
+     * @param timeout 等待其他线程加载的最长毫秒数，小于等于 0 表示不等待，自己加载
+     * @return 加载结果
+     * @throws Exception loader 抛出的异常
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(Object key, Callable<T> loader, long timeout) throws Exception {
+        Flight flight = new Flight();
+        Flight leader = flights.putIfAbsent(key, flight);
+        if (leader == null) {
+            //第一个未命中的线程，自己去查
+            boolean loaded = false;
+            T value = null;
+            try {
+                value = loader.call();
+                loaded = true;
+                return value;
+            } finally {
+                flights.remove(key, flight);
+                flight.finish(loaded, value, copyOnShare);
+            }
+        }
+        //其他线程等第一个线程查完
+        Object shared = leader.join(timeout);
+        if (shared != NOT_SHARED) {
+            return (T) shared;
+        }
+        return loader.call();
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return delegate.equals(obj);
+    }
+
+    /**
+     * 一次正在进行的加载，字段都由 Flight 自身的锁保护
+     */
+    private static class Flight {
+
+        private int waiters;
+
+        private boolean finished;
+
+        /**
+         * 共享给等待线程的结果，NOT_SHARED 表示查询失败或者无法复制
+         */
+        private Object value = NOT_SHARED;
+
+        /**
+         * 需要复制时保存序列化后的结果，每个等待线程各自反序列化一份
+         */
+        private byte[] bytes;
+
+        synchronized void finish(boolean loaded, Object result, boolean copy) {
+            if (loaded && waiters > 0) {
+                //在第一个线程继续使用结果之前复制，避免与它并发修改
+                if (!copy || result == null) {
+                    value = result;
+                } else if (result instanceof Serializable) {
+                    bytes = serialize((Serializable) result);
+                }
+            }
+            finished = true;
+            notifyAll();
+        }
+
+        synchronized Object join(long timeout) {
+            if (finished) {
+                //来晚了，第一个线程已经不再共享
+                return NOT_SHARED;
+            }
+            if (timeout <= 0) {
+                return NOT_SHARED;
+            }
+            waiters++;
+            long deadline = System.currentTimeMillis() + timeout;
+            try {
+                while (!finished) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return NOT_SHARED;
+                    }
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return NOT_SHARED;
+            }
+            return bytes != null ? deserialize(bytes) : value;
+        }
+    }
+
+    /**
+     * 与 SerializedCache 的复制方式一致，无法序列化时不共享
+     */
+    private static byte[] serialize(Serializable value) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(value);
+            oos.flush();
+            oos.close();
+            return bos.toByteArray();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Object deserialize(byte[] value) {
+        try {
+            ObjectInputStream ois = new SerializedCache.CustomObjectInputStream(new ByteArrayInputStream(value));
+            Object result = ois.readObject();
+            ois.close();
+            return result;
+        } catch (Exception e) {
+            throw new CacheException("Error deserializing object.  Cause: " + e, e);
+        }
+    }
+}
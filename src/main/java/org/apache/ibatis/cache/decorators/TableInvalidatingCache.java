@@ -0,0 +1,230 @@
+package org.apache.ibatis.cache.decorators;
+
+import org.apache.ibatis.cache.Cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 按表失效的缓存装饰器，<cache invalidation="TABLE"/> 时包在最外层
+ *
+ * 每个缓存条目都记录它读取过的表，insert/update/delete 时只移除依赖了被写表的条目，
+ * 而不是像默认那样把整个 namespace 的缓存清空。
+ * 没有记录表的条目（解析不出表名）在任何一张表失效时都会被移除。
+ *
+ * 被装饰的缓存必须支持 removeObject；索引本身有容量上限，超过时连同缓存条目一起淘汰最早的，
+ * 保证缓存里的每个条目都能被索引找到
+ */
+public class TableInvalidatingCache implements Cache {
+
+    private final Cache delegate;
+
+    /**
+     * key:缓存 key
+     * value:该条目依赖的表，空集合表示不知道依赖哪些表
+     */
+    private Map<Object, Set<String>> keyTables;
+
+    /**
+     * key:表名（大写）
+     * value:依赖该表的缓存 key
+     */
+    private final Map<String, Set<Object>> tableKeys = new HashMap<String, Set<Object>>();
+
+    /**
+     * 没有记录表的缓存 key
+     */
+    private final Set<Object> untaggedKeys = new HashSet<Object>();
+
+    /**
+     * 索引超过容量时被挤出的条目，put 完成后再从被装饰的缓存中移除
+     */
+    private Map.Entry<Object, Set<String>> eldestEntry;
+
+    public TableInvalidatingCache(Cache delegate) {
+        this.delegate = delegate;
+        setSize(1024);
+    }
+
+    public synchronized void setSize(final int size) {
+        keyTables = new LinkedHashMap<Object, Set<String>>(size, .75F, false) {
+
+            private static final long serialVersionUID = -3419634735937405287L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Set<String>> eldest) {
+                boolean tooBig = size() > size;
+                if (tooBig) {
+                    eldestEntry = eldest;
+                }
+                return tooBig;
+            }
+        };
+        tableKeys.clear();
+        untaggedKeys.clear();
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+        return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        putObject(key, value, null);
+    }
+
+    /**
+     * 放入缓存并记录依赖的表
+     *
+     * @param tables 依赖的表名（大写），为 null 或者空表示未知
+     */
+    public void putObject(Object key, Object value, Collection<String> tables) {
+        if (value == null) {
+            //BlockingCache 释放锁时放入的 null，不需要索引
+            delegate.putObject(key, null);
+            return;
+        }
+        //放入和建索引要在同一把锁里，否则并发的失效可能漏掉刚放进去的条目
+        synchronized (this) {
+            delegate.putObject(key, value);
+            unindex(key);
+            Set<String> keyTableSet = tables == null || tables.isEmpty() ? new HashSet<String>() : new HashSet<String>(tables);
+            keyTables.put(key, keyTableSet);
+            if (keyTableSet.isEmpty()) {
+                untaggedKeys.add(key);
+            } else {
+                for (String table : keyTableSet) {
+                    Set<Object> keys = tableKeys.get(table);
+                    if (keys == null) {
+                        keys = new HashSet<Object>();
+                        tableKeys.put(table, keys);
+                    }
+                    keys.add(key);
+                }
+            }
+            if (eldestEntry != null) {
+                Map.Entry<Object, Set<String>> evicted = eldestEntry;
+                eldestEntry = null;
+                unlink(evicted.getKey(), evicted.getValue());
+                delegate.removeObject(evicted.getKey());
+            }
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        return delegate.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        synchronized (this) {
+            unindex(key);
+        }
+        return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            keyTables.clear();
+            tableKeys.clear();
+            untaggedKeys.clear();
+        }
+        delegate.clear();
+    }
+
+    /**
+     * 移除依赖了这些表的缓存条目，以及所有不知道依赖哪些表的条目
+     *
+     * @param tables 被写的表名（大写）
+     */
+    public synchronized void invalidateTables(Collection<String> tables) {
+        Set<Object> keysToRemove = new HashSet<Object>(untaggedKeys);
+        for (String table : tables) {
+            Set<Object> keys = tableKeys.get(table);
+            if (keys != null) {
+                keysToRemove.addAll(keys);
+            }
+        }
+        for (Object key : keysToRemove) {
+            unindex(key);
+            delegate.removeObject(key);
+        }
+    }
+
+    /**
+     * 该条目是否依赖这些表中的某一张
+     *
+     * @return 条目不在缓存中时返回 false，不知道依赖哪些表时返回 true
+     */
+    public synchronized boolean dependsOn(Object key, Collection<String> tables) {
+        Set<String> keyTableSet = keyTables.get(key);
+        if (keyTableSet == null) {
+            return false;
+        }
+        if (keyTableSet.isEmpty()) {
+            return true;
+        }
+        for (String table : tables) {
+            if (keyTableSet.contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void unindex(Object key) {
+        unlink(key, keyTables.remove(key));
+    }
+
+    private void unlink(Object key, Set<String> keyTableSet) {
+        if (keyTableSet == null) {
+            return;
+        }
+        keyTables.remove(key);
+        if (keyTableSet.isEmpty()) {
+            untaggedKeys.remove(key);
+            return;
+        }
+        for (String table : keyTableSet) {
+            Set<Object> keys = tableKeys.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    tableKeys.remove(table);
+                }
+            }
+        }
+    }
+
+    @Override
+    public ReadWriteLock getReadWriteLock() {
+        return null;
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return delegate.equals(obj);
+    }
+}
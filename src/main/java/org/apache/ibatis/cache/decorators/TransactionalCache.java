@@ -2,8 +2,11 @@ package org.apache.ibatis.cache.decorators;
 
 import org.apache.ibatis.cache.Cache;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -50,12 +53,24 @@ public class TransactionalCache implements Cache {
      */
     private Set<Object> entriesMissedInCache;
 
+    /**
+     * commit时要按表失效的表名，只有被装饰的缓存是 TableInvalidatingCache 时才会用到
+     */
+    private Set<String> tablesToInvalidateOnCommit;
+
+    /**
+     * commit时要添加的元素所依赖的表
+     */
+    private Map<Object, Collection<String>> entryTables;
+
     public TransactionalCache(Cache delegate) {
         this.delegate = delegate;
         //默认commit时不清缓存
         this.clearOnCommit = false;
         this.entriesToAddOnCommit = new HashMap<Object, Object>();
         this.entriesMissedInCache = new HashSet<Object>();
+        this.tablesToInvalidateOnCommit = new HashSet<String>();
+        this.entryTables = new HashMap<Object, Collection<String>>();
     }
 
     @Override
@@ -78,9 +93,13 @@ public class TransactionalCache implements Cache {
         // issue #146
         if (clearOnCommit) {
             return null;
-        } else {
-            return object;
         }
+        //本事务写过该条目依赖的表，提交前也不能再用
+        if (object != null && !tablesToInvalidateOnCommit.isEmpty()
+                && ((TableInvalidatingCache) delegate).dependsOn(key, tablesToInvalidateOnCommit)) {
+            return null;
+        }
+        return object;
     }
 
     @Override
@@ -99,6 +118,16 @@ public class TransactionalCache implements Cache {
         entriesToAddOnCommit.put(key, object);
     }
 
+    /**
+     * 同 putObject，另外记录该条目依赖的表
+     *
+     * @param tables 依赖的表名（大写）
+     */
+    public void putObject(Object key, Object object, Collection<String> tables) {
+        entriesToAddOnCommit.put(key, object);
+        entryTables.put(key, tables);
+    }
+
     @Override
     public Object removeObject(Object key) {
         return null;
@@ -108,6 +137,34 @@ public class TransactionalCache implements Cache {
     public void clear() {
         clearOnCommit = true;
         entriesToAddOnCommit.clear();
+        entryTables.clear();
+    }
+
+    /**
+     * 只失效依赖这些表的条目，commit 时才作用到被装饰的缓存上
+     * 被装饰的缓存必须是 TableInvalidatingCache
+     *
+     * @param tables 被写的表名（大写）
+     */
+    public void invalidateTables(Collection<String> tables) {
+        tablesToInvalidateOnCommit.addAll(tables);
+        //本事务里查出来、还没提交的条目也要丢掉
+        Iterator<Map.Entry<Object, Object>> iterator = entriesToAddOnCommit.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Object key = iterator.next().getKey();
+            Collection<String> keyTables = entryTables.get(key);
+            if (keyTables == null || keyTables.isEmpty() || !Collections.disjoint(keyTables, tables)) {
+                iterator.remove();
+                entryTables.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 本事务是否有还没提交的清空或者按表失效，有的话本事务读到的数据不能共享给其他会话
+     */
+    public boolean hasPendingInvalidation() {
+        return clearOnCommit || !tablesToInvalidateOnCommit.isEmpty();
     }
 
     /**
@@ -119,6 +176,8 @@ public class TransactionalCache implements Cache {
     public void commit() {
         if (clearOnCommit) {
             delegate.clear();
+        } else if (!tablesToInvalidateOnCommit.isEmpty()) {
+            ((TableInvalidatingCache) delegate).invalidateTables(tablesToInvalidateOnCommit);
         }
         //如果不调用commit方法的话，由于 TransactionalCache 的作用，并不会对二级缓存造成直接的影响
         flushPendingEntries();
@@ -134,6 +193,8 @@ public class TransactionalCache implements Cache {
         clearOnCommit = false;
         entriesToAddOnCommit.clear();
         entriesMissedInCache.clear();
+        tablesToInvalidateOnCommit.clear();
+        entryTables.clear();
     }
 
     /**
@@ -145,7 +206,11 @@ public class TransactionalCache implements Cache {
         for (Map.Entry<Object, Object> entry : entrySet) {
             Object key = entry.getKey();
             Object value = entry.getValue();
-            delegate.putObject(key, value);
+            if (delegate instanceof TableInvalidatingCache) {
+                ((TableInvalidatingCache) delegate).putObject(key, value, entryTables.get(key));
+            } else {
+                delegate.putObject(key, value);
+            }
         }
 
         //没有命中的缓存 key
@@ -6,7 +6,12 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author Clinton Begin
@@ -21,6 +26,14 @@ class PooledConnection implements InvocationHandler {
 
     private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
+    /**
+     * 只读写连接本身状态、不会开启事务的方法，调用它们不会把连接标记为 dirty
+     */
+    private static final Set<String> STATE_METHODS = new HashSet<String>(Arrays.asList("isClosed", "isValid",
+            "getWarnings", "clearWarnings", "getCatalog", "setCatalog", "getSchema", "setSchema", "getHoldability",
+            "setHoldability", "getClientInfo", "setClientInfo", "getNetworkTimeout", "setNetworkTimeout", "getTypeMap",
+            "setTypeMap", "nativeSQL", "isWrapperFor", "unwrap", "abort"));
+
     private int hashCode = 0;
 
     private PooledDataSource dataSource;
@@ -41,6 +54,26 @@ class PooledConnection implements InvocationHandler {
 
     private boolean valid;
 
+    /**
+     * 真正的连接的状态，第一次用到时从连接上取得，之后在本地维护，相同的设置不再交给驱动（有的驱动每次都要访问数据库）。
+     * null 表示还不知道。通过 getRealConnection() 直接修改真正的连接时，这里不会知道
+     */
+    private Boolean autoCommit;
+
+    private Integer transactionIsolation;
+
+    private Boolean readOnly;
+
+    /**
+     * 上次提交、回滚之后是否调用过可能开启事务的方法（创建、执行语句，getMetaData、setSavepoint 等），没有的话归还连接时不用回滚
+     */
+    private boolean dirty;
+
+    /**
+     * 真正的连接上的预编译语句缓存，数据源配置了 poolPreparedStatementCacheSize 时第一次预编译时创建
+     */
+    private PreparedStatementCache statementCache;
+
     /*
      * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in
      *
@@ -57,6 +90,45 @@ class PooledConnection implements InvocationHandler {
         this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
     }
 
+    /*
+     * Copies the locally tracked state of the real connection from another pooled connection wrapping it
+     *
+     * @param other - the previous pooled connection of the same real connection
+     */
+    void copyStateFrom(PooledConnection other) {
+        this.autoCommit = other.autoCommit;
+        this.transactionIsolation = other.transactionIsolation;
+        this.readOnly = other.readOnly;
+        this.dirty = other.dirty;
+        this.statementCache = other.statementCache;
+    }
+
+    /*
+     * Gets the auto-commit mode of the real connection, asking the driver only the first time
+     *
+     * @return The auto-commit mode
+     */
+    boolean isAutoCommit() throws SQLException {
+        if (autoCommit == null) {
+            autoCommit = realConnection.getAutoCommit();
+        }
+        return autoCommit;
+    }
+
+    /*
+     * Rolls back the real connection if it is not in auto-commit mode and it may have started a transaction since the last commit or rollback
+     */
+    void rollbackIfDirty() throws SQLException {
+        if (dirty && !isAutoCommit()) {
+            realConnection.rollback();
+        }
+        dirty = false;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
     /*
      * Invalidates the connection
      */
@@ -244,6 +316,9 @@ class PooledConnection implements InvocationHandler {
                     //除了toString()方法，其他方法调用之前要检查connection是否还是合法的,不合法要抛出SQLException
                     checkConnection();
                 }
+                if (Connection.class.equals(method.getDeclaringClass())) {
+                    return invokeConnectionMethod(method, args);
+                }
                 //其他的方法，则交给真正的connection去调用
                 return method.invoke(realConnection, args);
             } catch (Throwable t) {
@@ -252,6 +327,127 @@ class PooledConnection implements InvocationHandler {
         }
     }
 
+    /**
+     * 维护连接状态的方法在本地处理，其他的交给真正的connection
+     */
+    private Object invokeConnectionMethod(Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        int argCount = args == null ? 0 : args.length;
+        if (methodName.startsWith("prepare") || "createStatement".equals(methodName)) {
+            dirty = true;
+            Statement statement = null;
+            if ("prepareStatement".equals(methodName)) {
+                statement = prepareCachedStatement(args);
+            }
+            if (statement == null) {
+                statement = (Statement) method.invoke(realConnection, args);
+            }
+            return new TrackedStatement(statement).wrap(method.getReturnType());
+        } else if ("getAutoCommit".equals(methodName)) {
+            return isAutoCommit();
+        } else if ("setAutoCommit".equals(methodName)) {
+            boolean desired = (Boolean) args[0];
+            if (autoCommit == null || autoCommit != desired) {
+                autoCommit = null;
+                realConnection.setAutoCommit(desired);
+                autoCommit = desired;
+                //打开自动提交时会提交当前事务
+                dirty = dirty && !desired;
+            }
+            return null;
+        } else if (argCount == 0 && ("commit".equals(methodName) || "rollback".equals(methodName))) {
+            method.invoke(realConnection, args);
+            dirty = false;
+            return null;
+        } else if ("getTransactionIsolation".equals(methodName)) {
+            if (transactionIsolation == null) {
+                transactionIsolation = realConnection.getTransactionIsolation();
+            }
+            return transactionIsolation;
+        } else if ("setTransactionIsolation".equals(methodName)) {
+            int desired = (Integer) args[0];
+            if (transactionIsolation == null || transactionIsolation != desired) {
+                transactionIsolation = null;
+                realConnection.setTransactionIsolation(desired);
+                transactionIsolation = desired;
+            }
+            return null;
+        } else if ("isReadOnly".equals(methodName)) {
+            if (readOnly == null) {
+                readOnly = realConnection.isReadOnly();
+            }
+            return readOnly;
+        } else if ("setReadOnly".equals(methodName)) {
+            boolean desired = (Boolean) args[0];
+            if (readOnly == null || readOnly != desired) {
+                readOnly = null;
+                realConnection.setReadOnly(desired);
+                readOnly = desired;
+            }
+            return null;
+        } else if (!STATE_METHODS.contains(methodName)) {
+            //getMetaData、setSavepoint、rollback(Savepoint) 之类都可能开启事务
+            dirty = true;
+        }
+        return method.invoke(realConnection, args);
+    }
+
+    /**
+     * 交出去的语句的代理，每次执行都把连接标记为 dirty。
+     * 提交之前预编译、提交之后再执行的语句（ReuseExecutor、BatchExecutor 或者调用方自己留着的语句）同样会开启新的事务，
+     * 只在创建语句时标记的话，归还连接时就不会回滚，下一个借到连接的人会接手没有提交的修改
+     */
+    private final class TrackedStatement implements InvocationHandler {
+
+        private final Statement statement;
+
+        TrackedStatement(Statement statement) {
+            this.statement = statement;
+        }
+
+        Object wrap(Class<?> type) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (Object.class.equals(method.getDeclaringClass())) {
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                } else if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+            } else if (method.getName().startsWith("execute")) {
+                dirty = true;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+        }
+    }
+
+    private PreparedStatement prepareCachedStatement(Object[] args) throws SQLException {
+        if (statementCache == null) {
+            int cacheSize = dataSource.getPoolPreparedStatementCacheSize();
+            if (cacheSize <= 0) {
+                return null;
+            }
+            statementCache = new PreparedStatementCache(cacheSize);
+        }
+        return statementCache.prepare(realConnection, args);
+    }
+
+    /*
+     * Getter for the prepared statement cache of the real connection (or null if nothing has been cached)
+     *
+     * @return The cache
+     */
+    PreparedStatementCache getStatementCache() {
+        return statementCache;
+    }
+
     private void checkConnection() throws SQLException {
         if (!valid) {
             throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
@@ -61,6 +61,9 @@ public class PooledDataSource implements DataSource {
     //用来配置 poolPingQuery 多次时间被用一次
     protected int poolPingConnectionsNotUsedFor = 0;
 
+    //每个物理连接缓存的预编译语句个数，close 时放回缓存，不同会话之间共用，0 表示不缓存
+    protected int poolPreparedStatementCacheSize = 0;
+
     private int expectedConnectionTypeCode;
 
     public PooledDataSource() {
@@ -297,6 +300,21 @@ public class PooledDataSource implements DataSource {
         forceCloseAll();
     }
 
+    public int getPoolPreparedStatementCacheSize() {
+        return poolPreparedStatementCacheSize;
+    }
+
+    /*
+     * The number of prepared statements cached for each physical connection, 0 disables the cache.
+     * Closing a cached statement returns it to the cache instead of closing it.
+     *
+     * @param poolPreparedStatementCacheSize the number of statements per connection
+     */
+    public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+        this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+        forceCloseAll();
+    }
+
     /*
      * Closes all active and idle connections in the pool
      */
@@ -309,11 +327,8 @@ public class PooledDataSource implements DataSource {
                     PooledConnection conn = state.activeConnections.remove(i - 1);
                     conn.invalidate();
 
-                    Connection realConn = conn.getRealConnection();
-                    if (!realConn.getAutoCommit()) {
-                        realConn.rollback();
-                    }
-                    realConn.close();
+                    conn.rollbackIfDirty();
+                    conn.getRealConnection().close();
                 } catch (Exception e) {
                     // ignore
                 }
@@ -323,11 +338,8 @@ public class PooledDataSource implements DataSource {
                     PooledConnection conn = state.idleConnections.remove(i - 1);
                     conn.invalidate();
 
-                    Connection realConn = conn.getRealConnection();
-                    if (!realConn.getAutoCommit()) {
-                        realConn.rollback();
-                    }
-                    realConn.close();
+                    conn.rollbackIfDirty();
+                    conn.getRealConnection().close();
                 } catch (Exception e) {
                     // ignore
                 }
@@ -355,12 +367,12 @@ public class PooledDataSource implements DataSource {
                 if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
                     //如果空闲的连接太少，
                     state.accumulatedCheckoutTime += conn.getCheckoutTime();
-                    if (!conn.getRealConnection().getAutoCommit()) {
-                        conn.getRealConnection().rollback();
-                    }
+                    //没有未提交的语句就不用回滚
+                    conn.rollbackIfDirty();
                     //new一个新的Connection，加入到idle列表
                     PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
                     state.idleConnections.add(newConn);
+                    newConn.copyStateFrom(conn);
                     newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
                     newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
                     conn.invalidate();
@@ -372,9 +384,7 @@ public class PooledDataSource implements DataSource {
                 } else {
                     //否则，即空闲的连接已经足够了
                     state.accumulatedCheckoutTime += conn.getCheckoutTime();
-                    if (!conn.getRealConnection().getAutoCommit()) {
-                        conn.getRealConnection().rollback();
-                    }
+                    conn.rollbackIfDirty();
                     //那就将connection关闭就可以了
                     conn.getRealConnection().close();
                     if (log.isDebugEnabled()) {
@@ -431,11 +441,10 @@ public class PooledDataSource implements DataSource {
                             state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
                             state.accumulatedCheckoutTime += longestCheckoutTime;
                             state.activeConnections.remove(oldestActiveConnection);
-                            if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
-                                oldestActiveConnection.getRealConnection().rollback();
-                            }
+                            oldestActiveConnection.rollbackIfDirty();
                             //删掉最老的连接，然后再new一个新连接
                             conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+                            conn.copyStateFrom(oldestActiveConnection);
                             oldestActiveConnection.invalidate();
                             if (log.isDebugEnabled()) {
                                 log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
@@ -465,9 +474,8 @@ public class PooledDataSource implements DataSource {
                 if (conn != null) {
                     //如果已经拿到connection，则返回
                     if (conn.isValid()) {
-                        if (!conn.getRealConnection().getAutoCommit()) {
-                            conn.getRealConnection().rollback();
-                        }
+                        //归还时已经回滚过，这里只处理还有未提交语句的情况
+                        conn.rollbackIfDirty();
                         conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
                         //记录checkout时间
                         conn.setCheckoutTimestamp(System.currentTimeMillis());
@@ -536,7 +544,7 @@ public class PooledDataSource implements DataSource {
                         ResultSet rs = statement.executeQuery(poolPingQuery);
                         rs.close();
                         statement.close();
-                        if (!realConn.getAutoCommit()) {
+                        if (!conn.isAutoCommit()) {
                             realConn.rollback();
                         }
                         result = true;
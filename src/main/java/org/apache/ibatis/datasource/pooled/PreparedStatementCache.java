@@ -0,0 +1,273 @@
+package org.apache.ibatis.datasource.pooled;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个物理连接上的预编译语句缓存，连接归还再取出后仍然有效，不同会话之间共用
+ *
+ * 按 prepareStatement 的全部参数（sql、结果集类型、并发性、可保持性、是否取自增主键）缓存，
+ * 交出去的是代理，close 时不真正关闭，关闭交出去的结果集、清掉参数、批处理和改过的设置后放回缓存，
+ * 下次同样的 sql 直接复用，服务端预编译的语句不用每次重新预编译。超出容量时关闭最久没有用到的语句。
+ * 同一条 sql 的语句还在使用时（比如嵌套查询），另外预编译一个不缓存的
+ */
+class PreparedStatementCache {
+
+    private static final Class<?>[] IFACES = new Class<?>[] { PreparedStatement.class };
+
+    /**
+     * 放回缓存时要还原的设置
+     * key:setter 方法名
+     * value:读取原值的 getter 方法名，没有 getter 的（setEscapeProcessing）为 null，还原成 JDBC 规定的默认值 true
+     */
+    private static final Map<String, String> SETTINGS = new HashMap<String, String>();
+
+    static {
+        SETTINGS.put("setQueryTimeout", "getQueryTimeout");
+        SETTINGS.put("setFetchSize", "getFetchSize");
+        SETTINGS.put("setMaxRows", "getMaxRows");
+        SETTINGS.put("setLargeMaxRows", "getLargeMaxRows");
+        SETTINGS.put("setMaxFieldSize", "getMaxFieldSize");
+        SETTINGS.put("setFetchDirection", "getFetchDirection");
+        SETTINGS.put("setPoolable", "isPoolable");
+        SETTINGS.put("setEscapeProcessing", null);
+    }
+
+    private final int size;
+
+    /**
+     * 按访问顺序排列，最久没有用到的在最前面
+     * key:prepareStatement 的参数
+     */
+    private final Map<List<Object>, CachedStatement> statements = new LinkedHashMap<List<Object>, CachedStatement>(16, .75F, true);
+
+    PreparedStatementCache(int size) {
+        this.size = size;
+    }
+
+    /**
+     * 取得缓存的预编译语句
+     *
+     * @param connection 真正的连接
+     * @param args prepareStatement 的参数
+     * @return 不能缓存的参数形式（如按列名取自增主键），或者缓存的语句正在使用时返回 null
+     * @throws SQLException 预编译失败
+     */
+    synchronized PreparedStatement prepare(Connection connection, Object[] args) throws SQLException {
+        for (int i = 1; i < args.length; i++) {
+            if (!(args[i] instanceof Integer)) {
+                return null;
+            }
+        }
+        List<Object> key = Arrays.asList(args);
+        CachedStatement cached = statements.get(key);
+        if (cached == null) {
+            cached = new CachedStatement(this, key, prepareStatement(connection, args));
+            statements.put(key, cached);
+            evict();
+        } else if (cached.inUse) {
+            return null;
+        }
+        cached.inUse = true;
+        return cached.proxy;
+    }
+
+    private static PreparedStatement prepareStatement(Connection connection, Object[] args) throws SQLException {
+        String sql = (String) args[0];
+        switch (args.length) {
+            case 1:
+                return connection.prepareStatement(sql);
+            case 2:
+                return connection.prepareStatement(sql, (Integer) args[1]);
+            case 3:
+                return connection.prepareStatement(sql, (Integer) args[1], (Integer) args[2]);
+            default:
+                return connection.prepareStatement(sql, (Integer) args[1], (Integer) args[2], (Integer) args[3]);
+        }
+    }
+
+    int getSize() {
+        return statements.size();
+    }
+
+    private void evict() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (statements.size() > size && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next();
+            iterator.remove();
+            eldest.evicted = true;
+            //正在使用的等 close 时再关闭
+            if (!eldest.inUse) {
+                eldest.closeQuietly();
+            }
+        }
+    }
+
+    /**
+     * 语句用完了，放回缓存
+     */
+    private synchronized void release(CachedStatement cached) {
+        cached.inUse = false;
+        if (cached.evicted) {
+            cached.closeQuietly();
+        }
+    }
+
+    /**
+     * 语句出了问题，不再缓存
+     */
+    private synchronized void discard(CachedStatement cached) {
+        if (statements.get(cached.key) == cached) {
+            statements.remove(cached.key);
+        }
+        cached.evicted = true;
+    }
+
+    /**
+     * 缓存的预编译语句，是交出去的代理的处理器
+     */
+    private static final class CachedStatement implements InvocationHandler {
+
+        private final PreparedStatementCache cache;
+
+        private final List<Object> key;
+
+        private final PreparedStatement statement;
+
+        private final PreparedStatement proxy;
+
+        private boolean inUse;
+
+        private boolean evicted;
+
+        private boolean batched;
+
+        /**
+         * 这次使用中改过的设置的原值，key:setter 方法
+         */
+        private Map<Method, Object> originalSettings;
+
+        /**
+         * 这次使用中交出去的结果集（executeQuery、getResultSet、getGeneratedKeys），放回缓存时关闭
+         */
+        private List<ResultSet> resultSets;
+
+        CachedStatement(PreparedStatementCache cache, List<Object> key, PreparedStatement statement) {
+            this.cache = cache;
+            this.key = key;
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), IFACES, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (Object.class.equals(method.getDeclaringClass())) {
+                if ("equals".equals(methodName)) {
+                    return proxy == args[0];
+                } else if ("hashCode".equals(methodName)) {
+                    return System.identityHashCode(proxy);
+                }
+                return statement.toString();
+            } else if ("close".equals(methodName)) {
+                close();
+                return null;
+            } else if ("isClosed".equals(methodName)) {
+                return !inUse || statement.isClosed();
+            } else if (!inUse) {
+                throw new SQLException("Error accessing cached PreparedStatement. Statement is closed.");
+            } else if ("addBatch".equals(methodName)) {
+                batched = true;
+            } else if ("closeOnCompletion".equals(methodName)) {
+                //没有办法撤销，结果集关闭时语句也会关闭，不能再放回缓存
+                cache.discard(this);
+            } else if (SETTINGS.containsKey(methodName)) {
+                rememberSetting(method);
+            }
+            Object result;
+            try {
+                result = method.invoke(statement, args);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+            if (result instanceof ResultSet) {
+                if (resultSets == null) {
+                    resultSets = new ArrayList<ResultSet>();
+                }
+                resultSets.add((ResultSet) result);
+            }
+            return result;
+        }
+
+        /**
+         * 放回缓存，再次取出之前使用这个代理会报错
+         */
+        private void close() {
+            if (!inUse) {
+                return;
+            }
+            try {
+                if (resultSets != null) {
+                    for (ResultSet resultSet : resultSets) {
+                        resultSet.close();
+                    }
+                    resultSets = null;
+                }
+                statement.clearParameters();
+                if (batched) {
+                    statement.clearBatch();
+                    batched = false;
+                }
+                if (originalSettings != null) {
+                    for (Map.Entry<Method, Object> entry : originalSettings.entrySet()) {
+                        entry.getKey().invoke(statement, entry.getValue());
+                    }
+                    originalSettings = null;
+                }
+            } catch (Exception e) {
+                resultSets = null;
+                originalSettings = null;
+                cache.discard(this);
+            }
+            cache.release(this);
+        }
+
+        private void rememberSetting(Method setter) throws Throwable {
+            if (originalSettings == null) {
+                originalSettings = new HashMap<Method, Object>();
+            }
+            if (!originalSettings.containsKey(setter)) {
+                String getter = SETTINGS.get(setter.getName());
+                Object original;
+                try {
+                    original = getter == null ? Boolean.TRUE : setter.getDeclaringClass().getMethod(getter).invoke(statement);
+                } catch (Throwable t) {
+                    throw ExceptionUtil.unwrapThrowable(t);
+                }
+                originalSettings.put(setter, original);
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.apache.ibatis.executor;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.logging.jdbc.ConnectionLogger;
@@ -13,6 +14,7 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetPage;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -22,6 +24,7 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -34,7 +37,7 @@ import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOL
 /**
  * 总结
  * MyBatis一级缓存的生命周期和SqlSession一致。
- * MyBatis一级缓存内部设计简单，只是一个没有容量限定的HashMap，在缓存的功能性上有所欠缺。
+ * MyBatis一级缓存内部设计简单，默认是一个没有容量限定的HashMap，可以用 localCacheSize 限定容量，按LRU淘汰。
  * MyBatis的一级缓存最大范围是SqlSession内部，有多个SqlSession或者分布式的环境下，数据库写操作会引起脏数据，建议设定缓存级别为Statement。
  *
  * 执行器基类
@@ -62,12 +65,17 @@ public abstract class BaseExecutor implements Executor {
      * 本地缓存
      * 本地缓存机制（Local Cache）防止循环引用（circular references）和加速重复嵌套查询(一级缓存)
      */
-    protected PerpetualCache localCache;
+    protected LocalCache localCache;
 
     /**
      * 本地输出参数缓存，存储过程
      */
-    protected PerpetualCache localOutputParameterCache;
+    protected LocalCache localOutputParameterCache;
+
+    /**
+     * 不留在本地缓存中的查询（useLocalCache=false）的 key，最外层查询结束后移除
+     */
+    protected List<CacheKey> statementScopedKeys;
 
     /**
      * 配置
@@ -84,11 +92,19 @@ public abstract class BaseExecutor implements Executor {
      */
     private boolean closed;
 
+    /**
+     * 最近一次 update 生成的 sql，CachingExecutor 按表失效二级缓存时直接用，不必再生成一次
+     */
+    private BoundSql lastUpdateBoundSql;
+
     protected BaseExecutor(Configuration configuration, Transaction transaction) {
         this.transaction = transaction;
         this.deferredLoads = new ConcurrentLinkedQueue<DeferredLoad>();
-        this.localCache = new PerpetualCache("LocalCache");
-        this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
+        //ResultLoaderMap.ClosedExecutor 没有配置
+        int localCacheSize = configuration != null ? configuration.getLocalCacheSize() : 0;
+        this.localCache = new LocalCache("LocalCache", localCacheSize);
+        this.localOutputParameterCache = new LocalCache("LocalOutputParameterCache", localCacheSize);
+        this.statementScopedKeys = new ArrayList<CacheKey>();
         this.closed = false;
         this.configuration = configuration;
         this.wrapper = this;
@@ -138,6 +154,7 @@ public abstract class BaseExecutor implements Executor {
             deferredLoads = null;
             localCache = null;
             localOutputParameterCache = null;
+            statementScopedKeys = null;
             closed = true;
         }
     }
@@ -164,10 +181,31 @@ public abstract class BaseExecutor implements Executor {
         }
         //先清局部缓存，再更新，如何更新交由子类，模板方法模式
         clearLocalCache();
+        lastUpdateBoundSql = null;
         //模版方法设计模式
         return doUpdate(ms, parameter);
     }
 
+    /**
+     * 为 update 新建 StatementHandler，并记下它生成的 sql
+     */
+    protected StatementHandler newUpdateStatementHandler(MappedStatement ms, Object parameter) {
+        StatementHandler handler = ms.getConfiguration().newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
+        lastUpdateBoundSql = handler.getBoundSql();
+        return handler;
+    }
+
+    /**
+     * 取出最近一次 update 生成的 sql
+     *
+     * @return 没有时返回 null
+     */
+    BoundSql takeLastUpdateBoundSql() {
+        BoundSql boundSql = lastUpdateBoundSql;
+        lastUpdateBoundSql = null;
+        return boundSql;
+    }
+
     @Override
     public List<BatchResult> flushStatements() throws SQLException {
         return flushStatements(false);
@@ -240,6 +278,9 @@ public abstract class BaseExecutor implements Executor {
             // issue #601
             //清空延迟加载队列
             deferredLoads.clear();
+            //延迟加载完成，不再需要钉住它们的结果
+            localCache.unpinAll();
+            removeStatementScopedKeys();
             //在query方法执行的最后，会判断一级缓存级别是否是STATEMENT级别，如果是的话，就清空缓存，这也就是STATEMENT级别的一级缓存无法共享localCache的原因。代码如下所示：
             if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
                 // issue #482
@@ -269,8 +310,9 @@ public abstract class BaseExecutor implements Executor {
         if (deferredLoad.canLoad()) {
             deferredLoad.load();
         } else {
-            //这里怎么又new了一个新的，性能有点问题
-            deferredLoads.add(new DeferredLoad(resultObject, property, key, localCache, configuration, targetType));
+            deferredLoads.add(deferredLoad);
+            //加载之前结果不能被淘汰
+            localCache.pin(key);
         }
     }
 
@@ -300,6 +342,15 @@ public abstract class BaseExecutor implements Executor {
         int rowBoundsLimit = rowBounds.getLimit();
         cacheKey.update(rowBoundsLimit);
 
+        if (rowBounds instanceof KeysetPage) {
+            //键集分页改写了排序，第一页也不能与 offset/limit 相同的 RowBounds 查询共用缓存
+            cacheKey.update(KeysetPage.class.getName());
+            //不同页的 offset/limit 都一样，要靠上一页的排序键区分
+            for (Object lastKey : ((KeysetPage) rowBounds).getLastKeys()) {
+                cacheKey.update(lastKey);
+            }
+        }
+
         String sql = boundSql.getSql();
         cacheKey.update(sql);
 
@@ -369,9 +420,21 @@ public abstract class BaseExecutor implements Executor {
         if (!closed) {
             localCache.clear();
             localOutputParameterCache.clear();
+            statementScopedKeys.clear();
         }
     }
 
+    private void removeStatementScopedKeys() {
+        if (statementScopedKeys.isEmpty()) {
+            return;
+        }
+        for (CacheKey cacheKey : statementScopedKeys) {
+            localCache.removeObject(cacheKey);
+            localOutputParameterCache.removeObject(cacheKey);
+        }
+        statementScopedKeys.clear();
+    }
+
     protected void closeStatement(Statement statement) {
         if (statement != null) {
             try {
@@ -437,6 +500,10 @@ public abstract class BaseExecutor implements Executor {
         }
         //加入以及缓存
         localCache.putObject(cacheKey, list);
+        if (!mappedStatement.isUseLocalCache()) {
+            //本次查询中的嵌套查询、延迟加载仍然能用到，最外层查询结束后移除
+            statementScopedKeys.add(cacheKey);
+        }
         //如果是存储过程，OUT参数也加入缓存
         if (mappedStatement.getStatementType() == StatementType.CALLABLE) {
             localOutputParameterCache.putObject(cacheKey, parameter);
@@ -444,6 +511,18 @@ public abstract class BaseExecutor implements Executor {
         return list;
     }
 
+    /**
+     * 取得执行语句用的连接，语句日志开启并且这次执行被抽中时返回打印日志的连接，
+     * 日志关闭时只多一次判断
+     */
+    protected Connection getConnection(MappedStatement ms) throws SQLException {
+        Log statementLog = ms.getStatementLog();
+        if (statementLog.isDebugEnabled() && ms.isStatementLogSampled()) {
+            return ConnectionLogger.newInstance(transaction.getConnection(), statementLog, queryStack);
+        }
+        return transaction.getConnection();
+    }
+
     protected Connection getConnection(Log statementLog) throws SQLException {
         Connection connection = transaction.getConnection();
         if (statementLog.isDebugEnabled()) {
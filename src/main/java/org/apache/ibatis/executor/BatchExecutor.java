@@ -54,8 +54,7 @@ public class BatchExecutor extends BaseExecutor {
 
     @Override
     public int doUpdate(MappedStatement mappedStatement, Object parameterObject) throws SQLException {
-        final Configuration configuration = mappedStatement.getConfiguration();
-        final StatementHandler handler = configuration.newStatementHandler(this, mappedStatement, parameterObject, RowBounds.DEFAULT, null, null);
+        final StatementHandler handler = newUpdateStatementHandler(mappedStatement, parameterObject);
         final BoundSql boundSql = handler.getBoundSql();
         final String sql = boundSql.getSql();
         final Statement statement;
@@ -66,7 +65,7 @@ public class BatchExecutor extends BaseExecutor {
             batchResult.addParameterObject(parameterObject);
         } else {
             //获取同一个事务中的连接
-            Connection connection = getConnection(mappedStatement.getStatementLog());
+            Connection connection = getConnection(mappedStatement);
             statement = handler.prepare(connection);
             currentSql = sql;
             currentStatement = mappedStatement;
@@ -85,7 +84,7 @@ public class BatchExecutor extends BaseExecutor {
             flushStatements();
             Configuration configuration = ms.getConfiguration();
             StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameterObject, rowBounds, resultHandler, boundSql);
-            Connection connection = getConnection(ms.getStatementLog());
+            Connection connection = getConnection(ms);
             stmt = handler.prepare(connection);
             handler.parameterize(stmt);
             return handler.query(stmt, resultHandler);
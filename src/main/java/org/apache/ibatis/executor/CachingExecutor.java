@@ -3,6 +3,8 @@ package org.apache.ibatis.executor;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
+import org.apache.ibatis.cache.decorators.TableInvalidatingCache;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
@@ -15,6 +17,8 @@ import org.apache.ibatis.transaction.Transaction;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * @author Clinton Begin
@@ -44,6 +48,12 @@ public class CachingExecutor implements Executor {
      */
     private TransactionalCacheManager transactionalCacheManager = new TransactionalCacheManager();
 
+    /**
+     * 本事务是否执行过写操作（不论写的是哪个 namespace、是否刷新缓存），提交或回滚后清除。
+     * 这时查到的数据可能包含本事务未提交的修改，不能通过 SingleFlightCache 共享给其他会话，也不能拿其他会话的结果
+     */
+    private boolean dirty;
+
     public CachingExecutor(Executor delegateExecutor) {
         this.delegateExecutor = delegateExecutor;
         delegateExecutor.setExecutorWrapper(this);
@@ -58,14 +68,39 @@ public class CachingExecutor implements Executor {
      * 通过该 映射sql的配置决定是否需要清除缓存
      * 这是用户在配置sql的地方指定是否需要刷新，是否使用缓存
      *
+     * 如果有 <cache invalidation="TABLE"/> 的缓存，则只失效所有这类缓存中依赖该sql所写表的条目，
+     * 解析不出表名（如 CALL）时不知道写了哪些表，所有这类缓存都清空，本 namespace 的缓存也清空
+     *
      * @param mappedStatement 具体的映射语句
+     * @param parameterObject 参数
+     * @param boundSql 本次执行的 sql，为 null 则需要时再生成
      */
-    private void flushCacheIfRequired(MappedStatement mappedStatement) {
+    private void flushCacheIfRequired(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
         Cache cache = mappedStatement.getCache();
         //在对应namespace的mapper文件加：<cache flushInterval="3600000"/>
         //在对应的sql添加 <select id="selectByIdFlush" resultMap="personMap" parameterType="int" flushCache="true">，则刷新，否则该sql不刷新
         boolean flushCacheRequired = mappedStatement.isFlushCacheRequired();
-        if (cache != null && flushCacheRequired) {
+        if (!flushCacheRequired) {
+            return;
+        }
+        List<TableInvalidatingCache> tableCaches = mappedStatement.getConfiguration().getTableInvalidatingCaches();
+        if (!tableCaches.isEmpty()) {
+            if (boundSql == null) {
+                boundSql = mappedStatement.getBoundSql(parameterObject);
+            }
+            Set<String> tables = mappedStatement.getTables(boundSql);
+            for (TableInvalidatingCache tableCache : tableCaches) {
+                if (tables.isEmpty()) {
+                    transactionalCacheManager.clear(tableCache);
+                } else {
+                    transactionalCacheManager.invalidateTables(tableCache, tables);
+                }
+            }
+            if (cache instanceof TableInvalidatingCache) {
+                return;
+            }
+        }
+        if (cache != null) {
             //如果该 statement 要要刷新缓存，则一级，二级缓存都会傻笑
             transactionalCacheManager.clear(cache);
         }
@@ -73,10 +108,16 @@ public class CachingExecutor implements Executor {
 
     @Override
     public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-        //根据配置决定是否刷新缓存完再update
-        flushCacheIfRequired(ms);
+        dirty = true;
         //被装饰者去做事情
-        return delegateExecutor.update(ms, parameterObject);
+        int updated = delegateExecutor.update(ms, parameterObject);
+        //再根据配置决定是否刷新缓存，用被装饰者这次生成的 sql 决定失效哪些表，动态 sql 不用再生成一次
+        flushCacheIfRequired(ms, parameterObject, takeLastUpdateBoundSql());
+        return updated;
+    }
+
+    private BoundSql takeLastUpdateBoundSql() {
+        return delegateExecutor instanceof BaseExecutor ? ((BaseExecutor) delegateExecutor).takeLastUpdateBoundSql() : null;
     }
 
     @Override
@@ -102,7 +143,7 @@ public class CachingExecutor implements Executor {
         if (isThisNamespaceUseCache) {
 
             // <select id="selectByIdFlush" resultMap="personMap" parameterType="int" flushCache="true">
-            flushCacheIfRequired(mappedStatement);
+            flushCacheIfRequired(mappedStatement, parameterObject, boundSql);
 
             //当该namespace开启了二级缓存，则里面的statement默认使用缓存，除非指定 useCache="false"
             boolean isThisStatementUseCache = mappedStatement.isUseCache();
@@ -116,11 +157,22 @@ public class CachingExecutor implements Executor {
                 List<E> list = (List<E>) transactionalCacheManager.getObject(cache, cacheKey);
                 if (list == null) {
 
-                    //二级缓存没命中，去被代理的执行器，在哪里会进行一级缓存查询
-                    list = delegateExecutor.query(mappedStatement, parameterObject, rowBounds, null, cacheKey, boundSql);
+                    SingleFlightCache singleFlightCache = getSingleFlightCache(cache);
+                    if (singleFlightCache != null && !dirty && !transactionalCacheManager.hasPendingInvalidation(cache)) {
+                        //并发的相同查询只有一个真正去查，其他的等它的结果
+                        list = queryOnce(singleFlightCache, mappedStatement, parameterObject, rowBounds, cacheKey, boundSql);
+                    } else {
+                        //二级缓存没命中，去被代理的执行器，在哪里会进行一级缓存查询
+                        list = delegateExecutor.query(mappedStatement, parameterObject, rowBounds, null, cacheKey, boundSql);
+                    }
 
                     //查询结果存入二级缓存
-                    transactionalCacheManager.putObject(cache, cacheKey, list); // issue #578 and #116
+                    if (cache instanceof TableInvalidatingCache) {
+                        //记录结果依赖的表，写这些表时才失效
+                        transactionalCacheManager.putObject(cache, cacheKey, list, mappedStatement.getTables(boundSql));
+                    } else {
+                        transactionalCacheManager.putObject(cache, cacheKey, list); // issue #578 and #116
+                    }
                 }
                 return list;
             }
@@ -129,6 +181,39 @@ public class CachingExecutor implements Executor {
         return delegateExecutor.query(mappedStatement, parameterObject, rowBounds, resultHandler, cacheKey, boundSql);
     }
 
+    /**
+     * 通过 SingleFlightCache 查询，本事务写过的数据不能共享，所以调用前要确认本事务没有写过任何数据
+     */
+    private <E> List<E> queryOnce(SingleFlightCache singleFlightCache, final MappedStatement mappedStatement, final Object parameterObject,
+            final RowBounds rowBounds, final CacheKey cacheKey, final BoundSql boundSql) throws SQLException {
+        //最多等待 singleFlightTimeout，语句的超时时间更短时用语句的超时时间
+        long timeout = mappedStatement.getConfiguration().getSingleFlightTimeout();
+        if (mappedStatement.getTimeout() != null && timeout > 0) {
+            timeout = Math.min(timeout, mappedStatement.getTimeout() * 1000L);
+        }
+        try {
+            return singleFlightCache.load(cacheKey, new Callable<List<E>>() {
+                @Override
+                public List<E> call() throws Exception {
+                    return delegateExecutor.<E>query(mappedStatement, parameterObject, rowBounds, null, cacheKey, boundSql);
+                }
+            }, timeout);
+        } catch (SQLException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExecutorException("Error querying database.  Cause: " + e, e);
+        }
+    }
+
+    private static SingleFlightCache getSingleFlightCache(Cache cache) {
+        if (cache instanceof TableInvalidatingCache) {
+            cache = ((TableInvalidatingCache) cache).getDelegate();
+        }
+        return cache instanceof SingleFlightCache ? (SingleFlightCache) cache : null;
+    }
+
     @Override
     public void close(boolean forceRollback) {
         try {
@@ -139,6 +224,7 @@ public class CachingExecutor implements Executor {
                 transactionalCacheManager.commit();
             }
         } finally {
+            dirty = false;
             delegateExecutor.close(forceRollback);
         }
     }
@@ -157,6 +243,8 @@ public class CachingExecutor implements Executor {
     public void commit(boolean required) throws SQLException {
         delegateExecutor.commit(required);
         transactionalCacheManager.commit();
+        //自动提交时写操作已经提交，不需要提交时也没有未提交的修改
+        dirty = false;
     }
 
     @Override
@@ -167,6 +255,7 @@ public class CachingExecutor implements Executor {
             if (required) {
                 transactionalCacheManager.rollback();
             }
+            dirty = false;
         }
     }
 
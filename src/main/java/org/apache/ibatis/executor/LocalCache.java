@@ -0,0 +1,101 @@
+package org.apache.ibatis.executor;
+
+import org.apache.ibatis.cache.impl.PerpetualCache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+
+/**
+ * 执行器的本地（一级）缓存
+ *
+ * 容量为 0 时与 PerpetualCache 一样不限制大小；否则按最近使用的顺序淘汰。
+ * 正在执行的查询的占位符和被钉住的结果（延迟加载队列要用到的）不会被淘汰，循环引用的处理不受影响，
+ * 这时容量可能暂时超出，解除钉住后再收缩
+ */
+public class LocalCache extends PerpetualCache {
+
+    /**
+     * 容量，0 表示不限制
+     */
+    private final int size;
+
+    /**
+     * 有容量时按访问顺序排列，最久没有用到的在最前面
+     */
+    private final Map<Object, Object> cacheMap;
+
+    /**
+     * 被钉住的 key
+     */
+    private final Set<Object> pinnedKeys = new HashSet<Object>();
+
+    public LocalCache(String id, int size) {
+        super(id);
+        this.size = size;
+        this.cacheMap = size > 0 ? new LinkedHashMap<Object, Object>(16, .75F, true) : new HashMap<Object, Object>();
+    }
+
+    @Override
+    public int getSize() {
+        return cacheMap.size();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        cacheMap.put(key, value);
+        evict();
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        return cacheMap.get(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        return cacheMap.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        cacheMap.clear();
+    }
+
+    /**
+     * 钉住一个 key，解除之前不会被淘汰
+     */
+    public void pin(Object key) {
+        if (size > 0) {
+            pinnedKeys.add(key);
+        }
+    }
+
+    /**
+     * 解除全部钉住，并收缩到容量以内
+     */
+    public void unpinAll() {
+        if (!pinnedKeys.isEmpty()) {
+            pinnedKeys.clear();
+            evict();
+        }
+    }
+
+    private void evict() {
+        if (size <= 0 || cacheMap.size() <= size) {
+            return;
+        }
+        Iterator<Map.Entry<Object, Object>> iterator = cacheMap.entrySet().iterator();
+        while (cacheMap.size() > size && iterator.hasNext()) {
+            Map.Entry<Object, Object> entry = iterator.next();
+            if (entry.getValue() != EXECUTION_PLACEHOLDER && !pinnedKeys.contains(entry.getKey())) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package org.apache.ibatis.executor;
 
 import org.apache.ibatis.executor.statement.StatementHandler;
-import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
@@ -40,12 +39,11 @@ public class ReuseExecutor extends BaseExecutor {
 
     @Override
     public int doUpdate(MappedStatement mappedStatement, Object parameter) throws SQLException {
-        Configuration configuration = mappedStatement.getConfiguration();
         //和SimpleExecutor一样，新建一个StatementHandler
         //这里看到ResultHandler传入的是null
-        StatementHandler handler = configuration.newStatementHandler(this, mappedStatement, parameter, RowBounds.DEFAULT, null, null);
+        StatementHandler handler = newUpdateStatementHandler(mappedStatement, parameter);
         //准备语句
-        Statement stmt = prepareStatement(handler, mappedStatement.getStatementLog());
+        Statement stmt = prepareStatement(handler, mappedStatement);
         return handler.update(stmt);
     }
 
@@ -53,7 +51,7 @@ public class ReuseExecutor extends BaseExecutor {
     public <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
         Configuration configuration = ms.getConfiguration();
         StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
-        Statement stmt = prepareStatement(handler, ms.getStatementLog());
+        Statement stmt = prepareStatement(handler, ms);
         return handler.query(stmt, resultHandler);
     }
 
@@ -66,7 +64,7 @@ public class ReuseExecutor extends BaseExecutor {
         return Collections.emptyList();
     }
 
-    private Statement prepareStatement(StatementHandler statementHandler, Log statementLog) throws SQLException {
+    private Statement prepareStatement(StatementHandler statementHandler, MappedStatement mappedStatement) throws SQLException {
         Statement statement;
         //得到绑定的SQL语句
         BoundSql boundSql = statementHandler.getBoundSql();
@@ -78,7 +76,7 @@ public class ReuseExecutor extends BaseExecutor {
             statement = getStatement(sql);
         } else {
             //如果缓存没有找到，则和SimpleExecutor处理完全一样，然后加入缓存
-            Connection connection = getConnection(statementLog);
+            Connection connection = getConnection(mappedStatement);
             statement = statementHandler.prepare(connection);
             //丢进缓存
             putStatement(sql, statement);
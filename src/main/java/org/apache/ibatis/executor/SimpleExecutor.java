@@ -1,7 +1,6 @@
 package org.apache.ibatis.executor;
 
 import org.apache.ibatis.executor.statement.StatementHandler;
-import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
@@ -33,12 +32,11 @@ public class SimpleExecutor extends BaseExecutor {
     public int doUpdate(MappedStatement mappedStatement, Object parameter) throws SQLException {
         Statement statement = null;
         try {
-            Configuration configuration = mappedStatement.getConfiguration();
             //新建一个StatementHandler
             //这里看到ResultHandler传入的是null
-            StatementHandler handler = configuration.newStatementHandler(this, mappedStatement, parameter, RowBounds.DEFAULT, null, null);
+            StatementHandler handler = newUpdateStatementHandler(mappedStatement, parameter);
             //准备语句
-            statement = prepareStatement(handler, mappedStatement.getStatementLog());
+            statement = prepareStatement(handler, mappedStatement);
             //StatementHandler.update
             return handler.update(statement);
         } finally {
@@ -56,8 +54,7 @@ public class SimpleExecutor extends BaseExecutor {
             //这里看到ResultHandler传入了
             StatementHandler handler = configuration.newStatementHandler(wrapper, mappedStatement, parameter, rowBounds, resultHandler, boundSql);
             //准备语句
-            Log statementLog = mappedStatement.getStatementLog();
-            statement = prepareStatement(handler, statementLog);
+            statement = prepareStatement(handler, mappedStatement);
             //StatementHandler.query
             return handler.<E>query(statement, resultHandler);
         } finally {
@@ -75,13 +72,13 @@ public class SimpleExecutor extends BaseExecutor {
      * 准备 Statement ，步骤：getConnection -》prepare -》parameterize
      *
      * @param statementHandler Statement处理器
-     * @param statementLog log
+     * @param mappedStatement 语句，决定是否打印日志
      * @return Statement
      * @throws SQLException sql异常
      */
-    private Statement prepareStatement(StatementHandler statementHandler, Log statementLog) throws SQLException {
+    private Statement prepareStatement(StatementHandler statementHandler, MappedStatement mappedStatement) throws SQLException {
         Statement statement;
-        Connection connection = getConnection(statementLog);
+        Connection connection = getConnection(mappedStatement);
         //调用StatementHandler.prepare
         statement = statementHandler.prepare(connection);
         //调用StatementHandler.parameterize
@@ -1,29 +1,41 @@
 package org.apache.ibatis.executor.keygen;
 
+import org.apache.ibatis.binding.MapperMethod;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
-import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * JDBC3键值生成器,核心是使用JDBC3的Statement.getGeneratedKeys
  *
  * sql:<insert id="insertTable2WithGeneratedKeyXml" useGeneratedKeys="true" keyProperty="nameId,generatedName" keyColumn="ID,NAME_FRED"> 的情况使用该方法
  *
+ * 如果参数是集合或者数组（如 <foreach> 拼出的多行 INSERT ... VALUES (...),(...)），生成的主键按顺序回写到每一个元素中
+ *
  * @author Clinton Begin
  */
 public class Jdbc3KeyGenerator implements KeyGenerator {
 
+    /**
+     * 最近一次使用的主键回写计划，同一个语句的参数类型一般不会变化，所以只缓存一个
+     */
+    private volatile KeyAssigner lastKeyAssigner;
+
     @Override
     public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
         // do nothing
@@ -31,9 +43,7 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
 
     @Override
     public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
-        List<Object> parameters = new ArrayList<Object>();
-        parameters.add(parameter);
-        processBatch(ms, stmt, parameters);
+        processBatch(ms, stmt, Collections.singletonList(parameter));
     }
 
     /**
@@ -44,43 +54,36 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
      * @param parameters 插入对象，也即参数，主键就是要回写到该对象中，用户就可以直接拿来使用
      */
     public void processBatch(MappedStatement mappedStatement, Statement statement, List<Object> parameters) {
+        final String[] keyProperties = mappedStatement.getKeyProperties();
+        if (keyProperties == null || keyProperties.length == 0) {
+            return;
+        }
         ResultSet resultSet = null;
         try {
             //核心是使用JDBC3的Statement.getGeneratedKeys
 
             //执行sql拿主键
             resultSet = statement.getGeneratedKeys();
-            final Configuration configuration = mappedStatement.getConfiguration();
-
-            //类型处理注册机
-            final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
-            final String[] keyProperties = mappedStatement.getKeyProperties();
-            final ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
-            TypeHandler<?>[] typeHandlers = null;
-            if (keyProperties == null) {
-                return;
-            }
-
-            int resultSetMetaDataColumnCount = resultSetMetaData.getColumnCount();
-            int kePropertiesLen = keyProperties.length;
-            boolean resultMoreThanKey = resultSetMetaDataColumnCount >= kePropertiesLen;
-            if (!resultMoreThanKey) {
+            if (resultSet.getMetaData().getColumnCount() < keyProperties.length) {
                 return;
             }
+            final Configuration configuration = mappedStatement.getConfiguration();
             for (Object parameter : parameters) {
-                // there should be one row for each statement (also one for each parameter)
-                if (!resultSet.next()) {
-                    break;
+                Collection<?> rows = getMultiRowParameters(parameter);
+                if (rows == null) {
+                    // there should be one row for each statement (also one for each parameter)
+                    if (!assignKeys(configuration, resultSet, keyProperties, parameter)) {
+                        break;
+                    }
+                } else {
+                    //多行插入，每一行对应一个元素
+                    for (Object row : rows) {
+                        if (!assignKeys(configuration, resultSet, keyProperties, row)) {
+                            return;
+                        }
+                    }
                 }
-                final MetaObject metaParam = configuration.newMetaObject(parameter);
-                if (typeHandlers == null) {
-                    //先取得类型处理器
-                    typeHandlers = getTypeHandlers(typeHandlerRegistry, metaParam, keyProperties);
-                }
-                //填充键值
-                populateKeys(resultSet, metaParam, keyProperties, typeHandlers);
             }
-
         } catch (Exception e) {
             throw new ExecutorException("Error getting generated key or setting result to parameter object. Cause: " + e, e);
         } finally {
@@ -94,33 +97,160 @@ public class Jdbc3KeyGenerator implements KeyGenerator {
         }
     }
 
-    private TypeHandler<?>[] getTypeHandlers(TypeHandlerRegistry typeHandlerRegistry, MetaObject metaParam, String[] keyProperties) {
+    /**
+     * 读取下一行主键并回写到参数中
+     *
+     * @return 结果集中没有更多主键时返回 false
+     */
+    private boolean assignKeys(Configuration configuration, ResultSet resultSet, String[] keyProperties, Object parameter) throws Exception {
+        if (!resultSet.next()) {
+            return false;
+        }
+        if (parameter != null) {
+            getKeyAssigner(configuration, keyProperties, parameter).assign(resultSet, parameter);
+        }
+        return true;
+    }
 
-        TypeHandler<?>[] typeHandlers = new TypeHandler<?>[keyProperties.length];
+    /**
+     * 多行插入的参数只认两种：DefaultSqlSession.wrapCollection 包装出来的 collection/list/array，
+     * 以及映射器方法只有一个集合或数组参数时的 ParamMap（@Param 名和 param1 指向同一个对象）
+     *
+     * 用户自己传的 Map 即使有 collection 这样的 key 也当作单行参数
+     *
+     * @return 多行参数，如果参数不是集合或者数组则返回 null
+     */
+    static Collection<?> getMultiRowParameters(Object parameter) {
+        if (parameter instanceof DefaultSqlSession.StrictMap) {
+            //不能直接 get，StrictMap 找不到 key 会抛异常
+            Map<?, ?> parameterMap = (Map<?, ?>) parameter;
+            if (parameterMap.containsKey("collection")) {
+                return toRows(parameterMap.get("collection"));
+            }
+            if (parameterMap.containsKey("array")) {
+                return toRows(parameterMap.get("array"));
+            }
+        } else if (parameter instanceof MapperMethod.ParamMap) {
+            Object single = null;
+            for (Object value : ((Map<?, ?>) parameter).values()) {
+                if (single == null) {
+                    single = value;
+                } else if (value != single) {
+                    //多个参数
+                    return null;
+                }
+            }
+            return toRows(single);
+        }
+        return null;
+    }
 
-        for (int i = 0; i < keyProperties.length; i++) {
+    private static Collection<?> toRows(Object value) {
+        if (value instanceof Collection) {
+            return (Collection<?>) value;
+        }
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        }
+        return null;
+    }
 
-            String keyProperty = keyProperties[i];
-            boolean hasSetter = metaParam.hasSetter(keyProperty);
-            if (!hasSetter) {
-                continue;
-            }
-            Class<?> keyPropertyType = metaParam.getSetterType(keyProperty);
-            TypeHandler<?> th = typeHandlerRegistry.getTypeHandler(keyPropertyType);
-            typeHandlers[i] = th;
+    private KeyAssigner getKeyAssigner(Configuration configuration, String[] keyProperties, Object parameter) {
+        KeyAssigner keyAssigner = lastKeyAssigner;
+        if (keyAssigner == null || !keyAssigner.matches(keyProperties, parameter)) {
+            keyAssigner = new KeyAssigner(configuration, keyProperties, parameter);
+            lastKeyAssigner = keyAssigner;
         }
-        return typeHandlers;
+        return keyAssigner;
     }
 
-    private void populateKeys(ResultSet resultSet, MetaObject metaParam, String[] keyProperties, TypeHandler<?>[] typeHandlers) throws SQLException {
-        for (int i = 0; i < keyProperties.length; i++) {
-            TypeHandler<?> typeHandler = typeHandlers[i];
-            if (typeHandler == null) {
-                continue;
+    /**
+     * 某个参数类型的主键回写计划：每个 keyProperty 对应的 setter 和类型处理器只解析一次，
+     * 之后每行只需要按列下标读取主键再调用 setter
+     *
+     * 嵌套属性（如 bean.id）或者 Map 参数则退回到 MetaObject
+     */
+    private static class KeyAssigner {
+
+        private final Configuration configuration;
+
+        private final Class<?> parameterType;
+
+        private final String[] keyProperties;
+
+        /**
+         * 参数是普通 JavaBean 时的 setter，否则为 null
+         */
+        private final Invoker[] setters;
+
+        /**
+         * 下标与 keyProperties 一致，为 null 表示参数没有该属性的 setter，跳过
+         */
+        private final TypeHandler<?>[] typeHandlers;
+
+        KeyAssigner(Configuration configuration, String[] keyProperties, Object parameter) {
+            this.configuration = configuration;
+            this.parameterType = parameter.getClass();
+            this.keyProperties = keyProperties;
+            this.typeHandlers = new TypeHandler<?>[keyProperties.length];
+            final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+            if (isSimpleBean(configuration, parameter, keyProperties)) {
+                Reflector reflector = Reflector.forClass(parameterType);
+                this.setters = new Invoker[keyProperties.length];
+                for (int i = 0; i < keyProperties.length; i++) {
+                    if (reflector.hasSetter(keyProperties[i])) {
+                        setters[i] = reflector.getSetInvoker(keyProperties[i]);
+                        typeHandlers[i] = typeHandlerRegistry.getTypeHandler(reflector.getSetterType(keyProperties[i]));
+                    }
+                }
+            } else {
+                this.setters = null;
+                final MetaObject metaParam = configuration.newMetaObject(parameter);
+                for (int i = 0; i < keyProperties.length; i++) {
+                    if (metaParam.hasSetter(keyProperties[i])) {
+                        typeHandlers[i] = typeHandlerRegistry.getTypeHandler(metaParam.getSetterType(keyProperties[i]));
+                    }
+                }
+            }
+        }
+
+        private static boolean isSimpleBean(Configuration configuration, Object parameter, String[] keyProperties) {
+            final Class<?> parameterType = parameter.getClass();
+            if (configuration.getObjectWrapperFactory().hasWrapperFor(parameter)) {
+                return false;
+            }
+            if (Map.class.isAssignableFrom(parameterType) || Collection.class.isAssignableFrom(parameterType) || parameterType.isArray()) {
+                return false;
+            }
+            for (String keyProperty : keyProperties) {
+                if (keyProperty.indexOf('.') > -1 || keyProperty.indexOf('[') > -1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean matches(String[] keyProperties, Object parameter) {
+            return this.keyProperties == keyProperties && parameterType == parameter.getClass();
+        }
+
+        void assign(ResultSet resultSet, Object parameter) throws Exception {
+            MetaObject metaParam = null;
+            for (int i = 0; i < keyProperties.length; i++) {
+                TypeHandler<?> typeHandler = typeHandlers[i];
+                if (typeHandler == null) {
+                    continue;
+                }
+                Object value = typeHandler.getResult(resultSet, i + 1);
+                if (setters != null) {
+                    setters[i].invoke(parameter, new Object[] { value });
+                } else {
+                    if (metaParam == null) {
+                        metaParam = configuration.newMetaObject(parameter);
+                    }
+                    metaParam.setValue(keyProperties[i], value);
+                }
             }
-            Object value = typeHandler.getResult(resultSet, i + 1);
-            String keyProperty = keyProperties[i];
-            metaParam.setValue(keyProperty, value);
         }
     }
 }
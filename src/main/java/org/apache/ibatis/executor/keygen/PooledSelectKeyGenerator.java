@@ -0,0 +1,186 @@
+package org.apache.ibatis.executor.keygen;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.KeyAllocationStrategy;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 预分配主键的 <selectKey>，如：
+ *
+ * <selectKey keyProperty="id" resultType="long" order="BEFORE" allocationSize="50" allocationStrategy="HILO">
+ * select next value for user_seq
+ * </selectKey>
+ *
+ * 主键语句每 allocationSize 次插入才执行一次，其余的主键在本地按顺序分配（线程安全），
+ * 这样 ExecutorType.BATCH 下的插入不会每行都多一次 SELECT 往返。
+ * 主键语句也可以一次返回多行（如 select seq.nextval from dual connect by level <= 50），每一行就是一个主键。
+ *
+ * 只支持 order="BEFORE" 和单个 keyProperty
+ */
+public class PooledSelectKeyGenerator implements KeyGenerator {
+
+    private final MappedStatement keyStatement;
+
+    private final int allocationSize;
+
+    private final KeyAllocationStrategy allocationStrategy;
+
+    /**
+     * 主键语句一次返回多行时，这些行就是待分配的主键
+     */
+    private Object[] fetchedKeys;
+
+    private int fetchedKeyIndex;
+
+    /**
+     * 主键语句返回单个值时，下一个待分配的主键
+     */
+    private long nextKey;
+
+    /**
+     * 主键语句返回单个值时的类型，分配出去的主键与之保持一致
+     */
+    private Class<?> keyType;
+
+    /**
+     * 当前号段还剩多少个主键
+     */
+    private int remaining;
+
+    public PooledSelectKeyGenerator(MappedStatement keyStatement, int allocationSize, KeyAllocationStrategy allocationStrategy) {
+        this.keyStatement = keyStatement;
+        this.allocationSize = allocationSize;
+        this.allocationStrategy = allocationStrategy == null ? KeyAllocationStrategy.POOLED : allocationStrategy;
+    }
+
+    @Override
+    public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        if (parameter == null || keyStatement.getKeyProperties() == null) {
+            return;
+        }
+        try {
+            final String keyProperty = keyStatement.getKeyProperties()[0];
+            final Configuration configuration = ms.getConfiguration();
+            Collection<?> rows = Jdbc3KeyGenerator.getMultiRowParameters(parameter);
+            if (rows == null) {
+                setValue(configuration.newMetaObject(parameter), keyProperty, nextKey(executor, parameter));
+            } else {
+                //多行插入，每一个元素分配一个主键
+                for (Object row : rows) {
+                    if (row != null) {
+                        setValue(configuration.newMetaObject(row), keyProperty, nextKey(executor, parameter));
+                    }
+                }
+            }
+        } catch (ExecutorException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExecutorException("Error selecting key or setting result to parameter object. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+        // do nothing
+    }
+
+    /**
+     * 从当前号段取下一个主键，号段用完则执行主键语句再取一段
+     */
+    private synchronized Object nextKey(Executor executor, Object parameter) {
+        if (remaining == 0) {
+            allocate(executor, parameter);
+        }
+        remaining--;
+        if (fetchedKeys != null) {
+            return fetchedKeys[fetchedKeyIndex++];
+        }
+        return toKeyType(nextKey++);
+    }
+
+    private void allocate(Executor executor, Object parameter) {
+        final Configuration configuration = keyStatement.getConfiguration();
+        // Do not close keyExecutor.
+        // The transaction will be closed by parent executor.
+        Transaction transaction = executor.getTransaction();
+        Executor keyExecutor = configuration.newExecutor(transaction, ExecutorType.SIMPLE);
+        List<Object> values;
+        try {
+            values = keyExecutor.query(keyStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        } catch (Exception e) {
+            throw new ExecutorException("Error selecting key. Cause: " + e, e);
+        }
+        if (values.isEmpty()) {
+            throw new ExecutorException("SelectKey returned no data.");
+        }
+        final String keyProperty = keyStatement.getKeyProperties()[0];
+        if (values.size() > 1) {
+            //一次取回了多个序列值
+            fetchedKeys = new Object[values.size()];
+            for (int i = 0; i < fetchedKeys.length; i++) {
+                fetchedKeys[i] = extractKey(configuration, keyProperty, values.get(i));
+            }
+            fetchedKeyIndex = 0;
+            remaining = fetchedKeys.length;
+            return;
+        }
+        Object value = extractKey(configuration, keyProperty, values.get(0));
+        if (!(value instanceof Number)) {
+            throw new ExecutorException("SelectKey with allocationSize " + allocationSize + " must return a number, but returned " + value + ".");
+        }
+        long allocated = ((Number) value).longValue();
+        fetchedKeys = null;
+        keyType = value.getClass();
+        nextKey = allocationStrategy == KeyAllocationStrategy.HILO ? allocated * allocationSize : allocated;
+        remaining = allocationSize;
+    }
+
+    /**
+     * 与 SelectKeyGenerator 一致：返回对象有 keyProperty 的 getter 则取该属性，否则返回值本身就是主键
+     */
+    private Object extractKey(Configuration configuration, String keyProperty, Object resultObject) {
+        String[] keyColumns = keyStatement.getKeyColumns();
+        MetaObject metaResult = configuration.newMetaObject(resultObject);
+        if (keyColumns != null && keyColumns.length > 0 && metaResult.hasGetter(keyColumns[0])) {
+            return metaResult.getValue(keyColumns[0]);
+        }
+        if (metaResult.hasGetter(keyProperty)) {
+            return metaResult.getValue(keyProperty);
+        }
+        // no getter for the property - maybe just a single value object
+        return resultObject;
+    }
+
+    private Object toKeyType(long key) {
+        if (keyType == Integer.class) {
+            return (int) key;
+        } else if (keyType == Short.class) {
+            return (short) key;
+        } else if (keyType == BigInteger.class) {
+            return BigInteger.valueOf(key);
+        } else if (keyType == BigDecimal.class) {
+            return BigDecimal.valueOf(key);
+        }
+        return key;
+    }
+
+    private void setValue(MetaObject metaParam, String property, Object value) {
+        if (metaParam.hasSetter(property)) {
+            metaParam.setValue(property, value);
+        } else {
+            throw new ExecutorException("No setter found for the keyProperty '" + property + "' in " + metaParam.getOriginalObject().getClass().getName() + ".");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.apache.ibatis.executor.loader;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 延迟加载代理类的缓存
+ *
+ * 每个结果类型只生成一次代理类，每种构造器签名只查找一次构造器，
+ * 之后每一行的代价只是 new 一个代理对象和它的回调
+ *
+ * @param <C> 回调类型
+ */
+public abstract class ProxyClassCache<C> {
+
+    private static final Log log = LogFactory.getLog(ProxyClassCache.class);
+
+    private static final String WRITE_REPLACE_METHOD = "writeReplace";
+
+    /**
+     * key:结果类型
+     * value:无参构造器，大部分结果类型都走这里，查找时不需要创建 key
+     */
+    private final ConcurrentMap<Class<?>, Constructor<?>> defaultConstructors = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+    /**
+     * key:[结果类型, 构造器参数类型...]
+     * value:代理类的构造器
+     */
+    private final ConcurrentMap<List<Class<?>>, Constructor<?>> constructors = new ConcurrentHashMap<List<Class<?>>, Constructor<?>>();
+
+    /**
+     * key:结果类型
+     * value:代理类
+     */
+    private final ConcurrentMap<Class<?>, Class<?>> proxyClasses = new ConcurrentHashMap<Class<?>, Class<?>>();
+
+    /**
+     * 创建代理对象
+     *
+     * @param type 结果类型
+     * @param callback 代理对象的回调
+     * @param constructorArgTypes 构造器参数类型
+     * @param constructorArgs 构造器参数
+     * @return 代理对象
+     */
+    public Object newInstance(Class<?> type, C callback, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+        Constructor<?> constructor;
+        Object[] args;
+        if (constructorArgTypes.isEmpty()) {
+            constructor = defaultConstructors.get(type);
+            if (constructor == null) {
+                constructor = findConstructor(type, new Class<?>[0]);
+                defaultConstructors.put(type, constructor);
+            }
+            args = new Object[0];
+        } else {
+            List<Class<?>> key = new ArrayList<Class<?>>(constructorArgTypes.size() + 1);
+            key.add(type);
+            key.addAll(constructorArgTypes);
+            constructor = constructors.get(key);
+            if (constructor == null) {
+                constructor = findConstructor(type, constructorArgTypes.toArray(new Class<?>[constructorArgTypes.size()]));
+                constructors.put(key, constructor);
+            }
+            args = constructorArgs.toArray(new Object[constructorArgs.size()]);
+        }
+        try {
+            return newInstance(constructor, callback, args);
+        } catch (Exception e) {
+            throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+        }
+    }
+
+    private Constructor<?> findConstructor(Class<?> type, Class<?>[] parameterTypes) {
+        Class<?> proxyClass = proxyClasses.get(type);
+        if (proxyClass == null) {
+            try {
+                proxyClass = createProxyClass(type, needsWriteReplace(type));
+            } catch (Exception e) {
+                throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+            }
+            //并发时可能生成多次，底层的代理库自己也有缓存
+            proxyClasses.put(type, proxyClass);
+        }
+        try {
+            Constructor<?> constructor = proxyClass.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (Exception e) {
+            throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+        }
+    }
+
+    /**
+     * 结果类型自己没有 writeReplace 时，代理类实现 WriteReplaceInterface
+     */
+    private static boolean needsWriteReplace(Class<?> type) {
+        try {
+            type.getDeclaredMethod(WRITE_REPLACE_METHOD);
+            // ObjectOutputStream will call writeReplace of objects returned by writeReplace
+            log.debug(WRITE_REPLACE_METHOD + " method was found on bean " + type + ", make sure it returns this");
+            return false;
+        } catch (NoSuchMethodException e) {
+            return true;
+        } catch (SecurityException e) {
+            // nothing to do here
+            return false;
+        }
+    }
+
+    /**
+     * 生成代理类
+     *
+     * @param type 结果类型
+     * @param writeReplace 是否实现 WriteReplaceInterface
+     * @return 代理类
+     * @throws Exception 生成失败
+     */
+    protected abstract Class<?> createProxyClass(Class<?> type, boolean writeReplace) throws Exception;
+
+    /**
+     * 用缓存的构造器创建代理对象并设置回调
+     *
+     * @param constructor 代理类的构造器
+     * @param callback 回调
+     * @param args 构造器参数
+     * @return 代理对象
+     * @throws Exception 构造器抛出的异常
+     */
+    protected abstract Object newInstance(Constructor<?> constructor, C callback, Object[] args) throws Exception;
+}
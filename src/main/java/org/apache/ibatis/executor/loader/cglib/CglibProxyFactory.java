@@ -2,22 +2,23 @@ package org.apache.ibatis.executor.loader.cglib;
 
 import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
 import org.apache.ibatis.executor.loader.AbstractEnhancedDeserializationProxy;
 import org.apache.ibatis.executor.loader.AbstractSerialStateHolder;
+import org.apache.ibatis.executor.loader.ProxyClassCache;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.loader.WriteReplaceInterface;
 import org.apache.ibatis.io.Resources;
-import org.apache.ibatis.logging.Log;
-import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.reflection.ExceptionUtil;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.property.PropertyCopier;
 import org.apache.ibatis.reflection.property.PropertyNamer;
 import org.apache.ibatis.session.Configuration;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
@@ -33,8 +34,6 @@ import java.util.Set;
  */
 public class CglibProxyFactory implements ProxyFactory {
 
-    private static final Log log = LogFactory.getLog(CglibProxyFactory.class);
-
     private static final String FINALIZE_METHOD = "finalize";
 
     private static final String WRITE_REPLACE_METHOD = "writeReplace";
@@ -48,29 +47,34 @@ public class CglibProxyFactory implements ProxyFactory {
         }
     }
 
-    static Object crateProxy(Class<?> type, Callback callback, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
-        //核心就是用cglib的Enhancer
-        Enhancer enhancer = new Enhancer();
-        enhancer.setCallback(callback);
-        enhancer.setSuperclass(type);
-        try {
-            type.getDeclaredMethod(WRITE_REPLACE_METHOD);
-            // ObjectOutputStream will call writeReplace of objects returned by writeReplace
-            log.debug(WRITE_REPLACE_METHOD + " method was found on bean " + type + ", make sure it returns this");
-        } catch (NoSuchMethodException e) {
-            enhancer.setInterfaces(new Class[] { WriteReplaceInterface.class });
-        } catch (SecurityException e) {
-            // nothing to do here
+    /**
+     * 代理类和构造器的缓存，所有实例共享
+     */
+    private static final ProxyClassCache<Callback> proxyClassCache = new ProxyClassCache<Callback>() {
+
+        @Override
+        protected Class<?> createProxyClass(Class<?> type, boolean writeReplace) {
+            //核心就是用cglib的Enhancer
+            Enhancer enhancer = new Enhancer();
+            enhancer.setCallbackType(MethodInterceptor.class);
+            enhancer.setSuperclass(type);
+            if (writeReplace) {
+                enhancer.setInterfaces(new Class[] { WriteReplaceInterface.class });
+            }
+            return enhancer.createClass();
         }
-        Object enhanced = null;
-        if (constructorArgTypes.isEmpty()) {
-            enhanced = enhancer.create();
-        } else {
-            Class<?>[] typesArray = constructorArgTypes.toArray(new Class[constructorArgTypes.size()]);
-            Object[] valuesArray = constructorArgs.toArray(new Object[constructorArgs.size()]);
-            enhanced = enhancer.create(typesArray, valuesArray);
+
+        @Override
+        protected Object newInstance(Constructor<?> constructor, Callback callback, Object[] args) throws Exception {
+            //构造器执行时还没有回调，cglib 直接调用父类方法；此时还没有需要延迟加载的属性，与先设回调再构造的效果一样
+            Object enhanced = constructor.newInstance(args);
+            ((Factory) enhanced).setCallback(0, callback);
+            return enhanced;
         }
-        return enhanced;
+    };
+
+    static Object crateProxy(Class<?> type, Callback callback, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+        return proxyClassCache.newInstance(type, callback, constructorArgTypes, constructorArgs);
     }
 
     @Override
@@ -3,20 +3,19 @@ package org.apache.ibatis.executor.loader.javassist;
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory;
-import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.loader.AbstractEnhancedDeserializationProxy;
 import org.apache.ibatis.executor.loader.AbstractSerialStateHolder;
+import org.apache.ibatis.executor.loader.ProxyClassCache;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.loader.WriteReplaceInterface;
 import org.apache.ibatis.io.Resources;
-import org.apache.ibatis.logging.Log;
-import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.reflection.ExceptionUtil;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.property.PropertyCopier;
 import org.apache.ibatis.reflection.property.PropertyNamer;
 import org.apache.ibatis.session.Configuration;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
@@ -32,8 +31,6 @@ import java.util.Set;
  */
 public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.ProxyFactory {
 
-    private static final Log log = LogFactory.getLog(JavassistProxyFactory.class);
-
     private static final String FINALIZE_METHOD = "finalize";
 
     private static final String WRITE_REPLACE_METHOD = "writeReplace";
@@ -47,32 +44,32 @@ public class JavassistProxyFactory implements org.apache.ibatis.executor.loader.
         }
     }
 
-    static Object crateProxy(Class<?> type, MethodHandler callback, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
-
-        //核心就是用javassist的ProxyFactory,没啥可说的，下面逻辑都是cglib的翻版
-        ProxyFactory enhancer = new ProxyFactory();
-        enhancer.setSuperclass(type);
+    /**
+     * 代理类和构造器的缓存，所有实例共享
+     */
+    private static final ProxyClassCache<MethodHandler> proxyClassCache = new ProxyClassCache<MethodHandler>() {
 
-        try {
-            type.getDeclaredMethod(WRITE_REPLACE_METHOD);
-            // ObjectOutputStream will call writeReplace of objects returned by writeReplace
-            log.debug(WRITE_REPLACE_METHOD + " method was found on bean " + type + ", make sure it returns this");
-        } catch (NoSuchMethodException e) {
-            enhancer.setInterfaces(new Class[] { WriteReplaceInterface.class });
-        } catch (SecurityException e) {
-            // nothing to do here
+        @Override
+        protected Class<?> createProxyClass(Class<?> type, boolean writeReplace) {
+            //核心就是用javassist的ProxyFactory,没啥可说的，下面逻辑都是cglib的翻版
+            ProxyFactory enhancer = new ProxyFactory();
+            enhancer.setSuperclass(type);
+            if (writeReplace) {
+                enhancer.setInterfaces(new Class[] { WriteReplaceInterface.class });
+            }
+            return enhancer.createClass();
         }
 
-        Object enhanced = null;
-        Class<?>[] typesArray = constructorArgTypes.toArray(new Class[constructorArgTypes.size()]);
-        Object[] valuesArray = constructorArgs.toArray(new Object[constructorArgs.size()]);
-        try {
-            enhanced = enhancer.create(typesArray, valuesArray);
-        } catch (Exception e) {
-            throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+        @Override
+        protected Object newInstance(Constructor<?> constructor, MethodHandler callback, Object[] args) throws Exception {
+            Object enhanced = constructor.newInstance(args);
+            ((Proxy) enhanced).setHandler(callback);
+            return enhanced;
         }
-        ((Proxy) enhanced).setHandler(callback);
-        return enhanced;
+    };
+
+    static Object crateProxy(Class<?> type, MethodHandler callback, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+        return proxyClassCache.newInstance(type, callback, constructorArgTypes, constructorArgs);
     }
 
     @Override
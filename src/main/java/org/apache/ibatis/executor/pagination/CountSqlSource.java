@@ -0,0 +1,89 @@
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * 从查询派生出来的 COUNT 查询：SELECT COUNT(*) FROM ( 去掉 ORDER BY 的原 sql ) COUNT_
+ *
+ * 参数与原查询完全一样，动态 sql 也是先按原查询生成再包装
+ */
+public class CountSqlSource implements SqlSource {
+
+    /**
+     * 派生语句的 id 后缀
+     */
+    public static final String COUNT_SUFFIX = "!count";
+
+    private final SqlSource sqlSource;
+
+    public CountSqlSource(SqlSource sqlSource) {
+        this.sqlSource = sqlSource;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+        String countSql = "SELECT COUNT(*) FROM ( " + stripOrderBy(boundSql.getSql()) + " ) COUNT_";
+        return boundSql.withSql(countSql, boundSql.getParameterMappings());
+    }
+
+    /**
+     * 去掉最外层的 ORDER BY；后面还有 LIMIT、FETCH FIRST 这类限制行数的子句时原样保留，
+     * 否则数出来的是整张表，而且 FETCH、OFFSET 在有些数据库里离不开 ORDER BY
+     */
+    static String stripOrderBy(String sql) {
+        String trimmed = SqlScanner.trim(sql);
+        int orderBy = SqlScanner.lastIndexOf(trimmed, true, "ORDER", "BY");
+        if (orderBy < 0 || SqlScanner.indexOfRowLimit(trimmed, orderBy) >= 0) {
+            return trimmed;
+        }
+        return trimmed.substring(0, orderBy).trim();
+    }
+
+    /**
+     * 创建查询对应的 COUNT 语句，id 为原 id + "!count"，与原查询共用 namespace 的二级缓存，
+     * 不同的 id 保证了 CacheKey 与原查询不同
+     *
+     * @param mappedStatement 原查询
+     * @return COUNT 语句，没有注册到 Configuration 中
+     */
+    public static MappedStatement newCountStatement(MappedStatement mappedStatement) {
+        if (mappedStatement.getSqlCommandType() != SqlCommandType.SELECT
+                || mappedStatement.getStatementType() == StatementType.CALLABLE
+                || mappedStatement.getResultSets() != null) {
+            throw new ExecutorException("Cannot derive a count query from statement " + mappedStatement.getId()
+                    + ". Only plain select statements are supported.");
+        }
+        if (mappedStatement.hasNestedResultMaps()) {
+            //多行组成一个对象，行数不等于对象数
+            throw new ExecutorException("Cannot derive a count query from statement " + mappedStatement.getId()
+                    + " because it uses nested result maps.");
+        }
+        Configuration configuration = mappedStatement.getConfiguration();
+        String id = mappedStatement.getId() + COUNT_SUFFIX;
+        ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", Long.class, new ArrayList<ResultMapping>()).build();
+        return new MappedStatement.Builder(configuration, id, new CountSqlSource(mappedStatement.getSqlSource()), SqlCommandType.SELECT)
+                .resource(mappedStatement.getResource())
+                .statementType(mappedStatement.getStatementType())
+                .timeout(mappedStatement.getTimeout())
+                .databaseId(mappedStatement.getDatabaseId())
+                .lang(mappedStatement.getLang())
+                .parameterMap(mappedStatement.getParameterMap())
+                .resultMaps(Collections.singletonList(resultMap))
+                .cache(mappedStatement.getCache())
+                .useCache(mappedStatement.isUseCache())
+                .flushCacheRequired(false)
+                .build();
+    }
+}
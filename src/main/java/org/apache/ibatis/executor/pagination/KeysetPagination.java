@@ -0,0 +1,207 @@
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetPage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 键集分页，把查询改写成
+ * SELECT * FROM ( 原 sql ) KEYSET_ WHERE k1 > ? OR (k1 = ? AND k2 > ?) ORDER BY k1, k2
+ * 再交给分页方言加上 LIMIT
+ *
+ * 排序键取自第一个结果映射的 <id> 列，只支持升序，原 sql 按排序键降序时报错；行值比较 (k1, k2) > (?, ?) 展开成 OR 的形式，Derby、Oracle 这些不支持行值比较的数据库也能用
+ */
+public final class KeysetPagination {
+
+    /**
+     * 排序键参数在附加参数中的名字前缀
+     */
+    private static final String PARAMETER_PREFIX = "_keyset_";
+
+    private KeysetPagination() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * 把查询改写成从上一页末尾开始的查询，不带 LIMIT
+     *
+     * @param configuration 配置
+     * @param mappedStatement 查询语句
+     * @param boundSql 本次执行的 sql
+     * @param page 页标记
+     * @return 改写后的 sql
+     */
+    public static BoundSql paginate(Configuration configuration, MappedStatement mappedStatement, BoundSql boundSql, KeysetPage page) {
+        if (mappedStatement.getSqlCommandType() != SqlCommandType.SELECT
+                || mappedStatement.getStatementType() == StatementType.CALLABLE
+                || mappedStatement.getResultSets() != null) {
+            throw new ExecutorException("Keyset pagination is only supported for plain select statements. Statement: " + mappedStatement.getId());
+        }
+        List<ResultMapping> keyMappings = getKeyMappings(mappedStatement);
+        Object[] lastKeys = page.getLastKeys();
+        if (!page.isFirstPage() && lastKeys.length != keyMappings.size()) {
+            throw new ExecutorException("Keyset page of statement " + mappedStatement.getId() + " expects " + keyMappings.size()
+                    + " key values but got " + lastKeys.length);
+        }
+        List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+        String originalSql = SqlScanner.trim(boundSql.getSql());
+        if (SqlScanner.indexOfRowLimit(originalSql, 0) >= 0) {
+            //包在子查询里再按键集翻页，原 sql 自己限制的行数会让后面的页丢数据
+            throw new ExecutorException("Keyset pagination cannot be applied to statement " + mappedStatement.getId()
+                    + " because its sql already limits the rows");
+        }
+        int orderBy = SqlScanner.lastIndexOf(originalSql, true, "ORDER", "BY");
+        if (orderBy >= 0) {
+            checkAscending(mappedStatement, keyMappings, originalSql.substring(SqlScanner.endOf(originalSql, orderBy, "ORDER", "BY")));
+            originalSql = originalSql.substring(0, orderBy).trim();
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM ( ").append(originalSql).append(" ) KEYSET_");
+        List<Object> values = new ArrayList<Object>();
+        if (!page.isFirstPage()) {
+            //k1 > ? OR (k1 = ? AND k2 > ?) OR ...
+            sql.append(" WHERE ");
+            for (int i = 0; i < keyMappings.size(); i++) {
+                if (i > 0) {
+                    sql.append(" OR ");
+                }
+                sql.append('(');
+                for (int j = 0; j <= i; j++) {
+                    if (j > 0) {
+                        sql.append(" AND ");
+                    }
+                    sql.append(keyMappings.get(j).getColumn()).append(j < i ? " = ?" : " > ?");
+                    parameterMappings.add(keyParameterMapping(configuration, keyMappings.get(j), values.size()));
+                    values.add(lastKeys[j]);
+                }
+                sql.append(')');
+            }
+        }
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < keyMappings.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(keyMappings.get(i).getColumn());
+        }
+        BoundSql keysetBoundSql = boundSql.withSql(sql.toString(), parameterMappings);
+        for (int i = 0; i < values.size(); i++) {
+            keysetBoundSql.setAdditionalParameter(PARAMETER_PREFIX + i, values.get(i));
+        }
+        return keysetBoundSql;
+    }
+
+    /**
+     * 根据这一页的最后一行生成下一页的页标记
+     *
+     * @param configuration 配置
+     * @param mappedStatement 查询语句
+     * @param rows 这一页的结果
+     * @param page 这一页的页标记
+     * @return 不满一页说明已经到头了，返回 null
+     */
+    public static KeysetPage nextPage(Configuration configuration, MappedStatement mappedStatement, List<?> rows, KeysetPage page) {
+        if (rows.isEmpty() || rows.size() < page.getLimit()) {
+            return null;
+        }
+        List<ResultMapping> keyMappings = getKeyMappings(mappedStatement);
+        MetaObject lastRow = configuration.newMetaObject(rows.get(rows.size() - 1));
+        Object[] lastKeys = new Object[keyMappings.size()];
+        for (int i = 0; i < lastKeys.length; i++) {
+            lastKeys[i] = lastRow.getValue(keyMappings.get(i).getProperty());
+        }
+        return new KeysetPage(page.getLimit(), lastKeys);
+    }
+
+    /**
+     * 排序键就是第一个结果映射中带 <id> 标记的列
+     */
+    private static List<ResultMapping> getKeyMappings(MappedStatement mappedStatement) {
+        List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+        ResultMap resultMap = resultMaps.isEmpty() ? null : resultMaps.get(0);
+        if (resultMap == null || resultMap.hasNestedResultMaps()) {
+            throw new ExecutorException("Keyset pagination requires a result map without nested result maps. Statement: " + mappedStatement.getId());
+        }
+        List<ResultMapping> keyMappings = new ArrayList<ResultMapping>();
+        for (ResultMapping resultMapping : resultMap.getIdResultMappings()) {
+            //没有 <id> 时 idResultMappings 是全部映射，这里只认真正的 <id>
+            if (resultMapping.getFlags().contains(ResultFlag.ID) && resultMapping.getColumn() != null && resultMapping.getProperty() != null) {
+                keyMappings.add(resultMapping);
+            }
+        }
+        if (keyMappings.isEmpty()) {
+            throw new ExecutorException("Keyset pagination requires <id> mappings in result map " + resultMap.getId()
+                    + " of statement " + mappedStatement.getId());
+        }
+        return keyMappings;
+    }
+
+    private static ParameterMapping keyParameterMapping(Configuration configuration, ResultMapping keyMapping, int index) {
+        return new ParameterMapping.Builder(configuration, PARAMETER_PREFIX + index, keyMapping.getTypeHandler())
+                .javaType(keyMapping.getJavaType())
+                .jdbcType(keyMapping.getJdbcType())
+                .build();
+    }
+
+    /**
+     * 键集只能按升序往后翻，原 sql 按某个排序键降序排列时直接报错，而不是悄悄改成升序
+     *
+     * @param orderByItems 最外层 ORDER BY 后面的排序项
+     */
+    private static void checkAscending(MappedStatement mappedStatement, List<ResultMapping> keyMappings, String orderByItems) {
+        for (String item : splitTopLevel(orderByItems.toUpperCase(Locale.ENGLISH))) {
+            String[] words = item.trim().split("\\s+");
+            if (words.length < 2 || !"DESC".equals(words[1])) {
+                continue;
+            }
+            String column = words[0];
+            int dot = column.lastIndexOf('.');
+            if (dot >= 0) {
+                column = column.substring(dot + 1);
+            }
+            for (ResultMapping keyMapping : keyMappings) {
+                if (column.equalsIgnoreCase(keyMapping.getColumn())) {
+                    throw new ExecutorException("Keyset pagination only supports ascending keys but statement "
+                            + mappedStatement.getId() + " orders key column " + keyMapping.getColumn() + " descending");
+                }
+            }
+        }
+    }
+
+    /**
+     * 按不在括号和引号里的逗号切分
+     */
+    private static List<String> splitTopLevel(String items) {
+        List<String> parts = new ArrayList<String>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < items.length(); i++) {
+            char c = items.charAt(i);
+            if (c == '\'') {
+                int end = items.indexOf('\'', i + 1);
+                i = end < 0 ? items.length() : end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(items.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(items.substring(start));
+        return parts;
+    }
+}
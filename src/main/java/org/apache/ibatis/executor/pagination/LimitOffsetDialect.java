@@ -0,0 +1,21 @@
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * LIMIT ? OFFSET ?，PostgreSQL、H2、SQLite
+ */
+public class LimitOffsetDialect extends PaginationDialect {
+
+    @Override
+    protected String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+        StringBuilder pageSql = new StringBuilder(sql.length() + 24).append(sql);
+        if (hasLimit(limit)) {
+            pageSql.append(" LIMIT ").append(bind(limit, parameters));
+        }
+        if (hasOffset(offset)) {
+            pageSql.append(" OFFSET ").append(bind(offset, parameters));
+        }
+        return pageSql.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * LIMIT ?, ?，MySQL、MariaDB
+ */
+public class MySqlDialect extends PaginationDialect {
+
+    /**
+     * MySQL 没有单独的 OFFSET，只跳过不限制时 limit 用最大值，官方文档推荐的写法
+     */
+    private static final String MAX_ROWS = "18446744073709551615";
+
+    @Override
+    protected String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+        StringBuilder pageSql = new StringBuilder(sql.length() + 32).append(sql).append(" LIMIT ");
+        if (hasOffset(offset)) {
+            pageSql.append(bind(offset, parameters)).append(", ");
+        }
+        pageSql.append(hasLimit(limit) ? bind(limit, parameters) : MAX_ROWS);
+        return pageSql.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * SQL:2008 标准的 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY，HSQLDB、Derby、DB2
+ * SQL Server 的语法限制更多，见 {@link SqlServerDialect}
+ */
+public class OffsetFetchDialect extends PaginationDialect {
+
+    @Override
+    protected String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+        StringBuilder pageSql = new StringBuilder(sql.length() + 40).append(sql);
+        if (hasOffset(offset)) {
+            pageSql.append(" OFFSET ").append(bind(offset, parameters)).append(" ROWS");
+        }
+        if (hasLimit(limit)) {
+            pageSql.append(hasOffset(offset) ? " FETCH NEXT " : " FETCH FIRST ").append(bind(limit, parameters)).append(" ROWS ONLY");
+        }
+        return pageSql.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * ROWNUM 嵌套查询，兼容 12c 之前没有 OFFSET/FETCH 的 Oracle
+ * 有 offset 时结果中会多一列 ROWNUM_，由结果集处理器跳过，resultType 为 map 时也不会出现在结果里
+ */
+public class OracleDialect extends PaginationDialect {
+
+    /**
+     * 行号列的名字
+     */
+    static final String ROW_NUMBER_COLUMN = "ROWNUM_";
+
+    @Override
+    protected String getRowNumberColumn() {
+        return ROW_NUMBER_COLUMN;
+    }
+
+    @Override
+    protected String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+        StringBuilder pageSql = new StringBuilder(sql.length() + 120);
+        if (!hasOffset(offset)) {
+            return pageSql.append("SELECT * FROM ( ").append(sql).append(" ) WHERE ROWNUM <= ")
+                    .append(bind(limit, parameters)).toString();
+        }
+        pageSql.append("SELECT * FROM ( SELECT ROW_.*, ROWNUM ROWNUM_ FROM ( ").append(sql).append(" ) ROW_");
+        if (hasLimit(limit)) {
+            //防止 offset + limit 溢出
+            long end = (long) offset + limit;
+            pageSql.append(" WHERE ROWNUM <= ").append(bind((int) Math.min(end, Integer.MAX_VALUE), parameters));
+        }
+        return pageSql.append(" ) WHERE ROWNUM_ > ").append(bind(offset, parameters)).toString();
+    }
+}
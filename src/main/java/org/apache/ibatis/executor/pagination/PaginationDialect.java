@@ -0,0 +1,150 @@
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 物理分页方言，<setting name="physicalPagination" value="true"/> 时，
+ * 查询传入非默认的 RowBounds 会把 sql 改写成数据库原生的分页语法，而不是查出来再在内存中用 resultSet.next() 跳过
+ *
+ * 无法改写的语句（存储过程、嵌套结果映射、多结果集、FOR UPDATE、已经有 LIMIT/FETCH 的）仍然走内存分页
+ */
+public abstract class PaginationDialect {
+
+    /**
+     * 分页参数在附加参数中的名字前缀
+     */
+    private static final String PARAMETER_PREFIX = "_pagination_";
+
+    /**
+     * 根据 databaseId 或者数据库产品名找到方言
+     *
+     * @param database databaseId 或者 DatabaseMetaData.getDatabaseProductName()
+     * @return 不支持的数据库返回 null
+     */
+    public static PaginationDialect forDatabase(String database) {
+        if (database == null) {
+            return null;
+        }
+        String name = database.toLowerCase(Locale.ENGLISH);
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return new MySqlDialect();
+        }
+        if (name.contains("postgres") || name.equals("h2") || name.contains("sqlite")) {
+            return new LimitOffsetDialect();
+        }
+        if (name.contains("hsql") || name.contains("derby") || name.contains("db2")) {
+            return new OffsetFetchDialect();
+        }
+        if (name.contains("sql server") || name.equals("sqlserver")) {
+            return new SqlServerDialect();
+        }
+        if (name.contains("oracle")) {
+            return new OracleDialect();
+        }
+        return null;
+    }
+
+    /**
+     * 把查询改写成分页查询
+     *
+     * @param configuration 配置
+     * @param mappedStatement 查询语句
+     * @param boundSql 本次执行的 sql
+     * @param rowBounds 分页参数
+     * @return 改写后的 sql，不能改写时返回 null
+     */
+    public BoundSql paginate(Configuration configuration, MappedStatement mappedStatement, BoundSql boundSql, RowBounds rowBounds) {
+        final int offset = rowBounds.getOffset();
+        final int limit = rowBounds.getLimit();
+        if (offset <= RowBounds.NO_ROW_OFFSET && limit >= RowBounds.NO_ROW_LIMIT) {
+            return null;
+        }
+        if (mappedStatement.getSqlCommandType() != SqlCommandType.SELECT
+                || mappedStatement.getStatementType() == StatementType.CALLABLE
+                || mappedStatement.getResultSets() != null
+                //嵌套结果映射的 limit 是按对象计数的，多行才组成一个对象，不能按行截断
+                || mappedStatement.hasNestedResultMaps()) {
+            return null;
+        }
+        String sql = SqlScanner.trim(boundSql.getSql());
+        //自己已经限制了行数的不再加一层
+        if (hasForUpdate(sql) || SqlScanner.indexOfRowLimit(sql, 0) >= 0) {
+            return null;
+        }
+        //非预编译语句不能用 ?，直接把数字写进 sql
+        List<Integer> parameters = mappedStatement.getStatementType() == StatementType.PREPARED ? new ArrayList<Integer>() : null;
+        String pageSql = getPageSql(sql, offset, limit, parameters);
+        if (parameters == null || parameters.isEmpty()) {
+            BoundSql pageBoundSql = boundSql.withSql(pageSql, boundSql.getParameterMappings());
+            pageBoundSql.setRowNumberColumn(getRowNumberColumn());
+            return pageBoundSql;
+        }
+        List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+        BoundSql pageBoundSql = boundSql.withSql(pageSql, parameterMappings);
+        pageBoundSql.setRowNumberColumn(getRowNumberColumn());
+        for (int i = 0; i < parameters.size(); i++) {
+            String property = PARAMETER_PREFIX + i;
+            parameterMappings.add(new ParameterMapping.Builder(configuration, property, Integer.class).build());
+            pageBoundSql.setAdditionalParameter(property, parameters.get(i));
+        }
+        return pageBoundSql;
+    }
+
+    /**
+     * 生成分页 sql
+     *
+     * @param sql 原始 sql，已去掉结尾的注释和分号
+     * @param offset 跳过的行数，RowBounds.NO_ROW_OFFSET 表示不跳过
+     * @param limit 最多返回的行数，RowBounds.NO_ROW_LIMIT 表示不限制
+     * @param parameters 按 ? 的顺序收集分页参数，为 null 表示直接把数字写进 sql，见 {@link #bind}
+     * @return 分页 sql
+     */
+    protected abstract String getPageSql(String sql, int offset, int limit, List<Integer> parameters);
+
+    /**
+     * 分页 sql 额外加进结果里的行号列，结果集处理器映射时会跳过这一列
+     *
+     * @return 没有额外的列时返回 null
+     */
+    protected String getRowNumberColumn() {
+        return null;
+    }
+
+    /**
+     * 绑定一个分页参数
+     *
+     * @return 预编译语句返回 ?，否则返回数字本身
+     */
+    protected static String bind(int value, List<Integer> parameters) {
+        if (parameters == null) {
+            return String.valueOf(value);
+        }
+        parameters.add(value);
+        return "?";
+    }
+
+    protected static boolean hasOffset(int offset) {
+        return offset > RowBounds.NO_ROW_OFFSET;
+    }
+
+    protected static boolean hasLimit(int limit) {
+        return limit < RowBounds.NO_ROW_LIMIT;
+    }
+
+    /**
+     * 是否有 FOR UPDATE 子句，跳过字符串、带引号的标识符和注释，FOR 和 UPDATE 必须是完整的单词
+     */
+    static boolean hasForUpdate(String sql) {
+        return SqlScanner.lastIndexOf(sql, false, "FOR", "UPDATE") >= 0;
+    }
+}
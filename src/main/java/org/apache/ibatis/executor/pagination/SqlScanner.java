@@ -0,0 +1,166 @@
+package org.apache.ibatis.executor.pagination;
+
+/**
+ * 改写 sql 时用到的扫描，跳过字符串、带引号的标识符和注释，关键字必须是完整的单词
+ */
+final class SqlScanner {
+
+    private static final String[][] ROW_LIMIT_CLAUSES = { { "LIMIT" }, { "FETCH", "FIRST" }, { "FETCH", "NEXT" } };
+
+    private SqlScanner() {
+        // Prevent Instantiation of Static Class
+    }
+
+    /**
+     * 一串关键字（之间只能有空白，如 ORDER BY）最后一次出现的位置
+     *
+     * @param sql sql
+     * @param topLevel 为 true 时只认不在括号里的
+     * @param keywords 关键字，不区分大小写
+     * @return 没有时返回 -1
+     */
+    static int lastIndexOf(String sql, boolean topLevel, String... keywords) {
+        return scan(sql, 0, topLevel, true, keywords);
+    }
+
+    /**
+     * 一串关键字从 from 开始第一次出现的位置
+     *
+     * @return 没有时返回 -1
+     */
+    static int indexOf(String sql, int from, boolean topLevel, String... keywords) {
+        return scan(sql, from, topLevel, false, keywords);
+    }
+
+    private static int scan(String sql, int from, boolean topLevel, boolean last, String[] keywords) {
+        int length = sql.length();
+        int depth = 0;
+        int found = -1;
+        int i = from;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                //'' 转义的引号当作两个相邻的字符串跳过
+                int end = sql.indexOf(c, i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '-' && sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if ((!topLevel || depth == 0) && endOf(sql, i, keywords) >= 0) {
+                if (!last) {
+                    return i;
+                }
+                found = i;
+                i += keywords[0].length();
+            } else {
+                i++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 最外层限制行数的子句（LIMIT、OFFSET n、FETCH FIRST、FETCH NEXT）从 from 开始第一次出现的位置
+     *
+     * @return 没有时返回 -1
+     */
+    static int indexOfRowLimit(String sql, int from) {
+        int found = -1;
+        for (String[] clause : ROW_LIMIT_CLAUSES) {
+            int index = indexOf(sql, from, true, clause);
+            if (index >= 0 && (found < 0 || index < found)) {
+                found = index;
+            }
+        }
+        //OFFSET 在有些数据库里不是保留字，后面紧跟行数或者 ? 才算
+        int offset = indexOf(sql, from, true, "OFFSET");
+        while (offset >= 0 && (found < 0 || offset < found)) {
+            int i = offset + 6;
+            while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            }
+            if (i < sql.length() && (sql.charAt(i) == '?' || Character.isDigit(sql.charAt(i)))) {
+                return offset;
+            }
+            offset = indexOf(sql, offset + 6, true, "OFFSET");
+        }
+        return found;
+    }
+
+    /**
+     * 去掉开头结尾的空白，以及结尾的注释和分号，否则结尾的 -- 注释会吞掉拼接在后面的子句
+     */
+    static String trim(String sql) {
+        int length = sql.length();
+        int end = 0;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int close = sql.indexOf(c, i + 1);
+                i = close < 0 ? length : close + 1;
+                end = i;
+            } else if (c == '-' && sql.startsWith("--", i)) {
+                int close = sql.indexOf('\n', i);
+                i = close < 0 ? length : close + 1;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+            } else {
+                i++;
+                if (!Character.isWhitespace(c) && c != ';') {
+                    end = i;
+                }
+            }
+        }
+        return sql.substring(0, end).trim();
+    }
+
+    /**
+     * sql 从 index 开始是不是这一串关键字
+     *
+     * @return 最后一个关键字的结尾，不是时返回 -1
+     */
+    static int endOf(String sql, int index, String... keywords) {
+        int i = index;
+        for (int k = 0; k < keywords.length; k++) {
+            if (k > 0) {
+                int start = i;
+                while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (i == start) {
+                    return -1;
+                }
+            }
+            if (!isKeyword(sql, i, keywords[k])) {
+                return -1;
+            }
+            i += keywords[k].length();
+        }
+        return i;
+    }
+
+    /**
+     * sql 在 index 处是不是一个完整的关键字，前后都不能是标识符中的字符
+     */
+    private static boolean isKeyword(String sql, int index, String keyword) {
+        int end = index + keyword.length();
+        return sql.regionMatches(true, index, keyword, 0, keyword.length())
+                && (index == 0 || !isIdentifierPart(sql.charAt(index - 1)))
+                && (end == sql.length() || !isIdentifierPart(sql.charAt(end)));
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '.';
+    }
+}
@@ -0,0 +1,27 @@
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.executor.ExecutorException;
+
+import java.util.List;
+
+/**
+ * SQL Server 2012+ 的 OFFSET ? ROWS FETCH NEXT ? ROWS ONLY
+ *
+ * SQL Server 不接受没有 OFFSET 的 FETCH，所以只限制行数时也带上 OFFSET 0 ROWS；
+ * 也不接受没有 ORDER BY 的 OFFSET，没有最外层的 ORDER BY 时直接报错
+ */
+public class SqlServerDialect extends PaginationDialect {
+
+    @Override
+    protected String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+        if (SqlScanner.lastIndexOf(sql, true, "ORDER", "BY") < 0) {
+            throw new ExecutorException("SQL Server pagination requires a top-level ORDER BY. SQL: " + sql);
+        }
+        StringBuilder pageSql = new StringBuilder(sql.length() + 40).append(sql)
+                .append(" OFFSET ").append(bind(hasOffset(offset) ? offset : 0, parameters)).append(" ROWS");
+        if (hasLimit(limit)) {
+            pageSql.append(" FETCH NEXT ").append(bind(limit, parameters)).append(" ROWS ONLY");
+        }
+        return pageSql.toString();
+    }
+}
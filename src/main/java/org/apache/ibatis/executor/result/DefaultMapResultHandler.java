@@ -1,6 +1,7 @@
 package org.apache.ibatis.executor.result;
 
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.ResultContext;
@@ -47,12 +48,20 @@ public class DefaultMapResultHandler<K, V> implements ResultHandler {
         //得到一条记录
         //这边黄色警告没法去掉了？因为返回Object型
         final V value = (V) resultContext.getResultObject();
-        //MetaObject.forObject,包装一下记录
-        //MetaObject是用反射来包装各种类型
-        final MetaObject metaObject = MetaObject.forObject(value, objectFactory, objectWrapperFactory);
+        final Object keyValue;
+        if (value == null) {
+            //MetaObject.forObject,包装一下记录
+            //MetaObject是用反射来包装各种类型
+            final MetaObject metaObject = MetaObject.forObject(value, objectFactory, objectWrapperFactory);
+            //从对象 value 中获取属性 mapKey 的值
+            keyValue = metaObject.getValue(mapKey);
+        } else {
+            //每一行都是同一个属性，用编译好的属性路径取值，不必每一行都创建元对象
+            keyValue = PropertyPath.forPath(value.getClass(), mapKey).getValue(value, objectFactory, objectWrapperFactory);
+        }
         // TODO is that assignment always true?
-        //从对象 value 中获取属性 mapKey 的值
-        final K key = (K) metaObject.getValue(mapKey);
+        @SuppressWarnings("unchecked")
+        final K key = (K) keyValue;
         mappedResults.put(key, value);
         //这个类主要目的是把得到的List转为Map
     }
@@ -19,6 +19,9 @@ import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.BeanWrapper;
+import org.apache.ibatis.reflection.wrapper.MapWrapper;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
@@ -34,7 +37,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -52,6 +55,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
     private static final Object NO_VALUE = new Object();
 
+    /**
+     * 释放时超过这个大小就换一个新的 Map，见 {@link #releaseNestedResultObjects}
+     */
+    private static final int RELEASED_NESTED_RESULT_OBJECTS = 256;
+
     private final Executor executor;
 
     private final Configuration configuration;
@@ -71,7 +79,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     private final ObjectFactory objectFactory;
 
     // nested resultmaps
-    private final Map<CacheKey, Object> nestedResultObjects = new HashMap<CacheKey, Object>();
+    private Map<CacheKey, Object> nestedResultObjects = new HashMap<CacheKey, Object>();
 
     private final Map<CacheKey, Object> ancestorObjects = new HashMap<CacheKey, Object>();
 
@@ -82,6 +90,41 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
     private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<CacheKey, List<PendingRelation>>();
 
+    // row value reuse
+    /**
+     * 简单结果映射每一行复用的元对象，见 {@link #reuseMetaObject}
+     */
+    private MetaObject rowMetaObject;
+
+    /**
+     * 没有嵌套查询的结果映射不会有延迟加载，每一行共用这个空的延迟加载器
+     */
+    private final ResultLoaderMap noLazyLoader = new ResultLoaderMap();
+
+    /**
+     * key:ResultSetWrapper.getMappedColumnNames 返回的列表，每个结果集、结果映射、列前缀各有一个
+     * value:结果集中有对应列的属性映射
+     */
+    private final Map<List<String>, List<ResultMapping>> appliedPropertyMappingsCache = new IdentityHashMap<List<String>, List<ResultMapping>>();
+
+    /**
+     * key:ResultSetWrapper.getUnmappedColumnNames 返回的列表，每个结果集、结果映射、列前缀各有一个
+     * value:第一行解析出的自动映射
+     */
+    private final Map<List<String>, AutomaticMappings> automaticMappingsCache = new IdentityHashMap<List<String>, AutomaticMappings>();
+
+    // discriminator dispatch
+    /**
+     * key:鉴别器
+     * value:这次查询中鉴别器的值到结果映射的对应关系
+     */
+    private final Map<Discriminator, DiscriminatorCases> discriminatorCases = new IdentityHashMap<Discriminator, DiscriminatorCases>();
+
+    /**
+     * 解析一行的鉴别器链时经过的结果映射，用来发现循环，每次解析前清空
+     */
+    private final List<ResultMap> pastDiscriminatedResultMaps = new ArrayList<ResultMap>();
+
     public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, ParameterHandler parameterHandler, ResultHandler resultHandler,
             BoundSql boundSql, RowBounds rowBounds) {
 
@@ -224,7 +267,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 }
             }
         }
-        return resultSet != null ? new ResultSetWrapper(resultSet, configuration) : null;
+        if (resultSet == null) {
+            return null;
+        }
+        //分页改写加上的行号列不映射，否则 resultType 为 map 时会多出这一列
+        return new ResultSetWrapper(resultSet, configuration, boundSql != null ? boundSql.getRowNumberColumn() : null);
     }
 
     private ResultSetWrapper getNextResultSet(Statement stmt) {
@@ -254,7 +301,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     private void cleanUpAfterHandlingResultSet() {
-        nestedResultObjects.clear();
+        releaseNestedResultObjects();
         ancestorColumnPrefix.clear();
     }
 
@@ -395,14 +442,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
      * @throws SQLException 异常
      */
     private Object getRowValue(ResultSetWrapper resultSetWrapper, ResultMap resultMap) throws SQLException {
+        //没有嵌套查询和多结果集时，延迟加载器和元对象都不会被这一行以外的地方引用，每一行复用
+        final boolean reuseRowObjects = !resultMap.hasNestedQueries() && mappedStatement.getResultSets() == null;
         //实例化ResultLoaderMap(延迟加载器)
-        final ResultLoaderMap lazyLoader = new ResultLoaderMap();
+        final ResultLoaderMap lazyLoader = reuseRowObjects ? noLazyLoader : new ResultLoaderMap();
         //调用自己的createResultObject,内部就是new一个对象(如果是简单类型，new完也把值赋进去)
         //查询到的结果
         Object resultObject = createResultObject(resultSetWrapper, resultMap, lazyLoader, null);
         if (resultObject != null && !typeHandlerRegistry.hasTypeHandler(resultMap.getType())) {
             //一般不是简单类型不会有typeHandler,这个if会进来
-            final MetaObject metaObject = configuration.newMetaObject(resultObject);
+            final MetaObject metaObject = reuseRowObjects ? reuseMetaObject(resultObject) : configuration.newMetaObject(resultObject);
             boolean foundValues = !resultMap.getConstructorResultMappings().isEmpty();
             if (shouldApplyAutomaticMappings(resultMap, false)) {
                 //自动映射咯
@@ -417,6 +466,18 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return resultObject;
     }
 
+    /**
+     * 把上一行的元对象指向这一行的结果对象，不能复用时（自定义包装器、结果类型变了）再创建
+     */
+    private MetaObject reuseMetaObject(Object resultObject) {
+        MetaObject metaObject = rowMetaObject;
+        if (metaObject == null || !metaObject.reset(resultObject)) {
+            metaObject = configuration.newMetaObject(resultObject);
+            rowMetaObject = metaObject;
+        }
+        return metaObject;
+    }
+
     //
     // GET VALUE FROM ROW FOR SIMPLE RESULT MAP
     //
@@ -436,30 +497,45 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject,
             ResultLoaderMap lazyLoader, String columnPrefix) throws SQLException {
 
-        final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         boolean foundValues = false;
-        final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
+        final List<ResultMapping> propertyMappings = getAppliedPropertyMappings(rsw, resultMap, columnPrefix);
         for (ResultMapping propertyMapping : propertyMappings) {
-            final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-            if (propertyMapping.isCompositeResult()
-                    || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
-                    || propertyMapping.getResultSet() != null) {
-
-                Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
-                // issue #541 make property optional
-                final String property = propertyMapping.getProperty();
-                // issue #377, call setter on nulls
-                if (value != NO_VALUE && property != null && (value != null || configuration.isCallSettersOnNulls())) {
-                    if (value != null || !metaObject.getSetterType(property).isPrimitive()) {
-                        metaObject.setValue(property, value);
-                    }
-                    foundValues = true;
+            Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
+            // issue #541 make property optional
+            final String property = propertyMapping.getProperty();
+            // issue #377, call setter on nulls
+            if (value != NO_VALUE && property != null && (value != null || configuration.isCallSettersOnNulls())) {
+                if (value != null || !metaObject.getSetterType(property).isPrimitive()) {
+                    //属性在构建 ResultMapping 时已经分好词了
+                    metaObject.setValue(propertyMapping.getPropertyTokenizer(), value);
                 }
+                foundValues = true;
             }
         }
         return foundValues;
     }
 
+    /**
+     * 结果集中有对应列的属性映射，同一个结果集只筛选一次
+     */
+    private List<ResultMapping> getAppliedPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+        final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+        List<ResultMapping> appliedPropertyMappings = appliedPropertyMappingsCache.get(mappedColumnNames);
+        if (appliedPropertyMappings == null) {
+            appliedPropertyMappings = new ArrayList<ResultMapping>();
+            for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+                final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
+                if (propertyMapping.isCompositeResult()
+                        || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
+                        || propertyMapping.getResultSet() != null) {
+                    appliedPropertyMappings.add(propertyMapping);
+                }
+            }
+            appliedPropertyMappingsCache.put(mappedColumnNames, appliedPropertyMappings);
+        }
+        return appliedPropertyMappings;
+    }
+
     //
     // PROPERTY MAPPINGS
     //
@@ -485,7 +561,40 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     //自动映射咯
     private boolean applyAutomaticMappings(ResultSetWrapper resultSetWrapper, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
         final List<String> unmappedColumnNames = resultSetWrapper.getUnmappedColumnNames(resultMap, columnPrefix);
+        AutomaticMappings automaticMappings = automaticMappingsCache.get(unmappedColumnNames);
+        if (automaticMappings == null || automaticMappings.type != metaObject.getOriginalObject().getClass()) {
+            automaticMappings = createAutomaticMappings(resultSetWrapper, unmappedColumnNames, metaObject, columnPrefix);
+            if (automaticMappings.cacheable) {
+                automaticMappingsCache.put(unmappedColumnNames, automaticMappings);
+            }
+        }
         boolean foundValues = false;
+        for (AutomaticMapping mapping : automaticMappings.mappings) {
+            //巧妙的用TypeHandler取得结果
+            final Object value = mapping.typeHandler.getResult(resultSetWrapper.getResultSet(), mapping.column);
+            // issue #377, call setter on nulls
+            if (value != null || configuration.isCallSettersOnNulls()) {
+                if (value != null || !mapping.primitive) {
+                    //然后巧妙的用反射来设置到对象
+                    metaObject.setValue(mapping.property, value);
+                }
+                foundValues = true;
+            }
+        }
+        return foundValues;
+    }
+
+    /**
+     * 解析没有映射的列对应的属性和类型处理器
+     *
+     * 默认的 Bean、Map 包装器按类解析属性，同一个结果集的每一行都一样，解析结果可以缓存；
+     * 自定义包装器和嵌套属性（a.b）的解析结果可能与属性值有关，每一行重新解析
+     */
+    private AutomaticMappings createAutomaticMappings(ResultSetWrapper resultSetWrapper, List<String> unmappedColumnNames, MetaObject metaObject,
+            String columnPrefix) {
+        final Class<?> wrapperType = metaObject.getObjectWrapper().getClass();
+        final AutomaticMappings automaticMappings = new AutomaticMappings(metaObject.getOriginalObject().getClass(),
+                wrapperType == BeanWrapper.class || wrapperType == MapWrapper.class);
         for (String columnName : unmappedColumnNames) {
             String propertyName = columnName;
             if (columnPrefix != null && !columnPrefix.isEmpty()) {
@@ -502,20 +611,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
                 final Class<?> propertyType = metaObject.getSetterType(property);
                 if (typeHandlerRegistry.hasTypeHandler(propertyType)) {
                     final TypeHandler<?> typeHandler = resultSetWrapper.getTypeHandler(propertyType, columnName);
-                    //巧妙的用TypeHandler取得结果
-                    final Object value = typeHandler.getResult(resultSetWrapper.getResultSet(), columnName);
-                    // issue #377, call setter on nulls
-                    if (value != null || configuration.isCallSettersOnNulls()) {
-                        if (value != null || !propertyType.isPrimitive()) {
-                            //然后巧妙的用反射来设置到对象
-                            metaObject.setValue(property, value);
-                        }
-                        foundValues = true;
+                    final PropertyTokenizer tokenizer = new PropertyTokenizer(property);
+                    if (tokenizer.hasNext() || tokenizer.getIndex() != null) {
+                        automaticMappings.cacheable = false;
                     }
+                    automaticMappings.mappings.add(new AutomaticMapping(columnName, tokenizer, typeHandler, propertyType.isPrimitive()));
                 }
             }
         }
-        return foundValues;
+        return automaticMappings;
     }
 
     private void linkToParents(ResultSet rs, ResultMapping parentMapping, Object rowValue) throws SQLException {
@@ -955,21 +1059,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
      * @throws SQLException 异常
      */
     public ResultMap resolveDiscriminatedResultMap(ResultSet resultSet, ResultMap resultMap, String columnPrefix) throws SQLException {
-        Set<String> pastDiscriminators = new HashSet<String>();
         Discriminator discriminator = resultMap.getDiscriminator();
+        if (discriminator == null) {
+            return resultMap;
+        }
+        pastDiscriminatedResultMaps.clear();
         while (discriminator != null) {
             //获取鉴别器的值
             final Object value = getDiscriminatorValue(resultSet, discriminator, columnPrefix);
-            final String discriminatedMapId = discriminator.getMapIdFor(String.valueOf(value));
-            //鉴别器对应的映射是存在
-            boolean hasResultMap = configuration.hasResultMap(discriminatedMapId);
-            if (hasResultMap) {
-                resultMap = configuration.getResultMap(discriminatedMapId);
+            //鉴别器对应的映射，不存在时为 null
+            final ResultMap discriminatedResultMap = getDiscriminatorCases(discriminator).resolve(value);
+            if (discriminatedResultMap != null) {
+                resultMap = discriminatedResultMap;
                 Discriminator lastDiscriminator = discriminator;
                 discriminator = resultMap.getDiscriminator();
-                if (discriminator == lastDiscriminator || !pastDiscriminators.add(discriminatedMapId)) {
+                if (discriminator == lastDiscriminator || isPastDiscriminatedResultMap(resultMap)) {
                     break;
                 }
+                pastDiscriminatedResultMaps.add(resultMap);
             } else {
                 break;
             }
@@ -977,6 +1084,27 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         return resultMap;
     }
 
+    private DiscriminatorCases getDiscriminatorCases(Discriminator discriminator) {
+        DiscriminatorCases cases = discriminatorCases.get(discriminator);
+        if (cases == null) {
+            cases = new DiscriminatorCases(discriminator);
+            discriminatorCases.put(discriminator, cases);
+        }
+        return cases;
+    }
+
+    /**
+     * 结果映射的 id 与对象一一对应，按引用比较，链一般只有一两层，不用 HashSet
+     */
+    private boolean isPastDiscriminatedResultMap(ResultMap resultMap) {
+        for (int i = 0; i < pastDiscriminatedResultMaps.size(); i++) {
+            if (pastDiscriminatedResultMaps.get(i) == resultMap) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     //
     // DISCRIMINATOR
     //
@@ -1013,6 +1141,30 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     private void handleRowValuesForNestedResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
+        if (mappedStatement.isResultOrdered()) {
+            handleOrderedRowValuesForNestedResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
+            return;
+        }
+        final DefaultResultContext resultContext = new DefaultResultContext();
+        skipRows(rsw.getResultSet(), rowBounds);
+        while (shouldProcessMoreRows(resultContext, rowBounds) && rsw.getResultSet().next()) {
+            final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
+            final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+            Object partialObject = nestedResultObjects.get(rowKey);
+            Object rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, rowKey, null, partialObject);
+            if (partialObject == null) {
+                storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
+            }
+        }
+    }
+
+    /**
+     * 结果集按顶层结果映射的 id 列排好序（resultOrdered="true"），同一个顶层对象的行是连续的
+     *
+     * 出现新的顶层对象时，上一个对象图已经完整，立即交给结果处理器，并释放它和它的子对象的 CacheKey，
+     * 占用的内存只与最大的一个对象图有关，与结果集的行数无关。issue #577 && #542
+     */
+    private void handleOrderedRowValuesForNestedResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
         final DefaultResultContext resultContext = new DefaultResultContext();
         skipRows(rsw.getResultSet(), rowBounds);
         Object rowValue = null;
@@ -1020,23 +1172,32 @@ public class DefaultResultSetHandler implements ResultSetHandler {
             final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
             final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
             Object partialObject = nestedResultObjects.get(rowKey);
-            // issue #577 && #542
-            if (mappedStatement.isResultOrdered()) {
-                if (partialObject == null && rowValue != null) {
-                    nestedResultObjects.clear();
-                    storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
-                }
-                rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, rowKey, null, partialObject);
-            } else {
-                rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, rowKey, null, partialObject);
-                if (partialObject == null) {
+            if (partialObject == null) {
+                //上一个对象为 null 时也要释放，否则它的子对象会一直留到结果集结束
+                releaseNestedResultObjects();
+                if (rowValue != null) {
                     storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
                 }
             }
+            rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, rowKey, null, partialObject);
         }
-        if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+        if (rowValue != null && shouldProcessMoreRows(resultContext, rowBounds)) {
             storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
         }
+        releaseNestedResultObjects();
+    }
+
+    /**
+     * 释放已经完整的对象图的 CacheKey
+     *
+     * HashMap.clear() 不会缩小内部数组，之后每次清空都要遍历整个数组，大的对象图之后换一个新的 Map
+     */
+    private void releaseNestedResultObjects() {
+        if (nestedResultObjects.size() > RELEASED_NESTED_RESULT_OBJECTS) {
+            nestedResultObjects = new HashMap<CacheKey, Object>();
+        } else {
+            nestedResultObjects.clear();
+        }
     }
 
     //
@@ -1265,6 +1426,82 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
     }
 
+    /**
+     * 一个结果集、结果映射、列前缀下的全部自动映射
+     */
+    private static class AutomaticMappings {
+
+        /**
+         * 解析时结果对象的类型
+         */
+        private final Class<?> type;
+
+        private boolean cacheable;
+
+        private final List<AutomaticMapping> mappings = new ArrayList<AutomaticMapping>();
+
+        AutomaticMappings(Class<?> type, boolean cacheable) {
+            this.type = type;
+            this.cacheable = cacheable;
+        }
+    }
+
+    /**
+     * 一个没有映射的列的自动映射
+     */
+    private static class AutomaticMapping {
+
+        private final String column;
+
+        private final PropertyTokenizer property;
+
+        private final TypeHandler<?> typeHandler;
+
+        private final boolean primitive;
+
+        AutomaticMapping(String column, PropertyTokenizer property, TypeHandler<?> typeHandler, boolean primitive) {
+            this.column = column;
+            this.property = property;
+            this.typeHandler = typeHandler;
+            this.primitive = primitive;
+        }
+    }
+
+    /**
+     * 一个鉴别器在这次查询中用到的分支
+     *
+     * 按类型处理器返回的原始值记住对应的结果映射（没有对应的映射时记 null），
+     * 同一个值的后续行不再拼接字符串、查配置。只在一次查询内有效，查询之后注册的结果映射下次查询就能看到
+     */
+    private class DiscriminatorCases {
+
+        /**
+         * 最多记住的值的个数，防止鉴别器列取值很分散时无限增长
+         */
+        private static final int MAX_CASES = 256;
+
+        private final Discriminator discriminator;
+
+        private final Map<Object, ResultMap> cases = new HashMap<Object, ResultMap>();
+
+        DiscriminatorCases(Discriminator discriminator) {
+            this.discriminator = discriminator;
+        }
+
+        ResultMap resolve(Object value) {
+            ResultMap resultMap = cases.get(value);
+            if (resultMap != null || cases.containsKey(value)) {
+                return resultMap;
+            }
+            final String discriminatedMapId = discriminator.getMapIdFor(String.valueOf(value));
+            resultMap = configuration.hasResultMap(discriminatedMapId) ? configuration.getResultMap(discriminatedMapId) : null;
+            if (cases.size() < MAX_CASES) {
+                cases.put(value, resultMap);
+            }
+            return resultMap;
+        }
+    }
+
     private static class PendingRelation {
 
         public MetaObject metaObject;
@@ -1,11 +1,9 @@
 package org.apache.ibatis.executor.resultset;
 
 import lombok.Getter;
-import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
-import org.apache.ibatis.type.ObjectTypeHandler;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.apache.ibatis.type.UnknownTypeHandler;
@@ -57,21 +55,22 @@ class ResultSetWrapper {
     private final List<JdbcType> jdbcTypes = new ArrayList<JdbcType>();
 
     /**
+     * 根据结果集元数据解析出的列处理器，只有属性类型解析不到处理器时才用到，因此按需创建
      * key：columnName
-     * value:class-处理器
+     * value:处理器
      */
-    private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<String, Map<Class<?>, TypeHandler<?>>>();
+    private Map<String, TypeHandler<?>> columnTypeHandlerMap;
 
     /**
      * 结果集合中映射的列
-     * key:resultMap.getId() + ":" + columnPrefix
+     * key:resultMap.getId() + ":" + columnPrefix，没有前缀时就是 resultMap.getId()
      * value:结果集合中映射的列集合
      */
     private Map<String, List<String>> mappedColumnNamesMap = new HashMap<String, List<String>>();
 
     /**
      * 结果集合中没有映射的列
-     * key:resultMap.getId() + ":" + columnPrefix
+     * key:resultMap.getId() + ":" + columnPrefix，没有前缀时就是 resultMap.getId()
      * value:结果集合中没有映射的列集合
      */
     private Map<String, List<String>> unMappedColumnNamesMap = new HashMap<String, List<String>>();
@@ -84,6 +83,18 @@ class ResultSetWrapper {
      * @throws SQLException 异常
      */
     public ResultSetWrapper(ResultSet resultSet, Configuration configuration) throws SQLException {
+        this(resultSet, configuration, null);
+    }
+
+    /**
+     * 查询结果包装器
+     *
+     * @param resultSet 查询结果
+     * @param configuration 配置
+     * @param ignoredColumn 不参与映射的列，如分页加上的行号列，为 null 表示全部映射
+     * @throws SQLException 异常
+     */
+    public ResultSetWrapper(ResultSet resultSet, Configuration configuration, String ignoredColumn) throws SQLException {
         super();
         this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
         this.resultSet = resultSet;
@@ -93,7 +104,11 @@ class ResultSetWrapper {
         final int columnCount = metaData.getColumnCount();
         for (int i = 1; i <= columnCount; i++) {
             //决定是 label 还是 name
-            columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
+            String columnName = configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i);
+            if (ignoredColumn != null && ignoredColumn.equalsIgnoreCase(columnName)) {
+                continue;
+            }
+            columnNames.add(columnName);
 
             //该列的数据库类型
             int columnType = metaData.getColumnType(i);
@@ -120,51 +135,38 @@ class ResultSetWrapper {
      * @return 类型处理器
      */
     public TypeHandler<?> getTypeHandler(Class<?> propertyType, String columnName) {
-        TypeHandler<?> handler = null;
-        Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnName);
-        if (columnHandlers == null) {
-            columnHandlers = new HashMap<Class<?>, TypeHandler<?>>();
-            typeHandlerMap.put(columnName, columnHandlers);
-        } else {
-            handler = columnHandlers.get(propertyType);
-        }
-        if (handler == null) {
-            //先从注册器拿，如果xml中写列，则此处能拿到
-            handler = typeHandlerRegistry.getTypeHandler(propertyType);
-            // Replicate logic of UnknownTypeHandler#resolveTypeHandler
-            // See issue #59 comment 10
-            if (handler == null || handler instanceof UnknownTypeHandler) {
-                //结果列的 name 或者 label 集合
-                final int index = columnNames.indexOf(columnName);
-                //结果列的 数据库类型
-                final JdbcType jdbcType = jdbcTypes.get(index);
-                //结果列的 java程序类型 the fully-qualified name of the class in the Java programming language that would be used by the method
-                String className = classNames.get(index);
-                final Class<?> javaType = resolveClass(className);
-                if (javaType != null && jdbcType != null) {
-                    handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
-                } else if (javaType != null) {
-                    handler = typeHandlerRegistry.getTypeHandler(javaType);
-                } else if (jdbcType != null) {
-                    handler = typeHandlerRegistry.getTypeHandler(jdbcType);
-                }
-            }
-
-            //通过数据库元数据也获取不到该属性的处理器，则没办法，只能设置为 ObjectTypeHandler
-            if (handler == null || handler instanceof UnknownTypeHandler) {
-                handler = new ObjectTypeHandler();
-            }
-            columnHandlers.put(propertyType, handler);
+        //先从注册器拿，如果xml中写列，则此处能拿到，注册器的解析结果是全局缓存的
+        TypeHandler<?> handler = typeHandlerRegistry.getTypeHandler(propertyType);
+        // Replicate logic of UnknownTypeHandler#resolveTypeHandler
+        // See issue #59 comment 10
+        if (handler == null || handler instanceof UnknownTypeHandler) {
+            handler = getColumnTypeHandler(columnName);
         }
         return handler;
     }
 
-    private Class<?> resolveClass(String className) {
-        try {
-            return Resources.classForName(className);
-        } catch (ClassNotFoundException e) {
-            return null;
+    /**
+     * 根据该列的元数据（java程序类型 + 数据库类型）获取处理器，获取不到则为 ObjectTypeHandler
+     *
+     * @param columnName 列名称
+     * @return 类型处理器
+     */
+    private TypeHandler<?> getColumnTypeHandler(String columnName) {
+        if (columnTypeHandlerMap == null) {
+            columnTypeHandlerMap = new HashMap<String, TypeHandler<?>>();
         }
+        TypeHandler<?> handler = columnTypeHandlerMap.get(columnName);
+        if (handler == null) {
+            //结果列的 name 或者 label 集合
+            final int index = columnNames.indexOf(columnName);
+            //结果列的 数据库类型
+            final JdbcType jdbcType = jdbcTypes.get(index);
+            //结果列的 java程序类型 the fully-qualified name of the class in the Java programming language that would be used by the method
+            final String className = classNames.get(index);
+            handler = typeHandlerRegistry.getColumnTypeHandler(className, jdbcType);
+            columnTypeHandlerMap.put(columnName, handler);
+        }
+        return handler;
     }
 
     /**
@@ -242,7 +244,8 @@ class ResultSetWrapper {
     }
 
     private String getMapKey(ResultMap resultMap, String columnPrefix) {
-        return resultMap.getId() + ":" + columnPrefix;
+        //没有前缀时每一行都会查，不拼接字符串
+        return columnPrefix == null ? resultMap.getId() : resultMap.getId() + ":" + columnPrefix;
     }
 
     /**
@@ -8,6 +8,9 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
@@ -17,6 +20,9 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 语句处理器的基类
@@ -54,6 +60,11 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
     protected BoundSql boundSql;
 
+    /**
+     * 慢语句的阈值（纳秒），小于 0 表示不计时
+     */
+    private final long slowThresholdNanos;
+
     /**
      * 如何实例化Statement，交给子类做，有3个实现
      *
@@ -78,6 +89,11 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
         this.boundSql = boundSql;
 
+        //语句没有单独指定时用命名空间的阈值，再没有用全局的阈值
+        Integer slowThreshold = mappedStatement.getSlowThreshold() != null ? mappedStatement.getSlowThreshold()
+                : configuration.getSlowStatementThreshold(mappedStatement.getId());
+        this.slowThresholdNanos = slowThreshold == null ? -1L : TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+
         //生成parameterHandler
         this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
         //生成resultSetHandler
@@ -147,6 +163,107 @@ public abstract class BaseStatementHandler implements StatementHandler {
         }
     }
 
+    /**
+     * 是否要记录慢语句
+     */
+    protected boolean isTimed() {
+        return slowThresholdNanos >= 0;
+    }
+
+    /**
+     * 计时用的当前时间，不记录慢语句时返回 0
+     */
+    protected long timestamp() {
+        return slowThresholdNanos >= 0 ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 总耗时超过阈值时，用语句的日志以 WARN 级别打印 SQL、参数、耗时和行数；没超过时不拼任何字符串。
+     * 在 finally 中调用，执行失败、超时的语句同样会记录
+     *
+     * @param start 开始执行的时间
+     * @param executed 语句执行完、开始处理结果的时间
+     * @param rows 查询返回的对象个数或者更新的行数，-1 表示不知道（结果交给了 ResultHandler）
+     * @param completed 是否正常完成，没有完成时只打印总耗时
+     * @param parameters 执行前记下的参数，见 {@link #getParameterValues()}，为 null 时现在再读
+     */
+    protected void logIfSlow(long start, long executed, int rows, boolean completed, Object[] parameters) {
+        long end = System.nanoTime();
+        if (end - start < slowThresholdNanos) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("Slow statement: ");
+        message.append(TimeUnit.NANOSECONDS.toMillis(end - start)).append(" ms");
+        if (completed) {
+            message.append(" (execute: ").append(TimeUnit.NANOSECONDS.toMillis(executed - start)).append(" ms, mapping: ");
+            message.append(TimeUnit.NANOSECONDS.toMillis(end - executed)).append(" ms");
+            if (rows >= 0) {
+                message.append(", rows: ").append(rows);
+            }
+            message.append(")");
+        } else {
+            message.append(" (failed)");
+        }
+        message.append(" SQL: ").append(boundSql.getSql().replaceAll("\\s+", " ").trim());
+        message.append(" Parameters: ").append(getParameterValueString(parameters != null ? parameters : getParameterValues()));
+        mappedStatement.getStatementLog().warn(message.toString());
+    }
+
+    /**
+     * 绑定的 IN 参数，与 DefaultParameterHandler 设参数时的取值方式一致。
+     * 回填主键、OUT 参数会改写参数对象，更新语句和存储过程要在执行前记下来；只复制引用，不拼字符串
+     *
+     * @return 按 ? 的顺序排列的参数值，OUT 参数不在其中
+     */
+    protected Object[] getParameterValues() {
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        if (parameterMappings == null) {
+            return new Object[0];
+        }
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+        List<Object> values = new ArrayList<Object>(parameterMappings.size());
+        for (ParameterMapping parameterMapping : parameterMappings) {
+            if (parameterMapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String propertyName = parameterMapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(propertyName)) {
+                value = boundSql.getAdditionalParameter(propertyName);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(propertyName);
+            }
+            values.add(value);
+        }
+        return values.toArray();
+    }
+
+    /**
+     * 格式与 PreparedStatementLogger 一致
+     */
+    private static String getParameterValueString(Object[] values) {
+        StringBuilder parameters = new StringBuilder();
+        for (Object value : values) {
+            if (parameters.length() > 0) {
+                parameters.append(", ");
+            }
+            if (value == null) {
+                parameters.append("null");
+            } else {
+                parameters.append(value).append("(").append(value.getClass().getSimpleName()).append(")");
+            }
+        }
+        return parameters.toString();
+    }
+
     /**
      * 生成key
      *
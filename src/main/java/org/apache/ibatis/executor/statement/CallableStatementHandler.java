@@ -36,14 +36,28 @@ public class CallableStatementHandler extends BaseStatementHandler {
         //这个方法和PreparedStatementHandler代码基本一样,就多了最后的 handleOutputParameters
         //调用Statement.execute和Statement.getUpdateCount
         CallableStatement callableStatement = (CallableStatement) statement;
-        callableStatement.execute();
-        int rows = callableStatement.getUpdateCount();
-        Object parameterObject = boundSql.getParameterObject();
-        KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
-        keyGenerator.processAfter(executor, mappedStatement, callableStatement, parameterObject);
-        //然后交给ResultSetHandler.handleOutputParameters
-        resultSetHandler.handleOutputParameters(callableStatement);
-        return rows;
+        //回填主键和 OUT 参数会改写参数对象，先记下执行时的参数
+        Object[] parameters = isTimed() ? getParameterValues() : null;
+        long start = timestamp();
+        long executed = start;
+        int rows = -1;
+        boolean completed = false;
+        try {
+            callableStatement.execute();
+            rows = callableStatement.getUpdateCount();
+            executed = timestamp();
+            Object parameterObject = boundSql.getParameterObject();
+            KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
+            keyGenerator.processAfter(executor, mappedStatement, callableStatement, parameterObject);
+            //然后交给ResultSetHandler.handleOutputParameters
+            resultSetHandler.handleOutputParameters(callableStatement);
+            completed = true;
+            return rows;
+        } finally {
+            if (isTimed()) {
+                logIfSlow(start, executed, rows, completed, parameters);
+            }
+        }
     }
 
     @Override
@@ -55,10 +69,25 @@ public class CallableStatementHandler extends BaseStatementHandler {
     @Override
     public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
         CallableStatement callableStatement = (CallableStatement) statement;
-        callableStatement.execute();
-        List<E> resultList = resultSetHandler.<E>handleResultSets(callableStatement);
-        resultSetHandler.handleOutputParameters(callableStatement);
-        return resultList;
+        //OUT 参数会改写参数对象，先记下执行时的参数
+        Object[] parameters = isTimed() ? getParameterValues() : null;
+        long start = timestamp();
+        long executed = start;
+        int rows = -1;
+        boolean completed = false;
+        try {
+            callableStatement.execute();
+            executed = timestamp();
+            List<E> resultList = resultSetHandler.<E>handleResultSets(callableStatement);
+            resultSetHandler.handleOutputParameters(callableStatement);
+            rows = resultHandler == null ? resultList.size() : -1;
+            completed = true;
+            return resultList;
+        } finally {
+            if (isTimed()) {
+                logIfSlow(start, executed, rows, completed, parameters);
+            }
+        }
     }
 
     @Override
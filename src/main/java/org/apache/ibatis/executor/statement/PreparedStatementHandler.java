@@ -33,14 +33,28 @@ public class PreparedStatementHandler extends BaseStatementHandler {
     public int update(Statement statement) throws SQLException {
         //调用PreparedStatement.execute和PreparedStatement.getUpdateCount
         PreparedStatement preparedStatement = (PreparedStatement) statement;
-        //执行
-        preparedStatement.execute();
-        //修改行，the current result as an update count; -1 if the current result is a
-        int rows = preparedStatement.getUpdateCount();
-        Object parameterObject = boundSql.getParameterObject();
-        KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
-        keyGenerator.processAfter(executor, mappedStatement, preparedStatement, parameterObject);
-        return rows;
+        //回填主键会改写参数对象，先记下执行时的参数
+        Object[] parameters = isTimed() ? getParameterValues() : null;
+        long start = timestamp();
+        long executed = start;
+        int rows = -1;
+        boolean completed = false;
+        try {
+            //执行
+            preparedStatement.execute();
+            //修改行，the current result as an update count; -1 if the current result is a
+            rows = preparedStatement.getUpdateCount();
+            executed = timestamp();
+            Object parameterObject = boundSql.getParameterObject();
+            KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
+            keyGenerator.processAfter(executor, mappedStatement, preparedStatement, parameterObject);
+            completed = true;
+            return rows;
+        } finally {
+            if (isTimed()) {
+                logIfSlow(start, executed, rows, completed, parameters);
+            }
+        }
     }
 
     @Override
@@ -52,10 +66,23 @@ public class PreparedStatementHandler extends BaseStatementHandler {
     @Override
     public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
         PreparedStatement preparedStatement = (PreparedStatement) statement;
-        preparedStatement.execute();//执行数据库查询，之后结果就以及在 preparedStatement 中了，需要通结果处理器处理
-        List<E> resultSetList = resultSetHandler.handleResultSets(preparedStatement);
-        System.out.println(resultSetList);
-        return resultSetList;
+        long start = timestamp();
+        long executed = start;
+        int rows = -1;
+        boolean completed = false;
+        try {
+            preparedStatement.execute();//执行数据库查询，之后结果就以及在 preparedStatement 中了，需要通结果处理器处理
+            executed = timestamp();
+            List<E> resultSetList = resultSetHandler.handleResultSets(preparedStatement);
+            rows = resultHandler == null ? resultSetList.size() : -1;
+            completed = true;
+            return resultSetList;
+        } finally {
+            if (isTimed()) {
+                //查询不改写参数对象，超过阈值时再读参数
+                logIfSlow(start, executed, rows, completed, null);
+            }
+        }
     }
 
     @Override
@@ -20,10 +20,8 @@ import org.apache.ibatis.logging.Log;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 
@@ -72,7 +70,12 @@ public abstract class BaseJdbcLogger {
 
     protected int queryStack;
 
-    private Map<Object, Object> columnMap = new HashMap<Object, Object>();
+    /**
+     * 创建时的日志级别，代理只在一次预编译、一个结果集的范围内使用，不必每次调用都去问日志框架
+     */
+    private final boolean debugEnabled;
+
+    private final boolean traceEnabled;
 
     private List<Object> columnNames = new ArrayList<Object>();
 
@@ -83,6 +86,8 @@ public abstract class BaseJdbcLogger {
      */
     public BaseJdbcLogger(Log log, int queryStack) {
         this.statementLog = log;
+        this.debugEnabled = log.isDebugEnabled();
+        this.traceEnabled = log.isTraceEnabled();
         if (queryStack == 0) {
             this.queryStack = 1;
         } else {
@@ -91,13 +96,14 @@ public abstract class BaseJdbcLogger {
     }
 
     protected void setColumn(Object key, Object value) {
-        columnMap.put(key, value);
         columnNames.add(key);
         columnValues.add(value);
     }
 
     protected Object getColumn(Object key) {
-        return columnMap.get(key);
+        //同一个参数可能设置多次，取最后一次的值
+        int index = columnNames.lastIndexOf(key);
+        return index < 0 ? null : columnValues.get(index);
     }
 
     protected String getParameterValueString() {
@@ -118,7 +124,6 @@ public abstract class BaseJdbcLogger {
     }
 
     protected void clearColumnInfo() {
-        columnMap.clear();
         columnNames.clear();
         columnValues.clear();
     }
@@ -134,21 +139,21 @@ public abstract class BaseJdbcLogger {
     }
 
     protected boolean isDebugEnabled() {
-        return statementLog.isDebugEnabled();
+        return debugEnabled;
     }
 
     protected boolean isTraceEnabled() {
-        return statementLog.isTraceEnabled();
+        return traceEnabled;
     }
 
     protected void debug(String text, boolean input) {
-        if (statementLog.isDebugEnabled()) {
+        if (debugEnabled) {
             statementLog.debug(prefix(input) + text);
         }
     }
 
     protected void trace(String text, boolean input) {
-        if (statementLog.isTraceEnabled()) {
+        if (traceEnabled) {
             statementLog.trace(prefix(input) + text);
         }
     }
@@ -63,8 +63,8 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
             if (EXECUTE_METHODS.contains(method.getName())) {
                 if (isDebugEnabled()) {
                     debug("Parameters: " + getParameterValueString(), true);
+                    clearColumnInfo();
                 }
-                clearColumnInfo();
                 if ("executeQuery".equals(method.getName())) {
                     ResultSet rs = (ResultSet) method.invoke(statement, params);
                     return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
@@ -72,6 +72,10 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
                     return method.invoke(statement, params);
                 }
             } else if (SET_METHODS.contains(method.getName())) {
+                //不打印参数时不必记录
+                if (!isDebugEnabled()) {
+                    return method.invoke(statement, params);
+                }
                 if ("setNull".equals(method.getName())) {
                     setColumn(params[0], null);
                 } else {
@@ -83,7 +87,7 @@ public final class PreparedStatementLogger extends BaseJdbcLogger implements Inv
                 return rs == null ? null : ResultSetLogger.newInstance(rs, statementLog, queryStack);
             } else if ("getUpdateCount".equals(method.getName())) {
                 int updateCount = (Integer) method.invoke(statement, params);
-                if (updateCount != -1) {
+                if (updateCount != -1 && isDebugEnabled()) {
                     debug("   Updates: " + updateCount, false);
                 }
                 return updateCount;
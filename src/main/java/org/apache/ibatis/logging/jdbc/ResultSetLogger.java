@@ -54,6 +54,8 @@ public final class ResultSetLogger extends BaseJdbcLogger implements InvocationH
 
     private int rows = 0;
 
+    private int columnCount;
+
     private ResultSet rs;
 
     private Set<Integer> blobColumns = new HashSet<Integer>();
@@ -86,19 +88,19 @@ public final class ResultSetLogger extends BaseJdbcLogger implements InvocationH
                 if (((Boolean) o)) {
                     rows++;
                     if (isTraceEnabled()) {
-                        ResultSetMetaData rsmd = rs.getMetaData();
-                        final int columnCount = rsmd.getColumnCount();
+                        //元数据只在第一行取一次
                         if (first) {
                             first = false;
+                            ResultSetMetaData rsmd = rs.getMetaData();
+                            columnCount = rsmd.getColumnCount();
                             printColumnHeaders(rsmd, columnCount);
                         }
                         printColumnValues(columnCount);
                     }
-                } else {
+                } else if (isDebugEnabled()) {
                     debug("     Total: " + rows, false);
                 }
             }
-            clearColumnInfo();
             return o;
         } catch (Throwable t) {
             throw ExceptionUtil.unwrapThrowable(t);
@@ -1,6 +1,7 @@
 package org.apache.ibatis.mapping;
 
 import lombok.Getter;
+import lombok.Setter;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
@@ -52,6 +53,13 @@ public class BoundSql {
      */
     private MetaObject metaParameters;
 
+    /**
+     * 分页改写时额外加进结果里的行号列（如 Oracle 的 ROWNUM_），结果集处理器不映射这一列
+     */
+    @Getter
+    @Setter
+    private String rowNumberColumn;
+
     public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject) {
         this.sql = sql;
         this.parameterMappings = parameterMappings;
@@ -60,6 +68,35 @@ public class BoundSql {
         this.metaParameters = configuration.newMetaObject(additionalParameters);
     }
 
+    private BoundSql(String sql, List<ParameterMapping> parameterMappings, Object parameterObject, MetaObject metaParameters) {
+        this.sql = sql;
+        this.parameterMappings = parameterMappings;
+        this.parameterObject = parameterObject;
+        this.metaParameters = metaParameters;
+    }
+
+    /**
+     * 换一条 sql 和参数映射，如分页改写之后的 sql，附加参数（foreach、bind 生成的参数）复制一份，
+     * 之后往新的 BoundSql 里加参数不会影响原来的
+     *
+     * @param sql 新的 sql
+     * @param parameterMappings 新 sql 中每个 ? 对应的参数
+     * @return 新的 BoundSql
+     */
+    public BoundSql withSql(String sql, List<ParameterMapping> parameterMappings) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> additionalParameters = new HashMap<String, Object>((Map<String, Object>) metaParameters.getOriginalObject());
+        return new BoundSql(sql, parameterMappings, parameterObject,
+                MetaObject.forObject(additionalParameters, metaParameters.getObjectFactory(), metaParameters.getObjectWrapperFactory()));
+    }
+
+    /**
+     * 是否有附加参数，没有时每个参数都只从入参中取值
+     */
+    public boolean hasAdditionalParameters() {
+        return !((Map<?, ?>) metaParameters.getOriginalObject()).isEmpty();
+    }
+
     public boolean hasAdditionalParameter(String name) {
         return metaParameters.hasGetter(name);
     }
@@ -7,7 +7,9 @@ import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SingleFlightCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TableInvalidatingCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -53,6 +55,20 @@ public class CacheBuilder {
             //如果是custom缓存，且不是日志，要加日志
             cache = new LoggingCache(cache);
         }
+        if (singleFlight) {
+            SingleFlightCache singleFlightCache = new SingleFlightCache(cache);
+            //可读写的缓存，等待的线程拿到的是结果的副本
+            singleFlightCache.setCopyOnShare(readWrite);
+            cache = singleFlightCache;
+        }
+        if (tableInvalidation) {
+            //包在最外层，索引才能看到所有放入和移除
+            TableInvalidatingCache tableCache = new TableInvalidatingCache(cache);
+            if (size != null) {
+                tableCache.setSize(size);
+            }
+            cache = tableCache;
+        }
         return cache;
     }
 
@@ -96,6 +112,16 @@ public class CacheBuilder {
 
     private boolean blocking;
 
+    /**
+     * 是否按表失效，<cache invalidation="TABLE"/>
+     */
+    private boolean tableInvalidation;
+
+    /**
+     * 是否合并并发的相同查询，<cache singleFlight="true"/>
+     */
+    private boolean singleFlight;
+
     public CacheBuilder(String id) {
         this.id = id;
         this.decorators = new ArrayList<Class<? extends Cache>>();
@@ -133,6 +159,16 @@ public class CacheBuilder {
         return this;
     }
 
+    public CacheBuilder tableInvalidation(boolean tableInvalidation) {
+        this.tableInvalidation = tableInvalidation;
+        return this;
+    }
+
+    public CacheBuilder singleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight;
+        return this;
+    }
+
     public CacheBuilder properties(Properties properties) {
         this.properties = properties;
         return this;
@@ -159,7 +195,8 @@ public class CacheBuilder {
             cache = new LoggingCache(cache);
             //同步缓存, 3.2.6以后这个类已经没用了，考虑到Hazelcast, EhCache已经有锁机制了，所以这个锁就画蛇添足了。
             cache = new SynchronizedCache(cache);
-            if (blocking) {
+            //singleFlight 已经合并了并发的未命中，不再需要按 key 加锁
+            if (blocking && !singleFlight) {
                 cache = new BlockingCache(cache);
             }
             return cache;
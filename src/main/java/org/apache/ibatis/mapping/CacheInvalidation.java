@@ -0,0 +1,18 @@
+package org.apache.ibatis.mapping;
+
+/**
+ * 二级缓存的失效方式，<cache invalidation="TABLE"/>
+ */
+public enum CacheInvalidation {
+
+    /**
+     * 默认方式，insert/update/delete 时清空整个 namespace 的缓存
+     */
+    NAMESPACE,
+
+    /**
+     * 缓存条目记录它读取的表，insert/update/delete 只失效依赖被写表的条目，
+     * 其他 namespace 中同样按表失效的缓存也会一起失效
+     */
+    TABLE
+}
@@ -0,0 +1,19 @@
+package org.apache.ibatis.mapping;
+
+/**
+ * <selectKey allocationSize="50"> 时，主键语句返回的一个值如何换算成一段主键
+ *
+ * 如果主键语句一次返回了多行，则每一行就是一个主键，与该策略无关
+ */
+public enum KeyAllocationStrategy {
+
+    /**
+     * 序列的步长等于 allocationSize，返回值 v 即这一段的起点：v, v+1, ..., v+allocationSize-1
+     */
+    POOLED,
+
+    /**
+     * 序列的步长为 1，返回值 hi 为高位：hi*allocationSize, ..., hi*allocationSize+allocationSize-1
+     */
+    HILO
+}
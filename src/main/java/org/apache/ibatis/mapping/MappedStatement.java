@@ -2,17 +2,25 @@ package org.apache.ibatis.mapping;
 
 import lombok.Getter;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.SqlTableParser;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.pagination.CountSqlSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.defaults.ParameterBinder;
 import org.apache.ibatis.session.Configuration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 映射的语句，mapper.xml 文件的每个方法都有对应的 MappedStatement 对象
@@ -80,6 +88,19 @@ public final class MappedStatement {
     @Getter
     private boolean resultOrdered;
 
+    /**
+     * 查询结果是否留在本地（一级）缓存中，为 false 时只在本次查询（包括其中的嵌套查询、延迟加载）中使用，
+     * 最外层查询结束后就从本地缓存中移除
+     */
+    @Getter
+    private boolean useLocalCache = true;
+
+    /**
+     * 慢语句的阈值（毫秒），没有指定时为 null，用 Configuration.slowStatementThreshold
+     */
+    @Getter
+    private Integer slowThreshold;
+
     @Getter
     private SqlCommandType sqlCommandType;
 
@@ -108,12 +129,55 @@ public final class MappedStatement {
     @Getter
     private Log statementLog;
 
+    /**
+     * 语句日志的抽样间隔，见 Configuration.statementLogSampling，语句可以用 logSampling 单独指定
+     */
+    private int statementLogSampling;
+
+    /**
+     * 开启日志时的执行次数，用来抽样
+     */
+    private final AtomicInteger statementLogExecutions = new AtomicInteger();
+
     @Getter
     private LanguageDriver lang;
 
     @Getter
     private String[] resultSets;
 
+    /**
+     * 该sql读写的表（大写），<select tables="author,blog"> 指定，没有指定则为 null，用到时从 sql 中解析
+     */
+    private Set<String> tables;
+
+    /**
+     * 最近一次从 sql 中解析出的表，静态 sql 每次拿到的都是同一个字符串，只需要解析一次
+     * [0]:sql
+     * [1]:解析出的表
+     */
+    private volatile Object[] lastParsedTables;
+
+    /**
+     * 派生出的 COUNT 语句，第一次用到时创建
+     */
+    private volatile MappedStatement countStatement;
+
+    /**
+     * 最多保留几个参数绑定器（每种参数类型一个）
+     */
+    private static final int MAX_PARAMETER_BINDERS = 4;
+
+    /**
+     * 编译好的参数绑定器，按参数类型各一个（Integer/Long、HashMap/ParamMap 交替传入时不用反复编译），
+     * 超过 {@link #MAX_PARAMETER_BINDERS} 个时丢掉最早的；整个数组替换，读的时候不用加锁
+     */
+    private volatile ParameterBinder[] parameterBinders = new ParameterBinder[0];
+
+    /**
+     * 最近一次见到的参数映射列表，静态 sql 每次拿到的都是同一个列表，第二次见到时才编译绑定器
+     */
+    private volatile List<ParameterMapping> lastParameterMappings;
+
     MappedStatement() {
         // constructor disabled
     }
@@ -126,6 +190,80 @@ public final class MappedStatement {
         }
     }
 
+    /**
+     * 获取该sql读写的表，供按表失效的二级缓存使用
+     *
+     * @param boundSql 本次执行的 sql
+     * @return 大写的表名，解析不出来时为空集合
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getTables(BoundSql boundSql) {
+        if (tables != null) {
+            return tables;
+        }
+        String sql = boundSql.getSql();
+        Object[] parsed = lastParsedTables;
+        if (parsed != null && (parsed[0] == sql || parsed[0].equals(sql))) {
+            return (Set<String>) parsed[1];
+        }
+        Set<String> parsedTables = Collections.unmodifiableSet(SqlTableParser.parse(sql));
+        lastParsedTables = new Object[] { sql, parsedTables };
+        return parsedTables;
+    }
+
+    /**
+     * 获取从该查询派生出的 SELECT COUNT(*) 语句
+     *
+     * @return COUNT 语句，读写的表与该查询一致
+     */
+    public MappedStatement getCountStatement() {
+        MappedStatement count = countStatement;
+        if (count == null) {
+            //并发时可能创建多次，结果都一样
+            count = CountSqlSource.newCountStatement(this);
+            count.tables = tables;
+            countStatement = count;
+        }
+        return count;
+    }
+
+    /**
+     * 获取预编译的参数绑定器
+     *
+     * @param boundSql 本次执行的 sql
+     * @param parameterObject 参数
+     * @return 有附加参数（foreach、bind、分页）或者 sql 是动态生成的时返回 null，由调用者逐个解析参数
+     */
+    public ParameterBinder getParameterBinder(BoundSql boundSql, Object parameterObject) {
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        if (parameterMappings == null || boundSql.hasAdditionalParameters()) {
+            return null;
+        }
+        ParameterBinder[] binders = parameterBinders;
+        for (ParameterBinder binder : binders) {
+            if (binder.matches(parameterMappings, parameterObject)) {
+                return binder;
+            }
+        }
+        if (lastParameterMappings != parameterMappings) {
+            //动态 sql 每次生成新的列表，编译了也用不上
+            lastParameterMappings = parameterMappings;
+            return null;
+        }
+        //并发时可能编译多次、互相覆盖，结果都一样，下次没命中再编译即可
+        ParameterBinder binder = ParameterBinder.compile(configuration, parameterMappings, parameterObject);
+        ParameterBinder[] updated;
+        if (binders.length < MAX_PARAMETER_BINDERS) {
+            updated = Arrays.copyOf(binders, binders.length + 1);
+        } else {
+            updated = new ParameterBinder[MAX_PARAMETER_BINDERS];
+            System.arraycopy(binders, 1, updated, 0, MAX_PARAMETER_BINDERS - 1);
+        }
+        updated[updated.length - 1] = binder;
+        parameterBinders = updated;
+        return binder;
+    }
+
     public boolean hasNestedResultMaps() {
         return hasNestedResultMaps;
     }
@@ -157,6 +295,16 @@ public final class MappedStatement {
         return boundSql;
     }
 
+    /**
+     * 这次执行是否打印语句日志，只在语句日志开启时调用，每 statementLogSampling 次执行打印一次
+     */
+    public boolean isStatementLogSampled() {
+        if (statementLogSampling <= 1) {
+            return true;
+        }
+        return (statementLogExecutions.getAndIncrement() & Integer.MAX_VALUE) % statementLogSampling == 0;
+    }
+
     //静态内部类，建造者模式
     public static class Builder {
 
@@ -185,6 +333,7 @@ public final class MappedStatement {
                 logId = configuration.getLogPrefix() + id;
             }
             mappedStatement.statementLog = LogFactory.getLog(logId);
+            mappedStatement.statementLogSampling = configuration.getStatementLogSampling();
             LanguageDriver defaultScriptingLanguageInstance = configuration.getDefaultScriptingLanuageInstance();
             mappedStatement.lang = defaultScriptingLanguageInstance;
         }
@@ -251,6 +400,26 @@ public final class MappedStatement {
             return this;
         }
 
+        public Builder useLocalCache(boolean useLocalCache) {
+            mappedStatement.useLocalCache = useLocalCache;
+            return this;
+        }
+
+        public Builder slowThreshold(Integer slowThreshold) {
+            mappedStatement.slowThreshold = slowThreshold;
+            return this;
+        }
+
+        /**
+         * @param statementLogSampling 语句日志的抽样间隔，null 表示用全局的 statementLogSampling
+         */
+        public Builder statementLogSampling(Integer statementLogSampling) {
+            if (statementLogSampling != null) {
+                mappedStatement.statementLogSampling = statementLogSampling;
+            }
+            return this;
+        }
+
         public Builder keyGenerator(KeyGenerator keyGenerator) {
             mappedStatement.keyGenerator = keyGenerator;
             return this;
@@ -281,6 +450,20 @@ public final class MappedStatement {
             return this;
         }
 
+        public Builder tables(String tables) {
+            String[] tableArray = delimitedStringtoArray(tables);
+            if (tableArray == null) {
+                mappedStatement.tables = null;
+            } else {
+                Set<String> tableSet = new LinkedHashSet<String>();
+                for (String table : tableArray) {
+                    tableSet.add(table.trim().toUpperCase(Locale.ENGLISH));
+                }
+                mappedStatement.tables = Collections.unmodifiableSet(tableSet);
+            }
+            return this;
+        }
+
         public MappedStatement build() {
             assert mappedStatement.configuration != null;
             assert mappedStatement.id != null;
@@ -2,6 +2,7 @@ package org.apache.ibatis.mapping;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -37,6 +38,12 @@ public class ResultMapping {
     @Getter
     private String property;
 
+    /**
+     * 属性的分词结果，构建时分词一次，结果映射的每一行直接用它设值
+     */
+    @Getter
+    private PropertyTokenizer propertyTokenizer;
+
     @Getter
     private String column;
 
@@ -202,6 +209,9 @@ public class ResultMapping {
             resultMapping.composites = Collections.unmodifiableList(resultMapping.composites);
             resolveTypeHandler();
             validate();
+            if (resultMapping.property != null) {
+                resultMapping.propertyTokenizer = new PropertyTokenizer(resultMapping.property);
+            }
             return resultMapping;
         }
 
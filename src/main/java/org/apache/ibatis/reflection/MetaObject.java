@@ -112,6 +112,10 @@ public class MetaObject {
     //如person[0].birthdate.year
     //具体测试用例可以看MetaObjectTest
     public Object getValue(String name) {
+        //默认的包装器上的嵌套属性走编译好的属性路径，不再逐层创建元对象
+        if (PropertyPath.isNested(name) && (objectWrapper.getClass() == BeanWrapper.class || objectWrapper.getClass() == MapWrapper.class)) {
+            return PropertyPath.forPath(originalObject.getClass(), name).getValue(originalObject, objectFactory, objectWrapperFactory);
+        }
         PropertyTokenizer prop = new PropertyTokenizer(name);
         if (prop.hasNext()) {
             MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
@@ -130,7 +134,24 @@ public class MetaObject {
     //设置值
     //如person[0].birthdate.year
     public void setValue(String name, Object value) {
-        PropertyTokenizer prop = new PropertyTokenizer(name);//分词器
+        setValue(new PropertyTokenizer(name), value);//分词器
+    }
+
+    /**
+     * 用分好词的属性设值，同一个属性反复设值时（比如结果映射的每一行）不必每次都分词
+     *
+     * @param prop 属性的分词器
+     * @param value 值
+     */
+    public void setValue(PropertyTokenizer prop, Object value) {
+        if (prop.hasNext() && objectWrapper.getClass() == BeanWrapper.class) {
+            PropertyPath path = PropertyPath.forPath(originalObject.getClass(), prop.getFullName());
+            //带下标的路径设值的语义与集合的类型有关，仍然逐层处理
+            if (!path.isIndexed()) {
+                path.setValue(originalObject, value, objectFactory, objectWrapperFactory);
+                return;
+            }
+        }
         if (prop.hasNext()) {
             String indexedName = prop.getIndexedName();
             MetaObject metaValue = metaObjectForProperty(indexedName);
@@ -141,17 +162,43 @@ public class MetaObject {
                     return;
                 } else {
                     //否则还得new一个，委派给ObjectWrapper.instantiatePropertyValue
-                    metaValue = objectWrapper.instantiatePropertyValue(name, prop, objectFactory);
+                    metaValue = objectWrapper.instantiatePropertyValue(prop.getFullName(), prop, objectFactory);
                 }
             }
             //递归调用setValue
-            metaValue.setValue(prop.getChildren(), value);
+            metaValue.setValue(prop.next(), value);
         } else {
             //到了最后一层了，所以委派给ObjectWrapper.set
             objectWrapper.set(prop, value);
         }
     }
 
+    /**
+     * 让元对象改为指向另一个对象，结果映射时同一个结果类型的每一行复用一个元对象
+     *
+     * 只有默认的 BeanWrapper、MapWrapper 能复用，并且新对象必须与原来的对象是同一个类
+     *
+     * @param object 新的对象
+     * @return 不能复用时返回 false，元对象保持不变
+     */
+    public boolean reset(Object object) {
+        if (object == null || object.getClass() != originalObject.getClass()) {
+            return false;
+        }
+        Class<?> wrapperType = objectWrapper.getClass();
+        if (wrapperType == BeanWrapper.class && !objectWrapperFactory.hasWrapperFor(object)) {
+            ((BeanWrapper) objectWrapper).reset(object);
+        } else if (wrapperType == MapWrapper.class && !objectWrapperFactory.hasWrapperFor(object)) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) object;
+            ((MapWrapper) objectWrapper).reset(map);
+        } else {
+            return false;
+        }
+        originalObject = object;
+        return true;
+    }
+
     //为某个属性生成元对象
     public MetaObject metaObjectForProperty(String name) {
         //实际是递归调用
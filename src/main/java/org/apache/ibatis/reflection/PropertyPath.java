@@ -0,0 +1,298 @@
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.BaseWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 编译好的属性路径，如 author.address.city、items[3].price
+ *
+ * 路径只分词一次，每一段按对象的实际类型缓存 getter/setter，取值、设值时直接沿着对象链调用，
+ * 不再每一层都分词、创建 MetaObject。中间对象为 null 时取值返回 null，设值时按 setter 类型创建，与 MetaObject 一致。
+ *
+ * 只处理默认的 Bean、Map 包装器；遇到自定义包装器、集合对象，剩下的路径交给 MetaObject
+ */
+public final class PropertyPath {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * 每个类最多缓存的路径个数，防止 Map 的键做属性名时缓存无限增长
+     */
+    private static final int MAX_PATHS_PER_CLASS = 1024;
+
+    /**
+     * key:根对象的类型
+     * value:key:属性路径，value:编译好的属性路径
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, PropertyPath>> PATHS = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, PropertyPath>>();
+
+    private final Segment[] segments;
+
+    /**
+     * 是否有带下标的段，设值时下标的语义与集合的类型有关，交给 MetaObject
+     */
+    private final boolean indexed;
+
+    private PropertyPath(String path) {
+        int count = 1;
+        for (PropertyTokenizer prop = new PropertyTokenizer(path); prop.hasNext(); prop = prop.next()) {
+            count++;
+        }
+        this.segments = new Segment[count];
+        boolean indexed = false;
+        PropertyTokenizer prop = new PropertyTokenizer(path);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(prop);
+            indexed = indexed || prop.getIndex() != null;
+            if (prop.hasNext()) {
+                prop = prop.next();
+            }
+        }
+        this.indexed = indexed;
+    }
+
+    /**
+     * 取得编译好的属性路径
+     *
+     * @param rootType 根对象的类型
+     * @param path 属性路径
+     * @return 属性路径
+     */
+    public static PropertyPath forPath(Class<?> rootType, String path) {
+        ConcurrentMap<String, PropertyPath> paths = PATHS.get(rootType);
+        if (paths == null) {
+            paths = new ConcurrentHashMap<String, PropertyPath>();
+            ConcurrentMap<String, PropertyPath> existing = PATHS.putIfAbsent(rootType, paths);
+            if (existing != null) {
+                paths = existing;
+            }
+        }
+        PropertyPath propertyPath = paths.get(path);
+        if (propertyPath == null) {
+            propertyPath = new PropertyPath(path);
+            if (paths.size() < MAX_PATHS_PER_CLASS) {
+                paths.put(path, propertyPath);
+            }
+        }
+        return propertyPath;
+    }
+
+    /**
+     * 是否是嵌套（a.b）或者带下标（a[0]）的属性路径
+     */
+    public static boolean isNested(String name) {
+        return name.indexOf('.') > -1 || name.indexOf('[') > -1;
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * 取值，与 MetaObject.getValue 的结果一致
+     *
+     * @param root 根对象，不能为 null
+     * @param objectFactory 对象工厂
+     * @param objectWrapperFactory 对象包装器工厂
+     * @return 值，中间对象为 null 时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public Object getValue(Object root, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+        Object current = root;
+        for (int i = 0; ; i++) {
+            Segment segment = segments[i];
+            Object value;
+            if (isCustom(current, objectWrapperFactory)) {
+                return MetaObject.forObject(current, objectFactory, objectWrapperFactory).getValue(segment.prop.getFullName());
+            } else if (current instanceof Map) {
+                value = segment.getFromMap((Map<String, Object>) current);
+            } else if (current instanceof Collection) {
+                return MetaObject.forObject(current, objectFactory, objectWrapperFactory).getValue(segment.prop.getFullName());
+            } else {
+                value = segment.getFromBean(current);
+            }
+            if (i == segments.length - 1 || value == null) {
+                return value;
+            }
+            current = value;
+        }
+    }
+
+    /**
+     * 设值，与 MetaObject.setValue 的结果一致
+     *
+     * @param root 根对象，不能为 null
+     * @param value 值
+     * @param objectFactory 对象工厂，用来创建为 null 的中间对象
+     * @param objectWrapperFactory 对象包装器工厂
+     */
+    public void setValue(Object root, Object value, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+        Object current = root;
+        for (int i = 0; ; i++) {
+            Segment segment = segments[i];
+            if (indexed || isCustom(current, objectWrapperFactory) || current instanceof Map || current instanceof Collection) {
+                MetaObject.forObject(current, objectFactory, objectWrapperFactory).setValue(segment.prop, value);
+                return;
+            }
+            if (i == segments.length - 1) {
+                segment.setOnBean(current, value);
+                return;
+            }
+            Object child = segment.invokeGetter(current);
+            if (child == null) {
+                // don't instantiate child path if value is null
+                if (value == null) {
+                    return;
+                }
+                child = segment.instantiate(current, objectFactory);
+            }
+            current = child;
+        }
+    }
+
+    /**
+     * 与 MetaObject 选择包装器的顺序一致，自定义包装器优先
+     */
+    private static boolean isCustom(Object object, ObjectWrapperFactory objectWrapperFactory) {
+        return object instanceof ObjectWrapper || objectWrapperFactory.hasWrapperFor(object);
+    }
+
+    /**
+     * 路径中的一段
+     */
+    private static final class Segment {
+
+        private final PropertyTokenizer prop;
+
+        /**
+         * 上一次用到的类型的 getter/setter，类型变了再重新解析
+         */
+        private volatile Binding binding;
+
+        Segment(PropertyTokenizer prop) {
+            this.prop = prop;
+        }
+
+        /**
+         * 与 MapWrapper.get 一致
+         */
+        Object getFromMap(Map<String, Object> map) {
+            if (prop.getIndex() != null) {
+                Object collection = "".equals(prop.getName()) ? map : map.get(prop.getName());
+                return BaseWrapper.getIndexedValue(prop, collection);
+            }
+            return map.get(prop.getName());
+        }
+
+        /**
+         * 与 BeanWrapper.get 一致
+         */
+        Object getFromBean(Object object) {
+            if (prop.getIndex() != null) {
+                Object collection = "".equals(prop.getName()) ? object : invokeGetter(object);
+                return BaseWrapper.getIndexedValue(prop, collection);
+            }
+            return invokeGetter(object);
+        }
+
+        /**
+         * 与 BeanWrapper 取属性时的异常处理一致
+         */
+        Object invokeGetter(Object object) {
+            try {
+                Invoker method = bindingFor(object).getGetInvoker(prop.getName());
+                try {
+                    return method.invoke(object, NO_ARGUMENTS);
+                } catch (Throwable t) {
+                    throw ExceptionUtil.unwrapThrowable(t);
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new ReflectionException("Could not get property '" + prop.getName() + "' from " + object.getClass() + ".  Cause: " + t.toString(), t);
+            }
+        }
+
+        /**
+         * 与 BeanWrapper 设属性时的异常处理一致
+         */
+        void setOnBean(Object object, Object value) {
+            try {
+                Invoker method = bindingFor(object).getSetInvoker(prop.getName());
+                Object[] params = { value };
+                try {
+                    method.invoke(object, params);
+                } catch (Throwable t) {
+                    throw ExceptionUtil.unwrapThrowable(t);
+                }
+            } catch (Throwable t) {
+                throw new ReflectionException("Could not set property '" + prop.getName() + "' of '" + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+            }
+        }
+
+        /**
+         * 与 BeanWrapper.instantiatePropertyValue 一致
+         */
+        Object instantiate(Object object, ObjectFactory objectFactory) {
+            Class<?> type = bindingFor(object).reflector.getSetterType(prop.getName());
+            try {
+                Object newObject = objectFactory.create(type);
+                setOnBean(object, newObject);
+                return newObject;
+            } catch (Exception e) {
+                String name = prop.getFullName();
+                throw new ReflectionException("Cannot set value of property '" + name + "' because '" + name + "' is null and cannot be instantiated on instance of " + type.getName() + ". Cause:" + e.toString(), e);
+            }
+        }
+
+        private Binding bindingFor(Object object) {
+            Binding current = binding;
+            if (current == null || current.type != object.getClass()) {
+                current = new Binding(object.getClass(), prop.getName());
+                binding = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 一段属性在某个类型上的 getter/setter
+     */
+    private static final class Binding {
+
+        private final Class<?> type;
+
+        private final Reflector reflector;
+
+        /**
+         * 没有 getter/setter 时为 null，用到时由 Reflector 按原样报错
+         */
+        private final Invoker getter;
+
+        private final Invoker setter;
+
+        Binding(Class<?> type, String name) {
+            this.type = type;
+            this.reflector = Reflector.forClass(type);
+            this.getter = reflector.hasGetter(name) ? reflector.getGetInvoker(name) : null;
+            this.setter = reflector.hasSetter(name) ? reflector.getSetInvoker(name) : null;
+        }
+
+        Invoker getGetInvoker(String name) {
+            return getter != null ? getter : reflector.getGetInvoker(name);
+        }
+
+        Invoker getSetInvoker(String name) {
+            return setter != null ? setter : reflector.getSetInvoker(name);
+        }
+    }
+}
@@ -15,6 +15,8 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 默认对象工厂，所有对象都要由工厂来产生
@@ -26,6 +28,18 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
 
     private static final long serialVersionUID = -8855120656740914948L;
 
+    /**
+     * key:要实例化的类
+     * value:无参构造器，已经 setAccessible，大部分结果对象都走这里，查找时不需要创建 key
+     */
+    private static final ConcurrentMap<Class<?>, Constructor<?>> DEFAULT_CONSTRUCTORS = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+    /**
+     * key:[要实例化的类, 构造器参数类型...]
+     * value:构造器，已经 setAccessible
+     */
+    private static final ConcurrentMap<List<Class<?>>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<List<Class<?>>, Constructor<?>>();
+
     @Override
     public <T> T create(Class<T> type) {
         return create(type, null, null);
@@ -57,27 +71,30 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
      * @param <T> 类型
      * @return 实例
      */
+    @SuppressWarnings("unchecked")
     private <T> T instantiateClass(Class<T> clazz, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
         try {
-            Constructor<T> constructor;
             //如果没有传入constructor，调用空构造函数，核心是调用Constructor.newInstance
             if (constructorArgTypes == null || constructorArgs == null) {
-                constructor = clazz.getDeclaredConstructor();
-                if (!constructor.isAccessible()) {
-                    //private转public
-                    constructor.setAccessible(true);
+                Constructor<?> constructor = DEFAULT_CONSTRUCTORS.get(clazz);
+                if (constructor == null) {
+                    constructor = findConstructor(clazz);
+                    DEFAULT_CONSTRUCTORS.put(clazz, constructor);
                 }
-                return constructor.newInstance();
+                return (T) constructor.newInstance();
             }
             //如果传入constructor，调用传入的构造函数，核心是调用Constructor.newInstance
-            //找到满足入参数类型的格构造器
-            constructor = clazz.getDeclaredConstructor(constructorArgTypes.toArray(new Class[0]));
-            if (!constructor.isAccessible()) {
-                //private转public
-                constructor.setAccessible(true);
+            //找到满足入参数类型的格构造器，按 [类型, 参数类型...] 缓存
+            List<Class<?>> key = new ArrayList<Class<?>>(constructorArgTypes.size() + 1);
+            key.add(clazz);
+            key.addAll(constructorArgTypes);
+            Constructor<?> constructor = CONSTRUCTORS.get(key);
+            if (constructor == null) {
+                constructor = findConstructor(clazz, constructorArgTypes.toArray(new Class[constructorArgTypes.size()]));
+                CONSTRUCTORS.put(key, constructor);
             }
             //调用构造器生成对象
-            return constructor.newInstance(constructorArgs.toArray(new Object[0]));
+            return (T) constructor.newInstance(constructorArgs.toArray(new Object[constructorArgs.size()]));
         } catch (Exception e) {
             //如果出错，包装一下，重新抛出自己的异常
             StringBuilder argTypes = new StringBuilder();
@@ -98,6 +115,18 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
         }
     }
 
+    /**
+     * 查找构造器，只在第一次创建某种签名的对象时调用，找不到时不缓存，每次都按原样报错
+     */
+    private static Constructor<?> findConstructor(Class<?> clazz, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Constructor<?> constructor = clazz.getDeclaredConstructor(parameterTypes);
+        if (!constructor.isAccessible()) {
+            //private转public
+            constructor.setAccessible(true);
+        }
+        return constructor;
+    }
+
     //1.解析接口,将interface转为能实例化的类型
     protected Class<?> resolveInterface(Class<?> type) {
         Class<?> classToCreate;
@@ -1,6 +1,11 @@
 package org.apache.ibatis.reflection.property;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Clinton Begin
@@ -11,6 +16,12 @@ import java.lang.reflect.Field;
  */
 public final class PropertyCopier {
 
+    /**
+     * key:类型
+     * value:该类型及其父类的全部实例字段，已经 setAccessible，延迟加载代理每一行都要复制一次，不能每次都反射查找
+     */
+    private static final ConcurrentMap<Class<?>, Field[]> fieldsCache = new ConcurrentHashMap<Class<?>, Field[]>();
+
     private PropertyCopier() {
         // Prevent Instantiation of Static Class
     }
@@ -19,19 +30,37 @@ public final class PropertyCopier {
     //如apache commons beanutil 的BeanUtils.copyProperties
     //Spring 的BeanUtils.copyProperties
     public static void copyBeanProperties(Class<?> type, Object sourceBean, Object destinationBean) {
-        Class<?> parent = type;
-        while (parent != null) {
-            //循环将父类的属性都要复制过来
-            final Field[] fields = parent.getDeclaredFields();
-            for (Field field : fields) {
-                try {
-                    field.setAccessible(true);
-                    field.set(destinationBean, field.get(sourceBean));
-                } catch (Exception e) {
-                    // Nothing useful to do, will only fail on final fields, which will be ignored.
+        for (Field field : getInstanceFields(type)) {
+            try {
+                field.set(destinationBean, field.get(sourceBean));
+            } catch (Exception e) {
+                // Nothing useful to do, will only fail on final fields, which will be ignored.
+            }
+        }
+    }
+
+    private static Field[] getInstanceFields(Class<?> type) {
+        Field[] fields = fieldsCache.get(type);
+        if (fields == null) {
+            List<Field> fieldList = new ArrayList<Field>();
+            Class<?> parent = type;
+            while (parent != null) {
+                //循环将父类的属性都要复制过来，静态字段不属于对象
+                for (Field field : parent.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        try {
+                            field.setAccessible(true);
+                            fieldList.add(field);
+                        } catch (Exception e) {
+                            // Nothing useful to do, same as failing to copy the field.
+                        }
+                    }
                 }
+                parent = parent.getSuperclass();
             }
-            parent = parent.getSuperclass();
+            fields = fieldList.toArray(new Field[fieldList.size()]);
+            fieldsCache.put(type, fields);
         }
+        return fields;
     }
 }
@@ -11,17 +11,26 @@ import java.util.Iterator;
 public class PropertyTokenizer implements Iterable<PropertyTokenizer>, Iterator<PropertyTokenizer> {
 
     //例子： person[0].birthdate.year
-    private String name; //person
+    private final String fullName; //person[0].birthdate.year
 
-    private String indexedName; //person[0]
+    private final String name; //person
 
-    private String index; //0
+    private final String indexedName; //person[0]
 
-    private String children; //birthdate.year
+    private final String index; //0
+
+    private final String children; //birthdate.year
+
+    /**
+     * children 的分词结果，第一次 next() 时创建，之后复用
+     */
+    private PropertyTokenizer next;
 
     public PropertyTokenizer(String fullName) {
+        this.fullName = fullName;
         //person[0].birthdate.year
         //找.
+        String name;
         int delim = fullName.indexOf('.');
         if (delim > -1) {
             name = fullName.substring(0, delim);
@@ -37,7 +46,14 @@ public class PropertyTokenizer implements Iterable<PropertyTokenizer>, Iterator<
         if (delim > -1) {
             index = name.substring(delim + 1, name.length() - 1);
             name = name.substring(0, delim);
+        } else {
+            index = null;
         }
+        this.name = name;
+    }
+
+    public String getFullName() {
+        return fullName;
     }
 
     public String getName() {
@@ -62,9 +78,15 @@ public class PropertyTokenizer implements Iterable<PropertyTokenizer>, Iterator<
     }
 
     //取得下一个,非常简单，直接再通过儿子来new另外一个实例
+    //分词器是不可变的，同一个属性路径反复设值时（比如结果映射的每一行）只分词一次
     @Override
     public PropertyTokenizer next() {
-        return new PropertyTokenizer(children);
+        PropertyTokenizer tokenizer = next;
+        if (tokenizer == null) {
+            tokenizer = new PropertyTokenizer(children);
+            next = tokenizer;
+        }
+        return tokenizer;
     }
 
     @Override
@@ -37,6 +37,13 @@ public abstract class BaseWrapper implements ObjectWrapper {
     //取集合的值
     //中括号有2个意思，一个是Map，一个是List或数组
     protected Object getCollectionValue(PropertyTokenizer prop, Object collection) {
+        return getIndexedValue(prop, collection);
+    }
+
+    /**
+     * 取集合的值，与包装器无关，编译好的属性路径 {@link org.apache.ibatis.reflection.PropertyPath} 也用它
+     */
+    public static Object getIndexedValue(PropertyTokenizer prop, Object collection) {
         if (collection instanceof Map) {
             //map['name']
             return ((Map) collection).get(prop.getIndex());
@@ -33,6 +33,13 @@ public class BeanWrapper extends BaseWrapper {
         this.metaClass = MetaClass.forClass(objectClass);
     }
 
+    /**
+     * 改为包装同一个类的另一个对象，元类不变，见 {@link MetaObject#reset(Object)}
+     */
+    public void reset(Object object) {
+        this.object = object;
+    }
+
     @Override
     public Object get(PropertyTokenizer prop) {
         //如果有index(有中括号),说明是集合，那就要解析集合,调用的是BaseWrapper.resolveCollection 和 getCollectionValue
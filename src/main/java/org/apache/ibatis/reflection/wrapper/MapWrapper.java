@@ -26,6 +26,13 @@ public class MapWrapper extends BaseWrapper {
         this.map = map;
     }
 
+    /**
+     * 改为包装另一个 Map，见 {@link MetaObject#reset(Object)}
+     */
+    public void reset(Map<String, Object> map) {
+        this.map = map;
+    }
+
     //get,set是允许的，
     @Override
     public Object get(PropertyTokenizer prop) {
@@ -73,6 +73,12 @@ public class DefaultParameterHandler implements ParameterHandler {
         if (parameterMappingList == null) {
             return;
         }
+        //静态 sql 直接用编译好的绑定器
+        ParameterBinder binder = mappedStatement.getParameterBinder(boundSql, parameterObject);
+        if (binder != null) {
+            binder.bind(configuration, preparedStatement, parameterObject);
+            return;
+        }
         //循环设参数
         for (int i = 0; i < parameterMappingList.size(); i++) {
             ParameterMapping parameterMapping = parameterMappingList.get(i);
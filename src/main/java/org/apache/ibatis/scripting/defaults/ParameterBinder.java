@@ -0,0 +1,206 @@
+package org.apache.ibatis.scripting.defaults;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.PropertyPath;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的参数绑定器，针对一组参数映射和一种参数类型，事先决定好每个 ? 的取值方式和类型处理器，
+ * 设参数时只是一个循环，不再每次都创建 MetaObject、查类型处理器
+ *
+ * 取值方式与 DefaultParameterHandler 逐个解析时一致：
+ * 参数为 null 时取 null，参数本身有类型处理器时取参数本身，简单属性直接调用 getter 或者 Map.get，
+ * 嵌套属性（a.b、a[0]）用编译好的 {@link PropertyPath} 取值，自定义包装器仍然通过 MetaObject 取值
+ */
+public final class ParameterBinder {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private static final int SKIP = 0;
+
+    private static final int NULL = 1;
+
+    private static final int SELF = 2;
+
+    private static final int GETTER = 3;
+
+    private static final int MAP = 4;
+
+    private static final int META_OBJECT = 5;
+
+    private static final int PATH = 6;
+
+    /**
+     * 编译时的参数映射列表，按引用比较
+     */
+    private final List<ParameterMapping> parameterMappings;
+
+    /**
+     * 编译时的参数类型，参数为 null 时为 null
+     */
+    private final Class<?> parameterType;
+
+    private final int[] kinds;
+
+    private final String[] properties;
+
+    private final Invoker[] getters;
+
+    private final PropertyPath[] paths;
+
+    private final TypeHandler<Object>[] typeHandlers;
+
+    private final JdbcType[] jdbcTypes;
+
+    private ParameterBinder(List<ParameterMapping> parameterMappings, Class<?> parameterType) {
+        int size = parameterMappings.size();
+        this.parameterMappings = parameterMappings;
+        this.parameterType = parameterType;
+        this.kinds = new int[size];
+        this.properties = new String[size];
+        this.getters = new Invoker[size];
+        this.paths = new PropertyPath[size];
+        this.typeHandlers = typeHandlers(parameterMappings);
+        this.jdbcTypes = new JdbcType[size];
+    }
+
+    /**
+     * 编译绑定器
+     *
+     * @param configuration 配置
+     * @param parameterMappings 参数映射，之后只能用于同一个列表
+     * @param parameterObject 参数样本，之后只能用于同一类型的参数
+     * @return 绑定器
+     */
+    public static ParameterBinder compile(Configuration configuration, List<ParameterMapping> parameterMappings, Object parameterObject) {
+        Class<?> parameterType = parameterObject == null ? null : parameterObject.getClass();
+        ParameterBinder binder = new ParameterBinder(parameterMappings, parameterType);
+        boolean self = parameterType != null && configuration.getTypeHandlerRegistry().hasTypeHandler(parameterType);
+        //与 MetaObject 选择包装器的顺序一致
+        boolean wrapped = parameterObject instanceof ObjectWrapper || (parameterObject != null && configuration.getObjectWrapperFactory().hasWrapperFor(parameterObject));
+        boolean map = !wrapped && parameterObject instanceof Map;
+        boolean bean = !wrapped && !map && !(parameterObject instanceof Collection);
+        MetaClass metaClass = parameterType == null || self || !bean ? null : MetaClass.forClass(parameterType);
+        for (int i = 0; i < parameterMappings.size(); i++) {
+            ParameterMapping parameterMapping = parameterMappings.get(i);
+            String property = parameterMapping.getProperty();
+            binder.properties[i] = property;
+            binder.jdbcTypes[i] = parameterMapping.getJdbcType();
+            if (parameterMapping.getMode() == ParameterMode.OUT) {
+                binder.kinds[i] = SKIP;
+            } else if (parameterType == null) {
+                binder.kinds[i] = NULL;
+            } else if (self) {
+                binder.kinds[i] = SELF;
+            } else if (isSimpleProperty(property) && map) {
+                binder.kinds[i] = MAP;
+            } else if (isSimpleProperty(property) && metaClass != null && metaClass.hasGetter(property)) {
+                binder.kinds[i] = GETTER;
+                binder.getters[i] = metaClass.getGetInvoker(property);
+            } else if (map || bean) {
+                binder.kinds[i] = PATH;
+                binder.paths[i] = PropertyPath.forPath(parameterType, property);
+            } else {
+                binder.kinds[i] = META_OBJECT;
+            }
+        }
+        return binder;
+    }
+
+    /**
+     * 设参数时值的类型由参数映射决定，这里统一按 Object 处理
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static TypeHandler<Object>[] typeHandlers(List<ParameterMapping> parameterMappings) {
+        TypeHandler<Object>[] typeHandlers = new TypeHandler[parameterMappings.size()];
+        for (int i = 0; i < typeHandlers.length; i++) {
+            typeHandlers[i] = (TypeHandler<Object>) parameterMappings.get(i).getTypeHandler();
+        }
+        return typeHandlers;
+    }
+
+    private static boolean isSimpleProperty(String property) {
+        return property.indexOf('.') < 0 && property.indexOf('[') < 0;
+    }
+
+    /**
+     * 是否是为这组参数映射和这种参数类型编译的
+     */
+    public boolean matches(List<ParameterMapping> parameterMappings, Object parameterObject) {
+        return this.parameterMappings == parameterMappings
+                && parameterType == (parameterObject == null ? null : parameterObject.getClass());
+    }
+
+    /**
+     * 设参数
+     *
+     * @param configuration 配置
+     * @param ps 预编译语句
+     * @param parameterObject 参数，类型必须与编译时一致
+     * @throws SQLException 类型处理器设参数失败
+     */
+    @SuppressWarnings("unchecked")
+    public void bind(Configuration configuration, PreparedStatement ps, Object parameterObject) throws SQLException {
+        for (int i = 0; i < kinds.length; i++) {
+            Object value;
+            switch (kinds[i]) {
+                case SKIP:
+                    continue;
+                case NULL:
+                    value = null;
+                    break;
+                case SELF:
+                    value = parameterObject;
+                    break;
+                case MAP:
+                    value = ((Map<String, Object>) parameterObject).get(properties[i]);
+                    break;
+                case GETTER:
+                    value = invokeGetter(i, parameterObject);
+                    break;
+                case PATH:
+                    value = paths[i].getValue(parameterObject, configuration.getObjectFactory(), configuration.getObjectWrapperFactory());
+                    break;
+                default:
+                    value = configuration.newMetaObject(parameterObject).getValue(properties[i]);
+                    break;
+            }
+            JdbcType jdbcType = jdbcTypes[i];
+            if (value == null && jdbcType == null) {
+                jdbcType = configuration.getJdbcTypeForNull();
+            }
+            typeHandlers[i].setParameter(ps, i + 1, value, jdbcType);
+        }
+    }
+
+    /**
+     * 与 BeanWrapper 取属性时的异常处理一致
+     */
+    private Object invokeGetter(int index, Object parameterObject) {
+        try {
+            try {
+                return getters[index].invoke(parameterObject, NO_ARGUMENTS);
+            } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ReflectionException("Could not get property '" + properties[index] + "' from " + parameterType + ".  Cause: " + t.toString(), t);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.apache.ibatis.scripting.xmltags;
+
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.InListStyle;
+import org.apache.ibatis.type.ArrayTypeHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * in SQL节点
+ * <in column="id" collection="ids" jdbcType="INTEGER"/>
+ *
+ * 与 <foreach> 拼 IN 列表不同，生成的 sql 不随集合大小变化：
+ * 支持数组参数的数据库把整个集合作为一个 JDBC Array 绑定成 id = ANY(?) 或者 id IN (UNNEST(?))；
+ * 不支持的按 inListChunkSize 分块，每块补齐到 2 的幂个 ?，补齐用的是最后一个元素，不影响结果。
+ * 集合为空时生成 1 = 0
+ */
+public class InSqlNode implements SqlNode {
+
+    public static final String ITEM_PREFIX = "__in_";
+
+    private final ExpressionEvaluator evaluator;
+
+    private final Configuration configuration;
+
+    private final String column;
+
+    private final String collectionExpression;
+
+    /**
+     * 数组元素的 jdbcType，生成 Array 时使用，不指定则根据元素的 java 类型推断
+     */
+    private final String jdbcType;
+
+    public InSqlNode(Configuration configuration, String column, String collectionExpression, String jdbcType) {
+        this.evaluator = new ExpressionEvaluator();
+        this.configuration = configuration;
+        this.column = column;
+        this.collectionExpression = collectionExpression;
+        this.jdbcType = jdbcType;
+    }
+
+    @Override
+    public boolean apply(DynamicContext context) {
+        List<Object> values = new ArrayList<Object>();
+        for (Object value : evaluator.evaluateIterable(collectionExpression, context.getBindings())) {
+            values.add(value);
+        }
+        if (values.isEmpty()) {
+            context.appendSql("1 = 0");
+            return true;
+        }
+        InListStyle style = configuration.getInListStyle();
+        if (style == InListStyle.CHUNKED) {
+            applyChunks(context, values);
+        } else {
+            String name = ITEM_PREFIX + context.getUniqueNumber();
+            context.bind(name, values);
+            String parameter = arrayParameter(name);
+            context.appendSql(style == InListStyle.ANY ? column + " = ANY(" + parameter + ")" : column + " IN (UNNEST(" + parameter + "))");
+        }
+        return true;
+    }
+
+    private String arrayParameter(String name) {
+        StringBuilder parameter = new StringBuilder("#{").append(name).append(",typeHandler=").append(ArrayTypeHandler.class.getName());
+        if (jdbcType != null) {
+            parameter.append(",jdbcType=").append(jdbcType);
+        }
+        return parameter.append('}').toString();
+    }
+
+    private void applyChunks(DynamicContext context, List<Object> values) {
+        final int chunkSize = Math.max(1, configuration.getInListChunkSize());
+        final int chunks = (values.size() + chunkSize - 1) / chunkSize;
+        StringBuilder sql = new StringBuilder();
+        if (chunks > 1) {
+            sql.append('(');
+        }
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = chunk * chunkSize;
+            int to = Math.min(values.size(), from + chunkSize);
+            if (chunk > 0) {
+                sql.append(" OR ");
+            }
+            sql.append(column).append(" IN (");
+            int shape = shapeOf(to - from, chunkSize);
+            for (int i = 0; i < shape; i++) {
+                //不足的位置用最后一个元素补齐
+                Object value = values.get(Math.min(from + i, to - 1));
+                String name = ITEM_PREFIX + context.getUniqueNumber();
+                context.bind(name, value);
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append("#{").append(name);
+                if (jdbcType != null) {
+                    sql.append(",jdbcType=").append(jdbcType);
+                }
+                sql.append('}');
+            }
+            sql.append(')');
+        }
+        if (chunks > 1) {
+            sql.append(')');
+        }
+        context.appendSql(sql.toString());
+    }
+
+    /**
+     * 大于等于 size 的最小的 2 的幂，不超过 chunkSize
+     */
+    static int shapeOf(int size, int chunkSize) {
+        int shape = Integer.highestOneBit(size);
+        if (shape < size) {
+            shape <<= 1;
+        }
+        return Math.min(shape, chunkSize);
+    }
+}
@@ -171,6 +171,7 @@ public class XMLScriptBuilder extends BaseBuilder {
         map.put("when", new IfHandler());
         map.put("otherwise", new OtherwiseHandler());
         map.put("bind", new BindHandler());
+        map.put("in", new InHandler());
         return map.get(nodeName);
     }
 
@@ -314,6 +315,24 @@ public class XMLScriptBuilder extends BaseBuilder {
         }
     }
 
+    /**
+     * <in column="id" collection="ids" jdbcType="INTEGER"/>
+     */
+    private class InHandler implements NodeHandler {
+
+        public InHandler() {
+            // Prevent Synthetic Access
+        }
+
+        @Override
+        public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
+            String column = nodeToHandle.getStringAttribute("column");
+            String collection = nodeToHandle.getStringAttribute("collection");
+            String jdbcType = nodeToHandle.getStringAttribute("jdbcType");
+            targetContents.add(new InSqlNode(configuration, column, collection, jdbcType));
+        }
+    }
+
     private class IfHandler implements NodeHandler {
 
         public IfHandler() {
@@ -11,6 +11,7 @@ import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TableInvalidatingCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
@@ -19,12 +20,20 @@ import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.KeysetPagination;
+import org.apache.ibatis.executor.pagination.LimitOffsetDialect;
+import org.apache.ibatis.executor.pagination.MySqlDialect;
+import org.apache.ibatis.executor.pagination.OffsetFetchDialect;
+import org.apache.ibatis.executor.pagination.OracleDialect;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
+import org.apache.ibatis.executor.pagination.SqlServerDialect;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
@@ -64,6 +73,7 @@ import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeAliasRegistry;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -73,6 +83,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Clinton Begin
@@ -108,6 +125,12 @@ public class Configuration {
      */
     protected final Map<String, Cache> cacheMap = new StrictMap<Cache>("Caches collection");
 
+    /**
+     * 按表失效的二级缓存，<cache invalidation="TABLE"/>
+     * 任何 namespace 写表时都要到这些缓存中失效依赖该表的条目
+     */
+    protected final List<TableInvalidatingCache> tableInvalidatingCaches = new ArrayList<TableInvalidatingCache>();
+
     /**
      * 结果映射,存在Map里
      * key：resultMap 的id
@@ -154,6 +177,22 @@ public class Configuration {
     @Getter
     protected final Collection<MethodResolver> incompleteMethods = new LinkedList<MethodResolver>();
 
+    /**
+     * 注册语句、结果映射、缓存和不完整元素时持有的锁，启动时多个线程同时注册也不会弄坏 StrictMap
+     */
+    protected final Object registrationLock = new Object();
+
+    /**
+     * 是否已经封存，见 {@link #seal()}
+     */
+    protected volatile boolean sealed;
+
+    /**
+     * 封存后的只读查找表，封存后又有注册时置为 null，下一次执行语句查找 {@link #getMappedStatement(String)} 时重新生成。
+     * 注册过程中的 has/get 查找不重新生成，直接加锁查 StrictMap，否则每注册一个元素就要复制一遍全部的表
+     */
+    protected volatile SealedMaps sealedMaps;
+
     //环境
     @Getter
     @Setter
@@ -167,6 +206,78 @@ public class Configuration {
     @Setter
     @Getter
     protected boolean safeRowBoundsEnabled = false;
+
+    /**
+     * 是否把 RowBounds 改写成数据库原生的分页语法（物理分页），默认 false 即查出来后在内存中跳过
+     */
+    @Setter
+    @Getter
+    protected boolean physicalPagination = false;
+
+    /**
+     * selectPage 时派生的 COUNT 查询是否在另一个连接上与分页查询并发执行。
+     * COUNT 查询用的是另一个连接、另一个事务，看到的数据快照可能与分页查询不同（两者之间有别的事务提交时），
+     * 总行数与这一页的内容可能对不上；需要严格一致时不要开启
+     */
+    @Setter
+    @Getter
+    protected boolean concurrentCountQuery = false;
+
+    /**
+     * <cache singleFlight="true"/> 的缓存未命中时，等待另一个会话的同一个查询的最长毫秒数，
+     * 语句设置了超时时间并且更短时用语句的超时时间；小于等于 0 表示不等待，各自查询
+     */
+    @Setter
+    @Getter
+    protected int singleFlightTimeout = 10000;
+
+    /**
+     * 并发 COUNT 查询最多同时用的线程数，也就是最多额外占用的连接数；都在忙时 COUNT 查询在本会话的连接上执行
+     */
+    @Setter
+    @Getter
+    protected int countQueryThreads = 4;
+
+    /**
+     * 并发 COUNT 查询用的线程池，第一次用到时创建，见 {@link #getCountQueryExecutor()}
+     */
+    private ExecutorService countQueryExecutor;
+
+    /**
+     * getMapper 是否返回用 javassist 生成的映射器实现类，默认 false 即 JDK 动态代理
+     */
+    @Setter
+    @Getter
+    protected boolean generateMapperClasses = false;
+
+    /**
+     * 物理分页方言，不配置时根据 databaseId 或者数据库产品名推断，推断不出来的退回内存分页
+     */
+    protected PaginationDialect paginationDialect;
+
+    /**
+     * 是否已经推断过分页方言
+     */
+    protected volatile boolean paginationDialectResolved;
+
+    /**
+     * <in> 标签生成的 sql 形式，不配置时根据 databaseId 或者数据库产品名推断
+     */
+    protected InListStyle inListStyle;
+
+    /**
+     * <in> 标签按 IN 列表分块时每块最多的元素个数，Oracle 的上限是 1000
+     */
+    @Setter
+    @Getter
+    protected int inListChunkSize = 1000;
+
+    /**
+     * 数据源的数据库产品名，第一次用到时读取
+     */
+    private String databaseProductName;
+
+    private volatile boolean databaseProductNameResolved;
     //---------以上都是<settings>节点-------
 
     /**
@@ -237,6 +348,14 @@ public class Configuration {
     @Setter
     protected String logPrefix;
 
+    /**
+     * 语句日志的抽样间隔，开启 DEBUG 的语句每执行 N 次才打印一次 SQL、参数和结果，1 表示每次都打印。
+     * 每个语句单独计数，日志关闭的语句不受影响
+     */
+    @Getter
+    @Setter
+    protected int statementLogSampling = 1;
+
     /**
      * 指定 MyBatis 所用日志的具体实现，未指定时将自动查找。
      */
@@ -254,6 +373,14 @@ public class Configuration {
     @Setter
     protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
 
+    /**
+     * 本地缓存最多保存的查询结果个数，超过时淘汰最久没有用到的，0 表示不限制。
+     * 正在执行的查询和延迟加载队列中要用到的结果不会被淘汰，循环引用的处理不受影响
+     */
+    @Getter
+    @Setter
+    protected int localCacheSize;
+
     /**
      * 当没有为参数指定特定的 JDBC 类型时，空值的默认 JDBC 类型。
      * 某些数据库驱动需要指定列的 JDBC 类型，多数情况直接用一般类型即可，
@@ -277,6 +404,19 @@ public class Configuration {
     @Setter
     protected Integer defaultStatementTimeout;
 
+    /**
+     * 慢语句的阈值（毫秒），语句的执行加上结果映射超过阈值时，用该语句的日志以 WARN 级别打印 SQL、参数、耗时和行数。
+     * 语句可以用 slowThreshold 单独指定，命名空间可以用 {@link #setSlowStatementThreshold(String, Integer)} 指定，null 表示不记录
+     */
+    @Getter
+    @Setter
+    protected Integer slowStatementThreshold;
+
+    /**
+     * 按命名空间指定的慢语句阈值，key:命名空间，优先于 slowStatementThreshold
+     */
+    protected final Map<String, Integer> namespaceSlowStatementThresholds = new ConcurrentHashMap<String, Integer>();
+
     /**
      * 默认为简单执行器
      *
@@ -375,6 +515,12 @@ public class Configuration {
         typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
         typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
+        typeAliasRegistry.registerAlias("LIMIT_OFFSET", LimitOffsetDialect.class);
+        typeAliasRegistry.registerAlias("MYSQL", MySqlDialect.class);
+        typeAliasRegistry.registerAlias("OFFSET_FETCH", OffsetFetchDialect.class);
+        typeAliasRegistry.registerAlias("ORACLE", OracleDialect.class);
+        typeAliasRegistry.registerAlias("SQLSERVER", SqlServerDialect.class);
+
         languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
         languageRegistry.register(RawLanguageDriver.class);
     }
@@ -480,6 +626,29 @@ public class Configuration {
     public StatementHandler newStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject,
             RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
 
+        if (boundSql != null && rowBounds instanceof KeysetPage) {
+            //键集分页必须改写，否则每一页查到的都是第一页
+            PaginationDialect dialect = getPaginationDialect();
+            if (dialect == null) {
+                //没有方言就只能把后面所有的行都查出来再截断，键集分页失去了意义
+                throw new ExecutorException("Keyset pagination requires a pagination dialect but none is configured or detected. Statement: "
+                        + mappedStatement.getId());
+            }
+            boundSql = KeysetPagination.paginate(this, mappedStatement, boundSql, (KeysetPage) rowBounds);
+            BoundSql pageBoundSql = dialect.paginate(this, mappedStatement, boundSql, rowBounds);
+            if (pageBoundSql != null) {
+                boundSql = pageBoundSql;
+                rowBounds = RowBounds.DEFAULT;
+            }
+        } else if (physicalPagination && boundSql != null && rowBounds != RowBounds.DEFAULT) {
+            PaginationDialect dialect = getPaginationDialect();
+            BoundSql pageBoundSql = dialect == null ? null : dialect.paginate(this, mappedStatement, boundSql, rowBounds);
+            if (pageBoundSql != null) {
+                //数据库已经分好页了，结果集处理器不能再跳过
+                boundSql = pageBoundSql;
+                rowBounds = RowBounds.DEFAULT;
+            }
+        }
         //创建路由选择语句处理器，这个 RoutingStatementHandler 是具体三中类型的代理
         StatementHandler statementHandler = new RoutingStatementHandler(executor, mappedStatement, parameterObject, rowBounds, resultHandler, boundSql);
         //插件在这里插入
@@ -555,6 +724,132 @@ public class Configuration {
         return loadedResources.contains(resource);
     }
 
+    /**
+     * 指定一个命名空间的慢语句阈值，mapper.xml 中的 &lt;mapper slowThreshold="..."&gt; 也是调用这个方法
+     *
+     * @param namespace 命名空间
+     * @param threshold 阈值（毫秒），null 表示改回用全局的阈值
+     */
+    public void setSlowStatementThreshold(String namespace, Integer threshold) {
+        if (threshold == null) {
+            namespaceSlowStatementThresholds.remove(namespace);
+        } else {
+            namespaceSlowStatementThresholds.put(namespace, threshold);
+        }
+    }
+
+    /**
+     * 语句所在命名空间的慢语句阈值，命名空间没有指定时返回全局的阈值
+     *
+     * @param statementId 语句 id，命名空间 + "." + 方法名
+     * @return 阈值（毫秒），null 表示不记录
+     */
+    public Integer getSlowStatementThreshold(String statementId) {
+        if (!namespaceSlowStatementThresholds.isEmpty()) {
+            int dot = statementId.lastIndexOf('.');
+            Integer threshold = dot > 0 ? namespaceSlowStatementThresholds.get(statementId.substring(0, dot)) : null;
+            if (threshold != null) {
+                return threshold;
+            }
+        }
+        return slowStatementThreshold;
+    }
+
+    public void setPaginationDialect(PaginationDialect paginationDialect) {
+        this.paginationDialect = paginationDialect;
+        this.paginationDialectResolved = paginationDialect != null;
+    }
+
+    /**
+     * 没有显式配置时，第一次用到才推断，先看 databaseId，再看数据源的数据库产品名
+     */
+    public PaginationDialect getPaginationDialect() {
+        if (!paginationDialectResolved) {
+            synchronized (this) {
+                if (!paginationDialectResolved) {
+                    PaginationDialect dialect = PaginationDialect.forDatabase(databaseId);
+                    if (dialect == null) {
+                        dialect = PaginationDialect.forDatabase(getDatabaseProductName());
+                    }
+                    paginationDialect = dialect;
+                    paginationDialectResolved = true;
+                }
+            }
+        }
+        return paginationDialect;
+    }
+
+    public void setInListStyle(InListStyle inListStyle) {
+        this.inListStyle = inListStyle;
+    }
+
+    /**
+     * 没有显式配置时，第一次用到才推断，先看 databaseId，再看数据源的数据库产品名
+     */
+    public InListStyle getInListStyle() {
+        InListStyle style = inListStyle;
+        if (style == null) {
+            style = InListStyle.forDatabase(databaseId);
+            if (style == InListStyle.CHUNKED) {
+                style = InListStyle.forDatabase(getDatabaseProductName());
+            }
+            inListStyle = style;
+        }
+        return style;
+    }
+
+    /**
+     * 并发 COUNT 查询用的线程池，线程数不超过 countQueryThreads，不排队，都在忙时提交会被拒绝。
+     * 线程是守护线程，空闲一分钟后回收
+     */
+    public synchronized ExecutorService getCountQueryExecutor() {
+        if (countQueryExecutor == null) {
+            final String prefix = "mybatis-count-" + System.identityHashCode(this) + "-";
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(countQueryThreads, countQueryThreads, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger threadNumber = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            countQueryExecutor = executor;
+        }
+        return countQueryExecutor;
+    }
+
+    /**
+     * 关闭并发 COUNT 查询用的线程池，正在执行的 COUNT 查询会执行完；之后再用到时重新创建
+     */
+    public synchronized void shutdownCountQueryExecutor() {
+        if (countQueryExecutor != null) {
+            countQueryExecutor.shutdown();
+            countQueryExecutor = null;
+        }
+    }
+
+    /**
+     * 数据源的数据库产品名，没有数据源或者读取失败时返回 null
+     */
+    protected String getDatabaseProductName() {
+        if (!databaseProductNameResolved) {
+            synchronized (this) {
+                if (!databaseProductNameResolved) {
+                    if (environment != null && environment.getDataSource() != null) {
+                        //不设置 properties 时返回的就是 DatabaseMetaData.getDatabaseProductName()
+                        databaseProductName = new VendorDatabaseIdProvider().getDatabaseId(environment.getDataSource());
+                    }
+                    databaseProductNameResolved = true;
+                }
+            }
+        }
+        return databaseProductName;
+    }
+
     public void setProxyFactory(ProxyFactory proxyFactory) {
         if (proxyFactory == null) {
             proxyFactory = new JavassistProxyFactory();
@@ -603,7 +898,17 @@ public class Configuration {
     public void addCache(Cache cache) {
         //org.apache.ibatis.submitted.force_flush_on_select.PersonMapper
         String id = cache.getId();
-        cacheMap.put(id, cache);
+        synchronized (registrationLock) {
+            cacheMap.put(id, cache);
+            if (cache instanceof TableInvalidatingCache) {
+                tableInvalidatingCaches.add((TableInvalidatingCache) cache);
+            }
+            sealedMaps = null;
+        }
+    }
+
+    public List<TableInvalidatingCache> getTableInvalidatingCaches() {
+        return tableInvalidatingCaches;
     }
 
     public Collection<String> getCacheNames() {
@@ -615,19 +920,34 @@ public class Configuration {
     }
 
     public Cache getCache(String id) {
-        return cacheMap.get(id);
+        SealedMaps maps = sealedMaps;
+        if (maps != null) {
+            return maps.caches.get(id);
+        }
+        synchronized (registrationLock) {
+            return cacheMap.get(id);
+        }
     }
 
     public boolean hasCache(String id) {
-        return cacheMap.containsKey(id);
+        SealedMaps maps = sealedMaps;
+        if (maps != null) {
+            return maps.caches.containsKey(id);
+        }
+        synchronized (registrationLock) {
+            return cacheMap.containsKey(id);
+        }
     }
 
     public void addResultMap(ResultMap rm) {
         //org.apache.ibatis.submitted.force_flush_on_select.PersonMapper.personMap
         String id = rm.getId();
-        resultMaps.put(id, rm);
-        checkLocallyForDiscriminatedNestedResultMaps(rm);
-        checkGloballyForDiscriminatedNestedResultMaps(rm);
+        synchronized (registrationLock) {
+            resultMaps.put(id, rm);
+            checkLocallyForDiscriminatedNestedResultMaps(rm);
+            checkGloballyForDiscriminatedNestedResultMaps(rm);
+            sealedMaps = null;
+        }
     }
 
     public Collection<String> getResultMapNames() {
@@ -639,11 +959,23 @@ public class Configuration {
     }
 
     public ResultMap getResultMap(String id) {
-        return resultMaps.get(id);
+        SealedMaps maps = sealedMaps;
+        if (maps != null) {
+            return maps.resultMaps.get(id);
+        }
+        synchronized (registrationLock) {
+            return resultMaps.get(id);
+        }
     }
 
     public boolean hasResultMap(String id) {
-        return resultMaps.containsKey(id);
+        SealedMaps maps = sealedMaps;
+        if (maps != null) {
+            return maps.resultMaps.containsKey(id);
+        }
+        synchronized (registrationLock) {
+            return resultMaps.containsKey(id);
+        }
     }
 
     public void addParameterMap(ParameterMap pm) {
@@ -667,7 +999,10 @@ public class Configuration {
     }
 
     public void addMappedStatement(MappedStatement ms) {
-        mappedStatements.put(ms.getId(), ms);
+        synchronized (registrationLock) {
+            mappedStatements.put(ms.getId(), ms);
+            sealedMaps = null;
+        }
     }
 
     public Collection<String> getMappedStatementNames() {
@@ -681,19 +1016,31 @@ public class Configuration {
     }
 
     public void addIncompleteStatement(XMLStatementBuilder incompleteStatement) {
-        incompleteStatements.add(incompleteStatement);
+        synchronized (registrationLock) {
+            incompleteStatements.add(incompleteStatement);
+            sealedMaps = null;
+        }
     }
 
     public void addIncompleteCacheRef(CacheRefResolver incompleteCacheRef) {
-        incompleteCacheRefs.add(incompleteCacheRef);
+        synchronized (registrationLock) {
+            incompleteCacheRefs.add(incompleteCacheRef);
+            sealedMaps = null;
+        }
     }
 
     public void addIncompleteResultMap(ResultMapResolver resultMapResolver) {
-        incompleteResultMaps.add(resultMapResolver);
+        synchronized (registrationLock) {
+            incompleteResultMaps.add(resultMapResolver);
+            sealedMaps = null;
+        }
     }
 
     public void addIncompleteMethod(MethodResolver builder) {
-        incompleteMethods.add(builder);
+        synchronized (registrationLock) {
+            incompleteMethods.add(builder);
+            sealedMaps = null;
+        }
     }
 
     //由DefaultSqlSession.selectList调用过来
@@ -702,11 +1049,18 @@ public class Configuration {
     }
 
     public MappedStatement getMappedStatement(String id, boolean validateIncompleteStatements) {
+        //封存后没有不完整的元素，直接查只读表，不加锁；只有执行语句的这条路径会在作废后重新生成查找表
+        SealedMaps maps = validateIncompleteStatements ? getSealedMaps() : sealedMaps;
+        if (maps != null) {
+            return maps.mappedStatements.get(id);
+        }
         //先构建所有语句，再返回语句
         if (validateIncompleteStatements) {
             buildAllStatements();
         }
-        return mappedStatements.get(id);
+        synchronized (registrationLock) {
+            return mappedStatements.get(id);
+        }
     }
 
     public void addInterceptor(Interceptor interceptor) {
@@ -739,10 +1093,50 @@ public class Configuration {
     }
 
     public boolean hasStatement(String statementName, boolean validateIncompleteStatements) {
+        SealedMaps maps = sealedMaps;
+        if (maps != null) {
+            return maps.mappedStatements.containsKey(statementName);
+        }
         if (validateIncompleteStatements) {
             buildAllStatements();
         }
-        return mappedStatements.containsKey(statementName);
+        synchronized (registrationLock) {
+            return mappedStatements.containsKey(statementName);
+        }
+    }
+
+    /**
+     * 封存配置，启动完成后由 DefaultSqlSessionFactory 调用
+     *
+     * 封存后语句、结果映射和缓存的查找走只读的查找表，不再每次检查不完整的元素、不加锁。
+     * 封存后仍然可以注册，注册会作废查找表，下一次执行语句时重新生成；还有不完整的元素时不生成，查找退回原来的方式
+     */
+    public void seal() {
+        sealed = true;
+        getSealedMaps();
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * 获取查找表，已经作废的话重新生成
+     *
+     * @return 未封存或者还有不完整的元素时返回 null
+     */
+    protected SealedMaps getSealedMaps() {
+        SealedMaps maps = sealedMaps;
+        if (maps != null || !sealed) {
+            return maps;
+        }
+        synchronized (registrationLock) {
+            if (sealedMaps == null && incompleteResultMaps.isEmpty() && incompleteCacheRefs.isEmpty()
+                    && incompleteStatements.isEmpty() && incompleteMethods.isEmpty()) {
+                sealedMaps = new SealedMaps(mappedStatements, resultMaps, cacheMap);
+            }
+            return sealedMaps;
+        }
     }
 
     public void addCacheRef(String namespace, String referencedNamespace) {
@@ -826,6 +1220,34 @@ public class Configuration {
         }
     }
 
+    /**
+     * 封存后的查找表，生成后不再修改，通过 volatile 字段安全发布给所有线程
+     */
+    protected static final class SealedMaps {
+
+        private final Map<String, MappedStatement> mappedStatements;
+
+        private final Map<String, ResultMap> resultMaps;
+
+        private final Map<String, Cache> caches;
+
+        SealedMaps(Map<String, MappedStatement> mappedStatements, Map<String, ResultMap> resultMaps, Map<String, Cache> caches) {
+            this.mappedStatements = copyOf(mappedStatements);
+            this.resultMaps = copyOf(resultMaps);
+            this.caches = copyOf(caches);
+        }
+
+        /**
+         * 保留 StrictMap 找不到和有歧义时报错的行为
+         */
+        private static <V> Map<String, V> copyOf(Map<String, V> map) {
+            if (map instanceof StrictMap) {
+                return new StrictMap<V>(((StrictMap<V>) map).name, map);
+            }
+            return new HashMap<String, V>(map);
+        }
+    }
+
     /**
      * 静态内部类,严格的Map，不允许多次覆盖key所对应的value
      *
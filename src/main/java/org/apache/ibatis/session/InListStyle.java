@@ -0,0 +1,44 @@
+package org.apache.ibatis.session;
+
+import java.util.Locale;
+
+/**
+ * <in column="id" collection="ids"/> 生成的 sql 形式
+ */
+public enum InListStyle {
+
+    /**
+     * id = ANY(?)，整个集合作为一个 JDBC Array 参数，PostgreSQL、H2
+     */
+    ANY,
+
+    /**
+     * id IN (UNNEST(?))，整个集合作为一个 JDBC Array 参数，HSQLDB
+     */
+    UNNEST,
+
+    /**
+     * (id IN (?, ?, ...) OR id IN (...))，按 inListChunkSize 分块，
+     * 每块的 ? 个数补齐到 2 的幂，不同大小的集合也只会生成少数几种 sql
+     */
+    CHUNKED;
+
+    /**
+     * 根据 databaseId 或者数据库产品名推断
+     *
+     * @return 不支持数组参数的数据库返回 CHUNKED
+     */
+    public static InListStyle forDatabase(String database) {
+        if (database == null) {
+            return CHUNKED;
+        }
+        String name = database.toLowerCase(Locale.ENGLISH);
+        if (name.contains("postgres") || name.equals("h2")) {
+            return ANY;
+        }
+        if (name.contains("hsql")) {
+            return UNNEST;
+        }
+        return CHUNKED;
+    }
+}
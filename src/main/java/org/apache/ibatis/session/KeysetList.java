@@ -0,0 +1,30 @@
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * 键集分页的一页结果，带着下一页的页标记
+ */
+public class KeysetList<E> extends ArrayList<E> {
+
+    private static final long serialVersionUID = 4625735216409337731L;
+
+    private final KeysetPage nextPage;
+
+    public KeysetList(Collection<? extends E> rows, KeysetPage nextPage) {
+        super(rows);
+        this.nextPage = nextPage;
+    }
+
+    /**
+     * @return 下一页的页标记，已经是最后一页时返回 null
+     */
+    public KeysetPage getNextPage() {
+        return nextPage;
+    }
+
+    public boolean hasNextPage() {
+        return nextPage != null;
+    }
+}
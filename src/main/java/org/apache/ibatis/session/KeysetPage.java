@@ -0,0 +1,46 @@
+package org.apache.ibatis.session;
+
+import java.util.Arrays;
+
+/**
+ * 键集分页（seek 分页）的页标记，记录上一页最后一行的排序键
+ *
+ * 作为 mapper 方法的参数传入时，查询会被改写成 WHERE (k1, k2) > (?, ?) ORDER BY k1, k2 并只取 limit 行，
+ * 排序键就是结果映射中的 <id> 列。无论翻到第几页，数据库都只需要从索引上定位到上一页的末尾，而不用像 OFFSET 那样数过前面所有的行。
+ * 取 limit 行要靠分页方言，没有配置也推断不出方言时查询直接报错
+ *
+ * 继承 RowBounds 只是为了沿用 RowBounds 一路传到语句处理器的通道，offset 永远是 0
+ */
+public class KeysetPage extends RowBounds {
+
+    private final Object[] lastKeys;
+
+    /**
+     * @param limit 每页行数
+     * @param lastKeys 上一页最后一行的排序键，顺序与 <id> 映射一致，第一页不传
+     */
+    public KeysetPage(int limit, Object... lastKeys) {
+        super(NO_ROW_OFFSET, limit);
+        this.lastKeys = lastKeys == null ? new Object[0] : lastKeys.clone();
+    }
+
+    /**
+     * 第一页
+     */
+    public static KeysetPage first(int limit) {
+        return new KeysetPage(limit);
+    }
+
+    public boolean isFirstPage() {
+        return lastKeys.length == 0;
+    }
+
+    public Object[] getLastKeys() {
+        return lastKeys.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage{limit=" + getLimit() + ", lastKeys=" + Arrays.toString(lastKeys) + "}";
+    }
+}
@@ -0,0 +1,26 @@
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * 分页查询的一页结果，带着派生 COUNT 查询得到的总行数
+ */
+public class PageList<E> extends ArrayList<E> {
+
+    private static final long serialVersionUID = -2683514520742349018L;
+
+    private final long total;
+
+    public PageList(Collection<? extends E> rows, long total) {
+        super(rows);
+        this.total = total;
+    }
+
+    /**
+     * @return 不分页时的总行数
+     */
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,33 @@
+package org.apache.ibatis.session;
+
+/**
+ * 支持派生 COUNT 查询的 SqlSession
+ *
+ * 单独成一个接口，不加在 SqlSession 上，第三方的 SqlSession 实现（如 mybatis-spring 的 SqlSessionTemplate）不受影响。
+ * 映射器方法返回 PageList 时要求会话实现这个接口
+ */
+public interface PageableSqlSession extends SqlSession {
+
+    /**
+     * Count the rows the select statement would return, using a {@code SELECT COUNT(*)}
+     * derived from the statement with its ORDER BY removed.
+     * 派生的 COUNT 查询与原查询共用 namespace 的二级缓存
+     *
+     * @param statement Unique identifier matching the select statement to count.
+     * @param parameter A parameter object to pass to the statement.
+     * @return number of rows
+     */
+    long selectCount(String statement, Object parameter);
+
+    /**
+     * Retrieve one page of mapped objects together with the total row count.
+     * 设置了 concurrentCountQuery 时，COUNT 查询在另一个连接上与分页查询并发执行
+     *
+     * @param <E> the returned list element type
+     * @param statement Unique identifier matching the statement to use.
+     * @param parameter A parameter object to pass to the statement.
+     * @param rowBounds Bounds to limit object retrieval
+     * @return the page and the total row count
+     */
+    <E> PageList<E> selectPage(String statement, Object parameter, RowBounds rowBounds);
+}
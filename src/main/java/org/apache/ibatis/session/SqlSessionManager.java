@@ -20,14 +20,14 @@ import java.util.Properties;
 /**
  * SqlSession管理员,可参考SqlSessionManagerTest
  */
-public class SqlSessionManager implements SqlSessionFactory, SqlSession {
+public class SqlSessionManager implements SqlSessionFactory, PageableSqlSession {
 
     private final SqlSessionFactory sqlSessionFactory;
 
     /**
      * 这是一个动态代理的实现
      */
-    private final SqlSession sqlSessionProxy;
+    private final PageableSqlSession sqlSessionProxy;
 
     private ThreadLocal<SqlSession> localSqlSession = new ThreadLocal<SqlSession>();
 
@@ -37,10 +37,10 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
         //类加载器
         ClassLoader classLoader = SqlSessionFactory.class.getClassLoader();
         //被代理的类型，必须是接口
-        Class[] classes = { SqlSession.class };
+        Class[] classes = { PageableSqlSession.class };
         //被代理类的实现
         InvocationHandler invocationHandler = new SqlSessionInterceptor();
-        this.sqlSessionProxy = (SqlSession) Proxy.newProxyInstance(classLoader, classes, invocationHandler);
+        this.sqlSessionProxy = (PageableSqlSession) Proxy.newProxyInstance(classLoader, classes, invocationHandler);
     }
 
     /**
@@ -232,6 +232,16 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
         return sqlSessionProxy.<E>selectList(statement, parameter, rowBounds);
     }
 
+    @Override
+    public long selectCount(String statement, Object parameter) {
+        return sqlSessionProxy.selectCount(statement, parameter);
+    }
+
+    @Override
+    public <E> PageList<E> selectPage(String statement, Object parameter, RowBounds rowBounds) {
+        return sqlSessionProxy.<E>selectPage(statement, parameter, rowBounds);
+    }
+
     @Override
     public void select(String statement, ResultHandler handler) {
         sqlSessionProxy.select(statement, handler);
@@ -8,11 +8,17 @@ import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.PageList;
+import org.apache.ibatis.session.PageableSqlSession;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
-import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -20,13 +26,17 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 默认SqlSession实现
  *
  * @author Clinton Begin
  */
-public class DefaultSqlSession implements SqlSession {
+public class DefaultSqlSession implements PageableSqlSession {
 
     private Configuration configuration;
 
@@ -72,7 +82,6 @@ public class DefaultSqlSession implements SqlSession {
 
             //所有的查询（selectOne, selectList, selectMap），都只关心这里即可
             List<E> objectList = executor.query(mappedStatement, wrapCollection, rowBounds, Executor.NO_RESULT_HANDLER);
-            System.out.println(objectList);
             return objectList;
 
         } catch (Exception e) {
@@ -82,6 +91,96 @@ public class DefaultSqlSession implements SqlSession {
         }
     }
 
+    @Override
+    public long selectCount(String statement, Object parameter) {
+        try {
+            MappedStatement countStatement = configuration.getMappedStatement(statement).getCountStatement();
+            return count(executor, countStatement, wrapCollection(parameter));
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+        } finally {
+            ErrorContext.instance().reset();
+        }
+    }
+
+    /**
+     * 分页查询加上派生的 COUNT 查询
+     *
+     * 设置了 concurrentCountQuery 并且本会话没有未提交的修改时，COUNT 查询从数据源另取一个连接并发执行，
+     * 看到的数据快照可能与分页查询不同；线程池满了或者有未提交的修改时，在本会话的连接上先后执行，保证能看到本事务自己的修改
+     */
+    @Override
+    public <E> PageList<E> selectPage(String statement, Object parameter, RowBounds rowBounds) {
+        try {
+            MappedStatement mappedStatement = configuration.getMappedStatement(statement);
+            MappedStatement countStatement = mappedStatement.getCountStatement();
+            Object wrapCollection = wrapCollection(parameter);
+            Future<Long> total = null;
+            if (configuration.isConcurrentCountQuery() && !dirty) {
+                total = submitCount(countStatement, wrapCollection);
+            }
+            List<E> rows = executor.query(mappedStatement, wrapCollection, rowBounds, Executor.NO_RESULT_HANDLER);
+            long count = total != null ? getCount(total) : count(executor, countStatement, wrapCollection);
+            return new PageList<E>(rows, count);
+        } catch (Exception e) {
+            throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+        } finally {
+            ErrorContext.instance().reset();
+        }
+    }
+
+    private static long count(Executor executor, MappedStatement countStatement, Object parameter) throws SQLException {
+        List<Long> counts = executor.query(countStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        Long count = counts.isEmpty() ? null : counts.get(0);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 在单独的连接上执行 COUNT 查询，用完即关，查到的结果照常提交到二级缓存
+     *
+     * @return 没有配置数据源或者线程池都在忙时返回 null
+     */
+    private Future<Long> submitCount(final MappedStatement countStatement, final Object parameter) {
+        final Environment environment = configuration.getEnvironment();
+        if (environment == null || environment.getDataSource() == null) {
+            return null;
+        }
+        try {
+            return configuration.getCountQueryExecutor().submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    TransactionFactory transactionFactory = environment.getTransactionFactory() == null
+                            ? new ManagedTransactionFactory() : environment.getTransactionFactory();
+                    Transaction transaction = transactionFactory.newTransaction(environment.getDataSource(), null, true);
+                    Executor countExecutor = configuration.newExecutor(transaction, ExecutorType.SIMPLE);
+                    try {
+                        long count = count(countExecutor, countStatement, parameter);
+                        countExecutor.commit(false);
+                        return count;
+                    } finally {
+                        countExecutor.close(false);
+                        ErrorContext.instance().reset();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //线程都在忙，不再额外占用连接
+            return null;
+        }
+    }
+
+    private static long getCount(Future<Long> total) throws Exception {
+        try {
+            return total.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
     /**
      * 核心selectOne
      *
@@ -136,7 +235,6 @@ public class DefaultSqlSession implements SqlSession {
         }
         //注意这个DefaultMapResultHandler里面存了所有已处理的记录(内部实现可能就是一个Map)，最后再返回一个Map
         Map<K, V> mappedResults = mapResultHandler.getMappedResults();
-        System.out.println(mappedResults);
         return mappedResults;
     }
 
@@ -29,6 +29,8 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
 
     public DefaultSqlSessionFactory(Configuration configuration) {
         this.configuration = configuration;
+        //到这里启动已经完成，之后的语句查找不再检查不完整的元素
+        configuration.seal();
     }
 
     /**
@@ -16,11 +16,19 @@
 
 package org.apache.ibatis.type;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Array;
 import java.sql.CallableStatement;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author Clinton Begin
@@ -31,9 +39,86 @@ public class ArrayTypeHandler extends BaseTypeHandler<Object> {
         super();
     }
 
+    /**
+     * java 类型对应的数组元素类型名，Connection.createArrayOf 使用
+     */
+    private static final Map<Class<?>, String> STANDARD_TYPE_NAMES = new HashMap<Class<?>, String>();
+
+    static {
+        STANDARD_TYPE_NAMES.put(Boolean.class, JdbcType.BOOLEAN.name());
+        STANDARD_TYPE_NAMES.put(Byte.class, JdbcType.TINYINT.name());
+        STANDARD_TYPE_NAMES.put(Short.class, JdbcType.SMALLINT.name());
+        STANDARD_TYPE_NAMES.put(Integer.class, JdbcType.INTEGER.name());
+        STANDARD_TYPE_NAMES.put(Long.class, JdbcType.BIGINT.name());
+        STANDARD_TYPE_NAMES.put(Float.class, JdbcType.REAL.name());
+        STANDARD_TYPE_NAMES.put(Double.class, JdbcType.DOUBLE.name());
+        STANDARD_TYPE_NAMES.put(BigDecimal.class, JdbcType.NUMERIC.name());
+        STANDARD_TYPE_NAMES.put(BigInteger.class, JdbcType.BIGINT.name());
+        STANDARD_TYPE_NAMES.put(String.class, JdbcType.VARCHAR.name());
+        STANDARD_TYPE_NAMES.put(Character.class, JdbcType.CHAR.name());
+        STANDARD_TYPE_NAMES.put(java.util.Date.class, JdbcType.TIMESTAMP.name());
+        STANDARD_TYPE_NAMES.put(Timestamp.class, JdbcType.TIMESTAMP.name());
+        STANDARD_TYPE_NAMES.put(Date.class, JdbcType.DATE.name());
+        STANDARD_TYPE_NAMES.put(Time.class, JdbcType.TIME.name());
+    }
+
+    /**
+     * 参数可以是 java.sql.Array，也可以是 java 数组（包括基本类型数组）或者集合，
+     * 后两种用 Connection.createArrayOf 转成 JDBC Array，元素类型名取 jdbcType，没有指定时根据元素的 java 类型推断
+     */
     @Override
     public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
-        ps.setArray(i, (Array) parameter);
+        if (parameter instanceof Array) {
+            ps.setArray(i, (Array) parameter);
+            return;
+        }
+        Object[] elements = toObjectArray(parameter);
+        String typeName = resolveTypeName(parameter, elements, jdbcType);
+        ps.setArray(i, ps.getConnection().createArrayOf(typeName, elements));
+    }
+
+    private static Object[] toObjectArray(Object parameter) {
+        if (parameter instanceof Collection) {
+            return ((Collection<?>) parameter).toArray();
+        }
+        if (parameter instanceof Object[]) {
+            return (Object[]) parameter;
+        }
+        if (parameter.getClass().isArray()) {
+            //基本类型数组要逐个装箱
+            int length = java.lang.reflect.Array.getLength(parameter);
+            Object[] elements = new Object[length];
+            for (int i = 0; i < length; i++) {
+                elements[i] = java.lang.reflect.Array.get(parameter, i);
+            }
+            return elements;
+        }
+        throw new TypeException("ArrayTypeHandler cannot bind a parameter of type " + parameter.getClass().getName()
+                + ". Use a java.sql.Array, an array or a Collection.");
+    }
+
+    private static String resolveTypeName(Object parameter, Object[] elements, JdbcType jdbcType) {
+        if (jdbcType != null && jdbcType != JdbcType.ARRAY && jdbcType != JdbcType.OTHER) {
+            return jdbcType.name();
+        }
+        Class<?> elementType = parameter.getClass().isArray() ? parameter.getClass().getComponentType() : Object.class;
+        if (elementType.isPrimitive()) {
+            elementType = java.lang.reflect.Array.get(java.lang.reflect.Array.newInstance(elementType, 1), 0).getClass();
+        }
+        if (elementType == Object.class) {
+            for (Object element : elements) {
+                if (element != null) {
+                    elementType = element.getClass();
+                    break;
+                }
+            }
+        }
+        String typeName = STANDARD_TYPE_NAMES.get(elementType);
+        if (typeName == null) {
+            throw new TypeException("Cannot determine the JDBC type name of array elements of type " + elementType.getName()
+                    + ". Specify the jdbcType of the elements.");
+        }
+        return typeName;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package org.apache.ibatis.type;
 
 import org.apache.ibatis.io.ResolverUtil;
+import org.apache.ibatis.io.Resources;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
@@ -14,6 +15,9 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * @author Clinton Begin
@@ -33,6 +37,34 @@ public final class TypeHandlerRegistry {
 
     private final Map<Class<?>, TypeHandler<?>> ALL_TYPE_HANDLERS_MAP = new HashMap<Class<?>, TypeHandler<?>>();
 
+    /**
+     * 解析结果缓存中表示"没有处理器"的占位对象（ConcurrentHashMap/AtomicReferenceArray 中不能区分 null 与未解析）
+     */
+    private static final Object NULL_TYPE_HANDLER = new Object();
+
+    /**
+     * 每个 java 类型对应一个按 jdbcType 下标的数组，下标 0 表示 jdbcType 为 null
+     */
+    private static final int JDBC_TYPE_SLOTS = JdbcType.values().length + 1;
+
+    /**
+     * 类型处理器解析缓存，启动完成后只读
+     * key：javaType
+     * value：按 jdbcType 下标存放的解析结果（包括按需创建的枚举处理器）
+     *
+     * 任何注册动作都会清空该缓存，注册只应发生在启动阶段
+     */
+    private final ConcurrentMap<Type, AtomicReferenceArray<Object>> RESOLVED_TYPE_HANDLER_CACHE = new ConcurrentHashMap<Type, AtomicReferenceArray<Object>>();
+
+    /**
+     * 根据结果集元数据（列的 java 类名 + jdbcType）解析出的处理器缓存，供 ResultSetWrapper/UnknownTypeHandler 在所有结果集间共享
+     * key：ResultSetMetaData.getColumnClassName
+     * value：按 jdbcType 下标存放的解析结果，解析不到时为 ObjectTypeHandler
+     */
+    private final ConcurrentMap<String, AtomicReferenceArray<Object>> COLUMN_TYPE_HANDLER_CACHE = new ConcurrentHashMap<String, AtomicReferenceArray<Object>>();
+
+    private final TypeHandler<Object> OBJECT_TYPE_HANDLER = new ObjectTypeHandler();
+
     public TypeHandlerRegistry() {
         //构造函数里注册系统内置的类型处理器
         //以下是为多个类型注册到同一个handler
@@ -163,6 +195,37 @@ public final class TypeHandlerRegistry {
 
     @SuppressWarnings("unchecked")
     private <T> TypeHandler<T> getTypeHandler(Type javaType, JdbcType jdbcType) {
+        if (javaType == null) {
+            return null;
+        }
+        AtomicReferenceArray<Object> resolved = RESOLVED_TYPE_HANDLER_CACHE.get(javaType);
+        if (resolved == null) {
+            resolved = new AtomicReferenceArray<Object>(JDBC_TYPE_SLOTS);
+            AtomicReferenceArray<Object> existing = RESOLVED_TYPE_HANDLER_CACHE.putIfAbsent(javaType, resolved);
+            if (existing != null) {
+                resolved = existing;
+            }
+        }
+        int slot = jdbcTypeSlot(jdbcType);
+        Object handler = resolved.get(slot);
+        if (handler == null) {
+            handler = resolveTypeHandler(javaType, jdbcType);
+            if (handler == null) {
+                handler = NULL_TYPE_HANDLER;
+            }
+            //并发解析时以先写入的为准，保证枚举处理器只有一个实例
+            if (!resolved.compareAndSet(slot, null, handler)) {
+                handler = resolved.get(slot);
+            }
+        }
+        // javaType drives generics here
+        return handler == NULL_TYPE_HANDLER ? null : (TypeHandler<T>) handler;
+    }
+
+    /**
+     * 真正的解析逻辑，结果会被 RESOLVED_TYPE_HANDLER_CACHE 缓存
+     */
+    private TypeHandler<?> resolveTypeHandler(Type javaType, JdbcType jdbcType) {
         Map<JdbcType, TypeHandler<?>> jdbcHandlerMap = TYPE_HANDLER_MAP.get(javaType);
         TypeHandler<?> handler = null;
         if (jdbcHandlerMap != null) {
@@ -171,11 +234,85 @@ public final class TypeHandlerRegistry {
                 handler = jdbcHandlerMap.get(null);
             }
         }
-        if (handler == null && javaType != null && javaType instanceof Class && Enum.class.isAssignableFrom((Class<?>) javaType)) {
-            handler = new EnumTypeHandler((Class<?>) javaType);
+        if (handler == null && javaType instanceof Class && Enum.class.isAssignableFrom((Class<?>) javaType)) {
+            //同一个枚举类型不论 jdbcType 是什么都共用一个处理器实例
+            handler = jdbcType == null ? newEnumTypeHandler((Class<?>) javaType) : getTypeHandler(javaType, null);
         }
-        // javaType drives generics here
-        return (TypeHandler<T>) handler;
+        return handler;
+    }
+
+    /**
+     * 为枚举类型创建默认的 EnumTypeHandler，调用方已经确认过 enumType 是枚举
+     */
+    private static <E extends Enum<E>> TypeHandler<E> newEnumTypeHandler(Class<?> enumType) {
+        @SuppressWarnings("unchecked")
+        Class<E> type = (Class<E>) enumType;
+        return new EnumTypeHandler<E>(type);
+    }
+
+    /**
+     * 根据结果集元数据中列的 java 类名和 jdbcType 获取处理器，解析结果在所有结果集之间共享
+     * Replicate logic of UnknownTypeHandler#resolveTypeHandler
+     *
+     * @param columnClassName ResultSetMetaData.getColumnClassName，可能为 null
+     * @param jdbcType 列的 jdbcType，可能为 null
+     * @return 处理器，解析不到时返回 ObjectTypeHandler
+     */
+    public TypeHandler<?> getColumnTypeHandler(String columnClassName, JdbcType jdbcType) {
+        String key = columnClassName == null ? "" : columnClassName;
+        AtomicReferenceArray<Object> resolved = COLUMN_TYPE_HANDLER_CACHE.get(key);
+        if (resolved == null) {
+            resolved = new AtomicReferenceArray<Object>(JDBC_TYPE_SLOTS);
+            AtomicReferenceArray<Object> existing = COLUMN_TYPE_HANDLER_CACHE.putIfAbsent(key, resolved);
+            if (existing != null) {
+                resolved = existing;
+            }
+        }
+        int slot = jdbcTypeSlot(jdbcType);
+        Object handler = resolved.get(slot);
+        if (handler == null) {
+            handler = resolveColumnTypeHandler(columnClassName, jdbcType);
+            if (!resolved.compareAndSet(slot, null, handler)) {
+                handler = resolved.get(slot);
+            }
+        }
+        return (TypeHandler<?>) handler;
+    }
+
+    private TypeHandler<?> resolveColumnTypeHandler(String columnClassName, JdbcType jdbcType) {
+        Class<?> javaType = null;
+        if (columnClassName != null) {
+            try {
+                javaType = Resources.classForName(columnClassName);
+            } catch (ClassNotFoundException ignored) {
+                // ignored
+            }
+        }
+        TypeHandler<?> handler = null;
+        if (javaType != null && jdbcType != null) {
+            handler = getTypeHandler(javaType, jdbcType);
+        } else if (javaType != null) {
+            handler = getTypeHandler(javaType);
+        } else if (jdbcType != null) {
+            handler = getTypeHandler(jdbcType);
+        }
+        //通过数据库元数据也获取不到该属性的处理器，则没办法，只能设置为 ObjectTypeHandler
+        if (handler == null || handler instanceof UnknownTypeHandler) {
+            handler = OBJECT_TYPE_HANDLER;
+        }
+        return handler;
+    }
+
+    private static int jdbcTypeSlot(JdbcType jdbcType) {
+        return jdbcType == null ? 0 : jdbcType.ordinal() + 1;
+    }
+
+    /**
+     * 注册新的处理器之后，之前的解析结果可能已经过期
+     */
+    private void clearResolvedTypeHandlers() {
+        RESOLVED_TYPE_HANDLER_CACHE.clear();
+        COLUMN_TYPE_HANDLER_CACHE.clear();
     }
 
     public TypeHandler<Object> getUnknownTypeHandler() {
@@ -184,6 +321,7 @@ public final class TypeHandlerRegistry {
 
     public void register(JdbcType jdbcType, TypeHandler<?> handler) {
         JDBC_TYPE_HANDLER_MAP.put(jdbcType, handler);
+        clearResolvedTypeHandlers();
     }
 
     //
@@ -258,6 +396,7 @@ public final class TypeHandlerRegistry {
                 TYPE_HANDLER_MAP.put(javaType, map);
             }
             map.put(jdbcType, handler);
+            clearResolvedTypeHandlers();
         }
         ALL_TYPE_HANDLERS_MAP.put(handler.getClass(), handler);
     }
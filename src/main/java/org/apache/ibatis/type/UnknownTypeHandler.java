@@ -16,8 +16,6 @@
 
 package org.apache.ibatis.type;
 
-import org.apache.ibatis.io.Resources;
-
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -108,17 +106,10 @@ public class UnknownTypeHandler extends BaseTypeHandler<Object> {
     }
 
     private TypeHandler<?> resolveTypeHandler(ResultSetMetaData rsmd, Integer columnIndex) throws SQLException {
-        TypeHandler<?> handler = null;
         JdbcType jdbcType = safeGetJdbcTypeForColumn(rsmd, columnIndex);
-        Class<?> javaType = safeGetClassForColumn(rsmd, columnIndex);
-        if (javaType != null && jdbcType != null) {
-            handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
-        } else if (javaType != null) {
-            handler = typeHandlerRegistry.getTypeHandler(javaType);
-        } else if (jdbcType != null) {
-            handler = typeHandlerRegistry.getTypeHandler(jdbcType);
-        }
-        return handler;
+        String columnClassName = safeGetClassNameForColumn(rsmd, columnIndex);
+        //解析结果由注册器全局缓存，避免每行都 Class.forName
+        return typeHandlerRegistry.getColumnTypeHandler(columnClassName, jdbcType);
     }
 
     private JdbcType safeGetJdbcTypeForColumn(ResultSetMetaData rsmd, Integer columnIndex) {
@@ -129,9 +120,9 @@ public class UnknownTypeHandler extends BaseTypeHandler<Object> {
         }
     }
 
-    private Class<?> safeGetClassForColumn(ResultSetMetaData rsmd, Integer columnIndex) {
+    private String safeGetClassNameForColumn(ResultSetMetaData rsmd, Integer columnIndex) {
         try {
-            return Resources.classForName(rsmd.getColumnClassName(columnIndex));
+            return rsmd.getColumnClassName(columnIndex);
         } catch (Exception e) {
             return null;
         }
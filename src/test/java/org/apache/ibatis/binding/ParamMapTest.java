@@ -0,0 +1,142 @@
+package org.apache.ibatis.binding;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParamMapTest {
+
+    interface Mapper {
+
+        void none();
+
+        void single(String name);
+
+        void positional(String name, RowBounds rowBounds, Integer age);
+
+        void named(@Param("name") String name, @Param("age") Integer age);
+
+        void clash(@Param("finalParamMap2") String name, Integer age);
+    }
+
+    private static Object convert(String methodName, Object... args) throws Exception {
+        for (Method method : Mapper.class.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                return new MapperMethod.MethodSignature(new Configuration(), method).convertArgsToSqlCommandParam(args);
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+
+    @Test
+    public void shouldPassSingleParameterThrough() throws Exception {
+        assertNull(convert("none"));
+        assertEquals("John", convert("single", "John"));
+    }
+
+    @Test
+    public void shouldResolvePositionalAndGenericNames() throws Exception {
+        Map<?, ?> params = (Map<?, ?>) convert("positional", "John", new RowBounds(), 30);
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("0", "John");
+        expected.put("1", 30);
+        expected.put("finalParamMap1", "John");
+        expected.put("finalParamMap2", 30);
+        assertEquals(expected, params);
+        assertEquals(expected.hashCode(), params.hashCode());
+        assertEquals(4, params.size());
+        assertEquals(30, params.get("1"));
+        assertTrue(params.containsKey("finalParamMap1"));
+        assertFalse(params.containsKey("2"));
+    }
+
+    @Test
+    public void shouldResolveNamedParameters() throws Exception {
+        Map<?, ?> params = (Map<?, ?>) convert("named", "John", null);
+        assertEquals("John", params.get("name"));
+        assertNull(params.get("age"));
+        assertEquals("John", params.get("finalParamMap1"));
+        MetaObject metaObject = SystemMetaObject.forObject(params);
+        assertTrue(metaObject.hasGetter("age"));
+        assertEquals("John", metaObject.getValue("name"));
+    }
+
+    @Test
+    public void shouldNotOverrideNamedParameterWithGenericName() throws Exception {
+        Map<?, ?> params = (Map<?, ?>) convert("clash", "John", 30);
+        assertEquals("John", params.get("finalParamMap2"));
+        assertEquals(30, params.get("1"));
+        assertEquals(3, params.size());
+    }
+
+    @Test
+    public void shouldThrowForMissingParameter() throws Exception {
+        Map<?, ?> params = (Map<?, ?>) convert("named", "John", 30);
+        try {
+            params.get("missing");
+            fail();
+        } catch (BindingException e) {
+            assertTrue(e.getMessage().contains("Parameter 'missing' not found"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldBecomeModifiableWithoutChangingArguments() throws Exception {
+        Object[] args = {"John", 30};
+        Map<String, Object> params = (Map<String, Object>) convert("named", args);
+        SystemMetaObject.forObject(params).setValue("id", 7);
+        params.put("name", "Jane");
+        assertEquals(7, params.get("id"));
+        assertEquals("Jane", params.get("name"));
+        assertEquals("John", params.get("finalParamMap1"));
+        assertEquals(5, params.size());
+        assertSame("John", args[0]);
+        params.remove("id");
+        assertFalse(params.containsKey("id"));
+    }
+
+    @Test
+    public void shouldStayHashMapWithoutArgumentsBehindIt() throws Exception {
+        Object[] args = {"John", new RowBounds(), 30};
+        Map<?, ?> params = (Map<?, ?>) convert("positional", args);
+        assertTrue(params instanceof HashMap);
+        assertFalse(params.containsValue(args[1]));
+        Iterator<?> iterator = params.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(3, params.size());
+        args[0] = "Jane";
+        assertFalse(params.containsValue("Jane"));
+    }
+
+    @Test
+    public void shouldSerializeOnlyParameters() throws Exception {
+        Map<?, ?> params = (Map<?, ?>) convert("positional", "John", new RowBounds(), 30);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(params);
+        oos.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+        assertEquals(params, copy);
+    }
+}
@@ -0,0 +1,158 @@
+package org.apache.ibatis.builder.annotation;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrecompiledSqlProcessorTest {
+
+    private static final String MAPPER_SOURCE = "package precompiled;\n"
+            + "import org.apache.ibatis.annotations.*;\n"
+            + "import java.util.List;\n"
+            + "public interface PersonMapper {\n"
+            + "  @Select({\"select name from person\", \"where id = #{id}\"})\n"
+            + "  String findName(int id);\n"
+            + "  @Select(\"select name from person where last = #{last,jdbcType=VARCHAR} and id > #{id}\")\n"
+            + "  List<String> findNames(@Param(\"last\") String last, @Param(\"id\") int id);\n"
+            + "  @Select(\"select name from person order by ${column}\")\n"
+            + "  List<String> findSorted(@Param(\"column\") String column);\n"
+            + "  @Delete(\"delete from person where id = #{finalParamMap1}\")\n"
+            + "  int delete(@Param(\"id\") int id);\n"
+            + "}\n";
+
+    private File directory;
+
+    private JavaCompiler compiler;
+
+    @Before
+    public void setUp() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeTrue(compiler != null);
+        directory = File.createTempFile("precompiled", "");
+        directory.delete();
+        directory.mkdirs();
+        directory.deleteOnExit();
+    }
+
+    @Test
+    public void shouldUsePrecompiledSqlForStaticStatements() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(MAPPER_SOURCE);
+        assertTrue(diagnostics.getDiagnostics().toString(), new File(directory, "precompiled/PersonMapper$$PrecompiledSql.class").exists());
+
+        ClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, getClass().getClassLoader());
+        Class<?> mapperType = classLoader.loadClass("precompiled.PersonMapper");
+        Configuration configuration = new Configuration();
+        configuration.addMapper(mapperType);
+
+        MappedStatement findName = configuration.getMappedStatement("precompiled.PersonMapper.findName");
+        assertTrue(findName.getSqlSource() instanceof StaticSqlSource);
+        BoundSql boundSql = findName.getBoundSql(1);
+        assertEquals("select name from person where id = ? ", boundSql.getSql());
+        assertEquals("id", boundSql.getParameterMappings().get(0).getProperty());
+
+        Map<String, Object> parameter = new HashMap<String, Object>();
+        parameter.put("last", "Doe");
+        parameter.put("id", 1);
+        BoundSql namesSql = configuration.getMappedStatement("precompiled.PersonMapper.findNames").getBoundSql(parameter);
+        assertEquals("select name from person where last = ? and id > ? ", namesSql.getSql());
+        assertEquals("VARCHAR", namesSql.getParameterMappings().get(0).getJdbcType().name());
+
+        assertTrue(configuration.getMappedStatement("precompiled.PersonMapper.findSorted").getSqlSource() instanceof DynamicSqlSource);
+        assertTrue(configuration.getMappedStatement("precompiled.PersonMapper.delete").getSqlSource() instanceof StaticSqlSource);
+    }
+
+    @Test
+    public void shouldCompileWithoutProcessingWarnings() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(MAPPER_SOURCE, "-Xlint:processing");
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            assertFalse(diagnostic.getMessage(null), diagnostic.getKind() == Diagnostic.Kind.WARNING
+                    || diagnostic.getKind() == Diagnostic.Kind.MANDATORY_WARNING);
+        }
+    }
+
+    @Test
+    public void shouldIgnoreStalePrecompiledSql() throws Exception {
+        compile(MAPPER_SOURCE);
+        File precompiled = new File(directory, "precompiled/PersonMapper$$PrecompiledSql.class");
+        File stale = new File(directory, "stale");
+        assertTrue(precompiled.renameTo(stale));
+        //接口重新编译，sql 变了，但生成类还是旧的
+        compile(MAPPER_SOURCE.replace("where id = #{id}", "where id = #{id} and 1 = 1"));
+        assertTrue(precompiled.delete());
+        assertTrue(stale.renameTo(precompiled));
+
+        ClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, getClass().getClassLoader());
+        Configuration configuration = new Configuration();
+        configuration.addMapper(classLoader.loadClass("precompiled.PersonMapper"));
+        MappedStatement findName = configuration.getMappedStatement("precompiled.PersonMapper.findName");
+        assertTrue(findName.getSqlSource() instanceof RawSqlSource);
+        assertEquals("select name from person where id = ? and 1 = 1 ", findName.getBoundSql(1).getSql());
+    }
+
+    @Test
+    public void shouldReportUnknownParameterNames() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("package precompiled;\n"
+                + "import org.apache.ibatis.annotations.*;\n"
+                + "public interface BrokenMapper {\n"
+                + "  @Select(\"select name from person where id = #{ident} and last = #{last}\")\n"
+                + "  String find(@Param(\"id\") int id, @Param(\"last\") String last);\n"
+                + "}\n");
+        boolean reported = false;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                assertTrue(diagnostic.getMessage(null).contains("Parameter 'ident' not found"));
+                reported = true;
+            }
+        }
+        assertTrue(reported);
+        assertFalse(new File(directory, "precompiled/BrokenMapper$$PrecompiledSql.class").exists());
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(String source, String... options) throws IOException {
+        String name = source.substring(source.indexOf("interface ") + 10, source.indexOf(" {"));
+        File sourceFile = new File(directory, "precompiled/" + name + ".java");
+        sourceFile.getParentFile().mkdirs();
+        Writer writer = new FileWriter(sourceFile);
+        writer.write(source);
+        writer.close();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            List<String> arguments = new ArrayList<String>(Arrays.asList("-d", directory.getPath(), "-s", directory.getPath(),
+                    "-classpath", System.getProperty("java.class.path"), "-processor", PrecompiledSqlProcessor.class.getName()));
+            arguments.addAll(Arrays.asList(options));
+            compiler.getTask(null, fileManager, diagnostics, arguments, null, fileManager.getJavaFileObjects(sourceFile)).call();
+        } finally {
+            fileManager.close();
+        }
+        return diagnostics;
+    }
+}
@@ -9,14 +9,17 @@ import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
 import org.apache.ibatis.scripting.xmltags.IfSqlNode;
+import org.apache.ibatis.scripting.xmltags.InSqlNode;
 import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
 import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.InListStyle;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.type.ArrayTypeHandler;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -30,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class DynamicSqlSourceTest extends BaseDataTest {
 
@@ -318,6 +322,48 @@ public class DynamicSqlSourceTest extends BaseDataTest {
         assertEquals(0, boundSql.getParameterMappings().size());
     }
 
+    @Test
+    public void shouldChunkInListIntoStableShapes() throws Exception {
+        final HashMap<String, Object> parameterObject = new HashMap<String, Object>();
+        parameterObject.put("ids", Arrays.asList(1, 2, 3, 4, 5));
+        Configuration configuration = new Configuration();
+        configuration.setInListStyle(InListStyle.CHUNKED);
+        configuration.setInListChunkSize(4);
+        DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+                new TextSqlNode("SELECT * FROM BLOG WHERE"), new InSqlNode(configuration, "ID", "ids", null)));
+        BoundSql boundSql = source.getBoundSql(parameterObject);
+        assertEquals("SELECT * FROM BLOG WHERE (ID IN (?, ?, ?, ?) OR ID IN (?))", boundSql.getSql());
+        parameterObject.put("ids", Arrays.asList(1, 2, 3));
+        boundSql = source.getBoundSql(parameterObject);
+        //3 个元素补齐到 4 个，用最后一个元素补
+        assertEquals("SELECT * FROM BLOG WHERE ID IN (?, ?, ?, ?)", boundSql.getSql());
+        assertEquals(3, boundSql.getAdditionalParameter(boundSql.getParameterMappings().get(3).getProperty()));
+    }
+
+    @Test
+    public void shouldBindInListAsSingleArrayParameter() throws Exception {
+        final HashMap<String, Object> parameterObject = new HashMap<String, Object>();
+        parameterObject.put("ids", new int[] { 1, 2, 3 });
+        Configuration configuration = new Configuration();
+        configuration.setInListStyle(InListStyle.ANY);
+        DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+                new TextSqlNode("SELECT * FROM BLOG WHERE"), new InSqlNode(configuration, "ID", "ids", null)));
+        BoundSql boundSql = source.getBoundSql(parameterObject);
+        assertEquals("SELECT * FROM BLOG WHERE ID = ANY(?)", boundSql.getSql());
+        assertEquals(1, boundSql.getParameterMappings().size());
+        assertTrue(boundSql.getParameterMappings().get(0).getTypeHandler() instanceof ArrayTypeHandler);
+    }
+
+    @Test
+    public void shouldRenderEmptyInListAsFalse() throws Exception {
+        final HashMap<String, Object> parameterObject = new HashMap<String, Object>();
+        parameterObject.put("ids", new ArrayList<Integer>());
+        Configuration configuration = new Configuration();
+        DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+                new TextSqlNode("SELECT * FROM BLOG WHERE"), new InSqlNode(configuration, "ID", "ids", null)));
+        assertEquals("SELECT * FROM BLOG WHERE 1 = 0", source.getBoundSql(parameterObject).getSql());
+    }
+
     @Test
     public void shouldPerformStrictMatchOnForEachVariableSubstitution() throws Exception {
         final Map<String, Object> param = new HashMap<String, Object>();
@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2009-2012 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import org.apache.ibatis.cache.decorators.TableInvalidatingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TableInvalidatingCacheTest {
+
+    @Test
+    public void shouldRemoveOnlyEntriesDependingOnWrittenTables() {
+        TableInvalidatingCache cache = new TableInvalidatingCache(new PerpetualCache("default"));
+        cache.putObject(1, 1, Arrays.asList("AUTHOR"));
+        cache.putObject(2, 2, Arrays.asList("AUTHOR", "BLOG"));
+        cache.putObject(3, 3, Arrays.asList("POST"));
+        cache.invalidateTables(Collections.singleton("BLOG"));
+        assertNotNull(cache.getObject(1));
+        assertNull(cache.getObject(2));
+        assertNotNull(cache.getObject(3));
+    }
+
+    @Test
+    public void shouldRemoveUntaggedEntriesOnAnyInvalidation() {
+        TableInvalidatingCache cache = new TableInvalidatingCache(new PerpetualCache("default"));
+        cache.putObject(1, 1);
+        cache.putObject(2, 2, Arrays.asList("AUTHOR"));
+        cache.invalidateTables(Collections.singleton("BLOG"));
+        assertNull(cache.getObject(1));
+        assertNotNull(cache.getObject(2));
+    }
+
+    @Test
+    public void shouldEvictEntriesBeyondTrackedSize() {
+        TableInvalidatingCache cache = new TableInvalidatingCache(new PerpetualCache("default"));
+        cache.setSize(5);
+        for (int i = 0; i < 6; i++) {
+            cache.putObject(i, i, Arrays.asList("AUTHOR"));
+        }
+        assertNull(cache.getObject(0));
+        assertEquals(5, cache.getSize());
+    }
+
+    @Test
+    public void shouldParseTablesFromSql() {
+        assertEquals(Arrays.asList("AUTHOR", "BLOG"),
+                Arrays.asList(SqlTableParser.parse("select * from author a, blog b where a.id = b.author_id").toArray()));
+        assertEquals(Arrays.asList("BLOG", "AUTHOR", "POST"),
+                Arrays.asList(SqlTableParser.parse("SELECT B.ID FROM Blog B LEFT OUTER JOIN \"Author\" A ON A.ID = B.AUTHOR_ID"
+                        + " WHERE A.ID IN (SELECT AUTHOR_ID FROM ibtest.post WHERE SUBJECT = 'from x')").toArray()));
+        assertEquals(Arrays.asList("AUTHOR"), Arrays.asList(SqlTableParser.parse("insert into author (id, username) values (?, ?)").toArray()));
+        assertEquals(Arrays.asList("AUTHOR"), Arrays.asList(SqlTableParser.parse("update author set username = ? where id = ?").toArray()));
+        assertEquals(Arrays.asList("AUTHOR"), Arrays.asList(SqlTableParser.parse("delete from author where id = ?").toArray()));
+        assertEquals(0, SqlTableParser.parse("{call next_value(?)}").size());
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.apache.ibatis.datasource.pooled;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PooledConnectionTest {
+
+    private PooledDataSource dataSource;
+
+    private PooledConnection pooledConnection;
+
+    private Connection connection;
+
+    @Before
+    public void openConnection() throws Exception {
+        dataSource = new PooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:pooled_connection", "sa", "");
+        pooledConnection = new PooledConnection(dataSource.getConnection(), dataSource);
+        connection = pooledConnection.getProxyConnection();
+        connection.setAutoCommit(false);
+        connection.commit();
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        pooledConnection.getRealConnection().close();
+        dataSource.forceCloseAll();
+    }
+
+    @Test
+    public void shouldNotMarkDirtyForStateMethods() throws Exception {
+        connection.getAutoCommit();
+        connection.getTransactionIsolation();
+        connection.isReadOnly();
+        connection.getWarnings();
+        connection.clearWarnings();
+        connection.getHoldability();
+        connection.getCatalog();
+        connection.isValid(1);
+        assertFalse(pooledConnection.isDirty());
+    }
+
+    @Test
+    public void shouldMarkDirtyForMetaData() throws Exception {
+        connection.getMetaData();
+        assertTrue(pooledConnection.isDirty());
+        connection.rollback();
+        assertFalse(pooledConnection.isDirty());
+    }
+
+    @Test
+    public void shouldMarkDirtyForSavepoint() throws Exception {
+        connection.setSavepoint();
+        assertTrue(pooledConnection.isDirty());
+    }
+
+    @Test
+    public void shouldMarkDirtyForStatements() throws Exception {
+        connection.createStatement().close();
+        assertTrue(pooledConnection.isDirty());
+    }
+
+    @Test
+    public void shouldMarkDirtyWhenStatementIsExecutedAfterCommit() throws Exception {
+        PreparedStatement statement = connection.prepareStatement("VALUES (1)");
+        connection.commit();
+        assertFalse(pooledConnection.isDirty());
+        statement.executeQuery().close();
+        assertTrue(pooledConnection.isDirty());
+        statement.close();
+    }
+}
@@ -0,0 +1,47 @@
+package org.apache.ibatis.executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+
+public class LocalCacheTest {
+
+    @Test
+    public void shouldNotLimitSizeByDefault() {
+        LocalCache cache = new LocalCache("LocalCache", 0);
+        for (int i = 0; i < 100; i++) {
+            cache.putObject(i, i);
+        }
+        Assert.assertEquals(100, cache.getSize());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        LocalCache cache = new LocalCache("LocalCache", 2);
+        cache.putObject("a", "a");
+        cache.putObject("b", "b");
+        cache.getObject("a");
+        cache.putObject("c", "c");
+        Assert.assertEquals(2, cache.getSize());
+        Assert.assertEquals("a", cache.getObject("a"));
+        Assert.assertNull(cache.getObject("b"));
+        Assert.assertEquals("c", cache.getObject("c"));
+    }
+
+    @Test
+    public void shouldKeepPlaceholdersAndPinnedKeys() {
+        LocalCache cache = new LocalCache("LocalCache", 1);
+        cache.putObject("running", EXECUTION_PLACEHOLDER);
+        cache.pin("pinned");
+        cache.putObject("pinned", "pinned");
+        cache.putObject("a", "a");
+        Assert.assertSame(EXECUTION_PLACEHOLDER, cache.getObject("running"));
+        Assert.assertEquals("pinned", cache.getObject("pinned"));
+        Assert.assertNull(cache.getObject("a"));
+        //解除钉住后收缩到容量以内
+        cache.removeObject("running");
+        cache.unpinAll();
+        Assert.assertEquals(1, cache.getSize());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.executor.pagination;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PaginationDialectTest {
+
+    private static final String SQL = "select * from person order by id";
+
+    @Test
+    public void shouldResolveDialectFromDatabaseName() {
+        assertTrue(PaginationDialect.forDatabase("HSQL Database Engine") instanceof OffsetFetchDialect);
+        assertTrue(PaginationDialect.forDatabase("Apache Derby") instanceof OffsetFetchDialect);
+        assertTrue(PaginationDialect.forDatabase("PostgreSQL") instanceof LimitOffsetDialect);
+        assertTrue(PaginationDialect.forDatabase("MySQL") instanceof MySqlDialect);
+        assertTrue(PaginationDialect.forDatabase("Oracle") instanceof OracleDialect);
+        assertTrue(PaginationDialect.forDatabase("Microsoft SQL Server") instanceof SqlServerDialect);
+        assertTrue(PaginationDialect.forDatabase("sqlserver") instanceof SqlServerDialect);
+        assertNull(PaginationDialect.forDatabase("Unknown"));
+        assertNull(PaginationDialect.forDatabase(null));
+    }
+
+    @Test
+    public void shouldGenerateLimitOffset() {
+        List<Integer> parameters = new ArrayList<Integer>();
+        assertEquals(SQL + " LIMIT ? OFFSET ?", new LimitOffsetDialect().getPageSql(SQL, 20, 10, parameters));
+        assertEquals(Arrays.asList(10, 20), parameters);
+        assertEquals(SQL + " LIMIT 10", new LimitOffsetDialect().getPageSql(SQL, RowBounds.NO_ROW_OFFSET, 10, null));
+    }
+
+    @Test
+    public void shouldGenerateMySqlLimit() {
+        List<Integer> parameters = new ArrayList<Integer>();
+        assertEquals(SQL + " LIMIT ?, ?", new MySqlDialect().getPageSql(SQL, 20, 10, parameters));
+        assertEquals(Arrays.asList(20, 10), parameters);
+        assertEquals(SQL + " LIMIT 20, 18446744073709551615", new MySqlDialect().getPageSql(SQL, 20, RowBounds.NO_ROW_LIMIT, null));
+    }
+
+    @Test
+    public void shouldGenerateOffsetFetch() {
+        List<Integer> parameters = new ArrayList<Integer>();
+        assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", new OffsetFetchDialect().getPageSql(SQL, 20, 10, parameters));
+        assertEquals(Arrays.asList(20, 10), parameters);
+    }
+
+    @Test
+    public void shouldAlwaysGenerateSqlServerOffset() {
+        List<Integer> parameters = new ArrayList<Integer>();
+        assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", new SqlServerDialect().getPageSql(SQL, RowBounds.NO_ROW_OFFSET, 10, parameters));
+        assertEquals(Arrays.asList(0, 10), parameters);
+        assertEquals(SQL + " OFFSET 20 ROWS", new SqlServerDialect().getPageSql(SQL, 20, RowBounds.NO_ROW_LIMIT, null));
+    }
+
+    @Test(expected = ExecutorException.class)
+    public void shouldRequireOrderByForSqlServer() {
+        new SqlServerDialect().getPageSql("select * from person where id in (select id from pet order by id)", 20, 10, null);
+    }
+
+    @Test
+    public void shouldGenerateOracleRownum() {
+        List<Integer> parameters = new ArrayList<Integer>();
+        assertEquals("SELECT * FROM ( SELECT ROW_.*, ROWNUM ROWNUM_ FROM ( " + SQL + " ) ROW_ WHERE ROWNUM <= ? ) WHERE ROWNUM_ > ?",
+                new OracleDialect().getPageSql(SQL, 20, 10, parameters));
+        assertEquals(Arrays.asList(30, 20), parameters);
+        assertEquals("SELECT * FROM ( " + SQL + " ) WHERE ROWNUM <= 10", new OracleDialect().getPageSql(SQL, RowBounds.NO_ROW_OFFSET, 10, null));
+    }
+
+    @Test
+    public void shouldDetectForUpdateClauseOnly() {
+        assertTrue(PaginationDialect.hasForUpdate("select * from person where id = ? for update"));
+        assertTrue(PaginationDialect.hasForUpdate("select * from person FOR\n  UPDATE NOWAIT"));
+        assertFalse(PaginationDialect.hasForUpdate("select * from person where note = 'for update'"));
+        assertFalse(PaginationDialect.hasForUpdate("select \"FOR UPDATE\" from person"));
+        assertFalse(PaginationDialect.hasForUpdate("select wait_for update_count from person"));
+        assertFalse(PaginationDialect.hasForUpdate("select * from person -- for update\n order by id"));
+        assertFalse(PaginationDialect.hasForUpdate("select * /* for update */ from person"));
+        assertFalse(PaginationDialect.hasForUpdate("select before_update from person"));
+    }
+
+    @Test
+    public void shouldStripTrailingCommentBeforeAppendingPageClause() {
+        Configuration configuration = new Configuration();
+        MappedStatement ms = newSelect(configuration, SQL + " -- newest last\n;");
+        BoundSql pageBoundSql = new OffsetFetchDialect().paginate(configuration, ms, ms.getBoundSql(null), new RowBounds(20, 10));
+        assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", pageBoundSql.getSql());
+        assertEquals(2, pageBoundSql.getParameterMappings().size());
+    }
+
+    @Test
+    public void shouldNotPageSqlThatAlreadyLimitsRows() {
+        Configuration configuration = new Configuration();
+        RowBounds rowBounds = new RowBounds(20, 10);
+        MappedStatement limit = newSelect(configuration, SQL + " limit 5");
+        assertNull(new LimitOffsetDialect().paginate(configuration, limit, limit.getBoundSql(null), rowBounds));
+        MappedStatement fetch = newSelect(configuration, SQL + " FETCH FIRST 5 ROWS ONLY");
+        assertNull(new OffsetFetchDialect().paginate(configuration, fetch, fetch.getBoundSql(null), rowBounds));
+        MappedStatement offset = newSelect(configuration, SQL + " OFFSET 5 ROWS");
+        assertNull(new OffsetFetchDialect().paginate(configuration, offset, offset.getBoundSql(null), rowBounds));
+        //子查询里的、注释里的、列名 offset 都不算
+        MappedStatement nested = newSelect(configuration, "select offset from (select 1 as offset from person limit 5) t /* limit 1 */ order by offset");
+        assertNotNull(new LimitOffsetDialect().paginate(configuration, nested, nested.getBoundSql(null), rowBounds));
+    }
+
+    @Test
+    public void shouldNotShareAdditionalParametersWithOriginalBoundSql() {
+        Configuration configuration = new Configuration();
+        MappedStatement ms = newSelect(configuration, SQL);
+        BoundSql boundSql = ms.getBoundSql(null);
+        BoundSql pageBoundSql = new OffsetFetchDialect().paginate(configuration, ms, boundSql, new RowBounds(20, 10));
+        assertTrue(pageBoundSql.hasAdditionalParameters());
+        assertFalse(boundSql.hasAdditionalParameters());
+    }
+
+    private static MappedStatement newSelect(Configuration configuration, String sql) {
+        return new MappedStatement.Builder(configuration, "select", new StaticSqlSource(configuration, sql), SqlCommandType.SELECT)
+                .resultMaps(new ArrayList<ResultMap>())
+                .build();
+    }
+}
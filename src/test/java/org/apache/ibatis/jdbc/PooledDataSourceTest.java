@@ -22,12 +22,19 @@ import org.hsqldb.jdbc.JDBCConnection;
 import org.junit.Test;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class PooledDataSourceTest extends BaseDataTest {
 
@@ -80,6 +87,138 @@ public class PooledDataSourceTest extends BaseDataTest {
         c.toString();
     }
 
+    @Test
+    public void shouldTrackConnectionStateLocally() throws Exception {
+        PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+        try {
+            Connection c = ds.getConnection();
+            Connection realConnection = PooledDataSource.unwrapConnection(c);
+            c.setAutoCommit(false);
+            c.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            c.setReadOnly(false);
+            assertFalse(realConnection.getAutoCommit());
+            assertEquals(Connection.TRANSACTION_SERIALIZABLE, realConnection.getTransactionIsolation());
+            //状态已经记在本地，不再向驱动查询
+            realConnection.setAutoCommit(true);
+            assertFalse(c.getAutoCommit());
+            c.setAutoCommit(false);
+            assertTrue(realConnection.getAutoCommit());
+            assertEquals(Connection.TRANSACTION_SERIALIZABLE, c.getTransactionIsolation());
+            assertFalse(c.isReadOnly());
+            c.close();
+            //归还后再取出的连接仍然知道这些状态
+            c = ds.getConnection();
+            assertSame(realConnection, PooledDataSource.unwrapConnection(c));
+            assertFalse(c.getAutoCommit());
+            c.close();
+        } finally {
+            ds.forceCloseAll();
+        }
+    }
+
+    @Test
+    public void shouldRollBackUncommittedWorkWhenConnectionIsReturned() throws Exception {
+        PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+        try {
+            ds.setDefaultAutoCommit(false);
+            Connection c = ds.getConnection();
+            Statement statement = c.createStatement();
+            statement.execute("CREATE TABLE POOLED_STATE (ID INT)");
+            statement.close();
+            c.commit();
+            statement = c.createStatement();
+            statement.execute("INSERT INTO POOLED_STATE VALUES (1)");
+            statement.close();
+            c.close();
+
+            c = ds.getConnection();
+            statement = c.createStatement();
+            ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM POOLED_STATE");
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+            rs.close();
+            statement.execute("DROP TABLE POOLED_STATE");
+            statement.close();
+            c.commit();
+            c.close();
+        } finally {
+            ds.forceCloseAll();
+        }
+    }
+
+    @Test
+    public void shouldReuseCachedPreparedStatementAcrossCheckouts() throws Exception {
+        PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+        try {
+            ds.setPoolPreparedStatementCacheSize(1);
+            Connection c = ds.getConnection();
+            PreparedStatement ps = c.prepareStatement("VALUES (1)");
+            PreparedStatement realStatement = ps.unwrap(PreparedStatement.class);
+            ps.setQueryTimeout(5);
+            ps.close();
+            assertTrue(ps.isClosed());
+            assertFalse(realStatement.isClosed());
+            c.close();
+
+            c = ds.getConnection();
+            ps = c.prepareStatement("VALUES (1)");
+            assertSame(realStatement, ps.unwrap(PreparedStatement.class));
+            //放回缓存时还原了设置
+            assertEquals(0, ps.getQueryTimeout());
+            ResultSet rs = ps.executeQuery();
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+            rs.close();
+            //同一条 sql 的语句还在使用，另外预编译一个
+            PreparedStatement other = c.prepareStatement("VALUES (1)");
+            assertNotSame(realStatement, other.unwrap(PreparedStatement.class));
+            other.close();
+            ps.close();
+
+            //超出容量时关闭最久没有用到的
+            c.prepareStatement("VALUES (2)").close();
+            assertTrue(realStatement.isClosed());
+            c.close();
+        } finally {
+            ds.forceCloseAll();
+        }
+    }
+
+    @Test
+    public void shouldCleanUpCachedPreparedStatementOnRelease() throws Exception {
+        PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+        try {
+            ds.setPoolPreparedStatementCacheSize(1);
+            Connection c = ds.getConnection();
+            PreparedStatement ps = c.prepareStatement("VALUES (1)");
+            PreparedStatement realStatement = ps.unwrap(PreparedStatement.class);
+            boolean poolable = realStatement.isPoolable();
+            ps.setPoolable(!poolable);
+            ps.setEscapeProcessing(false);
+            ps.setMaxRows(1);
+            ResultSet rs = ps.executeQuery();
+            ps.close();
+            //没有关闭的结果集在放回缓存时关闭
+            assertTrue(rs.isClosed());
+            assertFalse(realStatement.isClosed());
+
+            ps = c.prepareStatement("VALUES (1)");
+            assertSame(realStatement, ps.unwrap(PreparedStatement.class));
+            assertEquals(poolable, ps.isPoolable());
+            assertEquals(0, ps.getMaxRows());
+            //closeOnCompletion 撤销不了，不再放回缓存
+            ps.closeOnCompletion();
+            ps.close();
+            assertTrue(realStatement.isClosed());
+            ps = c.prepareStatement("VALUES (1)");
+            assertNotSame(realStatement, ps.unwrap(PreparedStatement.class));
+            ps.close();
+            c.close();
+        } finally {
+            ds.forceCloseAll();
+        }
+    }
+
     @Test
     public void ShouldReturnRealConnection() throws Exception {
         PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
@@ -0,0 +1,110 @@
+package org.apache.ibatis.logging.jdbc;
+
+import org.apache.ibatis.logging.Log;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PreparedStatementLoggerTest {
+
+    private Connection connection;
+
+    @Before
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:hsqldb:mem:prepared_statement_logger", "sa", "");
+        connection.createStatement().execute("create table person (id int, name varchar(20))");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.createStatement().execute("drop table person");
+        connection.close();
+    }
+
+    @Test
+    public void shouldPrintParameters() throws SQLException {
+        RecordingLog log = new RecordingLog(true);
+        PreparedStatement ps = PreparedStatementLogger.newInstance(connection.prepareStatement("insert into person values (?, ?)"), log, 1);
+        ps.setInt(1, 5);
+        ps.setNull(2, Types.VARCHAR);
+        ps.execute();
+        ps.getUpdateCount();
+        ps.close();
+        Assert.assertEquals("==> Parameters: 5(Integer), null", log.messages.get(0));
+        Assert.assertEquals("<==    Updates: 1", log.messages.get(1));
+    }
+
+    @Test
+    public void shouldNotAskLogLevelOnEveryCall() throws SQLException {
+        RecordingLog log = new RecordingLog(false);
+        PreparedStatement ps = PreparedStatementLogger.newInstance(connection.prepareStatement("insert into person values (?, ?)"), log, 1);
+        for (int i = 0; i < 3; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, "name" + i);
+            ps.execute();
+            ps.getUpdateCount();
+        }
+        ps.close();
+        Assert.assertEquals(1, log.debugEnabledCalls);
+        Assert.assertTrue(log.messages.isEmpty());
+    }
+
+    private static class RecordingLog implements Log {
+
+        private final boolean debug;
+
+        private final List<String> messages = new ArrayList<String>();
+
+        private int debugEnabledCalls;
+
+        RecordingLog(boolean debug) {
+            this.debug = debug;
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            debugEnabledCalls++;
+            return debug;
+        }
+
+        @Override
+        public boolean isTraceEnabled() {
+            return false;
+        }
+
+        @Override
+        public void error(String s, Throwable e) {
+            messages.add(s);
+        }
+
+        @Override
+        public void error(String s) {
+            messages.add(s);
+        }
+
+        @Override
+        public void debug(String s) {
+            messages.add(s);
+        }
+
+        @Override
+        public void trace(String s) {
+            messages.add(s);
+        }
+
+        @Override
+        public void warn(String s) {
+            messages.add(s);
+        }
+    }
+
+}
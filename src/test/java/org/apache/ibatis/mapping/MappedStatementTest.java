@@ -0,0 +1,64 @@
+package org.apache.ibatis.mapping;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MappedStatementTest {
+
+    @Test
+    public void shouldSampleStatementLogPerStatement() {
+        Configuration configuration = new Configuration();
+        configuration.setStatementLogSampling(3);
+        MappedStatement first = newMappedStatement(configuration, "first");
+        MappedStatement second = newMappedStatement(configuration, "second");
+        Assert.assertTrue(first.isStatementLogSampled());
+        Assert.assertFalse(first.isStatementLogSampled());
+        Assert.assertTrue(second.isStatementLogSampled());
+        Assert.assertFalse(first.isStatementLogSampled());
+        Assert.assertTrue(first.isStatementLogSampled());
+        Assert.assertFalse(second.isStatementLogSampled());
+    }
+
+    @Test
+    public void shouldLogEveryExecutionByDefault() {
+        MappedStatement ms = newMappedStatement(new Configuration(), "ms");
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(ms.isStatementLogSampled());
+        }
+    }
+
+    @Test
+    public void shouldOverrideSamplingPerStatement() {
+        Configuration configuration = new Configuration();
+        configuration.setStatementLogSampling(3);
+        configuration.addMapper(SampledMapper.class);
+        MappedStatement everyOther = configuration.getMappedStatement(SampledMapper.class.getName() + ".everyOther");
+        Assert.assertTrue(everyOther.isStatementLogSampled());
+        Assert.assertFalse(everyOther.isStatementLogSampled());
+        Assert.assertTrue(everyOther.isStatementLogSampled());
+        MappedStatement global = configuration.getMappedStatement(SampledMapper.class.getName() + ".global");
+        Assert.assertTrue(global.isStatementLogSampled());
+        Assert.assertFalse(global.isStatementLogSampled());
+        Assert.assertFalse(global.isStatementLogSampled());
+    }
+
+    interface SampledMapper {
+
+        @Select("select 1")
+        @Options(logSampling = 2)
+        int everyOther();
+
+        @Select("select 1")
+        int global();
+    }
+
+    private MappedStatement newMappedStatement(Configuration configuration, String id) {
+        SqlSource sqlSource = new StaticSqlSource(configuration, "select 1");
+        return new MappedStatement.Builder(configuration, id, sqlSource, SqlCommandType.SELECT).build();
+    }
+
+}
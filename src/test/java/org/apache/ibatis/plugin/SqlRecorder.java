@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.plugin;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 记录真正发到数据库的查询 sql 及执行它的线程，在测试的 mybatis-config.xml 中作为插件配置
+ */
+@Intercepts({ @Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }) })
+public class SqlRecorder implements Interceptor {
+
+    private static final List<String[]> EXECUTIONS = new CopyOnWriteArrayList<String[]>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        String sql = ((StatementHandler) invocation.getTarget()).getBoundSql().getSql();
+        EXECUTIONS.add(new String[] { sql, Thread.currentThread().getName() });
+        return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+    public static void clear() {
+        EXECUTIONS.clear();
+    }
+
+    /**
+     * @return 最后一次执行的 sql，还没有执行过时返回 null
+     */
+    public static String getLastSql() {
+        return getLastSql("");
+    }
+
+    /**
+     * @param prefix sql 的开头，如 SELECT COUNT(*)
+     * @return 最后一次执行的以 prefix 开头的 sql，没有时返回 null
+     */
+    public static String getLastSql(String prefix) {
+        for (int i = EXECUTIONS.size() - 1; i >= 0; i--) {
+            String sql = EXECUTIONS.get(i)[0];
+            if (sql.startsWith(prefix)) {
+                return sql;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param prefix sql 的开头
+     * @return 执行过以 prefix 开头的 sql 的线程名，按执行顺序
+     */
+    public static List<String> getThreads(String prefix) {
+        List<String> threads = new ArrayList<String>();
+        for (String[] execution : EXECUTIONS) {
+            if (execution[0].startsWith(prefix)) {
+                threads.add(execution[1]);
+            }
+        }
+        return threads;
+    }
+}
@@ -7,6 +7,7 @@ import org.apache.ibatis.domain.misc.CustomBeanWrapperFactory;
 import org.apache.ibatis.domain.misc.RichType;
 import org.apache.ibatis.domain.zoo.Animal;
 import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.junit.Test;
 
@@ -20,6 +21,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class MetaObjectTest {
@@ -326,4 +328,46 @@ public class MetaObjectTest {
         metaObject.setValue("parent.name", "tokenizer");
         assertEquals("tokenizer", animal.getParent().getName());
     }
+
+    @Test
+    public void shouldSetValueWithReusedTokenizer() {
+        PropertyTokenizer prop = new PropertyTokenizer("richType.richField");
+        for (int i = 0; i < 3; i++) {
+            RichType rich = new RichType();
+            MetaObject meta = SystemMetaObject.forObject(rich);
+            meta.setValue(prop, "foo" + i);
+            assertEquals("foo" + i, meta.getValue("richType.richField"));
+        }
+        assertSame(prop.next(), prop.next());
+    }
+
+    @Test
+    public void shouldResetToAnotherObjectOfSameClass() {
+        RichType first = new RichType();
+        MetaObject meta = SystemMetaObject.forObject(first);
+        meta.setValue("richProperty", "first");
+        RichType second = new RichType();
+        assertTrue(meta.reset(second));
+        assertSame(second, meta.getOriginalObject());
+        meta.setValue("richProperty", "second");
+        assertEquals("first", first.getRichProperty());
+        assertEquals("second", second.getRichProperty());
+        //不同的类、集合不能复用
+        assertFalse(meta.reset(new Animal()));
+        assertFalse(meta.reset(null));
+        assertSame(second, meta.getOriginalObject());
+        MetaObject listMeta = SystemMetaObject.forObject(new ArrayList<Object>());
+        assertFalse(listMeta.reset(new ArrayList<Object>()));
+    }
+
+    @Test
+    public void shouldResetMapWrapper() {
+        Map<String, Object> first = new HashMap<String, Object>();
+        Map<String, Object> second = new HashMap<String, Object>();
+        MetaObject meta = SystemMetaObject.forObject(first);
+        assertTrue(meta.reset(second));
+        meta.setValue("name", "second");
+        assertTrue(first.isEmpty());
+        assertEquals("second", second.get("name"));
+    }
 }
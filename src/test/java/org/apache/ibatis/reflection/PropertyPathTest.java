@@ -0,0 +1,135 @@
+/*
+ *    Copyright 2012 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.reflection;
+
+import org.apache.ibatis.domain.misc.CustomBeanWrapperFactory;
+import org.apache.ibatis.domain.misc.RichType;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PropertyPathTest {
+
+    private final ObjectFactory objectFactory = new DefaultObjectFactory();
+
+    private final ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
+
+    @Test
+    public void shouldCacheByRootTypeAndPath() {
+        assertSame(PropertyPath.forPath(RichType.class, "richType.richField"), PropertyPath.forPath(RichType.class, "richType.richField"));
+        assertTrue(PropertyPath.isNested("richType.richField"));
+        assertTrue(PropertyPath.isNested("richList[0]"));
+        assertTrue(!PropertyPath.isNested("richField"));
+    }
+
+    @Test
+    public void shouldGetNestedValueAndStopAtNull() {
+        PropertyPath path = PropertyPath.forPath(RichType.class, "richType.richProperty");
+        RichType rich = new RichType();
+        assertNull(path.getValue(rich, objectFactory, objectWrapperFactory));
+        rich.setRichType(new RichType());
+        rich.getRichType().setRichProperty("foo");
+        assertEquals("foo", path.getValue(rich, objectFactory, objectWrapperFactory));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldGetIndexedValues() {
+        RichType rich = new RichType();
+        rich.getRichList().set(0, "first");
+        rich.getRichMap().put("key", "value");
+        assertEquals("first", PropertyPath.forPath(RichType.class, "richList[0]").getValue(rich, objectFactory, objectWrapperFactory));
+        assertEquals("value", PropertyPath.forPath(RichType.class, "richMap[key]").getValue(rich, objectFactory, objectWrapperFactory));
+        assertEquals("value", PropertyPath.forPath(RichType.class, "richMap.key").getValue(rich, objectFactory, objectWrapperFactory));
+        Map<String, Object> root = new HashMap<String, Object>();
+        root.put("rich", rich);
+        root.put("numbers", new int[] { 1, 2, 3 });
+        assertEquals("first", PropertyPath.forPath(HashMap.class, "rich.richList[0]").getValue(root, objectFactory, objectWrapperFactory));
+        assertEquals(3, PropertyPath.forPath(HashMap.class, "numbers[2]").getValue(root, objectFactory, objectWrapperFactory));
+    }
+
+    @Test
+    public void shouldInstantiateIntermediateObjectsOnlyForNonNullValues() {
+        PropertyPath path = PropertyPath.forPath(RichType.class, "richType.richType.richField");
+        RichType rich = new RichType();
+        path.setValue(rich, null, objectFactory, objectWrapperFactory);
+        assertNull(rich.getRichType());
+        path.setValue(rich, "foo", objectFactory, objectWrapperFactory);
+        assertEquals("foo", path.getValue(rich, objectFactory, objectWrapperFactory));
+        RichType child = rich.getRichType();
+        path.setValue(rich, "bar", objectFactory, objectWrapperFactory);
+        assertSame(child, rich.getRichType());
+        assertEquals("bar", path.getValue(rich, objectFactory, objectWrapperFactory));
+    }
+
+    @Test
+    public void shouldRebindWhenIntermediateTypeChanges() {
+        PropertyPath path = PropertyPath.forPath(RichType.class, "richType.richProperty");
+        RichType rich = new RichType();
+        rich.setRichType(new RichType());
+        path.setValue(rich, "plain", objectFactory, objectWrapperFactory);
+        assertEquals("plain", path.getValue(rich, objectFactory, objectWrapperFactory));
+        rich.setRichType(new RichType() {
+            @Override
+            public String getRichProperty() {
+                return "sub:" + super.getRichProperty();
+            }
+        });
+        path.setValue(rich, "value", objectFactory, objectWrapperFactory);
+        assertEquals("sub:value", path.getValue(rich, objectFactory, objectWrapperFactory));
+    }
+
+    @Test
+    public void shouldReportMissingPropertyLikeMetaObject() {
+        RichType rich = new RichType();
+        rich.setRichType(new RichType());
+        try {
+            PropertyPath.forPath(RichType.class, "richType.missing").getValue(rich, objectFactory, objectWrapperFactory);
+            fail();
+        } catch (ReflectionException e) {
+            assertTrue(e.getMessage().contains("There is no getter for property named 'missing'"));
+        }
+        try {
+            PropertyPath.forPath(RichType.class, "richType.missing").setValue(rich, "foo", objectFactory, objectWrapperFactory);
+            fail();
+        } catch (ReflectionException e) {
+            assertTrue(e.getMessage().contains("Could not set property 'missing'"));
+        }
+    }
+
+    @Test
+    public void shouldDelegateCustomWrappersToMetaObject() {
+        ObjectWrapperFactory customWrapperFactory = new CustomBeanWrapperFactory();
+        RichType rich = new RichType();
+        rich.setRichType(new RichType());
+        rich.getRichType().setRichProperty("foo");
+        MetaObject meta = MetaObject.forObject(rich, objectFactory, customWrapperFactory);
+        assertEquals("foo", meta.getValue("richType.richProperty"));
+        assertEquals("foo", PropertyPath.forPath(RichType.class, "richType.richProperty").getValue(rich, objectFactory, customWrapperFactory));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2012 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.reflection.factory;
+
+import org.apache.ibatis.reflection.ReflectionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+public class DefaultObjectFactoryTest {
+
+    @Test
+    public void shouldCreateWithPrivateDefaultConstructor() {
+        DefaultObjectFactory objectFactory = new DefaultObjectFactory();
+        for (int i = 0; i < 3; i++) {
+            Person person = objectFactory.create(Person.class);
+            Assert.assertNull(person.getName());
+        }
+    }
+
+    @Test
+    public void shouldCreateWithConstructorArgs() {
+        DefaultObjectFactory objectFactory = new DefaultObjectFactory();
+        List<Class<?>> argTypes = Arrays.<Class<?>>asList(String.class, int.class);
+        for (int i = 0; i < 3; i++) {
+            Person person = objectFactory.create(Person.class, argTypes, Arrays.<Object>asList("person" + i, i));
+            Assert.assertEquals("person" + i, person.getName());
+            Assert.assertEquals(i, person.getAge());
+        }
+        //同一个类不同的签名用不同的构造器
+        Person person = objectFactory.create(Person.class, Arrays.<Class<?>>asList(String.class), Arrays.<Object>asList("single"));
+        Assert.assertEquals("single", person.getName());
+        Assert.assertEquals(-1, person.getAge());
+    }
+
+    @Test
+    public void shouldReportMissingConstructorEveryTime() {
+        DefaultObjectFactory objectFactory = new DefaultObjectFactory();
+        for (int i = 0; i < 2; i++) {
+            try {
+                objectFactory.create(Person.class, Arrays.<Class<?>>asList(Long.class), Arrays.<Object>asList(1L));
+                Assert.fail();
+            } catch (ReflectionException e) {
+                Assert.assertTrue(e.getMessage().contains("with invalid types (Long,) or values (1,)"));
+            }
+        }
+    }
+
+    @Test
+    public void shouldResolveInterfaces() {
+        DefaultObjectFactory objectFactory = new DefaultObjectFactory();
+        Assert.assertEquals(ArrayList.class, objectFactory.create(List.class).getClass());
+        Assert.assertEquals(ArrayList.class, objectFactory.create(Collection.class).getClass());
+        Assert.assertEquals(HashMap.class, objectFactory.create(Map.class).getClass());
+        Assert.assertEquals(TreeSet.class, objectFactory.create(SortedSet.class).getClass());
+        Assert.assertTrue(objectFactory.create(Set.class).isEmpty());
+    }
+
+    public static class Person {
+
+        private final String name;
+
+        private final int age;
+
+        private Person() {
+            this(null, 0);
+        }
+
+        Person(String name) {
+            this(name, -1);
+        }
+
+        public Person(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+    }
+}
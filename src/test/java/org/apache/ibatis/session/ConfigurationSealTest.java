@@ -0,0 +1,166 @@
+package org.apache.ibatis.session;
+
+import org.apache.ibatis.builder.CacheRefResolver;
+import org.apache.ibatis.builder.IncompleteElementException;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConfigurationSealTest {
+
+    @Test
+    public void shouldSealWhenSqlSessionFactoryIsCreated() {
+        Configuration configuration = new Configuration();
+        MappedStatement ms = newMappedStatement(configuration, "com.example.PersonMapper.select");
+        configuration.addMappedStatement(ms);
+        assertFalse(configuration.isSealed());
+        new DefaultSqlSessionFactory(configuration);
+        assertTrue(configuration.isSealed());
+        assertSame(ms, configuration.getMappedStatement("com.example.PersonMapper.select"));
+        //短名称和 StrictMap 的报错在封存后保持不变
+        assertSame(ms, configuration.getMappedStatement("select"));
+        assertTrue(configuration.hasStatement("com.example.PersonMapper.select"));
+        assertFalse(configuration.hasStatement("com.example.PersonMapper.missing"));
+        try {
+            configuration.getMappedStatement("com.example.PersonMapper.missing");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("does not contain value for com.example.PersonMapper.missing"));
+        }
+    }
+
+    @Test
+    public void shouldSeeElementsRegisteredAfterSealing() {
+        Configuration configuration = new Configuration();
+        configuration.seal();
+        assertFalse(configuration.hasStatement("com.example.PersonMapper.select"));
+        MappedStatement ms = newMappedStatement(configuration, "com.example.PersonMapper.select");
+        configuration.addMappedStatement(ms);
+        assertSame(ms, configuration.getMappedStatement("com.example.PersonMapper.select"));
+
+        ResultMap resultMap = new ResultMap.Builder(configuration, "com.example.PersonMapper.person", Object.class,
+                new ArrayList<ResultMapping>()).build();
+        configuration.addResultMap(resultMap);
+        assertSame(resultMap, configuration.getResultMap("com.example.PersonMapper.person"));
+
+        PerpetualCache cache = new PerpetualCache("com.example.PersonMapper");
+        configuration.addCache(cache);
+        assertTrue(configuration.hasCache("com.example.PersonMapper"));
+        assertSame(cache, configuration.getCache("com.example.PersonMapper"));
+
+        //同名的短名称变成有歧义的
+        configuration.addMappedStatement(newMappedStatement(configuration, "com.example.OrderMapper.select"));
+        try {
+            configuration.getMappedStatement("select");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("is ambiguous"));
+        }
+    }
+
+    @Test
+    public void shouldRebuildLookupTablesOnlyWhenStatementIsExecuted() {
+        Configuration configuration = new Configuration();
+        configuration.seal();
+        assertNotNull(configuration.sealedMaps);
+        configuration.addMappedStatement(newMappedStatement(configuration, "com.example.PersonMapper.select"));
+        configuration.addCache(new PerpetualCache("com.example.PersonMapper"));
+        //注册过程中的查找不重新生成查找表
+        assertTrue(configuration.hasStatement("com.example.PersonMapper.select", false));
+        assertNotNull(configuration.getMappedStatement("com.example.PersonMapper.select", false));
+        assertTrue(configuration.hasCache("com.example.PersonMapper"));
+        assertNotNull(configuration.getCache("com.example.PersonMapper"));
+        assertFalse(configuration.hasResultMap("com.example.PersonMapper.person"));
+        assertNull(configuration.sealedMaps);
+        configuration.getMappedStatement("com.example.PersonMapper.select");
+        assertNotNull(configuration.sealedMaps);
+    }
+
+    @Test
+    public void shouldValidateIncompleteElementsAddedAfterSealing() {
+        Configuration configuration = new Configuration();
+        configuration.addMappedStatement(newMappedStatement(configuration, "com.example.PersonMapper.select"));
+        configuration.seal();
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(configuration, "PersonMapper.xml");
+        assistant.setCurrentNamespace("com.example.PersonMapper");
+        configuration.addIncompleteCacheRef(new CacheRefResolver(assistant, "com.example.MissingMapper"));
+        try {
+            configuration.getMappedStatement("com.example.PersonMapper.select");
+            fail();
+        } catch (IncompleteElementException e) {
+            assertTrue(e.getMessage().contains("com.example.MissingMapper"));
+        }
+        //不校验时仍然能查到
+        assertTrue(configuration.hasStatement("com.example.PersonMapper.select", false));
+        configuration.getIncompleteCacheRefs().clear();
+        assertTrue(configuration.hasStatement("com.example.PersonMapper.select"));
+    }
+
+    @Test
+    public void shouldRegisterConcurrently() throws Exception {
+        final Configuration configuration = new Configuration();
+        final int threads = 8;
+        final int statementsPerThread = 500;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Thread worker = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < statementsPerThread; i++) {
+                            String id = "com.example.Mapper" + thread + ".select" + i;
+                            configuration.addMappedStatement(newMappedStatement(configuration, id));
+                            configuration.getMappedStatement(id);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            worker.start();
+            workers.add(worker);
+        }
+        configuration.seal();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(new ArrayList<Throwable>(), errors);
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < statementsPerThread; i++) {
+                String id = "com.example.Mapper" + t + ".select" + i;
+                assertEquals(id, configuration.getMappedStatement(id).getId());
+            }
+        }
+    }
+
+    private static MappedStatement newMappedStatement(Configuration configuration, String id) {
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "select 1"), SqlCommandType.SELECT)
+                .resultMaps(new ArrayList<ResultMap>())
+                .build();
+    }
+}
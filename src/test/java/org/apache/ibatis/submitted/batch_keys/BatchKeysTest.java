@@ -34,9 +34,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class BatchKeysTest {
 
@@ -132,4 +136,61 @@ public class BatchKeysTest {
         Assert.assertTrue(users.size() == 2);
     }
 
+    @Test
+    public void testInsertJdbc3MultiRow() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<User> users = new ArrayList<User>();
+            users.add(new User(null, "Pocoyo"));
+            users.add(new User(null, "Valentina"));
+            users.add(new User(null, "Pato"));
+            sqlSession.insert("insertIdentityMultiRow", users);
+            assertEquals(Integer.valueOf(0), users.get(0).getId());
+            assertEquals(Integer.valueOf(1), users.get(1).getId());
+            assertEquals(Integer.valueOf(2), users.get(2).getId());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void testInsertJdbc3MultiRowInBatch() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+        try {
+            List<User> users = new ArrayList<User>();
+            users.add(new User(null, "Pocoyo"));
+            users.add(new User(null, "Valentina"));
+            User user = new User(null, "Pato");
+            sqlSession.insert("insertIdentityMultiRow", users);
+            sqlSession.insert("insertIdentity", user);
+            sqlSession.flushStatements();
+            assertEquals(Integer.valueOf(0), users.get(0).getId());
+            assertEquals(Integer.valueOf(1), users.get(1).getId());
+            assertEquals(Integer.valueOf(2), user.getId());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void testInsertJdbc3MapWithCollectionKeyIsSingleRow() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<User> users = new ArrayList<User>();
+            users.add(new User(null, "Pocoyo"));
+            Map<String, Object> parameter = new HashMap<String, Object>();
+            parameter.put("name", "Valentina");
+            parameter.put("collection", users);
+            sqlSession.insert("insertIdentity", parameter);
+            //用户自己的 Map 不是多行参数，主键回写到 Map 本身
+            assertEquals(0, parameter.get("id"));
+            assertNull(users.get(0).getId());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
 }
@@ -0,0 +1,179 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.count_query;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.plugin.SqlRecorder;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.PageList;
+import org.apache.ibatis.session.PageableSqlSession;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CountQueryTest {
+
+    private static final String COUNT_SQL = "SELECT COUNT(*)";
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/count_query/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/count_query/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+
+        SqlRecorder.clear();
+    }
+
+    @Test
+    public void shouldReturnPageWithTotal() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PageList<String> page = sqlSession.getMapper(PersonMapper.class).findNames(2, new RowBounds(1, 2));
+            Assert.assertEquals(Arrays.asList("Mary", "Paul"), page);
+            Assert.assertEquals(4, page.getTotal());
+            Assert.assertEquals("SELECT COUNT(*) FROM ( select firstname from person WHERE id >= ? ) COUNT_", SqlRecorder.getLastSql(COUNT_SQL).replaceAll("\\s+", " "));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCountThroughSqlSession() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            String statement = PersonMapper.class.getName() + ".findNames";
+            Assert.assertEquals(5, ((PageableSqlSession) sqlSession).selectCount(statement, null));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldKeepRowLimitAfterOrderBy() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PageableSqlSession pageable = (PageableSqlSession) sqlSession;
+            Assert.assertEquals(3, pageable.selectCount(PersonMapper.class.getName() + ".findFirstNames", null));
+            Assert.assertEquals("SELECT COUNT(*) FROM ( select firstname from person order by id limit 3 ) COUNT_", SqlRecorder.getLastSql(COUNT_SQL));
+            Assert.assertEquals(2, pageable.selectCount(PersonMapper.class.getName() + ".fetchFirstNames", null));
+            Assert.assertEquals("SELECT COUNT(*) FROM ( select firstname from person order by id fetch first 2 rows only ) COUNT_", SqlRecorder.getLastSql(COUNT_SQL));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCacheCountInNamespaceCache() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals(3, sqlSession.getMapper(PersonMapper.class).findNames(3, new RowBounds(0, 1)).getTotal());
+        } finally {
+            sqlSession.close();
+        }
+        sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals(3, sqlSession.getMapper(PersonMapper.class).findNames(3, new RowBounds(1, 1)).getTotal());
+            Assert.assertEquals(1, SqlRecorder.getThreads(COUNT_SQL).size());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldRunCountConcurrentlyOnAnotherConnection() {
+        sqlSessionFactory.getConfiguration().setConcurrentCountQuery(true);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PageList<String> page = sqlSession.getMapper(PersonMapper.class).findNames(null, new RowBounds(0, 2));
+            Assert.assertEquals(Arrays.asList("Jane", "John"), page);
+            Assert.assertEquals(5, page.getTotal());
+            Assert.assertEquals(1, SqlRecorder.getThreads(COUNT_SQL).size());
+            Assert.assertTrue(SqlRecorder.getThreads(COUNT_SQL).get(0).startsWith("mybatis-count-"));
+        } finally {
+            sqlSession.close();
+            sqlSessionFactory.getConfiguration().setConcurrentCountQuery(false);
+        }
+    }
+
+    @Test
+    public void shouldCountOnOwnConnectionWhenSessionIsDirty() {
+        sqlSessionFactory.getConfiguration().setConcurrentCountQuery(true);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            mapper.insert(6, "Lucy");
+            Assert.assertEquals(6, mapper.findNames(null, new RowBounds(0, 2)).getTotal());
+            Assert.assertEquals(Thread.currentThread().getName(), SqlRecorder.getThreads(COUNT_SQL).get(0));
+        } finally {
+            sqlSession.rollback();
+            sqlSession.close();
+            sqlSessionFactory.getConfiguration().setConcurrentCountQuery(false);
+        }
+    }
+
+    @Test
+    public void shouldCountOnOwnConnectionWhenCountThreadsAreBusy() throws Exception {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        configuration.setConcurrentCountQuery(true);
+        configuration.setCountQueryThreads(1);
+        configuration.shutdownCountQueryExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        //占住唯一的线程
+        configuration.getCountQueryExecutor().submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return release.await(10, TimeUnit.SECONDS);
+            }
+        });
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals(5, sqlSession.getMapper(PersonMapper.class).findNames(null, new RowBounds(0, 2)).getTotal());
+            Assert.assertEquals(Thread.currentThread().getName(), SqlRecorder.getThreads(COUNT_SQL).get(0));
+        } finally {
+            sqlSession.close();
+            release.countDown();
+            configuration.shutdownCountQueryExecutor();
+            configuration.setCountQueryThreads(4);
+            configuration.setConcurrentCountQuery(false);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.count_query;
+
+import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.PageList;
+import org.apache.ibatis.session.RowBounds;
+
+@CacheNamespace
+public interface PersonMapper {
+
+    @Select({ "<script>",
+            "select firstname from person",
+            "<where><if test='minId != null'>id &gt;= #{minId}</if></where>",
+            "order by id",
+            "</script>" })
+    PageList<String> findNames(@Param("minId") Integer minId, RowBounds rowBounds);
+
+    @Select("select firstname from person order by id limit 3")
+    PageList<String> findFirstNames(RowBounds rowBounds);
+
+    @Select("select firstname from person order by id fetch first 2 rows only")
+    PageList<String> fetchFirstNames(RowBounds rowBounds);
+
+    @Insert("insert into person(id, firstname) values (#{id}, #{firstname})")
+    void insert(@Param("id") int id, @Param("firstname") String firstname);
+}
@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.generated_mapper;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.binding.GeneratedMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Arrays;
+
+public class GeneratedMapperTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/generated_mapper/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/generated_mapper/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldReturnGeneratedImplementation() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertFalse(Proxy.isProxyClass(mapper.getClass()));
+            Assert.assertTrue(mapper instanceof GeneratedMapper);
+            Assert.assertSame(mapper.getClass(), sqlSession.getMapper(PersonMapper.class).getClass());
+            Assert.assertTrue(mapper.equals(mapper));
+            Assert.assertNotNull(mapper.toString());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldExecuteEveryKindOfMethod() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(3, mapper.count());
+            Assert.assertEquals("Jane", mapper.findById(1));
+            Assert.assertEquals(Arrays.asList("John"), mapper.findNamesAfter("Doe", 1));
+            Assert.assertEquals(Arrays.asList("John", "Mary"), mapper.findAllNames(new RowBounds(1, 2)));
+            Assert.assertNull(mapper.findMissing(99));
+            mapper.insert(4, "Paul", "Smith");
+            Assert.assertEquals(4, mapper.count());
+        } finally {
+            sqlSession.rollback();
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldFailOnlyWhenUnboundMethodIsCalled() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            try {
+                mapper.notBound();
+                Assert.fail();
+            } catch (BindingException e) {
+                Assert.assertTrue(e.getMessage().contains("notBound"));
+            }
+            Assert.assertEquals("John", mapper.findById(2));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldReuseGeneratedClassAcrossConfigurations() throws Exception {
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/generated_mapper/mybatis-config.xml");
+        SqlSessionFactory otherFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        SqlSession otherSession = otherFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            PersonMapper otherMapper = otherSession.getMapper(PersonMapper.class);
+            Assert.assertTrue(otherMapper instanceof GeneratedMapper);
+            Assert.assertSame(mapper.getClass(), otherMapper.getClass());
+            Assert.assertEquals(mapper.count(), otherMapper.count());
+        } finally {
+            otherSession.close();
+            sqlSession.close();
+        }
+    }
+}
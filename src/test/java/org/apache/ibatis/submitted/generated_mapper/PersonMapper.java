@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.generated_mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.List;
+
+public interface PersonMapper extends BaseMapper<String> {
+
+    @Select("select count(*) from person")
+    int count();
+
+    @Select("select firstname from person where lastname = #{lastname} and id > #{id} order by id")
+    List<String> findNamesAfter(@Param("lastname") String lastname, @Param("id") int id);
+
+    @Select("select firstname from person order by id")
+    List<String> findAllNames(RowBounds rowBounds);
+
+    @Insert("insert into person(id, firstname, lastname) values (#{id}, #{firstname}, #{lastname})")
+    void insert(@Param("id") int id, @Param("firstname") String firstname, @Param("lastname") String lastname);
+
+    @Select("select firstname from person where id = #{id}")
+    Integer findMissing(int id);
+
+    int notBound();
+}
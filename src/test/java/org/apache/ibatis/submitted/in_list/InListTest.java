@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.in_list;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.plugin.SqlRecorder;
+import org.apache.ibatis.session.InListStyle;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class InListTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/in_list/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/in_list/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @After
+    public void resetStyle() {
+        sqlSessionFactory.getConfiguration().setInListStyle(null);
+        sqlSessionFactory.getConfiguration().setInListChunkSize(1000);
+    }
+
+    @Test
+    public void shouldBindWholeListAsOneArrayOnHsqldb() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(Arrays.asList("John", "Paul", "Lucy"), mapper.findNames(Arrays.asList(7, 2, 4)));
+            Assert.assertEquals("select firstname from person where id IN (UNNEST(?)) order by id", SqlRecorder.getLastSql().replaceAll("\\s+", " ").trim());
+            Assert.assertEquals(Arrays.asList(1, 3), mapper.findIds(new String[] { "Mary", "Jane" }));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldFallBackToChunkedInLists() {
+        sqlSessionFactory.getConfiguration().setInListStyle(InListStyle.CHUNKED);
+        sqlSessionFactory.getConfiguration().setInListChunkSize(4);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(Arrays.asList("Jane", "John", "Mary", "Paul", "Anna", "Lucy"),
+                    mapper.findNames(Arrays.asList(1, 2, 3, 4, 5, 7)));
+            Assert.assertEquals("select firstname from person where (id IN (?, ?, ?, ?) OR id IN (?, ?)) order by id",
+                    SqlRecorder.getLastSql().replaceAll("\\s+", " ").trim());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldMatchNothingForEmptyList() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertTrue(sqlSession.getMapper(PersonMapper.class).findNames(Collections.<Integer>emptyList()).isEmpty());
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+--
+--    Copyright 2009-2016 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+drop table event if exists;
+
+create table event
+(
+    day   int,
+    seq   int,
+    title varchar(20)
+);
+
+insert into event(day, seq, title) values (1, 1, 'a');
+insert into event(day, seq, title) values (1, 2, 'b');
+insert into event(day, seq, title) values (1, 3, 'c');
+insert into event(day, seq, title) values (2, 1, 'd');
+insert into event(day, seq, title) values (2, 2, 'e');
+insert into event(day, seq, title) values (3, 1, 'f');
+insert into event(day, seq, title) values (3, 2, 'g');
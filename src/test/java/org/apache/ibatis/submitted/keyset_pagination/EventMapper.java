@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.keyset_pagination;
+
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.KeysetList;
+import org.apache.ibatis.session.KeysetPage;
+
+import java.util.List;
+
+public interface EventMapper {
+
+    @Select("select day, seq, title from event where title > #{after} order by title desc")
+    @Results({
+            @Result(id = true, column = "day", property = "day"),
+            @Result(id = true, column = "seq", property = "seq"),
+            @Result(column = "title", property = "title")
+    })
+    KeysetList<Event> findEvents(String after, KeysetPage page);
+
+    @Select("select day, seq, title from event")
+    @Results({
+            @Result(id = true, column = "day", property = "day"),
+            @Result(id = true, column = "seq", property = "seq"),
+            @Result(column = "title", property = "title")
+    })
+    List<Event> findAllEvents(KeysetPage page);
+
+    @Select("select day, seq, title from event")
+    List<Event> findEventsWithoutId(KeysetPage page);
+
+    @Select("select e.day, e.seq, e.title from event e order by e.day desc, e.seq")
+    @Results({
+            @Result(id = true, column = "day", property = "day"),
+            @Result(id = true, column = "seq", property = "seq"),
+            @Result(column = "title", property = "title")
+    })
+    List<Event> findLatestEvents(KeysetPage page);
+
+    @Select("select e.day, e.seq, e.title from event e order by e.day, e.seq limit 3")
+    @Results({
+            @Result(id = true, column = "day", property = "day"),
+            @Result(id = true, column = "seq", property = "seq"),
+            @Result(column = "title", property = "title")
+    })
+    List<Event> findFirstEvents(KeysetPage page);
+}
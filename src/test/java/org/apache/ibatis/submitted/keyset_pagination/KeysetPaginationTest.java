@@ -0,0 +1,200 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.keyset_pagination;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.plugin.SqlRecorder;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetList;
+import org.apache.ibatis.session.KeysetPage;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class KeysetPaginationTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_pagination/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_pagination/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldWalkAllPagesInKeyOrder() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            EventMapper mapper = sqlSession.getMapper(EventMapper.class);
+            List<String> titles = new ArrayList<String>();
+            KeysetPage page = KeysetPage.first(3);
+            int pages = 0;
+            while (page != null) {
+                KeysetList<Event> events = mapper.findEvents("a", page);
+                for (Event event : events) {
+                    titles.add(event.getTitle());
+                }
+                page = events.getNextPage();
+                pages++;
+            }
+            Assert.assertEquals(Arrays.asList("b", "c", "d", "e", "f", "g"), titles);
+            Assert.assertEquals(3, pages);
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldSeekPastLastKeys() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            EventMapper mapper = sqlSession.getMapper(EventMapper.class);
+            KeysetList<Event> events = mapper.findEvents("a", new KeysetPage(2, 1, 3));
+            Assert.assertEquals("select * from ( select day, seq, title from event where title > ? ) keyset_"
+                    + " where (day > ?) or (day = ? and seq > ?) order by day, seq fetch first ? rows only", SqlRecorder.getLastSql().toLowerCase());
+            Assert.assertEquals(2, events.size());
+            Assert.assertEquals("d", events.get(0).getTitle());
+            Assert.assertEquals("e", events.get(1).getTitle());
+            Assert.assertArrayEquals(new Object[] { 2, 2 }, events.getNextPage().getLastKeys());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldNotReuseCachedPageForDifferentKeys() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            EventMapper mapper = sqlSession.getMapper(EventMapper.class);
+            List<Event> first = mapper.findAllEvents(KeysetPage.first(2));
+            List<Event> second = mapper.findAllEvents(new KeysetPage(2, 1, 2));
+            Assert.assertEquals("a", first.get(0).getTitle());
+            Assert.assertEquals("c", second.get(0).getTitle());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldNotShareCacheWithRowBoundsQuery() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Event> rowBoundsPage = sqlSession.selectList(EventMapper.class.getName() + ".findEvents", "a", new RowBounds(0, 2));
+            List<Event> keysetPage = sqlSession.getMapper(EventMapper.class).findEvents("a", KeysetPage.first(2));
+            //RowBounds 按原 sql 的 title desc 排序，键集分页按 <id> 排序
+            Assert.assertEquals("g", rowBoundsPage.get(0).getTitle());
+            Assert.assertEquals("b", keysetPage.get(0).getTitle());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldStopWhenPageIsNotFull() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            EventMapper mapper = sqlSession.getMapper(EventMapper.class);
+            KeysetList<Event> events = mapper.findEvents("a", new KeysetPage(5, 3, 1));
+            Assert.assertEquals(1, events.size());
+            Assert.assertFalse(events.hasNextPage());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test(expected = PersistenceException.class)
+    public void shouldRequireIdMappings() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(EventMapper.class).findEventsWithoutId(KeysetPage.first(2));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldRejectDescendingKeys() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(EventMapper.class).findLatestEvents(KeysetPage.first(2));
+            Assert.fail();
+        } catch (PersistenceException e) {
+            Assert.assertTrue(e.getMessage().contains("orders key column day descending"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldRejectAlreadyLimitedSql() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(EventMapper.class).findFirstEvents(KeysetPage.first(2));
+            Assert.fail();
+        } catch (PersistenceException e) {
+            Assert.assertTrue(e.getMessage().contains("already limits the rows"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldRequirePaginationDialect() {
+        Configuration configuration = new Configuration(sqlSessionFactory.getConfiguration().getEnvironment()) {
+            @Override
+            public PaginationDialect getPaginationDialect() {
+                return null;
+            }
+        };
+        configuration.addMapper(EventMapper.class);
+        SqlSession sqlSession = new DefaultSqlSessionFactory(configuration).openSession();
+        try {
+            sqlSession.getMapper(EventMapper.class).findAllEvents(KeysetPage.first(2));
+            Assert.fail();
+        } catch (PersistenceException e) {
+            Assert.assertTrue(e.getMessage().contains("requires a pagination dialect"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
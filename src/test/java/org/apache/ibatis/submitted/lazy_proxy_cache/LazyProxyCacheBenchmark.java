@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.lazy_proxy_cache;
+
+import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
+import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * 比较延迟加载与立即加载映射大量行的耗时，不是单元测试，直接运行 main
+ *
+ * 立即加载的关联在本地缓存中只查一次（只有两个地址），两边的差别基本就是创建代理对象的代价
+ */
+public class LazyProxyCacheBenchmark {
+
+    /**
+     * 必须是 1000 的倍数，每 1000 行提交一批
+     */
+    private static final int ROWS = 100000;
+
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        run("javassist", LazyProxyCacheTest.newSqlSessionFactory(new JavassistProxyFactory()));
+        run("cglib", LazyProxyCacheTest.newSqlSessionFactory(new CglibProxyFactory()));
+    }
+
+    private static void run(String name, SqlSessionFactory sqlSessionFactory) throws Exception {
+        populate(sqlSessionFactory);
+        //预热
+        measure(sqlSessionFactory, true);
+        measure(sqlSessionFactory, false);
+        long lazy = 0;
+        long eager = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            lazy += measure(sqlSessionFactory, true);
+            eager += measure(sqlSessionFactory, false);
+        }
+        System.out.println(name + ": " + ROWS + " rows, lazy " + lazy / ITERATIONS / 1000000 + " ms, eager " + eager / ITERATIONS / 1000000 + " ms");
+    }
+
+    private static long measure(SqlSessionFactory sqlSessionFactory, boolean lazy) {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            long start = System.nanoTime();
+            int size = lazy ? mapper.findAllLazy().size() : mapper.findAllEager().size();
+            long elapsed = System.nanoTime() - start;
+            if (size != ROWS) {
+                throw new IllegalStateException("Expected " + ROWS + " rows but got " + size);
+            }
+            return elapsed;
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private static void populate(SqlSessionFactory sqlSessionFactory) throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Connection connection = sqlSession.getConnection();
+            connection.createStatement().execute("delete from person");
+            PreparedStatement ps = connection.prepareStatement("insert into person(id, name, address_id) values (?, ?, ?)");
+            for (int i = 1; i <= ROWS; i++) {
+                ps.setInt(1, i);
+                ps.setString(2, "name" + i);
+                ps.setInt(3, i % 2 + 1);
+                ps.addBatch();
+                if (i % 1000 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.close();
+            connection.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
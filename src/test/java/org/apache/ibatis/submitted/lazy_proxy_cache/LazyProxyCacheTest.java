@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.lazy_proxy_cache;
+
+import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
+import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+
+public class LazyProxyCacheTest {
+
+    static SqlSessionFactory newSqlSessionFactory(ProxyFactory proxyFactory) throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/lazy_proxy_cache/mybatis-config.xml");
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+        sqlSessionFactory.getConfiguration().setProxyFactory(proxyFactory);
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/lazy_proxy_cache/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+        return sqlSessionFactory;
+    }
+
+    @Test
+    public void shouldReuseJavassistProxyClass() throws Exception {
+        assertLazyLoading(newSqlSessionFactory(new JavassistProxyFactory()));
+    }
+
+    @Test
+    public void shouldReuseCglibProxyClass() throws Exception {
+        assertLazyLoading(newSqlSessionFactory(new CglibProxyFactory()));
+    }
+
+    private void assertLazyLoading(SqlSessionFactory sqlSessionFactory) {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            List<Person> persons = mapper.findAllLazy();
+            Assert.assertEquals(3, persons.size());
+            Class<?> proxyClass = persons.get(0).getClass();
+            Assert.assertNotSame(Person.class, proxyClass);
+            for (Person person : persons) {
+                Assert.assertSame(proxyClass, person.getClass());
+            }
+            Assert.assertSame(proxyClass, mapper.findAllLazy().get(0).getClass());
+            Assert.assertEquals("John", persons.get(1).getName());
+            Assert.assertEquals("High Street", persons.get(1).getAddress().getStreet());
+            Assert.assertEquals("Main Street", persons.get(2).getAddress().getStreet());
+
+            List<ImmutablePerson> immutablePersons = mapper.findAllImmutable();
+            Assert.assertSame(immutablePersons.get(0).getClass(), immutablePersons.get(2).getClass());
+            Assert.assertNotSame(ImmutablePerson.class, immutablePersons.get(0).getClass());
+            Assert.assertEquals("Mary", immutablePersons.get(2).getName());
+            Assert.assertEquals(Integer.valueOf(3), immutablePersons.get(2).getId());
+            Assert.assertEquals("Main Street", immutablePersons.get(2).getAddress().getStreet());
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
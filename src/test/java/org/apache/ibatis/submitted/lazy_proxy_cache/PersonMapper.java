@@ -0,0 +1,55 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.lazy_proxy_cache;
+
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
+import org.apache.ibatis.annotations.One;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.FetchType;
+
+import java.util.List;
+
+public interface PersonMapper {
+
+    @Select("select id, street from address where id = #{id}")
+    Address findAddress(int id);
+
+    @Select("select id, name, address_id from person order by id")
+    @Results({
+            @Result(column = "id", property = "id", id = true),
+            @Result(column = "name", property = "name"),
+            @Result(column = "address_id", property = "address", one = @One(select = "findAddress", fetchType = FetchType.LAZY)) })
+    List<Person> findAllLazy();
+
+    @Select("select id, name, address_id from person order by id")
+    @Results({
+            @Result(column = "id", property = "id", id = true),
+            @Result(column = "name", property = "name"),
+            @Result(column = "address_id", property = "address", one = @One(select = "findAddress", fetchType = FetchType.EAGER)) })
+    List<Person> findAllEager();
+
+    @Select("select id, name, address_id from person order by id")
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = Integer.class, id = true),
+            @Arg(column = "name", javaType = String.class) })
+    @Results({
+            @Result(column = "address_id", property = "address", one = @One(select = "findAddress", fetchType = FetchType.LAZY)) })
+    List<ImmutablePerson> findAllImmutable();
+}
@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.local_cache_size;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+
+public class LocalCacheSizeTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/local_cache_size/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/local_cache_size/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldResolveCircularReferencesWhenCacheIsFull() {
+        Assert.assertEquals(1, sqlSessionFactory.getConfiguration().getLocalCacheSize());
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            //容量只有 1，延迟加载要用到的结果被钉住，不会在加载前被淘汰
+            List<Person> persons = sqlSession.getMapper(PersonMapper.class).findAll();
+            Assert.assertEquals(2, persons.size());
+            for (Person person : persons) {
+                Assert.assertNotNull(person.getParent());
+                Assert.assertNotNull(person.getParent().getParent());
+                Assert.assertEquals(person.getId(), person.getParent().getParent().getId());
+            }
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedResult() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Object> first = sqlSession.selectList("findName", 1);
+            Assert.assertSame(first, sqlSession.selectList("findName", 1));
+            sqlSession.selectList("findName", 2);
+            Assert.assertNotSame(first, sqlSession.selectList("findName", 1));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldNotKeepResultsOfStatementOptedOut() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Object> first = sqlSession.selectList("findNameUncached", 1);
+            Assert.assertEquals("john", first.get(0));
+            Assert.assertNotSame(first, sqlSession.selectList("findNameUncached", 1));
+            Assert.assertFalse(sqlSessionFactory.getConfiguration().getMappedStatement("findNameUncached").isUseLocalCache());
+            Assert.assertTrue(sqlSessionFactory.getConfiguration().getMappedStatement("findName").isUseLocalCache());
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
@@ -28,5 +28,8 @@ create table person
 INSERT INTO person (id, firstName, lastName, jobTitle, department, personType, employeeType)
 VALUES (1, 'John', 'Smith', 'IT director', 'IT', 'EmployeeType', 'DirectorType');
 
+INSERT INTO person (id, firstName, lastName, jobTitle, department, personType, employeeType)
+VALUES (2, 'Jane', 'Smith', NULL, NULL, 'PersonType', NULL);
+
 INSERT INTO person (id, firstName, lastName, jobTitle, department, personType, employeeType)
 VALUES (3, 'John', 'Smith', 'IT director', 'IT', 'EmployeeType', 'PersonType');
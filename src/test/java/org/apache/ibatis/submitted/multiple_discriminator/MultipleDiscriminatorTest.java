@@ -28,6 +28,7 @@ import org.junit.Test;
 import java.io.Reader;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.List;
 
 public class MultipleDiscriminatorTest {
 
@@ -89,4 +90,20 @@ public class MultipleDiscriminatorTest {
         sqlSession.close();
 
     }
+
+    @Test
+    public void testMultipleDiscriminatorPerRow() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        PersonMapper personMapper = sqlSession.getMapper(PersonMapper.class);
+        //每一行按自己的鉴别器值选择映射，前面的行不影响后面的行
+        for (int i = 0; i < 2; i++) {
+            List<Person> persons = personMapper.getAll();
+            Assert.assertEquals(3, persons.size());
+            Assert.assertEquals(Director.class, persons.get(0).getClass());
+            Assert.assertEquals(Person.class, persons.get(1).getClass());
+            Assert.assertEquals(Employee.class, persons.get(2).getClass());
+            sqlSession.clearCache();
+        }
+        sqlSession.close();
+    }
 }
@@ -16,6 +16,8 @@
 
 package org.apache.ibatis.submitted.multiple_discriminator;
 
+import java.util.List;
+
 public interface PersonMapper {
 
     public Person get(Long id);
@@ -23,4 +25,6 @@ public interface PersonMapper {
     public Person get2(Long id);
 
     public Person getLoop();
+
+    public List<Person> getAll();
 }
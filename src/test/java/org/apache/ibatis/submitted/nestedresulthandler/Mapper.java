@@ -16,6 +16,11 @@
 
 package org.apache.ibatis.submitted.nestedresulthandler;
 
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
+
 import java.util.List;
 
 public interface Mapper {
@@ -23,4 +28,10 @@ public interface Mapper {
     List<Person> getPersons();
 
     List<Person> getPersonsWithItemsOrdered();
+
+    @Select("select p.id as person_id, p.name as person_name, i.id as item_id, i.name as item_name"
+            + " from persons p, items i where p.id = i.owner order by p.id, i.id")
+    @ResultMap("personResult")
+    @Options(resultOrdered = true)
+    void getPersonsOrderedById(ResultHandler handler);
 }
@@ -30,6 +30,8 @@ import org.junit.Test;
 
 import java.io.Reader;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class NestedResultHandlerTest {
@@ -120,6 +122,27 @@ public class NestedResultHandlerTest {
         }
     }
 
+    @Test
+    public void testGetPersonWithHandlerAnnotatedResultOrdered() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertTrue(sqlSessionFactory.getConfiguration()
+                    .getMappedStatement("org.apache.ibatis.submitted.nestedresulthandler.Mapper.getPersonsOrderedById").isResultOrdered());
+            final List<String> persons = new ArrayList<String>();
+            sqlSession.getMapper(Mapper.class).getPersonsOrderedById(new ResultHandler() {
+                @Override
+                public void handleResult(ResultContext resultContext) {
+                    //交给结果处理器时对象图已经完整
+                    Person person = (Person) resultContext.getResultObject();
+                    persons.add(person.getName() + ":" + person.getItems().size());
+                }
+            });
+            Assert.assertEquals(Arrays.asList("grandma:2", "sister:2", "brother:1"), persons);
+        } finally {
+            sqlSession.close();
+        }
+    }
+
     /**
      * Fix bug caused by issue #542, see new issue #22 on github If we order by a
      * nested result map attribute we can miss some records and end up with
@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.parameter_binder;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ParameterBinderTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parameter_binder/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parameter_binder/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldBindTheSameWayWhenStatementIsRepeated() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals("John", mapper.findNameById(2));
+                Assert.assertEquals("Mary", mapper.findNameByExample(new Person(null, "Mary", "Smith")));
+                Assert.assertEquals(Arrays.asList("John"), mapper.findNamesAfter("Doe", 1));
+                Assert.assertEquals("Jane", mapper.findNameByNestedProperty(new Person(1, null, null)));
+                Assert.assertEquals(3, mapper.countByLastname(new Person()));
+                Assert.assertEquals(1, mapper.countByLastname(new Person(null, null, "Smith")));
+            }
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldCompileBinderForStaticSql() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            mapper.findNameById(1);
+            mapper.findNameById(1);
+            MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(PersonMapper.class.getName() + ".findNameById");
+            Assert.assertNotNull(ms.getParameterBinder(ms.getBoundSql(1), 1));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldRecompileWhenParameterTypeChanges() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Map<String, Object> hashMap = new HashMap<String, Object>();
+            hashMap.put("id", 3);
+            Map<String, Object> treeMap = new TreeMap<String, Object>();
+            treeMap.put("id", 1);
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals("Mary", mapper.findNameByMap(hashMap));
+                Assert.assertEquals("Jane", mapper.findNameByMap(treeMap));
+            }
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldKeepBinderPerParameterType() {
+        MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement(PersonMapper.class.getName() + ".findNameByMap");
+        Map<String, Object> hashMap = new HashMap<String, Object>();
+        hashMap.put("id", 3);
+        Map<String, Object> treeMap = new TreeMap<String, Object>();
+        treeMap.put("id", 1);
+        ms.getParameterBinder(ms.getBoundSql(hashMap), hashMap);
+        Object hashMapBinder = ms.getParameterBinder(ms.getBoundSql(hashMap), hashMap);
+        Object treeMapBinder = ms.getParameterBinder(ms.getBoundSql(treeMap), treeMap);
+        Assert.assertNotNull(hashMapBinder);
+        Assert.assertNotNull(treeMapBinder);
+        Assert.assertNotSame(hashMapBinder, treeMapBinder);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertSame(hashMapBinder, ms.getParameterBinder(ms.getBoundSql(hashMap), hashMap));
+            Assert.assertSame(treeMapBinder, ms.getParameterBinder(ms.getBoundSql(treeMap), treeMap));
+        }
+    }
+}
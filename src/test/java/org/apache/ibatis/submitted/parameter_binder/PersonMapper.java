@@ -0,0 +1,44 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.parameter_binder;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PersonMapper {
+
+    @Select("select firstname from person where id = #{id}")
+    String findNameById(int id);
+
+    @Select("select firstname from person where firstname = #{firstname} and lastname = #{lastname}")
+    String findNameByExample(Person person);
+
+    @Select("select firstname from person where lastname = #{lastname} and id > #{id} order by id")
+    List<String> findNamesAfter(@Param("lastname") String lastname, @Param("id") int id);
+
+    @Select("select firstname from person where id = #{id}")
+    String findNameByMap(Map<String, Object> parameter);
+
+    @Select("select firstname from person where id = #{person.id}")
+    String findNameByNestedProperty(@Param("person") Person person);
+
+    @Select("select count(*) from person where lastname = #{lastname,jdbcType=VARCHAR} or #{lastname,jdbcType=VARCHAR} is null")
+    int countByLastname(Person person);
+}
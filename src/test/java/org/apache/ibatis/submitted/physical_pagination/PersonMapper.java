@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.physical_pagination;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PersonMapper {
+
+    @Select("select firstname from person order by id")
+    List<String> findNames(RowBounds rowBounds);
+
+    @Select("select firstname from person where id > #{id} order by id;")
+    List<String> findNamesAfter(int id, RowBounds rowBounds);
+
+    @Select("select id, firstname from person order by id")
+    List<Map<String, Object>> findMaps(RowBounds rowBounds);
+
+    @Select("select firstname from person order by id")
+    @Options(statementType = StatementType.STATEMENT)
+    List<String> findNamesUnprepared(RowBounds rowBounds);
+}
@@ -0,0 +1,145 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.physical_pagination;
+
+import org.apache.ibatis.executor.pagination.OracleDialect;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.plugin.SqlRecorder;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class PhysicalPaginationTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/physical_pagination/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/physical_pagination/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldPaginateInTheDatabase() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(Arrays.asList("Mary", "Paul", "Anna"), mapper.findNames(new RowBounds(2, 3)));
+            Assert.assertEquals("select firstname from person order by id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", SqlRecorder.getLastSql());
+            Assert.assertEquals(Arrays.asList("Jane", "John"), mapper.findNames(new RowBounds(0, 2)));
+            Assert.assertEquals("select firstname from person order by id FETCH FIRST ? ROWS ONLY", SqlRecorder.getLastSql());
+            Assert.assertEquals(Arrays.asList("Mark", "Lucy"), mapper.findNames(new RowBounds(5, RowBounds.NO_ROW_LIMIT)));
+            Assert.assertEquals("select firstname from person order by id OFFSET ? ROWS", SqlRecorder.getLastSql());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldAppendPageParametersAfterStatementParameters() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(Arrays.asList("Anna", "Mark"), mapper.findNamesAfter(3, new RowBounds(1, 2)));
+            Assert.assertEquals("select firstname from person where id > ? order by id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", SqlRecorder.getLastSql());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldInlinePageValuesForUnpreparedStatements() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(Arrays.asList("John", "Mary"), mapper.findNamesUnprepared(new RowBounds(1, 2)));
+            Assert.assertEquals("select firstname from person order by id OFFSET 1 ROWS FETCH NEXT 2 ROWS ONLY", SqlRecorder.getLastSql());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldNotMapOracleRowNumberColumn() throws Exception {
+        sqlSessionFactory.getConfiguration().setPaginationDialect(new OracleDialect());
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            //HSQLDB 的 Oracle 兼容模式支持 ROWNUM
+            sqlSession.getConnection().createStatement().execute("SET DATABASE SQL SYNTAX ORA TRUE");
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            List<Map<String, Object>> persons = mapper.findMaps(new RowBounds(2, 2));
+            Assert.assertTrue(SqlRecorder.getLastSql().contains("ROWNUM_"));
+            Assert.assertEquals(2, persons.size());
+            Assert.assertEquals(new HashSet<String>(Arrays.asList("ID", "FIRSTNAME")), persons.get(0).keySet());
+            Assert.assertEquals("Mary", persons.get(0).get("FIRSTNAME"));
+        } finally {
+            sqlSession.getConnection().createStatement().execute("SET DATABASE SQL SYNTAX ORA FALSE");
+            sqlSession.close();
+            sqlSessionFactory.getConfiguration().setPaginationDialect(null);
+        }
+    }
+
+    @Test
+    public void shouldLeaveUnboundedQueriesUntouched() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(7, mapper.findNames(RowBounds.DEFAULT).size());
+            Assert.assertEquals("select firstname from person order by id", SqlRecorder.getLastSql().trim());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldSkipInMemoryWhenDisabled() {
+        sqlSessionFactory.getConfiguration().setPhysicalPagination(false);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = sqlSession.getMapper(PersonMapper.class);
+            Assert.assertEquals(Arrays.asList("Mary", "Paul", "Anna"), mapper.findNames(new RowBounds(2, 3)));
+            Assert.assertEquals("select firstname from person order by id", SqlRecorder.getLastSql().trim());
+        } finally {
+            sqlSession.close();
+            sqlSessionFactory.getConfiguration().setPhysicalPagination(true);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.row_meta_object;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+
+public class RowMetaObjectTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/row_meta_object/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/row_meta_object/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Test
+    public void shouldMapEveryRowIntoItsOwnObject() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Person> persons = sqlSession.getMapper(PersonMapper.class).findAll();
+            Assert.assertEquals(3, persons.size());
+
+            Person jane = persons.get(0);
+            Assert.assertEquals(1, jane.getId());
+            Assert.assertEquals("Jane", jane.getFirstName());
+            Assert.assertEquals("Doe", jane.getLastName());
+            Assert.assertEquals("Paris", jane.getAddress().getCity());
+
+            //city 为 null 时不创建 address
+            Person john = persons.get(1);
+            Assert.assertEquals(2, john.getId());
+            Assert.assertEquals("John", john.getFirstName());
+            Assert.assertNull(john.getAddress());
+
+            //null 不会设到基本类型的属性上
+            Person mary = persons.get(2);
+            Assert.assertEquals(0, mary.getId());
+            Assert.assertEquals("Mary", mary.getFirstName());
+            Assert.assertEquals("Rome", mary.getAddress().getCity());
+            Assert.assertNotSame(jane.getAddress(), mary.getAddress());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldMapEveryRowIntoItsOwnMap() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Map<String, Object>> rows = sqlSession.getMapper(PersonMapper.class).findAllAsMaps();
+            Assert.assertEquals(3, rows.size());
+            Assert.assertEquals("Jane", rows.get(0).get("FIRSTNAME"));
+            Assert.assertEquals("Paris", rows.get(0).get("CITY"));
+            Assert.assertEquals("John", rows.get(1).get("FIRSTNAME"));
+            Assert.assertFalse(rows.get(1).containsKey("CITY"));
+            Assert.assertEquals("Mary", rows.get(2).get("FIRSTNAME"));
+            Assert.assertEquals("Rome", rows.get(2).get("CITY"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
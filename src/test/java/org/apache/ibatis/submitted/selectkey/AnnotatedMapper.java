@@ -22,6 +22,7 @@ import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.SelectKey;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.KeyAllocationStrategy;
 
 import java.util.List;
 import java.util.Map;
@@ -67,6 +68,11 @@ public interface AnnotatedMapper {
     @SelectKey(statement = "call next value for TestSequence", keyProperty = "nameId", before = true, resultType = int.class)
     int insertTable3_2(Name name);
 
+    @Insert("insert into table3 (id, name) values(#{nameId}, #{name})")
+    @SelectKey(statement = "call next value for TestHiLoSequence", keyProperty = "nameId", before = true, resultType = int.class,
+            allocationSize = 5, allocationStrategy = KeyAllocationStrategy.HILO)
+    int insertTable3HiLo(Name name);
+
     @Update("update table2 set name = #{name} where id = #{nameId}")
     @Options(useGeneratedKeys = true, keyProperty = "generatedName")
     int updateTable2WithGeneratedKey(Name name);
@@ -3,6 +3,8 @@ sequence if exists TestSequence;
 drop table if exists table1;
 drop table if exists table2;
 drop table if exists table3;
+drop sequence if exists TestPooledSequence;
+drop sequence if exists TestHiLoSequence;
 
 create table table1
 (
@@ -26,3 +28,7 @@ create table table3
     id   int not null,
     name varchar(20)
 );
+
+create sequence TestPooledSequence as integer start with 100 increment by 10;
+
+create sequence TestHiLoSequence as integer start with 1;
@@ -3,6 +3,7 @@ package org.apache.ibatis.submitted.selectkey;
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -13,6 +14,8 @@ import org.junit.Test;
 import java.io.Reader;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -460,4 +463,76 @@ public class SelectKeyTest {
             sqlSession.close();
         }
     }
+
+    @Test
+    public void testInsertTable3WithPooledSelectKeyInBatch() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+        try {
+            List<Name> names = new ArrayList<Name>();
+            for (int i = 0; i < 3; i++) {
+                Name name = new Name();
+                name.setName("barney" + i);
+                sqlSession.insert("org.apache.ibatis.submitted.selectkey.Table1.insertTable3Pooled", name);
+                names.add(name);
+            }
+            sqlSession.flushStatements();
+            assertEquals(100, names.get(0).getNameId());
+            assertEquals(101, names.get(1).getNameId());
+            assertEquals(102, names.get(2).getNameId());
+            // the sequence was only called once
+            assertEquals(110, nextSequenceValue(sqlSession, "TestPooledSequence"));
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void testInsertTable3WithPooledSelectKeyMultiRow() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            List<Name> names = new ArrayList<Name>();
+            for (int i = 0; i < 2; i++) {
+                Name name = new Name();
+                name.setName("barney" + i);
+                names.add(name);
+            }
+            int rows = sqlSession.insert("org.apache.ibatis.submitted.selectkey.Table1.insertTable3PooledMultiRow", names);
+            assertEquals(2, rows);
+            assertEquals(100, names.get(0).getNameId());
+            assertEquals(101, names.get(1).getNameId());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void testAnnotatedInsertTable3WithHiLoSelectKey() throws Exception {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            AnnotatedMapper mapper = sqlSession.getMapper(AnnotatedMapper.class);
+            int[] expected = { 5, 6, 7, 8, 9, 10 };
+            for (int id : expected) {
+                Name name = new Name();
+                name.setName("barney");
+                assertEquals(1, mapper.insertTable3HiLo(name));
+                assertEquals(id, name.getNameId());
+            }
+            // hi values 1 and 2 were used
+            assertEquals(3, nextSequenceValue(sqlSession, "TestHiLoSequence"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private int nextSequenceValue(SqlSession sqlSession, String sequence) throws Exception {
+        Statement stmt = sqlSession.getConnection().createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery("call next value for " + sequence);
+            rs.next();
+            return rs.getInt(1);
+        } finally {
+            stmt.close();
+        }
+    }
 }
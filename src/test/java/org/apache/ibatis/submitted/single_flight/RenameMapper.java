@@ -0,0 +1,30 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.single_flight;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 没有二级缓存、也不刷新缓存的写操作
+ */
+public interface RenameMapper {
+
+    @Update("update person set firstname = #{firstname} where id = 1")
+    @Options(flushCache = false)
+    void renameFirst(String firstname);
+}
@@ -0,0 +1,189 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.single_flight;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SingleFlightTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/single_flight/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+        sqlSessionFactory.getConfiguration().addMapper(RenameMapper.class);
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/single_flight/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+
+        QueryCounter.QUERIES.set(0);
+        QueryCounter.delay = 300;
+    }
+
+    @Test
+    public void shouldShareOneQueryBetweenConcurrentMisses() throws Exception {
+        final int threads = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws Exception {
+                        start.await();
+                        return findNames();
+                    }
+                }));
+            }
+            start.countDown();
+            List<List<String>> lists = new ArrayList<List<String>>();
+            for (Future<List<String>> result : results) {
+                lists.add(result.get(10, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, QueryCounter.QUERIES.get());
+            for (List<String> list : lists) {
+                Assert.assertEquals(Arrays.asList("Jane", "John"), list);
+            }
+            //可读写的缓存，每个线程拿到的都是自己的副本
+            Assert.assertNotSame(lists.get(0), lists.get(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotWaitForTheLeaderTransactionToEnd() throws Exception {
+        SqlSession leader = sqlSessionFactory.openSession();
+        try {
+            leader.getMapper(PersonMapper.class).findNames();
+            //leader 的会话还没有提交，结果还没进入二级缓存，其他会话也不会被阻塞
+            QueryCounter.delay = 0;
+            Assert.assertEquals(Arrays.asList("Jane", "John"), findNames());
+            Assert.assertEquals(2, QueryCounter.QUERIES.get());
+        } finally {
+            leader.close();
+        }
+    }
+
+    @Test
+    public void shouldNotShareUncommittedWrites() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SqlSession writer = sqlSessionFactory.openSession();
+        try {
+            PersonMapper mapper = writer.getMapper(PersonMapper.class);
+            mapper.renameFirst("Joan");
+            //在 writer 查询的过程中发起同样的查询，不能拿到 writer 未提交的数据
+            Future<List<String>> reader = executor.submit(new Callable<List<String>>() {
+                @Override
+                public List<String> call() throws Exception {
+                    Thread.sleep(100);
+                    return findNames();
+                }
+            });
+            Assert.assertEquals(Arrays.asList("Joan", "John"), mapper.findNames());
+            writer.rollback();
+            Assert.assertEquals(Arrays.asList("Jane", "John"), reader.get(10, TimeUnit.SECONDS));
+        } finally {
+            writer.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotShareUncommittedWritesThroughOtherNamespaces() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SqlSession writer = sqlSessionFactory.openSession();
+        try {
+            //写的是另一个 namespace，没有失效 PersonMapper 的缓存
+            writer.getMapper(RenameMapper.class).renameFirst("Joan");
+            Future<List<String>> reader = executor.submit(new Callable<List<String>>() {
+                @Override
+                public List<String> call() throws Exception {
+                    Thread.sleep(100);
+                    return findNames();
+                }
+            });
+            Assert.assertEquals(Arrays.asList("Joan", "John"), writer.getMapper(PersonMapper.class).findNames());
+            writer.rollback();
+            Assert.assertEquals(Arrays.asList("Jane", "John"), reader.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals(2, QueryCounter.QUERIES.get());
+        } finally {
+            writer.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldStopWaitingAfterSingleFlightTimeout() throws Exception {
+        sqlSessionFactory.getConfiguration().setSingleFlightTimeout(50);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<String>> leader = executor.submit(new Callable<List<String>>() {
+                @Override
+                public List<String> call() throws Exception {
+                    return findNames();
+                }
+            });
+            Thread.sleep(100);
+            //leader 还要查 200 毫秒，等 50 毫秒后自己查
+            Assert.assertEquals(Arrays.asList("Jane", "John"), findNames());
+            Assert.assertEquals(Arrays.asList("Jane", "John"), leader.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals(2, QueryCounter.QUERIES.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<String> findNames() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            return sqlSession.getMapper(PersonMapper.class).findNames();
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
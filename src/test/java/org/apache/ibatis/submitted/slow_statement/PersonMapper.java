@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.slow_statement;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PersonMapper {
+
+    String findName(Integer id);
+
+    List<String> findNames();
+
+    int updateName(@Param("id") Integer id, @Param("name") String name);
+
+    int insertPerson(Map<String, Object> person);
+
+    String findByDivisor(Integer divisor);
+
+    @Select("select count(*) from person where name = #{name}")
+    @Options(slowThreshold = 0)
+    int countByName(String name);
+}
@@ -0,0 +1,205 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.slow_statement;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SlowStatementTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private final Logger logger = Logger.getLogger(PersonMapper.class.getName());
+
+    private final RecordingAppender appender = new RecordingAppender();
+
+    private Level level;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/slow_statement/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/slow_statement/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+    }
+
+    @Before
+    public void addAppender() {
+        level = logger.getLevel();
+        logger.setLevel(Level.WARN);
+        logger.setAdditivity(false);
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void removeAppender() {
+        logger.removeAppender(appender);
+        logger.setAdditivity(true);
+        logger.setLevel(level);
+    }
+
+    @Test
+    public void shouldLogQueryOverStatementThreshold() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals("jane", sqlSession.getMapper(PersonMapper.class).findName(2));
+            Assert.assertEquals(1, appender.messages.size());
+            String message = appender.messages.get(0);
+            Assert.assertTrue(message, message.startsWith("Slow statement: "));
+            Assert.assertTrue(message, message.contains(", rows: 1) SQL: select name from person where id = ? Parameters: 2(Integer)"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldLogUpdateOverStatementThreshold() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals(1, sqlSession.getMapper(PersonMapper.class).updateName(1, "johnny"));
+            Assert.assertEquals(1, appender.messages.size());
+            Assert.assertTrue(appender.messages.get(0), appender.messages.get(0).endsWith(", rows: 1) SQL: update person set name = ? where id = ? Parameters: johnny(String), 1(Integer)"));
+        } finally {
+            sqlSession.rollback();
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldLogAnnotatedStatementOverThreshold() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals(1, sqlSession.getMapper(PersonMapper.class).countByName("john"));
+            Assert.assertEquals(1, appender.messages.size());
+            Assert.assertTrue(appender.messages.get(0), appender.messages.get(0).endsWith(" Parameters: john(String)"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldLogParametersAsBoundBeforeKeyIsWrittenBack() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Map<String, Object> person = new HashMap<String, Object>();
+            person.put("id", null);
+            person.put("name", "anna");
+            Assert.assertEquals(1, sqlSession.getMapper(PersonMapper.class).insertPerson(person));
+            Assert.assertEquals(3, person.get("id"));
+            Assert.assertEquals(1, appender.messages.size());
+            Assert.assertTrue(appender.messages.get(0), appender.messages.get(0).endsWith(" Parameters: null, anna(String)"));
+        } finally {
+            sqlSession.rollback();
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldLogFailedStatement() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(PersonMapper.class).findByDivisor(0);
+            Assert.fail();
+        } catch (PersistenceException e) {
+            Assert.assertEquals(1, appender.messages.size());
+            Assert.assertTrue(appender.messages.get(0), appender.messages.get(0).endsWith(
+                    " (failed) SQL: select name from person where id = 1 / ? Parameters: 0(Integer)"));
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    @Test
+    public void shouldUseNamespaceThreshold() {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        String findNames = PersonMapper.class.getName() + ".findNames";
+        Assert.assertEquals(Integer.valueOf(30000), configuration.getSlowStatementThreshold(findNames));
+        configuration.setSlowStatementThreshold(PersonMapper.class.getName(), 0);
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals(2, sqlSession.getMapper(PersonMapper.class).findNames().size());
+            Assert.assertEquals(1, appender.messages.size());
+            Assert.assertTrue(appender.messages.get(0), appender.messages.get(0).contains(", rows: 2) SQL: select name from person order by id"));
+        } finally {
+            sqlSession.close();
+            configuration.setSlowStatementThreshold(PersonMapper.class.getName(), 30000);
+        }
+    }
+
+    @Test
+    public void shouldNotLogStatementUnderGlobalThreshold() {
+        Assert.assertEquals(Integer.valueOf(60000), sqlSessionFactory.getConfiguration().getSlowStatementThreshold());
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            Assert.assertEquals(2, sqlSession.getMapper(PersonMapper.class).findNames().size());
+            Assert.assertTrue(appender.messages.isEmpty());
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private static class RecordingAppender extends AppenderSkeleton {
+
+        private final List<String> messages = new ArrayList<String>();
+
+        @Override
+        protected void append(LoggingEvent event) {
+            messages.add(event.getRenderedMessage());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.table_invalidation;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.annotations.UpdateProvider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 没有二级缓存的 namespace，写表时也要失效其他 namespace 中按表失效的缓存
+ */
+public interface PersonWriterMapper {
+
+    @Update("update person set firstname = #{firstname} where id = #{id}")
+    void rename(@Param("id") int id, @Param("firstname") String firstname);
+
+    @Options(tables = "person", flushCache = true)
+    @Update("update person set firstname = #{firstname} where id in (select owner_id from pet where name = #{pet})")
+    void renameOwnerOf(@Param("pet") String pet, @Param("firstname") String firstname);
+
+    @Update("call 1")
+    void callProcedure();
+
+    @UpdateProvider(type = SqlProvider.class, method = "renameFirst")
+    void renameFirst(String firstname);
+
+    /**
+     * 记录 sql 生成的次数
+     */
+    class SqlProvider {
+
+        static final AtomicInteger CALLS = new AtomicInteger();
+
+        public String renameFirst() {
+            CALLS.incrementAndGet();
+            return "update person set firstname = #{firstname} where id = 1";
+        }
+    }
+}
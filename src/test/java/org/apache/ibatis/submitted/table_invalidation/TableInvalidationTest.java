@@ -0,0 +1,197 @@
+/*
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.apache.ibatis.submitted.table_invalidation;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+
+public class TableInvalidationTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // create a SqlSessionFactory
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/table_invalidation/mybatis-config.xml");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        reader.close();
+    }
+
+    @Before
+    public void resetDatabase() throws Exception {
+        // populate in-memory database
+        SqlSession session = sqlSessionFactory.openSession();
+        Connection conn = session.getConnection();
+        Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/table_invalidation/CreateDB.sql");
+        ScriptRunner runner = new ScriptRunner(conn);
+        runner.setLogWriter(null);
+        runner.runScript(reader);
+        reader.close();
+        session.close();
+
+        //每个用例都从空的二级缓存开始
+        for (Cache cache : sqlSessionFactory.getConfiguration().getCacheMap()) {
+            cache.clear();
+        }
+    }
+
+    @Test
+    public void shouldKeepEntriesOfUnrelatedTables() {
+        List<String> names = findNames();
+        List<String> petOwners = findPetOwners();
+
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(PetMapper.class).insertPet(2, "Tom", 2);
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+
+        Assert.assertSame(names, findNames());
+        Assert.assertNotSame(petOwners, findPetOwners());
+        Assert.assertEquals(Arrays.asList("Jane", "John"), findPetOwners());
+    }
+
+    @Test
+    public void shouldInvalidateOtherNamespacesWritingSameTable() {
+        List<String> names = findNames();
+        List<String> petNames = findPetNames();
+
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(PersonWriterMapper.class).rename(2, "Jack");
+            //提交之前本事务也不能再读到旧数据
+            Assert.assertEquals(Arrays.asList("Jane", "Jack"), sqlSession.getMapper(PersonMapper.class).findNames());
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+
+        Assert.assertEquals(Arrays.asList("Jane", "Jack"), findNames());
+        Assert.assertNotSame(names, findNames());
+        Assert.assertSame(petNames, findPetNames());
+    }
+
+    @Test
+    public void shouldUseDeclaredTables() {
+        List<String> names = findNames();
+        List<String> petNames = findPetNames();
+
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(PersonWriterMapper.class).renameOwnerOf("Rex", "Joan");
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+
+        Assert.assertEquals(Arrays.asList("Joan", "John"), findNames());
+        Assert.assertNotSame(names, findNames());
+        Assert.assertSame(petNames, findPetNames());
+    }
+
+    @Test
+    public void shouldClearAllTableCachesWhenTablesAreUnknown() {
+        List<String> names = findNames();
+        List<String> petNames = findPetNames();
+
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(PersonWriterMapper.class).callProcedure();
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+
+        Assert.assertNotSame(names, findNames());
+        Assert.assertNotSame(petNames, findPetNames());
+    }
+
+    @Test
+    public void shouldGenerateSqlOnceForUpdate() {
+        List<String> names = findNames();
+        PersonWriterMapper.SqlProvider.CALLS.set(0);
+
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(PersonWriterMapper.class).renameFirst("Joan");
+            sqlSession.commit();
+        } finally {
+            sqlSession.close();
+        }
+
+        Assert.assertEquals(1, PersonWriterMapper.SqlProvider.CALLS.get());
+        Assert.assertNotSame(names, findNames());
+        Assert.assertEquals(Arrays.asList("Joan", "John"), findNames());
+    }
+
+    @Test
+    public void shouldKeepEntriesWhenWriteIsRolledBack() {
+        List<String> names = findNames();
+
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            sqlSession.getMapper(PersonWriterMapper.class).rename(2, "Jack");
+            sqlSession.rollback();
+        } finally {
+            sqlSession.close();
+        }
+
+        Assert.assertSame(names, findNames());
+    }
+
+    private List<String> findNames() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            return sqlSession.getMapper(PersonMapper.class).findNames();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private List<String> findPetOwners() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            return sqlSession.getMapper(PersonMapper.class).findPetOwners();
+        } finally {
+            sqlSession.close();
+        }
+    }
+
+    private List<String> findPetNames() {
+        SqlSession sqlSession = sqlSessionFactory.openSession();
+        try {
+            return sqlSession.getMapper(PetMapper.class).findPetNames();
+        } finally {
+            sqlSession.close();
+        }
+    }
+}
@@ -120,4 +120,37 @@ public class TypeHandlerRegistryTest {
         assertSame(IntegerTypeHandler.class, typeHandlerRegistry.getTypeHandler(Integer.class).getClass());
         typeHandlerRegistry.register(Integer.class, IntegerTypeHandler.class);
     }
+
+    enum MyEnum {
+        ONE, TWO
+    }
+
+    @Test
+    public void shouldReuseEnumTypeHandlerForUnregisteredEnum() {
+        TypeHandler<MyEnum> handler = typeHandlerRegistry.getTypeHandler(MyEnum.class);
+        assertTrue(handler instanceof EnumTypeHandler);
+        assertSame(handler, typeHandlerRegistry.getTypeHandler(MyEnum.class));
+        assertSame(handler, typeHandlerRegistry.getTypeHandler(MyEnum.class, JdbcType.VARCHAR));
+    }
+
+    @Test
+    public void shouldDiscardResolvedHandlersWhenRegistering() {
+        assertFalse(typeHandlerRegistry.hasTypeHandler(RichType.class));
+        typeHandlerRegistry.register(RichType.class, ObjectTypeHandler.class);
+        assertTrue(typeHandlerRegistry.hasTypeHandler(RichType.class));
+
+        assertTrue(typeHandlerRegistry.getTypeHandler(MyEnum.class) instanceof EnumTypeHandler);
+        typeHandlerRegistry.register(MyEnum.class, EnumOrdinalTypeHandler.class);
+        assertTrue(typeHandlerRegistry.getTypeHandler(MyEnum.class) instanceof EnumOrdinalTypeHandler);
+    }
+
+    @Test
+    public void shouldResolveAndShareColumnTypeHandlers() {
+        TypeHandler<?> handler = typeHandlerRegistry.getColumnTypeHandler("java.lang.Integer", JdbcType.INTEGER);
+        assertTrue(handler instanceof IntegerTypeHandler);
+        assertSame(handler, typeHandlerRegistry.getColumnTypeHandler("java.lang.Integer", JdbcType.INTEGER));
+        assertTrue(typeHandlerRegistry.getColumnTypeHandler("no.such.Type", JdbcType.VARCHAR) instanceof StringTypeHandler);
+        assertTrue(typeHandlerRegistry.getColumnTypeHandler(null, null) instanceof ObjectTypeHandler);
+        assertTrue(typeHandlerRegistry.getColumnTypeHandler("java.lang.Object", JdbcType.OTHER) instanceof ObjectTypeHandler);
+    }
 }